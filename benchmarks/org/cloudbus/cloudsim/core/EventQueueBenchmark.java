@@ -0,0 +1,147 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
+import org.fog.benchmark.Benchmark;
+
+/**
+ * Benchmarks of the future event queue implementations. The queue is filled with <tt>size</tt>
+ * events spread over a hundred sources and a few tags, with times rounded so that several events
+ * share a timestamp as in the fog simulations.
+ *
+ * @see EventQueue
+ */
+public abstract class EventQueueBenchmark extends Benchmark {
+
+	/** Number of queue operations of one invocation. */
+	protected static final int BATCH = 1024;
+
+	protected static final int SOURCES = 100;
+
+	protected static final int TAGS = 4;
+
+	/** The queue used by {@link CloudSim}: a {@link HeapEventQueue} indexed by source and tag. */
+	public static final EventQueueFactory INDEXED_HEAP = () -> new IndexedEventQueue(new HeapEventQueue());
+
+	protected final EventQueueFactory factory;
+
+	protected EventQueue queue;
+
+	protected Random random;
+
+	protected double now;
+
+	protected EventQueueBenchmark(String name, EventQueueFactory factory) {
+		super(name);
+		this.factory = factory;
+	}
+
+	@Override
+	public String getParamName() {
+		return "events";
+	}
+
+	@Override
+	public int[] getDefaultParams() {
+		return new int[] {1000, 100000};
+	}
+
+	@Override
+	public int getOperationsPerInvocation() {
+		return BATCH;
+	}
+
+	@Override
+	public TimeUnit getTimeUnit() {
+		return TimeUnit.NANOSECONDS;
+	}
+
+	@Override
+	public void setUp(int size) {
+		queue = factory.createEventQueue();
+		random = new Random(42);
+		now = 0;
+		for (int i = 0; i < size; i++) {
+			queue.addEvent(newEvent());
+		}
+	}
+
+	@Override
+	public void tearDown() {
+		queue.clear();
+		queue = null;
+	}
+
+	protected SimEvent newEvent() {
+		double time = now + Math.floor(random.nextDouble() * 1000) / 10;
+		int src = random.nextInt(SOURCES);
+		return new SimEvent(SimEvent.SEND, time, src, (src + 1) % SOURCES, random.nextInt(TAGS), null);
+	}
+
+	/**
+	 * The hold model: the earliest event is removed and a new one is scheduled after it, so the
+	 * queue keeps its size while the simulation time advances.
+	 */
+	public static class Hold extends EventQueueBenchmark {
+
+		public Hold(String queueName, EventQueueFactory factory) {
+			super("EventQueue.addPoll:" + queueName, factory);
+		}
+
+		@Override
+		public Object invoke() {
+			SimEvent event = null;
+			for (int i = 0; i < BATCH; i++) {
+				event = queue.poll();
+				now = event.eventTime();
+				queue.addEvent(newEvent());
+			}
+			return event;
+		}
+	}
+
+	/**
+	 * Cancellation of the first event of a source with a given tag, as done by
+	 * {@link CloudSim#cancel(int, org.cloudbus.cloudsim.core.predicates.Predicate)}, followed by the
+	 * scheduling of a replacement event.
+	 */
+	public static class Cancel extends EventQueueBenchmark {
+
+		private final PredicateType[] predicates = new PredicateType[TAGS];
+
+		public Cancel(String queueName, EventQueueFactory factory) {
+			super("EventQueue.cancel:" + queueName, factory);
+			for (int tag = 0; tag < TAGS; tag++) {
+				predicates[tag] = new PredicateType(tag);
+			}
+		}
+
+		@Override
+		public int getOperationsPerInvocation() {
+			return BATCH / 16;
+		}
+
+		@Override
+		public Object invoke() {
+			SimEvent event = null;
+			for (int i = 0; i < BATCH / 16; i++) {
+				event = queue.removeFirst(random.nextInt(SOURCES), predicates[random.nextInt(TAGS)]);
+				if (event != null) {
+					queue.addEvent(newEvent());
+				}
+			}
+			return event;
+		}
+	}
+
+}
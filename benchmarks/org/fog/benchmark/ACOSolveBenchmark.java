@@ -0,0 +1,80 @@
+package org.fog.benchmark;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.fog.aco3.FinalACOEnvironment;
+import org.fog.aco3.FinalACOProblemSolver;
+import org.fog.application.Application;
+import org.fog.entities.Actuator;
+import org.fog.entities.FogDevice;
+import org.fog.entities.Sensor;
+import org.fog.placement.ACOPlacementLogic;
+
+/**
+ * A full {@link FinalACOProblemSolver#solveProblem()} run of the ACO placement, with the solver
+ * configured by {@link ACOPlacementLogic#createSolver(FinalACOEnvironment)}, placing a 20 module
+ * chain application on a synthetic topology of at least 22 devices. Environment and solver are rebuilt before every
+ * invocation, outside of the measurement. The parallel variant builds the solutions of the ants
+ * on the common fork-join pool.
+ */
+public class ACOSolveBenchmark extends Benchmark {
+	private static final int MODULES = 20;
+	// the solutions of the ants have a component per device besides the cloud and the mobile, one more than the modules
+	private static final int MIN_DEVICES = MODULES + 2;
+
+	private final boolean parallel;
+
+	private BenchmarkTopology topology;
+	private Application application;
+	private FinalACOProblemSolver<FogDevice, FinalACOEnvironment> solver;
+
+	public ACOSolveBenchmark(boolean parallel) {
+		super("FinalACOProblemSolver.solveProblem:" + (parallel ? "parallel" : "sequential"));
+		this.parallel = parallel;
+	}
+
+	@Override
+	public String getParamName() {
+		return "devices";
+	}
+
+	@Override
+	public int[] getDefaultParams() {
+		return new int[] {50, 200};
+	}
+
+	@Override
+	public TimeUnit getTimeUnit() {
+		return TimeUnit.MILLISECONDS;
+	}
+
+	@Override
+	public void setUp(int devices) {
+		if (devices < MIN_DEVICES)
+			throw new IllegalArgumentException("Placing " + MODULES + " modules needs at least " + MIN_DEVICES + " devices, not " + devices);
+		CloudSim.init(1, Calendar.getInstance(), false);
+		topology = BenchmarkTopology.create(devices, true);
+		application = BenchmarkTopology.createApplication("app", 1, MODULES);
+	}
+
+	@Override
+	public void setUpInvocation() throws Exception {
+		List<FogDevice> devices = new ArrayList<FogDevice>(topology.fogDevices);
+		devices.remove(0);
+		FinalACOEnvironment environment = new FinalACOEnvironment(new double[1][1], devices,
+				new ArrayList<Sensor>(), new ArrayList<Actuator>(), application, topology.locator);
+		solver = ACOPlacementLogic.createSolver(environment);
+		solver.setPool(parallel ? ForkJoinPool.commonPool() : null);
+	}
+
+	@Override
+	public Object invoke() throws Exception {
+		solver.solveProblem();
+		return solver.getBestSolution();
+	}
+}
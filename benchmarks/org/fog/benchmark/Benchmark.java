@@ -0,0 +1,66 @@
+package org.fog.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A microbenchmark run by {@link BenchmarkRunner}. The lifecycle follows the JMH one: a trial is
+ * set up once per parameter value, then {@link #invoke()} is called repeatedly during the warmup
+ * and measurement iterations. Only {@link #invoke()} is timed; the per invocation hooks can be used
+ * to restore a state that the invocation consumed.
+ */
+public abstract class Benchmark {
+	private final String name;
+
+	protected Benchmark(String name) {
+		this.name = name;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Name of the parameter the benchmark is scaled with, reported in the results.
+	 */
+	public String getParamName() {
+		return "size";
+	}
+
+	/**
+	 * Parameter values used when none are given on the command line.
+	 */
+	public abstract int[] getDefaultParams();
+
+	/**
+	 * Number of operations done by one call of {@link #invoke()}; scores are reported per operation.
+	 */
+	public int getOperationsPerInvocation() {
+		return 1;
+	}
+
+	public TimeUnit getTimeUnit() {
+		return TimeUnit.MICROSECONDS;
+	}
+
+	/**
+	 * Prepares a trial.
+	 *
+	 * @param param value of the benchmark parameter
+	 */
+	public abstract void setUp(int param) throws Exception;
+
+	public void setUpInvocation() throws Exception {
+	}
+
+	/**
+	 * The measured code. The returned value is consumed by the runner so that the computation
+	 * cannot be optimised away.
+	 */
+	public abstract Object invoke() throws Exception;
+
+	public void tearDownInvocation() throws Exception {
+	}
+
+	public void tearDown() throws Exception {
+	}
+}
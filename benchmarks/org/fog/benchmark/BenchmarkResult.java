@@ -0,0 +1,165 @@
+package org.fog.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.math3.distribution.TDistribution;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+/**
+ * Average time per operation of one benchmark for one parameter value. The error is the half width
+ * of the 99.9% confidence interval, computed the way JMH does, and {@link #toJSON()} produces the
+ * JMH result format so that the usual JMH result tooling can read the output. The bytes allocated
+ * per operation, when measured, are reported as the <tt>gc.alloc.rate.norm</tt> secondary metric
+ * of the JMH gc profiler.
+ */
+public class BenchmarkResult {
+	private final String benchmark;
+	private final String paramName;
+	private final int param;
+	private final TimeUnit timeUnit;
+	private final int warmupIterations;
+	private final double warmupTime;
+	private final double measurementTime;
+	private final double[] scores;
+	private final double[] allocations;
+
+	public BenchmarkResult(String benchmark, String paramName, int param, TimeUnit timeUnit,
+			int warmupIterations, double warmupTime, double measurementTime, double[] scores) {
+		this(benchmark, paramName, param, timeUnit, warmupIterations, warmupTime, measurementTime, scores, null);
+	}
+
+	/**
+	 * @param allocations bytes allocated per operation in each measurement iteration, null if not
+	 *            measured
+	 */
+	public BenchmarkResult(String benchmark, String paramName, int param, TimeUnit timeUnit,
+			int warmupIterations, double warmupTime, double measurementTime, double[] scores, double[] allocations) {
+		this.benchmark = benchmark;
+		this.paramName = paramName;
+		this.param = param;
+		this.timeUnit = timeUnit;
+		this.warmupIterations = warmupIterations;
+		this.warmupTime = warmupTime;
+		this.measurementTime = measurementTime;
+		this.scores = scores;
+		this.allocations = allocations;
+	}
+
+	public String getBenchmark() {
+		return benchmark;
+	}
+
+	public int getParam() {
+		return param;
+	}
+
+	public double getScore() {
+		return mean(scores);
+	}
+
+	public double getScoreError() {
+		return error(scores);
+	}
+
+	/**
+	 * @return the average bytes allocated per operation, NaN if not measured
+	 */
+	public double getAllocation() {
+		return allocations == null ? Double.NaN : mean(allocations);
+	}
+
+	private static double mean(double[] values) {
+		double sum = 0;
+		for (double value : values)
+			sum += value;
+		return sum / values.length;
+	}
+
+	private static double error(double[] values) {
+		if (values.length < 2)
+			return Double.NaN;
+		double mean = mean(values);
+		double squares = 0;
+		for (double value : values)
+			squares += (value - mean) * (value - mean);
+		double deviation = Math.sqrt(squares / (values.length - 1));
+		double t = new TDistribution(values.length - 1).inverseCumulativeProbability(1 - 0.001 / 2);
+		return t * deviation / Math.sqrt(values.length);
+	}
+
+	public String getScoreUnit() {
+		return unitName(timeUnit) + "/op";
+	}
+
+	@SuppressWarnings("unchecked")
+	public JSONObject toJSON() {
+		JSONObject result = new JSONObject();
+		result.put("benchmark", benchmark);
+		result.put("mode", "avgt");
+		result.put("threads", 1);
+		result.put("forks", 0);
+		result.put("jvm", System.getProperty("java.home"));
+		result.put("jdkVersion", System.getProperty("java.version"));
+		result.put("vmName", System.getProperty("java.vm.name"));
+		result.put("warmupIterations", warmupIterations);
+		result.put("warmupTime", warmupTime + " s");
+		result.put("measurementIterations", scores.length);
+		result.put("measurementTime", measurementTime + " s");
+
+		JSONObject params = new JSONObject();
+		params.put(paramName, String.valueOf(param));
+		result.put("params", params);
+
+		result.put("primaryMetric", toJSON(scores, getScoreUnit()));
+		JSONObject secondaryMetrics = new JSONObject();
+		if (allocations != null)
+			secondaryMetrics.put("\u00b7gc.alloc.rate.norm", toJSON(allocations, "B/op"));
+		result.put("secondaryMetrics", secondaryMetrics);
+		return result;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static JSONObject toJSON(double[] values, String unit) {
+		double score = mean(values);
+		double error = error(values);
+		JSONObject metric = new JSONObject();
+		metric.put("score", score);
+		metric.put("scoreError", Double.isNaN(error) ? "NaN" : error);
+		JSONArray confidence = new JSONArray();
+		confidence.add(Double.isNaN(error) ? score : score - error);
+		confidence.add(Double.isNaN(error) ? score : score + error);
+		metric.put("scoreConfidence", confidence);
+		metric.put("scoreUnit", unit);
+		JSONArray fork = new JSONArray();
+		for (double s : values)
+			fork.add(s);
+		JSONArray rawData = new JSONArray();
+		rawData.add(fork);
+		metric.put("rawData", rawData);
+		return metric;
+	}
+
+	@Override
+	public String toString() {
+		String result = String.format("%-50s %10s %12.3f +- %10.3f %s", benchmark, param, getScore(), getScoreError(), getScoreUnit());
+		if (allocations != null)
+			result += String.format(" %12.1f B/op", getAllocation());
+		return result;
+	}
+
+	static String unitName(TimeUnit unit) {
+		switch (unit) {
+		case NANOSECONDS:
+			return "ns";
+		case MICROSECONDS:
+			return "us";
+		case MILLISECONDS:
+			return "ms";
+		case SECONDS:
+			return "s";
+		default:
+			return unit.toString();
+		}
+	}
+}
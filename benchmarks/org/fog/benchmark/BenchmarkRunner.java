@@ -0,0 +1,226 @@
+package org.fog.benchmark;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.EventQueueBenchmark;
+import org.cloudbus.cloudsim.core.EventQueueFactory;
+import org.json.simple.JSONArray;
+
+/**
+ * Runs the microbenchmarks of the simulator hot paths and writes the results in the JMH JSON
+ * format. Every benchmark is run in this JVM, parameter value after parameter value, with timed
+ * warmup and measurement iterations; the output of the simulator is silenced while benchmarking.
+ * Where the JVM counts the bytes allocated by each thread, the bytes allocated per operation are
+ * reported as well, as the JMH gc profiler does.
+ *
+ * Usage: BenchmarkRunner [-l] [-wi warmupIterations] [-w warmupSeconds] [-i iterations]
+ * [-r iterationSeconds] [-p v1,v2,...] [-rff results.json] [regexp]
+ */
+public class BenchmarkRunner {
+	static int warmupIterations = 3;
+	static double warmupTime = 1;
+	static int measurementIterations = 5;
+	static double measurementTime = 1;
+	static String resultFile = "benchmark-results.json";
+
+	/** Sink of the benchmark results, so that their computation is not eliminated. */
+	static volatile int blackhole;
+
+	/** Counter of the bytes allocated by a thread, null if the JVM has none. */
+	private static final com.sun.management.ThreadMXBean ALLOCATION_COUNTER = createAllocationCounter();
+
+	public static List<Benchmark> createBenchmarks() {
+		List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+		benchmarks.add(new EventQueueBenchmark.Hold("tree", EventQueueFactory.TREE_SET));
+		benchmarks.add(new EventQueueBenchmark.Hold("heap", EventQueueFactory.HEAP));
+		benchmarks.add(new EventQueueBenchmark.Hold("calendar", EventQueueFactory.CALENDAR));
+		benchmarks.add(new EventQueueBenchmark.Hold("indexed-heap", EventQueueBenchmark.INDEXED_HEAP));
+		benchmarks.add(new EventQueueBenchmark.Cancel("tree", EventQueueFactory.TREE_SET));
+		benchmarks.add(new EventQueueBenchmark.Cancel("heap", EventQueueFactory.HEAP));
+		benchmarks.add(new EventQueueBenchmark.Cancel("calendar", EventQueueFactory.CALENDAR));
+		benchmarks.add(new EventQueueBenchmark.Cancel("indexed-heap", EventQueueBenchmark.INDEXED_HEAP));
+		benchmarks.add(new RunClockTickBenchmark());
+		benchmarks.add(new TupleArrivalBenchmark());
+		benchmarks.add(new ResultantTuplesBenchmark());
+		benchmarks.add(new TupleLifecycleBenchmark(false));
+		benchmarks.add(new TupleLifecycleBenchmark(true));
+		benchmarks.add(new LatencyMatrixBenchmark());
+		benchmarks.add(new RoutingTableBenchmark());
+		benchmarks.add(new ACOSolveBenchmark(false));
+		benchmarks.add(new ACOSolveBenchmark(true));
+		return benchmarks;
+	}
+
+	public static void main(String[] args) throws Exception {
+		boolean list = false;
+		int[] params = null;
+		Pattern filter = Pattern.compile(".*");
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-l"))
+				list = true;
+			else if (args[i].equals("-wi"))
+				warmupIterations = Integer.parseInt(args[++i]);
+			else if (args[i].equals("-w"))
+				warmupTime = Double.parseDouble(args[++i]);
+			else if (args[i].equals("-i"))
+				measurementIterations = Integer.parseInt(args[++i]);
+			else if (args[i].equals("-r"))
+				measurementTime = Double.parseDouble(args[++i]);
+			else if (args[i].equals("-p"))
+				params = parseParams(args[++i]);
+			else if (args[i].equals("-rff"))
+				resultFile = args[++i];
+			else
+				filter = Pattern.compile(args[i]);
+		}
+
+		List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+		for (Benchmark benchmark : createBenchmarks()) {
+			if (filter.matcher(benchmark.getName()).find())
+				benchmarks.add(benchmark);
+		}
+		if (list) {
+			for (Benchmark benchmark : benchmarks)
+				System.out.println(benchmark.getName());
+			return;
+		}
+
+		Log.disable();
+		Logger.getLogger("").setLevel(Level.WARNING);
+		PrintStream out = System.out;
+		List<BenchmarkResult> results = new ArrayList<BenchmarkResult>();
+		for (Benchmark benchmark : benchmarks) {
+			for (int param : params != null ? params : benchmark.getDefaultParams()) {
+				out.println("# Benchmark: " + benchmark.getName() + ", " + benchmark.getParamName() + " = " + param);
+				System.setOut(new PrintStream(NULL_OUTPUT));
+				BenchmarkResult result;
+				try {
+					result = runTrial(benchmark, param, out);
+				} finally {
+					System.setOut(out);
+				}
+				out.println(result);
+				results.add(result);
+			}
+		}
+
+		out.println();
+		out.println(String.format("%-50s %10s %27s", "Benchmark", "Param", "Score"));
+		for (BenchmarkResult result : results)
+			out.println(result);
+		writeResults(results, resultFile);
+		out.println("Results written to " + resultFile);
+	}
+
+	static BenchmarkResult runTrial(Benchmark benchmark, int param, PrintStream out) throws Exception {
+		benchmark.setUp(param);
+		try {
+			for (int i = 0; i < warmupIterations; i++) {
+				double score = runIteration(benchmark, warmupTime)[0];
+				out.println(String.format("# Warmup Iteration %2d: %.3f %s/op", i + 1, score, BenchmarkResult.unitName(benchmark.getTimeUnit())));
+			}
+			double[] scores = new double[measurementIterations];
+			double[] allocations = ALLOCATION_COUNTER != null ? new double[measurementIterations] : null;
+			for (int i = 0; i < measurementIterations; i++) {
+				double[] iteration = runIteration(benchmark, measurementTime);
+				scores[i] = iteration[0];
+				if (allocations != null)
+					allocations[i] = iteration[1];
+				out.println(String.format("Iteration %2d: %.3f %s/op", i + 1, scores[i], BenchmarkResult.unitName(benchmark.getTimeUnit()))
+						+ (allocations != null ? String.format(", %.1f B/op allocated", allocations[i]) : ""));
+			}
+			return new BenchmarkResult(benchmark.getName(), benchmark.getParamName(), param, benchmark.getTimeUnit(),
+					warmupIterations, warmupTime, measurementTime, scores, allocations);
+		} finally {
+			benchmark.tearDown();
+		}
+	}
+
+	/**
+	 * Invokes the benchmark until the iteration time is elapsed, at least once.
+	 *
+	 * @return the average time per operation, in the unit of the benchmark, and the average number
+	 *         of bytes allocated by the benchmark thread per operation, NaN if the JVM does not
+	 *         count them
+	 */
+	static double[] runIteration(Benchmark benchmark, double seconds) throws Exception {
+		long thread = Thread.currentThread().getId();
+		long deadline = System.nanoTime() + (long) (seconds * 1e9);
+		long timed = 0;
+		long allocated = 0;
+		long operations = 0;
+		int sink = 0;
+		do {
+			benchmark.setUpInvocation();
+			long allocatedBefore = ALLOCATION_COUNTER != null ? ALLOCATION_COUNTER.getThreadAllocatedBytes(thread) : 0;
+			long start = System.nanoTime();
+			Object result = benchmark.invoke();
+			timed += System.nanoTime() - start;
+			if (ALLOCATION_COUNTER != null)
+				allocated += ALLOCATION_COUNTER.getThreadAllocatedBytes(thread) - allocatedBefore;
+			benchmark.tearDownInvocation();
+			sink += System.identityHashCode(result);
+			operations += benchmark.getOperationsPerInvocation();
+		} while (System.nanoTime() < deadline);
+		blackhole += sink;
+		return new double[] {(double) timed / operations / TimeUnit.NANOSECONDS.convert(1, benchmark.getTimeUnit()),
+				ALLOCATION_COUNTER != null ? (double) allocated / operations : Double.NaN};
+	}
+
+	private static com.sun.management.ThreadMXBean createAllocationCounter() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (!(threads instanceof com.sun.management.ThreadMXBean))
+			return null;
+		com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) threads;
+		if (!counter.isThreadAllocatedMemorySupported())
+			return null;
+		counter.setThreadAllocatedMemoryEnabled(true);
+		return counter;
+	}
+
+	@SuppressWarnings("unchecked")
+	static void writeResults(List<BenchmarkResult> results, String file) throws IOException {
+		JSONArray array = new JSONArray();
+		for (BenchmarkResult result : results)
+			array.add(result.toJSON());
+		Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8);
+		try {
+			array.writeJSONString(writer);
+		} finally {
+			writer.close();
+		}
+	}
+
+	private static int[] parseParams(String value) {
+		String[] values = value.split(",");
+		int[] params = new int[values.length];
+		for (int i = 0; i < values.length; i++)
+			params[i] = Integer.parseInt(values[i].trim());
+		return params;
+	}
+
+	private static final OutputStream NULL_OUTPUT = new OutputStream() {
+		@Override
+		public void write(int b) {
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+		}
+	};
+}
@@ -0,0 +1,222 @@
+package org.fog.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.Storage;
+import org.cloudbus.cloudsim.power.PowerHost;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.cloudbus.cloudsim.sdn.overbooking.BwProvisionerOverbooking;
+import org.cloudbus.cloudsim.sdn.overbooking.PeProvisionerOverbooking;
+import org.fog.application.AppEdge;
+import org.fog.application.AppLoop;
+import org.fog.application.Application;
+import org.fog.application.selectivity.FractionalSelectivity;
+import org.fog.entities.FogDevice;
+import org.fog.entities.FogDeviceCharacteristics;
+import org.fog.entities.Tuple;
+import org.fog.mobilitydata.DataParser;
+import org.fog.mobilitydata.Location;
+import org.fog.mobilitydata.References;
+import org.fog.mobilitydata.Trajectory;
+import org.fog.placement.LocationHandler;
+import org.fog.policy.AppModuleAllocationPolicy;
+import org.fog.scheduler.StreamOperatorScheduler;
+import org.fog.utils.Config;
+import org.fog.utils.FogLinearPowerModel;
+import org.fog.utils.FogUtils;
+
+/**
+ * Synthetic three level topology (cloud, proxy servers, gateways) with a mobile user, laid out
+ * like the Melbourne dataset used by the mobility examples so that the placement code can run on
+ * it without reading any file. The simulation has to be initialised before a topology is created.
+ */
+public class BenchmarkTopology {
+	public final List<FogDevice> fogDevices = new ArrayList<FogDevice>();
+	public final List<FogDevice> proxies = new ArrayList<FogDevice>();
+	public final List<FogDevice> gateways = new ArrayList<FogDevice>();
+	public FogDevice cloud;
+	public FogDevice mobile;
+	public LocationHandler locator;
+
+	/**
+	 * Creates a topology of about <tt>numOfDevices</tt> fog devices: one cloud, the square root of
+	 * the remaining devices as proxy servers and the others as gateways. The mobile, if any, is the
+	 * first device of {@link #fogDevices}, as in the ACO examples.
+	 *
+	 * @param numOfDevices number of fog devices, mobile excluded
+	 * @param withMobile whether to add a mobile device linked to the user trajectory
+	 */
+	public static BenchmarkTopology create(int numOfDevices, boolean withMobile) {
+		BenchmarkTopology topology = new BenchmarkTopology();
+		int numOfProxies = Math.max(1, (int) Math.round(Math.sqrt(numOfDevices - 1)));
+		int numOfGateways = Math.max(1, numOfDevices - 1 - numOfProxies);
+		topology.createLocations(numOfProxies, numOfGateways);
+		LocationHandler locator = topology.locator;
+
+		if (withMobile) {
+			topology.mobile = createFogDevice("mobile_0", 500, 20, 1000, 270, 0, 87.53, 82.44);
+			topology.mobile.setParentId(References.NOT_SET);
+			topology.mobile.setUplinkLatency(2);
+			topology.mobile.setLevel(3);
+			locator.linkDataWithInstance(topology.mobile.getId(), Config.USER_NAME);
+			topology.fogDevices.add(topology.mobile);
+		}
+
+		FogDevice cloud = createFogDevice("cloud", 44800, 40000, 100, 10000, 0.01, 16 * 103, 16 * 83.25);
+		cloud.setParentId(References.NOT_SET);
+		cloud.setLevel(0);
+		locator.linkDataWithInstance(cloud.getId(), locator.getLevelWiseResources(0).get(0));
+		topology.cloud = cloud;
+		topology.fogDevices.add(cloud);
+
+		for (int i = 0; i < numOfProxies; i++) {
+			FogDevice proxy = createFogDevice("proxy-server_" + i, 2800, 4000, 10000, 10000, 0.0, 107.339, 83.4333);
+			locator.linkDataWithInstance(proxy.getId(), locator.getLevelWiseResources(1).get(i));
+			proxy.setUplinkLatency(100);
+			proxy.setLevel(1);
+			connect(proxy, cloud);
+			topology.proxies.add(proxy);
+			topology.fogDevices.add(proxy);
+		}
+
+		for (int i = 0; i < numOfGateways; i++) {
+			FogDevice gateway = createFogDevice("gateway_" + i, 2800, 2000, 10000, 10000, 0.0, 107.339, 83.4333);
+			locator.linkDataWithInstance(gateway.getId(), locator.getLevelWiseResources(2).get(i));
+			gateway.setUplinkLatency(4);
+			gateway.setLevel(2);
+			connect(gateway, topology.proxies.get(i % numOfProxies));
+			topology.gateways.add(gateway);
+			topology.fogDevices.add(gateway);
+		}
+		return topology;
+	}
+
+	private static void connect(FogDevice child, FogDevice parent) {
+		child.setParentId(parent.getId());
+		parent.getChildrenIds().add(child.getId());
+		parent.getChildToLatencyMap().put(child.getId(), child.getUplinkLatency());
+	}
+
+	/**
+	 * Places the resources on a square around the Melbourne CBD, every gateway in the block of its
+	 * proxy server, and the user on a straight walk across it.
+	 */
+	private void createLocations(int numOfProxies, int numOfGateways) {
+		DataParser dataObject = new DataParser();
+		dataObject.levelID.put("LevelsNum", 3);
+		dataObject.levelID.put("Cloud", 0);
+		dataObject.levelID.put("Proxy", 1);
+		dataObject.levelID.put("Gateway", 2);
+		dataObject.levelID.put("User", 3);
+		for (int level = 0; level < 3; level++)
+			dataObject.levelwiseResources.put(level, new ArrayList<String>());
+
+		Random random = new Random(7);
+		int resource = 1;
+		addResource(dataObject, "res_" + resource++, 0, new Location(-37.81, 144.96, References.NOT_SET));
+		for (int i = 0; i < numOfProxies; i++)
+			addResource(dataObject, "res_" + resource++, 1, randomLocation(random, i));
+		for (int i = 0; i < numOfGateways; i++)
+			addResource(dataObject, "res_" + resource++, 2, randomLocation(random, i % numOfProxies));
+
+		Map<Double, Location> trajectory = new HashMap<Double, Location>();
+		for (int t = 0; t <= 1000; t++)
+			trajectory.put((double) t, new Location(-37.83 + 0.00004 * t, 144.94 + 0.00004 * t, References.NOT_SET));
+		dataObject.usersLocation.put(Config.USER_NAME, new Trajectory(trajectory));
+		dataObject.resourceAndUserToLevel.put(Config.USER_NAME, 3);
+
+		locator = new LocationHandler(dataObject);
+	}
+
+	private static Location randomLocation(Random random, int block) {
+		return new Location(-37.83 + 0.04 * random.nextDouble(), 144.94 + 0.04 * random.nextDouble(), block);
+	}
+
+	private static void addResource(DataParser dataObject, String dataId, int level, Location location) {
+		dataObject.resourceLocationData.put(dataId, location);
+		dataObject.levelwiseResources.get(level).add(dataId);
+		dataObject.resourceAndUserToLevel.put(dataId, level);
+	}
+
+	/**
+	 * Creates a vanilla fog device, as the examples do.
+	 */
+	public static FogDevice createFogDevice(String nodeName, long mips,
+			int ram, long upBw, long downBw, double ratePerMips, double busyPower, double idlePower) {
+		List<Pe> peList = new ArrayList<Pe>();
+		peList.add(new Pe(0, new PeProvisionerOverbooking(mips)));
+
+		int hostId = FogUtils.generateEntityId();
+		long storage = 1000000;
+		int bw = 10000;
+
+		PowerHost host = new PowerHost(
+				hostId,
+				new RamProvisionerSimple(ram),
+				new BwProvisionerOverbooking(bw),
+				storage,
+				peList,
+				new StreamOperatorScheduler(peList),
+				new FogLinearPowerModel(busyPower, idlePower)
+		);
+		List<Host> hostList = new ArrayList<Host>();
+		hostList.add(host);
+
+		FogDeviceCharacteristics characteristics = new FogDeviceCharacteristics(
+				"x86", "Linux", "Xen", host, 10.0, 3.0, 0.05, 0.001, 0.0);
+		try {
+			return new FogDevice(nodeName, characteristics,
+					new AppModuleAllocationPolicy(hostList), new LinkedList<Storage>(), 10, upBw, downBw, 0, ratePerMips);
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Creates a chain application like the one of the ACO example: a client module, <tt>numOfModules</tt>
+	 * processing modules alternately sending UP and DOWN, and a storage module.
+	 */
+	@SuppressWarnings("serial")
+	public static Application createApplication(String appId, int userId, int numOfModules) {
+		Application application = Application.createApplication(appId, userId);
+		application.addAppModule("clientModule", 10);
+		for (int i = 1; i <= numOfModules; i++)
+			application.addAppModule("processingModule" + i, 500 + 100 * (i % 3));
+		application.addAppModule("storageModule", 10);
+
+		application.addAppEdge("M-SENSOR", "clientModule", 3000, 500, "M-SENSOR", Tuple.UP, AppEdge.SENSOR);
+		application.addAppEdge("clientModule", "processingModule1", 3500, 500, "RAW_DATA0", Tuple.UP, AppEdge.MODULE);
+		application.addTupleMapping("clientModule", "M-SENSOR", "RAW_DATA0", new FractionalSelectivity(1.0));
+		for (int i = 1; i < numOfModules; i++) {
+			application.addAppEdge("processingModule" + i, "processingModule" + (i + 1), 3500, 500, "RAW_DATA" + i,
+					i % 2 == 0 ? Tuple.UP : Tuple.DOWN, AppEdge.MODULE);
+			application.addTupleMapping("processingModule" + i, "RAW_DATA" + (i - 1), "RAW_DATA" + i, new FractionalSelectivity(1.0));
+		}
+		String last = "processingModule" + numOfModules;
+		application.addAppEdge(last, "storageModule", 1000, 1000, "PROCESSED_DATA", Tuple.UP, AppEdge.MODULE);
+		application.addAppEdge(last, "clientModule", 14, 500, "ACTION_COMMAND", Tuple.DOWN, AppEdge.MODULE);
+		application.addAppEdge("clientModule", "M-DISPLAY", 1000, 500, "ACTUATION_SIGNAL", Tuple.DOWN, AppEdge.ACTUATOR);
+		application.addTupleMapping(last, "RAW_DATA" + (numOfModules - 1), "PROCESSED_DATA", new FractionalSelectivity(1.0));
+		application.addTupleMapping(last, "RAW_DATA" + (numOfModules - 1), "ACTION_COMMAND", new FractionalSelectivity(1.0));
+		application.addTupleMapping("clientModule", "ACTION_COMMAND", "ACTUATION_SIGNAL", new FractionalSelectivity(1.0));
+
+		final List<String> modules = new ArrayList<String>();
+		modules.add("M-SENSOR");
+		for (int i = 0; i <= numOfModules; i++)
+			modules.add(i == 0 ? "clientModule" : "processingModule" + i);
+		modules.add("clientModule");
+		modules.add("M-DISPLAY");
+		final AppLoop loop = new AppLoop(modules);
+		application.setLoops(new ArrayList<AppLoop>() {{
+			add(loop);
+		}});
+		return application;
+	}
+}
@@ -0,0 +1,55 @@
+package org.fog.benchmark;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.fog.application.AppModule;
+import org.fog.application.Application;
+import org.fog.entities.FogDevice;
+import org.fog.utils.FogDeviceUtils;
+
+/**
+ * {@link FogDeviceUtils#createLatencyMatrixOfAllDevices(List, Map, List)} on the fog devices of a
+ * synthetic topology, as done when the ACO environment is built.
+ */
+public class LatencyMatrixBenchmark extends Benchmark {
+	private List<FogDevice> fogDevices;
+	private List<AppModule> modules;
+
+	public LatencyMatrixBenchmark() {
+		super("FogDeviceUtils.createLatencyMatrixOfAllDevices");
+	}
+
+	@Override
+	public String getParamName() {
+		return "devices";
+	}
+
+	@Override
+	public int[] getDefaultParams() {
+		return new int[] {100, 250, 500};
+	}
+
+	@Override
+	public TimeUnit getTimeUnit() {
+		return TimeUnit.MILLISECONDS;
+	}
+
+	@Override
+	public void setUp(int devices) {
+		CloudSim.init(1, Calendar.getInstance(), false);
+		fogDevices = new ArrayList<FogDevice>(BenchmarkTopology.create(devices, false).fogDevices);
+		Application application = BenchmarkTopology.createApplication("app", 1, 5);
+		modules = application.getModules();
+	}
+
+	@Override
+	public Object invoke() {
+		return FogDeviceUtils.createLatencyMatrixOfAllDevices(fogDevices, new HashMap<String, List<FogDevice>>(), modules);
+	}
+}
@@ -0,0 +1,67 @@
+package org.fog.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.cloudbus.cloudsim.UtilizationModelFull;
+import org.fog.application.AppEdge;
+import org.fog.application.Application;
+import org.fog.entities.Tuple;
+import org.fog.utils.FogUtils;
+
+/**
+ * {@link Application#getResultantTuples(String, Tuple, int, int)} for every module of a chain
+ * application, each module receiving the tuple type it maps to an output.
+ */
+public class ResultantTuplesBenchmark extends Benchmark {
+	private Application application;
+	private final List<String> moduleNames = new ArrayList<String>();
+	private final List<Tuple> inputTuples = new ArrayList<Tuple>();
+
+	public ResultantTuplesBenchmark() {
+		super("Application.getResultantTuples");
+	}
+
+	@Override
+	public String getParamName() {
+		return "modules";
+	}
+
+	@Override
+	public int[] getDefaultParams() {
+		return new int[] {5, 20, 100};
+	}
+
+	@Override
+	public int getOperationsPerInvocation() {
+		return moduleNames.size();
+	}
+
+	@Override
+	public void setUp(int modules) {
+		application = BenchmarkTopology.createApplication("app", 1, modules);
+		moduleNames.clear();
+		inputTuples.clear();
+		for (AppEdge edge : application.getEdges()) {
+			if (edge.getEdgeType() == AppEdge.ACTUATOR || edge.getDestination().equals("storageModule"))
+				continue;
+			Tuple tuple = new Tuple("app", FogUtils.generateTupleId(), edge.getDirection(),
+					(long) edge.getTupleCpuLength(), 1, (long) edge.getTupleNwLength(), 100,
+					new UtilizationModelFull(), new UtilizationModelFull(), new UtilizationModelFull());
+			tuple.setAppId("app");
+			tuple.setTupleType(edge.getTupleType());
+			tuple.setSrcModuleName(edge.getSource());
+			tuple.setDestModuleName(edge.getDestination());
+			moduleNames.add(edge.getDestination());
+			inputTuples.add(tuple);
+		}
+	}
+
+	@Override
+	public Object invoke() {
+		int count = 0;
+		for (int i = 0; i < moduleNames.size(); i++)
+			count += application.getResultantTuples(moduleNames.get(i), inputTuples.get(i), 3, 4).size();
+		return count;
+	}
+}
@@ -0,0 +1,47 @@
+package org.fog.benchmark;
+
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.fog.entities.FogDevice;
+import org.fog.utils.ShortestPathRoutingGenerator;
+
+/**
+ * {@link ShortestPathRoutingGenerator#generateRoutingTable(List)} on the fog devices of a
+ * synthetic topology, as done by the microservice controllers.
+ */
+public class RoutingTableBenchmark extends Benchmark {
+	private List<FogDevice> fogDevices;
+
+	public RoutingTableBenchmark() {
+		super("ShortestPathRoutingGenerator.generateRoutingTable");
+	}
+
+	@Override
+	public String getParamName() {
+		return "devices";
+	}
+
+	@Override
+	public int[] getDefaultParams() {
+		return new int[] {16, 64, 128};
+	}
+
+	@Override
+	public TimeUnit getTimeUnit() {
+		return TimeUnit.MILLISECONDS;
+	}
+
+	@Override
+	public void setUp(int devices) {
+		CloudSim.init(1, Calendar.getInstance(), false);
+		fogDevices = BenchmarkTopology.create(devices, false).fogDevices;
+	}
+
+	@Override
+	public Object invoke() {
+		return ShortestPathRoutingGenerator.generateRoutingTable(fogDevices);
+	}
+}
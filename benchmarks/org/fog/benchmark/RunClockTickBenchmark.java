@@ -0,0 +1,130 @@
+package org.fog.benchmark;
+
+import java.util.Calendar;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimEntity;
+import org.cloudbus.cloudsim.core.SimEvent;
+import org.fog.utils.FogEvents;
+
+/**
+ * {@link CloudSim#runClockTick()} on a VRGameFog shaped kernel workload: sensors emitting every
+ * 5 ms towards gateways of 50 sensors each, every hop acknowledging the tuple and forwarding it up
+ * to the cloud. The simulation never runs dry, so every tick dispatches one timestamp.
+ */
+public class RunClockTickBenchmark extends Benchmark {
+	private static final int TICKS = 64;
+	private static final int SENSORS_PER_GATEWAY = 50;
+	private static final double TRANSMISSION_TIME = 5;
+
+	public RunClockTickBenchmark() {
+		super("CloudSim.runClockTick");
+	}
+
+	@Override
+	public String getParamName() {
+		return "sensors";
+	}
+
+	@Override
+	public int[] getDefaultParams() {
+		return new int[] {1000, 10000, 50000};
+	}
+
+	@Override
+	public int getOperationsPerInvocation() {
+		return TICKS;
+	}
+
+	@Override
+	public void setUp(int sensors) {
+		CloudSim.init(1, Calendar.getInstance(), false);
+		Relay cloud = new Relay("cloud", -1, 0);
+		Relay proxy = new Relay("proxy-server", cloud.getId(), 100);
+		Relay gateway = null;
+		for (int i = 0; i < sensors; i++) {
+			if (i % SENSORS_PER_GATEWAY == 0)
+				gateway = new Relay("gateway_" + i / SENSORS_PER_GATEWAY, proxy.getId(), 4);
+			// spread the first emissions so that the timestamps are not all the same
+			new Emitter("sensor_" + i, gateway.getId(), 6, (i % 100) * TRANSMISSION_TIME / 100);
+		}
+		CloudSim.runStart();
+	}
+
+	@Override
+	public Object invoke() {
+		boolean empty = false;
+		for (int i = 0; i < TICKS; i++)
+			empty |= CloudSim.runClockTick();
+		return empty;
+	}
+
+	@Override
+	public void tearDown() {
+		CloudSim.finishSimulation();
+	}
+
+	/**
+	 * Emits a tuple towards its gateway every TRANSMISSION_TIME.
+	 */
+	static class Emitter extends SimEntity {
+		private final int gatewayDeviceId;
+		private final double latency;
+		private final double offset;
+
+		Emitter(String name, int gatewayDeviceId, double latency, double offset) {
+			super(name);
+			this.gatewayDeviceId = gatewayDeviceId;
+			this.latency = latency;
+			this.offset = offset;
+		}
+
+		@Override
+		public void startEntity() {
+			send(getId(), TRANSMISSION_TIME + offset, FogEvents.EMIT_TUPLE);
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+			if (ev.getTag() == FogEvents.EMIT_TUPLE) {
+				send(gatewayDeviceId, latency, FogEvents.TUPLE_ARRIVAL);
+				send(getId(), TRANSMISSION_TIME, FogEvents.EMIT_TUPLE);
+			}
+		}
+
+		@Override
+		public void shutdownEntity() {
+		}
+	}
+
+	/**
+	 * Acknowledges every tuple and forwards it to its parent.
+	 */
+	static class Relay extends SimEntity {
+		private final int parentId;
+		private final double uplinkLatency;
+
+		Relay(String name, int parentId, double uplinkLatency) {
+			super(name);
+			this.parentId = parentId;
+			this.uplinkLatency = uplinkLatency;
+		}
+
+		@Override
+		public void startEntity() {
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+			if (ev.getTag() == FogEvents.TUPLE_ARRIVAL) {
+				send(ev.getSource(), CloudSim.getMinTimeBetweenEvents(), FogEvents.TUPLE_ACK);
+				if (parentId >= 0)
+					send(parentId, uplinkLatency, FogEvents.TUPLE_ARRIVAL);
+			}
+		}
+
+		@Override
+		public void shutdownEntity() {
+		}
+	}
+}
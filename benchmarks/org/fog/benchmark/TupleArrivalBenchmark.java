@@ -0,0 +1,76 @@
+package org.fog.benchmark;
+
+import java.util.Calendar;
+
+import org.cloudbus.cloudsim.UtilizationModelFull;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimEvent;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
+import org.fog.entities.FogDevice;
+import org.fog.entities.Tuple;
+import org.fog.utils.FogEvents;
+import org.fog.utils.FogUtils;
+
+/**
+ * Arrival of a DOWN tuple at a proxy server that hosts no module, which acknowledges it and sends
+ * it to each of its children (<tt>FogDevice.processTupleArrival</tt> through the entity event
+ * dispatch). The events scheduled by the device are cancelled after every invocation.
+ */
+public class TupleArrivalBenchmark extends Benchmark {
+	private FogDevice proxy;
+	private SimEvent arrival;
+
+	public TupleArrivalBenchmark() {
+		super("FogDevice.processTupleArrival");
+	}
+
+	@Override
+	public String getParamName() {
+		return "children";
+	}
+
+	@Override
+	public int[] getDefaultParams() {
+		return new int[] {10, 100, 1000};
+	}
+
+	@Override
+	public void setUp(int children) {
+		CloudSim.init(1, Calendar.getInstance(), false);
+		FogDevice cloud = BenchmarkTopology.createFogDevice("cloud", 44800, 40000, 100, 10000, 0.01, 16 * 103, 16 * 83.25);
+		proxy = BenchmarkTopology.createFogDevice("proxy-server_0", 2800, 4000, 10000, 10000, 0.0, 107.339, 83.4333);
+		proxy.setParentId(cloud.getId());
+		proxy.setUplinkLatency(100);
+		for (int i = 0; i < children; i++) {
+			FogDevice gateway = BenchmarkTopology.createFogDevice("gateway_" + i, 2800, 2000, 10000, 10000, 0.0, 107.339, 83.4333);
+			gateway.setParentId(proxy.getId());
+			gateway.setUplinkLatency(4);
+			proxy.getChildrenIds().add(gateway.getId());
+			proxy.getChildToLatencyMap().put(gateway.getId(), gateway.getUplinkLatency());
+		}
+
+		Tuple tuple = new Tuple("app", FogUtils.generateTupleId(), Tuple.DOWN, 14, 1, 500, 100,
+				new UtilizationModelFull(), new UtilizationModelFull(), new UtilizationModelFull());
+		tuple.setAppId("app");
+		tuple.setTupleType("ACTION_COMMAND");
+		tuple.setSrcModuleName("processingModule1");
+		tuple.setDestModuleName("clientModule");
+
+		// the kernel is the only one creating events: schedule the arrival and take it back
+		CloudSim.send(cloud.getId(), proxy.getId(), 0, FogEvents.TUPLE_ARRIVAL, tuple);
+		arrival = CloudSim.cancel(cloud.getId(), new PredicateType(FogEvents.TUPLE_ARRIVAL));
+	}
+
+	@Override
+	public Object invoke() {
+		proxy.processEvent(arrival);
+		return proxy.getSouthTupleQueue();
+	}
+
+	@Override
+	public void tearDownInvocation() {
+		CloudSim.cancelAll(proxy.getId(), CloudSim.SIM_ANY);
+		proxy.getSouthTupleQueue().clear();
+		proxy.setSouthLinkBusy(false);
+	}
+}
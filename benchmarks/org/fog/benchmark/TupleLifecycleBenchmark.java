@@ -0,0 +1,93 @@
+package org.fog.benchmark;
+
+import java.util.ArrayDeque;
+import java.util.List;
+
+import org.fog.application.Application;
+import org.fog.entities.Tuple;
+import org.fog.entities.TuplePool;
+import org.fog.utils.Config;
+import org.fog.utils.FogUtils;
+
+/**
+ * The tuples a sensor tuple gives rise to through a chain application, created and ended as a fog
+ * device does: each tuple is executed by its destination module, the resultant tuples record the
+ * module instance, and the executed tuple is returned to the {@link TuplePool}. The pooled variant
+ * runs with {@link Config#TUPLE_POOLING} set; the bytes allocated per tuple compare the two.
+ */
+public class TupleLifecycleBenchmark extends Benchmark {
+	private static final int DEVICE_ID = 3;
+
+	private final boolean pooled;
+	private final ArrayDeque<Tuple> pending = new ArrayDeque<Tuple>();
+
+	private Application application;
+	private boolean previousPooling;
+	private int tuplesPerInvocation;
+
+	public TupleLifecycleBenchmark(boolean pooled) {
+		super("TuplePool.tupleLifecycle:" + (pooled ? "pooled" : "unpooled"));
+		this.pooled = pooled;
+	}
+
+	@Override
+	public String getParamName() {
+		return "modules";
+	}
+
+	@Override
+	public int[] getDefaultParams() {
+		return new int[] {5, 20};
+	}
+
+	@Override
+	public int getOperationsPerInvocation() {
+		return tuplesPerInvocation;
+	}
+
+	@Override
+	public void setUp(int modules) {
+		previousPooling = Config.TUPLE_POOLING;
+		Config.TUPLE_POOLING = pooled;
+		application = BenchmarkTopology.createApplication("app", 1, modules);
+		tuplesPerInvocation = 1;
+		tuplesPerInvocation = (Integer) invoke();
+	}
+
+	@Override
+	public Object invoke() {
+		int tuples = 0;
+		pending.add(createSensorTuple());
+		while (!pending.isEmpty()) {
+			Tuple tuple = pending.poll();
+			tuples++;
+			if (application.getModuleByName(tuple.getDestModuleName()) != null) {
+				// the module instances are numbered after their module
+				int vmId = tuple.getDestModuleName().hashCode() & 0xffff;
+				List<Tuple> resultantTuples = application.getResultantTuples(tuple.getDestModuleName(), tuple, DEVICE_ID, vmId);
+				for (Tuple resTuple : resultantTuples) {
+					resTuple.getModuleCopyMap().putAll(tuple.getModuleCopyMap());
+					resTuple.getModuleCopyMap().put(tuple.getDestModuleName(), vmId);
+					pending.add(resTuple);
+				}
+			}
+			TuplePool.release(tuple);
+		}
+		return tuples;
+	}
+
+	private Tuple createSensorTuple() {
+		Tuple tuple = TuplePool.newTuple("app", FogUtils.generateTupleId(), Tuple.UP, 3000, 1, 500, 100,
+				Tuple.FULL_UTILIZATION, Tuple.FULL_UTILIZATION, Tuple.FULL_UTILIZATION);
+		tuple.setUserId(1);
+		tuple.setTupleType("M-SENSOR");
+		tuple.setSrcModuleName("M-SENSOR");
+		tuple.setDestModuleName("clientModule");
+		return tuple;
+	}
+
+	@Override
+	public void tearDown() {
+		Config.TUPLE_POOLING = previousPooling;
+	}
+}
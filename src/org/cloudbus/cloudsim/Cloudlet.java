@@ -40,16 +40,16 @@ public class Cloudlet {
 	 * The input file size of this Cloudlet before execution (unit: in byte). in byte = program +
 	 * input data size
 	 */
-	private final long cloudletFileSize;
+	private long cloudletFileSize;
 
 	/** The output file size of this Cloudlet after execution (unit: in byte). */
-	private final long cloudletOutputSize;
+	private long cloudletOutputSize;
 
 	/** The num of Pe required to execute this job. */
 	private int numberOfPes;
 
 	/** The cloudlet ID. */
-	private final int cloudletId;
+	private int cloudletId;
 
 	/** The status of this Cloudlet. */
 	private int status;
@@ -189,11 +189,6 @@ public class Cloudlet {
 				utilizationModelRam,
 				utilizationModelBw,
 				false);
-		vmId = -1;
-		accumulatedBwCost = 0.0;
-		costPerBw = 0.0;
-
-		requiredFiles = new LinkedList<String>();
 	}
 
 	/**
@@ -360,6 +355,63 @@ public class Cloudlet {
 		setUtilizationModelBw(utilizationModelBw);
 	}
 
+	/**
+	 * Reinitializes this Cloudlet as if it had just been allocated with the given parameters, so
+	 * that a Cloudlet no longer in use can be reused rather than allocating another one. The lists
+	 * of the Cloudlet are cleared and kept, and whether its history is recorded is unchanged.
+	 *
+	 * @param cloudletId the unique ID of this Cloudlet
+	 * @param cloudletLength the length or size (in MI) of this cloudlet to be executed
+	 * @param pesNumber the pes number
+	 * @param cloudletFileSize the file size (in byte) of this cloudlet <tt>BEFORE</tt> submitting
+	 * @param cloudletOutputSize the file size (in byte) of this cloudlet <tt>AFTER</tt> finish
+	 *            executing
+	 * @param utilizationModelCpu the utilization model cpu
+	 * @param utilizationModelRam the utilization model ram
+	 * @param utilizationModelBw the utilization model bw
+	 * @pre the Cloudlet is no longer referenced by any entity or event
+	 * @post $none
+	 */
+	protected void reinitialize(
+			final int cloudletId,
+			final long cloudletLength,
+			final int pesNumber,
+			final long cloudletFileSize,
+			final long cloudletOutputSize,
+			final UtilizationModel utilizationModelCpu,
+			final UtilizationModel utilizationModelRam,
+			final UtilizationModel utilizationModelBw) {
+		userId = -1;
+		status = CREATED;
+		this.cloudletId = cloudletId;
+		numberOfPes = pesNumber;
+		execStartTime = 0.0;
+		finishTime = -1.0;
+		reservationId = -1;
+		classType = 0;
+		netToS = 0;
+
+		this.cloudletLength = Math.max(1, cloudletLength);
+		this.cloudletFileSize = Math.max(1, cloudletFileSize);
+		this.cloudletOutputSize = Math.max(1, cloudletOutputSize);
+
+		resList.clear();
+		index = -1;
+		history = null;
+
+		vmId = -1;
+		accumulatedBwCost = 0.0;
+		costPerBw = 0.0;
+
+		if (requiredFiles != null) {
+			requiredFiles.clear();
+		}
+
+		setUtilizationModelCpu(utilizationModelCpu);
+		setUtilizationModelRam(utilizationModelRam);
+		setUtilizationModelBw(utilizationModelBw);
+	}
+
 	// ////////////////////// INTERNAL CLASS ///////////////////////////////////
 
 	/**
@@ -0,0 +1,199 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Arrays;
+
+/**
+ * A future event queue implementing R. Brown's calendar queue ("Calendar queues: a fast O(1)
+ * priority queue implementation for the simulation event set problem", CACM 31(10), 1988). The
+ * time axis is divided into days of fixed width that are mapped cyclically onto an array of
+ * sorted lists; the number of days and their width are recomputed whenever the number of distinct
+ * queued timestamps doubles or halves. As in {@link HeapEventQueue}, events sharing a timestamp
+ * are kept together in one {@link TimeBucket}.
+ * <p>
+ * This queue performs best when events are spread fairly evenly over time, which is the case for
+ * periodic sensor emissions and link transmissions.
+ *
+ * @see EventQueue
+ */
+public class CalendarEventQueue extends TimeBucketQueue {
+
+	/** The minimum number of days of the calendar. */
+	private static final int MIN_DAYS = 16;
+
+	/** Number of leading timestamps sampled to estimate the day width. */
+	private static final int WIDTH_SAMPLE = 25;
+
+	/** The days; each one holds a list of buckets sorted by time. */
+	private TimeBucket[] days = new TimeBucket[MIN_DAYS];
+
+	/** The width of a day. */
+	private double width = 1.0;
+
+	/** Number of buckets in the calendar. */
+	private int count;
+
+	/** The virtual day where the search for the first bucket starts. No bucket is earlier. */
+	private long currentDay;
+
+	/** The first bucket, or <tt>null</tt> if it has to be searched for. */
+	private TimeBucket first;
+
+	@Override
+	protected void insertBucket(TimeBucket bucket) {
+		bucket.day = dayOf(bucket.time);
+		link(bucket);
+		count++;
+		if (count == 1 || bucket.day < currentDay) {
+			currentDay = bucket.day;
+		}
+		if (first != null && bucket.time < first.time) {
+			first = bucket;
+		}
+		if (count > 2 * days.length) {
+			resize(days.length * 2);
+		}
+	}
+
+	@Override
+	protected void removeBucket(TimeBucket bucket) {
+		int slot = (int) (bucket.day & (days.length - 1));
+		TimeBucket prev = null;
+		TimeBucket cur = days[slot];
+		while (cur != bucket) {
+			prev = cur;
+			cur = cur.next;
+		}
+		if (prev == null) {
+			days[slot] = bucket.next;
+		} else {
+			prev.next = bucket.next;
+		}
+		bucket.next = null;
+		count--;
+		if (first == bucket) {
+			first = null;
+		}
+		if (days.length > MIN_DAYS && count < days.length / 2) {
+			resize(days.length / 2);
+		}
+	}
+
+	@Override
+	protected TimeBucket firstBucket() {
+		if (first == null) {
+			first = search();
+		}
+		return first;
+	}
+
+	@Override
+	protected void clearBuckets() {
+		Arrays.fill(days, null);
+		count = 0;
+		currentDay = 0;
+		first = null;
+	}
+
+	private long dayOf(double time) {
+		return (long) Math.floor(time / width);
+	}
+
+	private void link(TimeBucket bucket) {
+		int slot = (int) (bucket.day & (days.length - 1));
+		TimeBucket prev = null;
+		TimeBucket cur = days[slot];
+		while (cur != null && cur.time < bucket.time) {
+			prev = cur;
+			cur = cur.next;
+		}
+		bucket.next = cur;
+		if (prev == null) {
+			days[slot] = bucket;
+		} else {
+			prev.next = bucket;
+		}
+	}
+
+	private TimeBucket search() {
+		int mask = days.length - 1;
+		long day = currentDay;
+		for (int n = 0; n < days.length; n++, day++) {
+			TimeBucket head = days[(int) (day & mask)];
+			// every bucket is at or after currentDay, so a head on an earlier day is impossible
+			if (head != null && head.day == day) {
+				currentDay = day;
+				return head;
+			}
+		}
+
+		// nothing within a year: look at the head of every day directly
+		TimeBucket min = null;
+		for (TimeBucket head : days) {
+			if (head != null && (min == null || head.time < min.time)) {
+				min = head;
+			}
+		}
+		currentDay = min.day;
+		return min;
+	}
+
+	private void resize(int newLength) {
+		TimeBucket[] buckets = new TimeBucket[count];
+		int j = 0;
+		for (TimeBucket head : days) {
+			for (TimeBucket b = head; b != null; b = b.next) {
+				buckets[j++] = b;
+			}
+		}
+
+		double newWidth = estimateWidth(buckets);
+		if (newWidth > 0 && !Double.isInfinite(newWidth) && !Double.isNaN(newWidth)) {
+			width = newWidth;
+		}
+
+		days = new TimeBucket[newLength];
+		long minDay = Long.MAX_VALUE;
+		for (TimeBucket bucket : buckets) {
+			bucket.day = dayOf(bucket.time);
+			minDay = Math.min(minDay, bucket.day);
+			link(bucket);
+		}
+		currentDay = count == 0 ? 0 : minDay;
+	}
+
+	/**
+	 * Estimates the day width as three times the average separation of the earliest timestamps,
+	 * ignoring separations larger than twice the average.
+	 */
+	private static double estimateWidth(TimeBucket[] buckets) {
+		if (buckets.length < 2) {
+			return -1;
+		}
+		double[] times = new double[buckets.length];
+		for (int i = 0; i < buckets.length; i++) {
+			times[i] = buckets[i].time;
+		}
+		Arrays.sort(times);
+		int n = Math.min(times.length, WIDTH_SAMPLE);
+		double average = (times[n - 1] - times[0]) / (n - 1);
+		double sum = 0;
+		int used = 0;
+		for (int i = 1; i < n; i++) {
+			double separation = times[i] - times[i - 1];
+			if (separation <= 2 * average) {
+				sum += separation;
+				used++;
+			}
+		}
+		return used == 0 ? -1 : 3 * sum / used;
+	}
+
+}
@@ -8,15 +8,19 @@
 
 package org.cloudbus.cloudsim.core;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.ListIterator;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
 
 /**
- * This class implements the deferred event queue used by {@link Simulation}. The event queue uses a
- * linked list to store the events.
- * 
+ * This class implements the deferred event queue used by {@link Simulation}. The events are kept in
+ * one list per destination entity, each list being in temporal order, so an entity only ever
+ * looks at its own events.
+ *
  * @author Marcos Dias de Assuncao
  * @since CloudSim Toolkit 1.0
  * @see Simulation
@@ -24,65 +28,157 @@ import java.util.ListIterator;
  */
 public class DeferredQueue {
 
-	/** The list. */
-	private final List<SimEvent> list = new LinkedList<SimEvent>();
+	/** The events of each destination, indexed by entity id. */
+	private final List<ArrayDeque<SimEvent>> lists = new ArrayList<ArrayDeque<SimEvent>>();
 
-	/** The max time. */
-	private double maxTime = -1;
+	/** The number of events in the queue. */
+	private int size;
 
 	/**
 	 * Adds a new event to the queue. Adding a new event to the queue preserves the temporal order
 	 * of the events.
-	 * 
+	 *
 	 * @param newEvent The event to be added to the queue.
 	 */
 	public void addEvent(SimEvent newEvent) {
+		ArrayDeque<SimEvent> list = listOf(newEvent.getDestination());
+		size++;
+
 		// The event has to be inserted as the last of all events
 		// with the same event_time(). Yes, this matters.
 		double eventTime = newEvent.eventTime();
-		if (eventTime >= maxTime) {
-			list.add(newEvent);
-			maxTime = eventTime;
+		if (list.isEmpty() || list.peekLast().eventTime() <= eventTime) {
+			list.addLast(newEvent);
 			return;
 		}
 
-		ListIterator<SimEvent> iterator = list.listIterator();
-		SimEvent event;
-		while (iterator.hasNext()) {
-			event = iterator.next();
-			if (event.eventTime() > eventTime) {
-				iterator.previous();
-				iterator.add(newEvent);
-				return;
+		ArrayDeque<SimEvent> later = new ArrayDeque<SimEvent>();
+		while (!list.isEmpty() && list.peekLast().eventTime() > eventTime) {
+			later.addFirst(list.pollLast());
+		}
+		list.addLast(newEvent);
+		list.addAll(later);
+	}
+
+	/**
+	 * Counts the events for an entity that match a predicate.
+	 *
+	 * @param dest the id of the destination entity
+	 * @param p the predicate
+	 * @return the number of matching events
+	 */
+	public int count(int dest, Predicate p) {
+		ArrayDeque<SimEvent> list = existingListOf(dest);
+		if (list == null) {
+			return 0;
+		}
+		if (p == CloudSim.SIM_ANY) {
+			return list.size();
+		}
+		int count = 0;
+		for (SimEvent event : list) {
+			if (p.match(event)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the first event for an entity that matches a predicate.
+	 *
+	 * @param dest the id of the destination entity
+	 * @param p the predicate
+	 * @return the event, or <tt>null</tt> if no event matches
+	 */
+	public SimEvent findFirst(int dest, Predicate p) {
+		ArrayDeque<SimEvent> list = existingListOf(dest);
+		if (list == null) {
+			return null;
+		}
+		for (SimEvent event : list) {
+			if (p.match(event)) {
+				return event;
 			}
 		}
+		return null;
+	}
 
-		list.add(newEvent);
+	/**
+	 * Removes and returns the first event for an entity that matches a predicate.
+	 *
+	 * @param dest the id of the destination entity
+	 * @param p the predicate
+	 * @return the event, or <tt>null</tt> if no event matches
+	 */
+	public SimEvent removeFirst(int dest, Predicate p) {
+		ArrayDeque<SimEvent> list = existingListOf(dest);
+		if (list == null || list.isEmpty()) {
+			return null;
+		}
+		if (p == CloudSim.SIM_ANY) {
+			size--;
+			return list.pollFirst();
+		}
+		Iterator<SimEvent> iterator = list.iterator();
+		while (iterator.hasNext()) {
+			SimEvent event = iterator.next();
+			if (p.match(event)) {
+				iterator.remove();
+				size--;
+				return event;
+			}
+		}
+		return null;
 	}
 
 	/**
-	 * Returns an iterator to the events in the queue.
-	 * 
+	 * Returns a read-only iterator to the events in the queue. The events of a destination are
+	 * returned in temporal order, destinations in id order.
+	 *
 	 * @return the iterator
 	 */
 	public Iterator<SimEvent> iterator() {
-		return list.iterator();
+		List<SimEvent> all = new ArrayList<SimEvent>(size);
+		for (ArrayDeque<SimEvent> list : lists) {
+			if (list != null) {
+				all.addAll(list);
+			}
+		}
+		return Collections.unmodifiableList(all).iterator();
 	}
 
 	/**
 	 * Returns the size of this event queue.
-	 * 
+	 *
 	 * @return the number of events in the queue.
 	 */
 	public int size() {
-		return list.size();
+		return size;
 	}
 
 	/**
 	 * Clears the queue.
 	 */
 	public void clear() {
-		list.clear();
+		lists.clear();
+		size = 0;
+	}
+
+	private ArrayDeque<SimEvent> existingListOf(int dest) {
+		return dest >= 0 && dest < lists.size() ? lists.get(dest) : null;
+	}
+
+	private ArrayDeque<SimEvent> listOf(int dest) {
+		while (lists.size() <= dest) {
+			lists.add(null);
+		}
+		ArrayDeque<SimEvent> list = lists.get(dest);
+		if (list == null) {
+			list = new ArrayDeque<SimEvent>();
+			lists.set(dest, list);
+		}
+		return list;
 	}
 
-}
\ No newline at end of file
+}
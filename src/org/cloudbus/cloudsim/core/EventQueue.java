@@ -0,0 +1,126 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+
+/**
+ * The future event queue used by {@link CloudSim}. Implementations must hand out events in the
+ * order defined by {@link SimEvent#compareTo(SimEvent)}, i.e. by time and then by serial, where
+ * events with equal time and serial leave the queue in the order they were added. This guarantees
+ * that every implementation produces the same event ordering for the same simulation.
+ * <p>
+ * The implementation used by a simulation is chosen with
+ * {@link CloudSim#init(int, java.util.Calendar, boolean, EventQueueFactory)}.
+ *
+ * @see FutureQueue
+ * @see HeapEventQueue
+ * @see CalendarEventQueue
+ */
+public interface EventQueue extends Iterable<SimEvent> {
+
+	/**
+	 * Add a new event to the queue. Adding a new event to the queue preserves the temporal order of
+	 * the events in the queue.
+	 *
+	 * @param newEvent The event to be put in the queue.
+	 */
+	void addEvent(SimEvent newEvent);
+
+	/**
+	 * Add a new event to the head of the queue, i.e. before all the events with the same time.
+	 *
+	 * @param newEvent The event to be put in the queue.
+	 */
+	void addEventFirst(SimEvent newEvent);
+
+	/**
+	 * Returns the first event of the queue without removing it.
+	 *
+	 * @return the first event, or <tt>null</tt> if the queue is empty
+	 */
+	SimEvent peek();
+
+	/**
+	 * Removes and returns the first event of the queue.
+	 *
+	 * @return the first event, or <tt>null</tt> if the queue is empty
+	 */
+	SimEvent poll();
+
+	/**
+	 * Removes all the events having the same time as the first event of the queue and appends them,
+	 * in queue order, to the given list.
+	 *
+	 * @param buffer the list receiving the events
+	 * @return the number of events removed
+	 */
+	int drainNextTime(List<SimEvent> buffer);
+
+	/**
+	 * Returns an iterator over the events in the queue. The iteration order is only guaranteed to
+	 * be the queue order for {@link FutureQueue}; other implementations may return the events in
+	 * any order and may not support {@link Iterator#remove()}.
+	 *
+	 * @return the iterator
+	 */
+	@Override
+	Iterator<SimEvent> iterator();
+
+	/**
+	 * Returns the size of this event queue.
+	 *
+	 * @return the size
+	 */
+	int size();
+
+	/**
+	 * Removes the event from the queue.
+	 *
+	 * @param event the event
+	 * @return true, if successful
+	 */
+	boolean remove(SimEvent event);
+
+	/**
+	 * Removes all the events from the queue.
+	 *
+	 * @param events the events
+	 * @return true, if successful
+	 */
+	boolean removeAll(Collection<SimEvent> events);
+
+	/**
+	 * Removes the first event, in queue order, sent by the given entity that matches a predicate.
+	 *
+	 * @param src the id of the entity that sent the event
+	 * @param p the predicate
+	 * @return the removed event, or <tt>null</tt> if no event matches
+	 */
+	SimEvent removeFirst(int src, Predicate p);
+
+	/**
+	 * Removes all the events sent by the given entity that match a predicate.
+	 *
+	 * @param src the id of the entity that sent the events
+	 * @param p the predicate
+	 * @return the number of events removed
+	 */
+	int removeAll(int src, Predicate p);
+
+	/**
+	 * Clears the queue.
+	 */
+	void clear();
+
+}
@@ -0,0 +1,36 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+/**
+ * Creates the future event queue of a simulation. A new queue is created every time
+ * {@link CloudSim} is initialised, e.g. <tt>CloudSim.init(numUser, calendar, traceFlag,
+ * HeapEventQueue::new)</tt>.
+ *
+ * @see EventQueue
+ */
+public interface EventQueueFactory {
+
+	/** Creates the default, {@link java.util.TreeSet} based, {@link FutureQueue}. */
+	EventQueueFactory TREE_SET = FutureQueue::new;
+
+	/** Creates a {@link HeapEventQueue}. */
+	EventQueueFactory HEAP = HeapEventQueue::new;
+
+	/** Creates a {@link CalendarEventQueue}. */
+	EventQueueFactory CALENDAR = CalendarEventQueue::new;
+
+	/**
+	 * Creates an empty event queue.
+	 *
+	 * @return the event queue
+	 */
+	EventQueue createEventQueue();
+
+}
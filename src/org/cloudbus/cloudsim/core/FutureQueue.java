@@ -10,9 +10,11 @@ package org.cloudbus.cloudsim.core;
 
 import java.util.Collection;
 import java.util.Iterator;
-import java.util.SortedSet;
+import java.util.List;
 import java.util.TreeSet;
 
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+
 /**
  * This class implements the future event queue used by {@link Simulation}. The event queue uses a
  * {@link TreeSet} in order to store the events.
@@ -21,11 +23,12 @@ import java.util.TreeSet;
  * @since CloudSim Toolkit 1.0
  * @see Simulation
  * @see java.util.TreeSet
+ * @see EventQueue
  */
-public class FutureQueue {
+public class FutureQueue implements EventQueue {
 
 	/** The sorted set. */
-	private final SortedSet<SimEvent> sortedSet = new TreeSet<SimEvent>();
+	private final TreeSet<SimEvent> sortedSet = new TreeSet<SimEvent>();
 
 	/** The serial. */
 	private long serial = 0;
@@ -36,6 +39,7 @@ public class FutureQueue {
 	 * 
 	 * @param newEvent The event to be put in the queue.
 	 */
+	@Override
 	public void addEvent(SimEvent newEvent) {
 		newEvent.setSerial(serial++);
 		sortedSet.add(newEvent);
@@ -46,16 +50,43 @@ public class FutureQueue {
 	 * 
 	 * @param newEvent The event to be put in the queue.
 	 */
+	@Override
 	public void addEventFirst(SimEvent newEvent) {
 		newEvent.setSerial(0);
 		sortedSet.add(newEvent);
 	}
 
+	@Override
+	public SimEvent peek() {
+		return sortedSet.isEmpty() ? null : sortedSet.first();
+	}
+
+	@Override
+	public SimEvent poll() {
+		return sortedSet.pollFirst();
+	}
+
+	@Override
+	public int drainNextTime(List<SimEvent> buffer) {
+		SimEvent first = sortedSet.pollFirst();
+		if (first == null) {
+			return 0;
+		}
+		buffer.add(first);
+		int count = 1;
+		while (!sortedSet.isEmpty() && sortedSet.first().eventTime() == first.eventTime()) {
+			buffer.add(sortedSet.pollFirst());
+			count++;
+		}
+		return count;
+	}
+
 	/**
 	 * Returns an iterator to the queue.
 	 * 
 	 * @return the iterator
 	 */
+	@Override
 	public Iterator<SimEvent> iterator() {
 		return sortedSet.iterator();
 	}
@@ -65,6 +96,7 @@ public class FutureQueue {
 	 * 
 	 * @return the size
 	 */
+	@Override
 	public int size() {
 		return sortedSet.size();
 	}
@@ -75,6 +107,7 @@ public class FutureQueue {
 	 * @param event the event
 	 * @return true, if successful
 	 */
+	@Override
 	public boolean remove(SimEvent event) {
 		return sortedSet.remove(event);
 	}
@@ -85,13 +118,42 @@ public class FutureQueue {
 	 * @param events the events
 	 * @return true, if successful
 	 */
+	@Override
 	public boolean removeAll(Collection<SimEvent> events) {
 		return sortedSet.removeAll(events);
 	}
 
+	@Override
+	public SimEvent removeFirst(int src, Predicate p) {
+		Iterator<SimEvent> iter = sortedSet.iterator();
+		while (iter.hasNext()) {
+			SimEvent ev = iter.next();
+			if (ev.getSource() == src && p.match(ev)) {
+				iter.remove();
+				return ev;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public int removeAll(int src, Predicate p) {
+		int count = 0;
+		Iterator<SimEvent> iter = sortedSet.iterator();
+		while (iter.hasNext()) {
+			SimEvent ev = iter.next();
+			if (ev.getSource() == src && p.match(ev)) {
+				iter.remove();
+				count++;
+			}
+		}
+		return count;
+	}
+
 	/**
 	 * Clears the queue.
 	 */
+	@Override
 	public void clear() {
 		sortedSet.clear();
 	}
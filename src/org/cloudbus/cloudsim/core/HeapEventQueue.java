@@ -0,0 +1,117 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Arrays;
+
+/**
+ * A future event queue backed by a 4-ary array heap of timestamps. Events sharing a timestamp are
+ * stored together in one {@link TimeBucket}, so adding an event at an already queued time costs a
+ * hash lookup and an append, and {@link #drainNextTime(java.util.List)} hands out a whole
+ * timestamp with a single heap removal. The bucket times are kept in a primitive array next to the
+ * buckets so that sifting does not dereference the buckets.
+ *
+ * @see EventQueue
+ */
+public class HeapEventQueue extends TimeBucketQueue {
+
+	/** The heap arity. */
+	private static final int D = 4;
+
+	/** The buckets, in heap order. */
+	private TimeBucket[] heap = new TimeBucket[64];
+
+	/** The times of the buckets in {@link #heap}. */
+	private double[] times = new double[64];
+
+	/** Number of buckets in the heap. */
+	private int count;
+
+	@Override
+	protected void insertBucket(TimeBucket bucket) {
+		if (count == heap.length) {
+			heap = Arrays.copyOf(heap, count * 2);
+			times = Arrays.copyOf(times, count * 2);
+		}
+		siftUp(count++, bucket);
+	}
+
+	@Override
+	protected void removeBucket(TimeBucket bucket) {
+		int i = bucket.heapIndex;
+		int last = --count;
+		TimeBucket moved = heap[last];
+		heap[last] = null;
+		bucket.heapIndex = -1;
+		if (i == last) {
+			return;
+		}
+		if (i > 0 && moved.time < times[(i - 1) / D]) {
+			siftUp(i, moved);
+		} else {
+			siftDown(i, moved);
+		}
+	}
+
+	@Override
+	protected TimeBucket firstBucket() {
+		return heap[0];
+	}
+
+	@Override
+	protected void clearBuckets() {
+		Arrays.fill(heap, 0, count, null);
+		count = 0;
+	}
+
+	private void siftUp(int i, TimeBucket bucket) {
+		double time = bucket.time;
+		while (i > 0) {
+			int parent = (i - 1) / D;
+			if (times[parent] <= time) {
+				break;
+			}
+			place(i, heap[parent]);
+			i = parent;
+		}
+		place(i, bucket);
+	}
+
+	private void siftDown(int i, TimeBucket bucket) {
+		double time = bucket.time;
+		while (true) {
+			int firstChild = i * D + 1;
+			if (firstChild >= count) {
+				break;
+			}
+			int end = Math.min(firstChild + D, count);
+			int min = firstChild;
+			double minTime = times[firstChild];
+			for (int c = firstChild + 1; c < end; c++) {
+				if (times[c] < minTime) {
+					min = c;
+					minTime = times[c];
+				}
+			}
+			if (time <= minTime) {
+				break;
+			}
+			place(i, heap[min]);
+			i = min;
+		}
+		place(i, bucket);
+	}
+
+	private void place(int i, TimeBucket bucket) {
+		heap[i] = bucket;
+		times[i] = bucket.time;
+		bucket.heapIndex = i;
+	}
+
+}
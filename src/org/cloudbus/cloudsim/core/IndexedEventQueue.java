@@ -0,0 +1,378 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+import org.cloudbus.cloudsim.core.predicates.PredicateAny;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
+
+/**
+ * A future event queue adding an index of the events by source and tag to another queue, so that
+ * cancelling the events of an entity with a {@link PredicateType} or {@link CloudSim#SIM_ANY}
+ * only looks at the matching events instead of the whole queue. Other predicates are handed to
+ * the underlying queue.
+ * <p>
+ * Cancelled events are not removed from the underlying queue right away: they are marked as
+ * cancelled and skipped when they reach the head of the queue, and removed in bulk once they
+ * outnumber the live events. Likewise, the index lists drop the events that left the queue only
+ * when they have doubled in size.
+ *
+ * @see EventQueue
+ */
+public class IndexedEventQueue implements EventQueue {
+
+	/** Minimum number of cancelled events before they are removed from the underlying queue. */
+	private static final int MIN_TOMBSTONES = 64;
+
+	/** Minimum size of an index list before it is compacted. */
+	private static final int MIN_COMPACTION = 16;
+
+	/** The underlying queue, which also holds the cancelled events not removed yet. */
+	private final EventQueue queue;
+
+	/** The events of each source entity by tag, indexed by entity id, in the order they were added. */
+	private final List<Map<Integer, EventList>> sources = new ArrayList<Map<Integer, EventList>>();
+
+	/** Cancelled events that may still be in the underlying queue. */
+	private final List<SimEvent> tombstones = new ArrayList<SimEvent>();
+
+	/** Number of live events. */
+	private int size;
+
+	/** The order of the next added event. */
+	private long order;
+
+	public IndexedEventQueue(EventQueue queue) {
+		this.queue = queue;
+	}
+
+	@Override
+	public void addEvent(SimEvent newEvent) {
+		queue.addEvent(newEvent);
+		index(newEvent);
+	}
+
+	@Override
+	public void addEventFirst(SimEvent newEvent) {
+		queue.addEventFirst(newEvent);
+		index(newEvent);
+	}
+
+	@Override
+	public SimEvent peek() {
+		SimEvent first = queue.peek();
+		while (first != null && !first.pending) {
+			queue.poll();
+			first = queue.peek();
+		}
+		return first;
+	}
+
+	@Override
+	public SimEvent poll() {
+		SimEvent first = queue.poll();
+		while (first != null && !first.pending) {
+			first = queue.poll();
+		}
+		if (first != null) {
+			first.pending = false;
+			size--;
+		}
+		return first;
+	}
+
+	@Override
+	public int drainNextTime(List<SimEvent> buffer) {
+		int start = buffer.size();
+		while (queue.drainNextTime(buffer) > 0) {
+			int kept = start;
+			for (int i = start, n = buffer.size(); i < n; i++) {
+				SimEvent event = buffer.get(i);
+				if (event.pending) {
+					event.pending = false;
+					buffer.set(kept++, event);
+				}
+			}
+			buffer.subList(kept, buffer.size()).clear();
+			if (kept > start) {
+				size -= kept - start;
+				return kept - start;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Returns an iterator over the live events, in the order of the underlying queue.
+	 *
+	 * @return the iterator
+	 */
+	@Override
+	public Iterator<SimEvent> iterator() {
+		final Iterator<SimEvent> iterator = queue.iterator();
+		return new Iterator<SimEvent>() {
+
+			private SimEvent next;
+
+			@Override
+			public boolean hasNext() {
+				while (next == null && iterator.hasNext()) {
+					SimEvent event = iterator.next();
+					if (event.pending) {
+						next = event;
+					}
+				}
+				return next != null;
+			}
+
+			@Override
+			public SimEvent next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				SimEvent event = next;
+				next = null;
+				return event;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException("Use EventQueue.remove(SimEvent) instead.");
+			}
+		};
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean remove(SimEvent event) {
+		if (!event.pending || !queue.remove(event)) {
+			return false;
+		}
+		event.pending = false;
+		size--;
+		return true;
+	}
+
+	@Override
+	public boolean removeAll(Collection<SimEvent> events) {
+		boolean changed = false;
+		for (SimEvent event : events) {
+			changed |= remove(event);
+		}
+		return changed;
+	}
+
+	@Override
+	public SimEvent removeFirst(final int src, final Predicate p) {
+		if (!isIndexed(p)) {
+			SimEvent event = queue.removeFirst(src, new Predicate() {
+				@Override
+				public boolean match(SimEvent event) {
+					return event.pending && p.match(event);
+				}
+			});
+			if (event != null) {
+				event.pending = false;
+				size--;
+			}
+			return event;
+		}
+
+		SimEvent first = null;
+		for (EventList list : listsOf(src, p)) {
+			for (int i = 0; i < list.size; i++) {
+				SimEvent event = list.events[i];
+				if (event.pending && event.getSource() == src && p.match(event)
+						&& (first == null || isBefore(event, first))) {
+					first = event;
+				}
+			}
+		}
+		if (first != null) {
+			cancel(first);
+		}
+		return first;
+	}
+
+	@Override
+	public int removeAll(final int src, final Predicate p) {
+		if (!isIndexed(p)) {
+			// the matched events are exactly the removed ones
+			int count = queue.removeAll(src, new Predicate() {
+				@Override
+				public boolean match(SimEvent event) {
+					if (event.pending && p.match(event)) {
+						event.pending = false;
+						return true;
+					}
+					return false;
+				}
+			});
+			size -= count;
+			return count;
+		}
+
+		int count = 0;
+		for (EventList list : listsOf(src, p)) {
+			for (int i = 0; i < list.size; i++) {
+				SimEvent event = list.events[i];
+				if (event.pending && event.getSource() == src && p.match(event)) {
+					cancel(event);
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	@Override
+	public void clear() {
+		queue.clear();
+		for (Map<Integer, EventList> lists : sources) {
+			if (lists != null) {
+				for (EventList list : lists.values()) {
+					for (int i = 0; i < list.size; i++) {
+						list.events[i].pending = false;
+					}
+				}
+			}
+		}
+		sources.clear();
+		tombstones.clear();
+		size = 0;
+	}
+
+	private void index(SimEvent event) {
+		event.pending = true;
+		event.queueOrder = order++;
+		size++;
+		int src = event.getSource();
+		if (src < 0) {
+			return;
+		}
+		while (sources.size() <= src) {
+			sources.add(null);
+		}
+		Map<Integer, EventList> lists = sources.get(src);
+		if (lists == null) {
+			lists = new HashMap<Integer, EventList>();
+			sources.set(src, lists);
+		}
+		EventList list = lists.get(event.getTag());
+		if (list == null) {
+			list = new EventList();
+			lists.put(event.getTag(), list);
+		}
+		list.add(event);
+	}
+
+	private void cancel(SimEvent event) {
+		event.pending = false;
+		size--;
+		tombstones.add(event);
+		if (tombstones.size() >= MIN_TOMBSTONES && tombstones.size() > size) {
+			for (SimEvent tombstone : tombstones) {
+				queue.remove(tombstone);
+			}
+			tombstones.clear();
+		}
+	}
+
+	/**
+	 * Whether the events matching a predicate can be found through the index.
+	 */
+	private static boolean isIndexed(Predicate p) {
+		return p.getClass() == PredicateType.class || p.getClass() == PredicateAny.class;
+	}
+
+	/**
+	 * Returns the index lists holding the events of a source that may match an indexed predicate.
+	 */
+	private List<EventList> listsOf(int src, Predicate p) {
+		List<EventList> result = new ArrayList<EventList>();
+		Map<Integer, EventList> lists = src >= 0 && src < sources.size() ? sources.get(src) : null;
+		if (lists == null) {
+			return result;
+		}
+		if (p.getClass() == PredicateAny.class) {
+			result.addAll(lists.values());
+			return result;
+		}
+		for (int tag : ((PredicateType) p).getTags()) {
+			EventList list = lists.get(tag);
+			if (list != null && !result.contains(list)) {
+				result.add(list);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Whether an event is before another in queue order: by time, then serial, then in the order
+	 * they were added.
+	 */
+	private static boolean isBefore(SimEvent event, SimEvent other) {
+		if (event.eventTime() != other.eventTime()) {
+			return event.eventTime() < other.eventTime();
+		}
+		if (event.getSerial() != other.getSerial()) {
+			return event.getSerial() < other.getSerial();
+		}
+		return event.queueOrder < other.queueOrder;
+	}
+
+	/**
+	 * The events of one source and tag, in the order they were added. The events that left the
+	 * queue are dropped when the list has doubled in size since it was last compacted.
+	 */
+	private static final class EventList {
+
+		private SimEvent[] events = new SimEvent[4];
+
+		private int size;
+
+		/** The size at which the list is compacted next. */
+		private int compactAt = MIN_COMPACTION;
+
+		void add(SimEvent event) {
+			if (size == compactAt) {
+				int kept = 0;
+				for (int i = 0; i < size; i++) {
+					if (events[i].pending) {
+						events[kept++] = events[i];
+					}
+				}
+				for (int i = kept; i < size; i++) {
+					events[i] = null;
+				}
+				size = kept;
+				compactAt = Math.max(MIN_COMPACTION, 2 * kept);
+			}
+			if (size == events.length) {
+				SimEvent[] grown = new SimEvent[Math.max(events.length * 2, compactAt)];
+				System.arraycopy(events, 0, grown, 0, size);
+				events = grown;
+			}
+			events[size++] = event;
+		}
+	}
+
+}
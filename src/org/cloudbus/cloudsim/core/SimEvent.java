@@ -40,6 +40,12 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 
 	private long serial = -1;
 
+	/** whether the event is in the future event queue and was not cancelled, see {@link IndexedEventQueue} **/
+	boolean pending;
+
+	/** order in which the event was added to the {@link IndexedEventQueue} **/
+	long queueOrder;
+
 	// Internal event types
 
 	public static final int ENULL = 0;
@@ -86,6 +92,16 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 		this.serial = serial;
 	}
 
+	/**
+	 * Gets the serial assigned by the future event queue. Events with the same time are ordered by
+	 * their serial.
+	 *
+	 * @return the serial, or -1 if the event has not been queued yet
+	 */
+	protected long getSerial() {
+		return serial;
+	}
+
 	/**
 	 * Used to set the time at which this event finished waiting in the event
 	 * 
@@ -0,0 +1,272 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.BitSet;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+
+/**
+ * The state of one simulation: the clock, the event queues, the entities and any other component
+ * that must not be shared between simulations, such as the monitors of the fog layer. The static
+ * methods of {@link CloudSim} act on the context of the calling thread, which is the default
+ * context unless another one has been bound to the thread with {@link #call(Callable)} or
+ * {@link #run(Runnable)}. Independent simulations can thus run at the same time, each on its own
+ * thread and in its own context, e.g.
+ *
+ * <pre>
+ * executor.submit(() -&gt; new SimulationContext().call(() -&gt; runScenario(parameters)));
+ * </pre>
+ *
+ * A context is not thread safe: it must only be used by one thread at a time.
+ */
+public class SimulationContext {
+
+	/** The context of the threads no other context is bound to. */
+	private static final SimulationContext DEFAULT = new SimulationContext();
+
+	/** The context bound to each thread. */
+	private static final ThreadLocal<SimulationContext> CURRENT = new ThreadLocal<SimulationContext>();
+
+	/** Whether a context has ever been bound to a thread; until then, all threads use the default one. */
+	private static volatile boolean bound = false;
+
+	/** The id of CIS entity. */
+	int cisId = -1;
+
+	/** The id of CloudSimShutdown entity. */
+	int shutdownId = -1;
+
+	/** The CIS object. */
+	CloudInformationService cis = null;
+
+	/** The trace flag. */
+	boolean traceFlag = false;
+
+	/** The calendar. */
+	Calendar calendar = null;
+
+	/** The termination time. */
+	double terminateAt = -1;
+
+	/** The minimal time between events. Events within shorter periods after the last event are discarded. */
+	double minTimeBetweenEvents = 0.1;
+
+	/** The factory of the future event queue created by {@link CloudSim#initialize()}. */
+	EventQueueFactory eventQueueFactory = EventQueueFactory.TREE_SET;
+
+	/** The entities. */
+	List<SimEntity> entities;
+
+	/** The future event queue. */
+	EventQueue future;
+
+	/** The deferred event queue. */
+	DeferredQueue deferred;
+
+	/** The simulation clock. */
+	double clock;
+
+	/** Flag for checking if the simulation is running. */
+	boolean running;
+
+	/** The entities by name. */
+	Map<String, SimEntity> entitiesByName;
+
+	/** The predicates used in entity wait methods. */
+	Map<Integer, Predicate> waitPredicates;
+
+	/** The paused. */
+	boolean paused = false;
+
+	/** The pause at. */
+	long pauseAt = -1;
+
+	/** The abrupt terminate. */
+	boolean abruptTerminate = false;
+
+	/**
+	 * Ids of the entities that may have work to do in the next tick, i.e. that received a deferred
+	 * event or were made runnable since they last ran.
+	 */
+	BitSet pendingEntities;
+
+	/** Reused buffer holding the events dispatched in one tick. */
+	List<SimEvent> dispatchBuffer;
+
+	/** The other components of the simulation, by key. */
+	private final Map<Object, Object> components = new HashMap<Object, Object>();
+
+	/** Whether the random numbers of the simulation come from {@link #seed}. */
+	private final boolean seeded;
+
+	/** The seed of the random numbers of the simulation. */
+	private final long seed;
+
+	/** The random number generator of the simulation, created on first use. */
+	private Random random;
+
+	/**
+	 * Creates a context whose random numbers are not reproducible.
+	 */
+	public SimulationContext() {
+		seeded = false;
+		seed = 0;
+	}
+
+	/**
+	 * Creates a context whose random numbers are drawn from a given seed, so that a simulation
+	 * run in it can be reproduced.
+	 *
+	 * @param seed the seed of the random numbers
+	 */
+	public SimulationContext(long seed) {
+		seeded = true;
+		this.seed = seed;
+	}
+
+	/**
+	 * Gets the context of the calling thread.
+	 *
+	 * @return the context bound to the thread, or the default context if there is none
+	 */
+	public static SimulationContext current() {
+		if (bound) {
+			SimulationContext context = CURRENT.get();
+			if (context != null) {
+				return context;
+			}
+		}
+		return DEFAULT;
+	}
+
+	/**
+	 * Gets the context used by the threads no other context is bound to.
+	 *
+	 * @return the default context
+	 */
+	public static SimulationContext getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * Runs a task in this context: the static methods of {@link CloudSim} and the fog monitors
+	 * called by the task on this thread act on this context. The previous context of the thread is
+	 * restored afterwards.
+	 *
+	 * @param task the task, usually setting up and running a whole simulation
+	 * @return the result of the task
+	 * @throws Exception any exception thrown by the task
+	 */
+	public <T> T call(Callable<T> task) throws Exception {
+		SimulationContext previous = CURRENT.get();
+		bound = true;
+		CURRENT.set(this);
+		try {
+			return task.call();
+		} finally {
+			if (previous == null) {
+				CURRENT.remove();
+			} else {
+				CURRENT.set(previous);
+			}
+		}
+	}
+
+	/**
+	 * Runs a task in this context.
+	 *
+	 * @param task the task
+	 * @see #call(Callable)
+	 */
+	public void run(final Runnable task) {
+		try {
+			call(new Callable<Void>() {
+
+				@Override
+				public Void call() {
+					task.run();
+					return null;
+				}
+			});
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			// a Runnable can only throw unchecked exceptions
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Gets a component of this context, creating it on first use. Classes holding simulation wide
+	 * state, such as monitors, use it instead of static fields, usually with their own class as the
+	 * key.
+	 *
+	 * @param key the key of the component
+	 * @param factory creates the component if this context has none yet
+	 * @return the component
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T getComponent(Object key, Supplier<T> factory) {
+		Object component = components.get(key);
+		if (component == null) {
+			component = factory.get();
+			components.put(key, component);
+		}
+		return (T) component;
+	}
+
+	/**
+	 * Gets the random number generator of this context. Simulation components draw their random
+	 * numbers from it, so that a run in a seeded context is reproducible.
+	 *
+	 * @return the random number generator
+	 */
+	public Random getRandom() {
+		if (random == null) {
+			random = seeded ? new Random(seed) : new Random();
+		}
+		return random;
+	}
+
+	/**
+	 * Whether the random numbers of this context are drawn from a given seed.
+	 *
+	 * @return true if the context has a seed
+	 */
+	public boolean isSeeded() {
+		return seeded;
+	}
+
+	/**
+	 * Gets the seed of the random numbers of this context.
+	 *
+	 * @return the seed, meaningless if the context is not {@link #isSeeded() seeded}
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Gets the simulation clock of this context.
+	 *
+	 * @return the simulation time
+	 */
+	public double getClock() {
+		return clock;
+	}
+
+}
@@ -0,0 +1,150 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.List;
+
+/**
+ * All the queued events sharing one timestamp, kept in an array ordered by serial. Events with the
+ * same serial (see {@link FutureQueue#addEventFirst(SimEvent)}) keep their insertion order, so a
+ * bucket reproduces the order of a {@link java.util.TreeSet} of {@link SimEvent}s.
+ *
+ * @see TimeBucketQueue
+ */
+final class TimeBucket {
+
+	/** The time shared by all the events of this bucket. */
+	double time;
+
+	/** The events; the live ones are in [head, tail). */
+	SimEvent[] events = new SimEvent[4];
+
+	/** Index of the first live event. */
+	int head;
+
+	/** Index after the last live event. */
+	int tail;
+
+	/** Slot of this bucket in the {@link HeapEventQueue} array. */
+	int heapIndex;
+
+	/** Virtual day of this bucket in the {@link CalendarEventQueue}, i.e. floor(time / width). */
+	long day;
+
+	/** Next bucket in the same {@link CalendarEventQueue} day. */
+	TimeBucket next;
+
+	/**
+	 * Reinitialises an empty bucket for the given time.
+	 *
+	 * @param time the time
+	 */
+	void reset(double time) {
+		this.time = time;
+		head = 0;
+		tail = 0;
+		heapIndex = -1;
+		next = null;
+	}
+
+	int size() {
+		return tail - head;
+	}
+
+	boolean isEmpty() {
+		return tail == head;
+	}
+
+	SimEvent first() {
+		return events[head];
+	}
+
+	/**
+	 * Inserts an event after all the events whose serial is not greater than its own. Events added
+	 * through {@link EventQueue#addEvent(SimEvent)} have increasing serials, hence they are
+	 * appended in constant time.
+	 *
+	 * @param event the event
+	 */
+	void add(SimEvent event) {
+		if (tail == events.length) {
+			makeRoom();
+		}
+		long serial = event.getSerial();
+		int pos = tail;
+		while (pos > head && events[pos - 1].getSerial() > serial) {
+			pos--;
+		}
+		if (pos < tail) {
+			System.arraycopy(events, pos, events, pos + 1, tail - pos);
+		}
+		events[pos] = event;
+		tail++;
+	}
+
+	SimEvent pollFirst() {
+		SimEvent event = events[head];
+		events[head++] = null;
+		return event;
+	}
+
+	/**
+	 * Moves all the events of this bucket, in order, to the given list and empties the bucket.
+	 *
+	 * @param buffer the list receiving the events
+	 * @return the number of events moved
+	 */
+	int drainTo(List<SimEvent> buffer) {
+		int count = tail - head;
+		for (int i = head; i < tail; i++) {
+			buffer.add(events[i]);
+			events[i] = null;
+		}
+		head = tail;
+		return count;
+	}
+
+	/**
+	 * Removes the given event (compared by identity) from the bucket.
+	 *
+	 * @param event the event
+	 * @return true, if the event was in the bucket
+	 */
+	boolean remove(SimEvent event) {
+		for (int i = head; i < tail; i++) {
+			if (events[i] == event) {
+				removeAt(i);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	void removeAt(int i) {
+		System.arraycopy(events, i + 1, events, i, tail - i - 1);
+		events[--tail] = null;
+	}
+
+	private void makeRoom() {
+		int size = tail - head;
+		if (head > 0 && size < events.length / 2) {
+			System.arraycopy(events, head, events, 0, size);
+		} else {
+			SimEvent[] grown = new SimEvent[events.length * 2];
+			System.arraycopy(events, head, grown, 0, size);
+			events = grown;
+		}
+		for (int i = size; i < tail; i++) {
+			events[i] = null;
+		}
+		head = 0;
+		tail = size;
+	}
+
+}
@@ -0,0 +1,391 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+
+/**
+ * Base class of the event queues that group the events by timestamp. Every distinct time owns a
+ * {@link TimeBucket}; buckets are found through an open addressing hash table keyed by time and
+ * ordered by a subclass specific structure. Because bucket times are distinct, subclasses only
+ * need to order plain doubles, and all the events of a timestamp are extracted at once by
+ * {@link #drainNextTime(List)}.
+ *
+ * @see HeapEventQueue
+ * @see CalendarEventQueue
+ */
+abstract class TimeBucketQueue implements EventQueue {
+
+	/** Maximum number of empty buckets kept for reuse. */
+	private static final int MAX_FREE_BUCKETS = 1024;
+
+	/** Hash table of the live buckets, keyed by bucket time (linear probing). */
+	private TimeBucket[] table = new TimeBucket[64];
+
+	/** Number of live buckets. */
+	private int bucketCount;
+
+	/** Number of queued events. */
+	private int size;
+
+	/** The serial. */
+	private long serial = 0;
+
+	/** Empty buckets kept for reuse, linked through {@link TimeBucket#next}. */
+	private TimeBucket freeBuckets;
+
+	/** Number of buckets in {@link #freeBuckets}. */
+	private int freeBucketCount;
+
+	/**
+	 * Adds a new bucket to the ordering structure.
+	 *
+	 * @param bucket the bucket, not yet ordered
+	 */
+	protected abstract void insertBucket(TimeBucket bucket);
+
+	/**
+	 * Removes a bucket from the ordering structure.
+	 *
+	 * @param bucket the bucket
+	 */
+	protected abstract void removeBucket(TimeBucket bucket);
+
+	/**
+	 * Returns the bucket with the smallest time. Only called when the queue is not empty.
+	 *
+	 * @return the first bucket
+	 */
+	protected abstract TimeBucket firstBucket();
+
+	/**
+	 * Removes all the buckets from the ordering structure.
+	 */
+	protected abstract void clearBuckets();
+
+	@Override
+	public void addEvent(SimEvent newEvent) {
+		newEvent.setSerial(serial++);
+		insert(newEvent);
+	}
+
+	@Override
+	public void addEventFirst(SimEvent newEvent) {
+		newEvent.setSerial(0);
+		insert(newEvent);
+	}
+
+	@Override
+	public SimEvent peek() {
+		return size == 0 ? null : firstBucket().first();
+	}
+
+	@Override
+	public SimEvent poll() {
+		if (size == 0) {
+			return null;
+		}
+		TimeBucket bucket = firstBucket();
+		SimEvent event = bucket.pollFirst();
+		size--;
+		if (bucket.isEmpty()) {
+			detach(bucket);
+		}
+		return event;
+	}
+
+	@Override
+	public int drainNextTime(List<SimEvent> buffer) {
+		if (size == 0) {
+			return 0;
+		}
+		TimeBucket bucket = firstBucket();
+		int count = bucket.drainTo(buffer);
+		size -= count;
+		detach(bucket);
+		return count;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean remove(SimEvent event) {
+		TimeBucket bucket = lookup(event.eventTime());
+		if (bucket == null || !bucket.remove(event)) {
+			return false;
+		}
+		size--;
+		if (bucket.isEmpty()) {
+			detach(bucket);
+		}
+		return true;
+	}
+
+	@Override
+	public boolean removeAll(Collection<SimEvent> events) {
+		boolean changed = false;
+		for (SimEvent event : events) {
+			changed |= remove(event);
+		}
+		return changed;
+	}
+
+	@Override
+	public SimEvent removeFirst(int src, Predicate p) {
+		TimeBucket found = null;
+		int foundAt = -1;
+		for (TimeBucket bucket : table) {
+			if (bucket == null || (found != null && bucket.time > found.time)) {
+				continue;
+			}
+			for (int i = bucket.head; i < bucket.tail; i++) {
+				SimEvent ev = bucket.events[i];
+				if (ev.getSource() == src && p.match(ev)) {
+					found = bucket;
+					foundAt = i;
+					break;
+				}
+			}
+		}
+		if (found == null) {
+			return null;
+		}
+		SimEvent event = found.events[foundAt];
+		found.removeAt(foundAt);
+		size--;
+		if (found.isEmpty()) {
+			detach(found);
+		}
+		return event;
+	}
+
+	@Override
+	public int removeAll(int src, Predicate p) {
+		int count = 0;
+		List<TimeBucket> emptied = null;
+		for (TimeBucket bucket : table) {
+			if (bucket == null) {
+				continue;
+			}
+			int kept = bucket.head;
+			for (int i = bucket.head; i < bucket.tail; i++) {
+				SimEvent ev = bucket.events[i];
+				if (ev.getSource() == src && p.match(ev)) {
+					count++;
+				} else {
+					bucket.events[kept++] = ev;
+				}
+			}
+			for (int i = kept; i < bucket.tail; i++) {
+				bucket.events[i] = null;
+			}
+			bucket.tail = kept;
+			if (bucket.isEmpty()) {
+				if (emptied == null) {
+					emptied = new ArrayList<TimeBucket>();
+				}
+				emptied.add(bucket);
+			}
+		}
+		size -= count;
+		if (emptied != null) {
+			for (TimeBucket bucket : emptied) {
+				detach(bucket);
+			}
+		}
+		return count;
+	}
+
+	@Override
+	public Iterator<SimEvent> iterator() {
+		return new Iterator<SimEvent>() {
+
+			private int slot = -1;
+
+			private TimeBucket bucket;
+
+			private int pos;
+
+			@Override
+			public boolean hasNext() {
+				while (bucket == null || pos >= bucket.tail) {
+					if (++slot >= table.length) {
+						return false;
+					}
+					bucket = table[slot];
+					if (bucket != null) {
+						pos = bucket.head;
+					}
+				}
+				return true;
+			}
+
+			@Override
+			public SimEvent next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return bucket.events[pos++];
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException("Use EventQueue.remove(SimEvent) instead.");
+			}
+		};
+	}
+
+	@Override
+	public void clear() {
+		for (int i = 0; i < table.length; i++) {
+			table[i] = null;
+		}
+		bucketCount = 0;
+		size = 0;
+		clearBuckets();
+	}
+
+	/**
+	 * Returns the number of distinct timestamps in the queue.
+	 *
+	 * @return the number of buckets
+	 */
+	protected int bucketCount() {
+		return bucketCount;
+	}
+
+	/**
+	 * Copies the live buckets, in no particular order, into the given array.
+	 *
+	 * @param target an array of at least {@link #bucketCount()} elements
+	 */
+	protected void copyBuckets(TimeBucket[] target) {
+		int j = 0;
+		for (TimeBucket bucket : table) {
+			if (bucket != null) {
+				target[j++] = bucket;
+			}
+		}
+	}
+
+	private void insert(SimEvent event) {
+		double time = event.eventTime();
+		TimeBucket bucket = lookup(time);
+		if (bucket == null) {
+			bucket = newBucket(time);
+			put(bucket);
+			insertBucket(bucket);
+		}
+		bucket.add(event);
+		size++;
+	}
+
+	private void detach(TimeBucket bucket) {
+		removeBucket(bucket);
+		delete(bucket);
+		if (freeBucketCount < MAX_FREE_BUCKETS) {
+			bucket.next = freeBuckets;
+			freeBuckets = bucket;
+			freeBucketCount++;
+		}
+	}
+
+	private TimeBucket newBucket(double time) {
+		TimeBucket bucket = freeBuckets;
+		if (bucket == null) {
+			bucket = new TimeBucket();
+		} else {
+			freeBuckets = bucket.next;
+			freeBucketCount--;
+		}
+		bucket.reset(time);
+		return bucket;
+	}
+
+	// Hash table of buckets
+
+	private static int hash(double time) {
+		// +0.0 folds -0.0 into 0.0, which compare equal as event times
+		long bits = Double.doubleToLongBits(time + 0.0);
+		bits *= 0x9E3779B97F4A7C15L;
+		return (int) (bits ^ (bits >>> 32));
+	}
+
+	private TimeBucket lookup(double time) {
+		int mask = table.length - 1;
+		for (int i = hash(time) & mask;; i = (i + 1) & mask) {
+			TimeBucket bucket = table[i];
+			if (bucket == null || bucket.time == time) {
+				return bucket;
+			}
+		}
+	}
+
+	private void put(TimeBucket bucket) {
+		if ((bucketCount + 1) * 2 > table.length) {
+			rehash(table.length * 2);
+		}
+		int mask = table.length - 1;
+		int i = hash(bucket.time) & mask;
+		while (table[i] != null) {
+			i = (i + 1) & mask;
+		}
+		table[i] = bucket;
+		bucketCount++;
+	}
+
+	private void delete(TimeBucket bucket) {
+		int mask = table.length - 1;
+		int i = hash(bucket.time) & mask;
+		while (table[i] != bucket) {
+			i = (i + 1) & mask;
+		}
+		// backward shift deletion keeps the probe sequences of the following entries intact
+		int j = i;
+		while (true) {
+			j = (j + 1) & mask;
+			TimeBucket moved = table[j];
+			if (moved == null) {
+				break;
+			}
+			int home = hash(moved.time) & mask;
+			if ((j > i && (home <= i || home > j)) || (j < i && (home <= i && home > j))) {
+				table[i] = moved;
+				i = j;
+			}
+		}
+		table[i] = null;
+		bucketCount--;
+	}
+
+	private void rehash(int capacity) {
+		TimeBucket[] old = table;
+		table = new TimeBucket[capacity];
+		int mask = capacity - 1;
+		for (TimeBucket bucket : old) {
+			if (bucket != null) {
+				int i = hash(bucket.time) & mask;
+				while (table[i] != null) {
+					i = (i + 1) & mask;
+				}
+				table[i] = bucket;
+			}
+		}
+	}
+
+}
@@ -41,6 +41,15 @@ public class PredicateType extends Predicate {
 		this.tags = tags.clone();
 	}
 
+	/**
+	 * Returns the tags selected by this predicate.
+	 * 
+	 * @return a copy of the tags
+	 */
+	public int[] getTags() {
+		return tags.clone();
+	}
+
 	/**
 	 * The match function called by <code>Sim_system</code>, not used directly by the user.
 	 * 
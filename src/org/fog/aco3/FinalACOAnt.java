@@ -4,14 +4,17 @@ import isula.aco.Ant;
 import org.fog.application.AppModule;
 import org.fog.entities.FogDevice;
 import org.fog.mobilitydata.Location;
+import org.fog.mobilitydata.Trajectory;
 import org.fog.placement.LocationHandler;
 import org.fog.utils.Config;
 import org.fog.utils.FogDeviceUtils;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.SplittableRandom;
 
 public class FinalACOAnt extends Ant<FogDevice, FinalACOEnvironment> {
     private final int numberOfDevices;
@@ -20,6 +23,12 @@ public class FinalACOAnt extends Ant<FogDevice, FinalACOEnvironment> {
     private final List<String> modulesToBePlacedOrg;
     private Map<Integer, Double> currentCpuLoadMap = new HashMap<>();
     private Map<Integer, String> modulesOnDevice = new HashMap<>();
+    private SplittableRandom random = new SplittableRandom();
+    // Ids of the devices of the solution
+    private final BitSet visitedDevices = new BitSet();
+    // Buffers of the node selection, by position in the neighbourhood
+    private double[] candidateWeights = new double[0];
+    private int[] validCandidates = new int[0];
 
     public FinalACOAnt(int numberOfNodes, List<String> modulesToBePlaced) {
         this.numberOfDevices = numberOfNodes;
@@ -49,12 +58,45 @@ public class FinalACOAnt extends Ant<FogDevice, FinalACOEnvironment> {
         return currentCpuLoadMap;
     }
 
+    /**
+     * Source of the random choices of this ant. Each ant has its own, so that ants can build
+     * their solutions concurrently and still be reproducible when the solver is seeded.
+     */
+    public SplittableRandom getRandom() {
+        return random;
+    }
+
+    public void setRandom(SplittableRandom random) {
+        this.random = random;
+    }
+
+    /**
+     * @return the weight buffer of the node selection, large enough for the given neighbourhood
+     */
+    public double[] getCandidateWeights(int neighbourhoodSize) {
+        if (candidateWeights.length < neighbourhoodSize) {
+            candidateWeights = new double[neighbourhoodSize];
+        }
+        return candidateWeights;
+    }
+
+    /**
+     * @return the valid candidate buffer of the node selection, large enough for the given neighbourhood
+     */
+    public int[] getValidCandidates(int neighbourhoodSize) {
+        if (validCandidates.length < neighbourhoodSize) {
+            validCandidates = new int[neighbourhoodSize];
+        }
+        return validCandidates;
+    }
+
     @Override
     public void clear() {
         super.clear();
         modulesToBePlaced = new ArrayList<>(modulesToBePlacedOrg);
         modulesPlaced = new ArrayList<>();
         modulesOnDevice = new HashMap<>();
+        visitedDevices.clear();
     }
 
     @Override
@@ -63,6 +105,12 @@ public class FinalACOAnt extends Ant<FogDevice, FinalACOEnvironment> {
         String placedModule = modulesToBePlaced.remove(0);
         modulesPlaced.add(placedModule);
         modulesOnDevice.put(visitedNode.getId(), placedModule);
+        visitedDevices.set(visitedNode.getId());
+    }
+
+    @Override
+    public boolean isNodeVisited(FogDevice node) {
+        return visitedDevices.get(node.getId());
     }
 
     @Override
@@ -76,7 +124,7 @@ public class FinalACOAnt extends Ant<FogDevice, FinalACOEnvironment> {
         for (int i = 1; i < getCurrentIndex(); i++) {
             FogDevice preNode = getSolution()[i - 1];
             FogDevice curNode = getSolution()[i];
-            totalCost += environment.getLatencyMatrix()[preNode.getId()][curNode.getId()];
+            totalCost += environment.getLatency(preNode, curNode);
             totalCost += getSolution()[i].getPower();
         }
         return totalCost;
@@ -92,19 +140,19 @@ public class FinalACOAnt extends Ant<FogDevice, FinalACOEnvironment> {
         return environment.getModulesAvailableDevices().get(modulesToBePlaced.get(0));
     }
 
+    /**
+     * Indexes in the environment of the devices that can host the next module.
+     */
+    public int[] getNeighbourhoodIndexes(FinalACOEnvironment environment) {
+        return environment.getModuleAvailableDeviceIndexes(modulesToBePlaced.get(0));
+    }
+
     @Override
     public Double getPheromoneTrailValue(FogDevice solutionComponent, Integer positionInSolution, FinalACOEnvironment environment) {
         if (solutionComponent == null) {
             return 0.0;
         }
-        FogDevice previousComponent;
-        if (positionInSolution > 0) {
-            previousComponent = getSolution()[positionInSolution - 1];
-        } else {
-            previousComponent = environment.getInitialDevice();
-        }
-        double[][] pheromoneMatrix = environment.getPheromoneMatrix();
-        return pheromoneMatrix[previousComponent.getId()][solutionComponent.getId()];
+        return environment.getPheromones()[getTrailIndex(solutionComponent, positionInSolution, environment)];
     }
 
     @Override
@@ -112,25 +160,47 @@ public class FinalACOAnt extends Ant<FogDevice, FinalACOEnvironment> {
         if (solutionComponent == null) {
             return;
         }
+        environment.getPheromones()[getTrailIndex(solutionComponent, positionInSolution, environment)] = value;
+    }
+
+    /**
+     * @return the position in the row-major matrices of the environment of the move from the
+     * previous component of the solution to the given one
+     */
+    public int getTrailIndex(FogDevice solutionComponent, int positionInSolution, FinalACOEnvironment environment) {
+        return getPreviousDeviceIndex(positionInSolution, environment) * environment.getNumberOfDevices()
+                + environment.getDeviceIndex(solutionComponent);
+    }
+
+    /**
+     * @return the index in the environment of the device before the given position of the solution
+     */
+    public int getPreviousDeviceIndex(int positionInSolution, FinalACOEnvironment environment) {
         FogDevice previousComponent;
         if (positionInSolution > 0) {
             previousComponent = getSolution()[positionInSolution - 1];
         } else {
             previousComponent = environment.getInitialDevice();
         }
-        double[][] pheromoneMatrix = environment.getPheromoneMatrix();
-        pheromoneMatrix[previousComponent.getId()][solutionComponent.getId()] = value;
+        return environment.getDeviceIndex(previousComponent);
     }
 
     public double getDistanceBetweenCurrentDeviceAndUser(FogDevice solutionComponent, FinalACOEnvironment environment) {
         LocationHandler locator = environment.getLocator();
         double devicePositionX = locator.dataObject.resourceLocationData.get(locator.instanceToDataId.get(solutionComponent.getId())).latitude;
         double devicePositionY = locator.dataObject.resourceLocationData.get(locator.instanceToDataId.get(solutionComponent.getId())).longitude;
-        double timeOfUser = getClosetTimeOfUser(locator, getCurrentTime(environment));
-        Location userLocation = locator.dataObject.usersLocation.get(Config.USER_NAME).get(timeOfUser);
+        Location userLocation = getCurrentUserLocation(environment);
         return FogDeviceUtils.calculateDistance(devicePositionX, devicePositionY, userLocation.latitude, userLocation.longitude);
     }
 
+    /**
+     * Location of the user at the time the next module of the solution would start. It is the
+     * same for all the candidate devices of a step.
+     */
+    public Location getCurrentUserLocation(FinalACOEnvironment environment) {
+        return environment.getUserTrajectory().getClosestLocation(getCurrentTime(environment));
+    }
+
     public double getCurrentTime(FinalACOEnvironment environment) {
         double result = 0.0;
         // Add module running time
@@ -144,22 +214,14 @@ public class FinalACOAnt extends Ant<FogDevice, FinalACOEnvironment> {
             return result;
         } else {
             for (int i = 1; i < getCurrentIndex(); i++) {
-                result += environment.getLatencyMatrix()[getSolution()[i - 1].getId()][getSolution()[i].getId()];
+                result += environment.getLatency(getSolution()[i - 1], getSolution()[i]);
             }
         }
         return result;
     }
 
     public double getClosetTimeOfUser(LocationHandler locator, double time) {
-        Map<Double, Location> map = locator.dataObject.usersLocation.get(Config.USER_NAME);
-        double dif = Double.MAX_VALUE;
-        double result = 0;
-        for (Double key : map.keySet()) {
-            if (Math.abs(key - time) < dif) {
-                dif = Math.abs(key - time);
-                result = key;
-            }
-        }
-        return result;
+        Trajectory trajectory = locator.getTrajectory(Config.USER_NAME);
+        return trajectory.isEmpty() ? 0 : trajectory.getClosestTime(time);
     }
 }
@@ -2,27 +2,54 @@ package org.fog.aco3;
 
 import isula.aco.Environment;
 import isula.aco.exception.InvalidInputException;
+import org.fog.application.AppModule;
 import org.fog.application.Application;
 import org.fog.entities.Actuator;
 import org.fog.entities.FogDevice;
 import org.fog.entities.Sensor;
+import org.fog.mobilitydata.Location;
+import org.fog.mobilitydata.Trajectory;
 import org.fog.placement.LocationHandler;
+import org.fog.utils.Config;
 import org.fog.utils.FogDeviceUtils;
+import org.fog.utils.LatencyOracle;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * The environment the ants traverse. The candidate devices are densely indexed, in id order, and
+ * the pheromone and choice info matrices are row-major arrays over that index: the value from
+ * device i to device j is at <code>i * getNumberOfDevices() + j</code>. Latencies are computed on
+ * demand by a {@link LatencyOracle}.
+ */
 public class FinalACOEnvironment extends Environment {
     private List<FogDevice> fogDevices;
     private List<Sensor> sensors;
     private List<Actuator> actuators;
     private Application application;
     private LocationHandler locator;
-    private final double[][] latencyMatrix;
     private FogDevice initialDevice;
 
+    // Candidate devices by index, and index of the devices by id (-1 for any other entity)
+    private FogDevice[] devices;
+    private int[] deviceIndexes;
+    private double[] latitudes;
+    private double[] longitudes;
+
+    private Trajectory userTrajectory;
+    private LatencyOracle latencyOracle;
+    private double[] pheromoneMatrix;
+    // Pheromone to the power of the pheromone importance, refreshed once per iteration
+    private double[] choiceInfo;
+
     private Map<String, List<FogDevice>> modulesAvailableDevices = new HashMap<>();
+    private Map<String, int[]> modulesAvailableDeviceIndexes = new HashMap<>();
 
     /**
      * Creates an Environment for the Ants to traverse.
@@ -47,25 +74,108 @@ public class FinalACOEnvironment extends Environment {
         this.actuators = actuators;
         this.application = application;
         this.locator = locator;
-        latencyMatrix = FogDeviceUtils.createLatencyMatrixOfAllDevices(fogDevices, modulesAvailableDevices, application.getModules());
+        createDeviceIndex();
+        userTrajectory = locator.getTrajectory(Config.USER_NAME);
+        latencyOracle = new LatencyOracle(fogDevices);
+        for (AppModule module : application.getModules()) {
+            List<FogDevice> availableDevices = new ArrayList<>();
+            for (FogDevice device : devices) {
+                if (device.getHost().getRam() > module.getRam()) {
+                    availableDevices.add(device);
+                }
+            }
+            int[] indexes = new int[availableDevices.size()];
+            for (int i = 0; i < indexes.length; i++) {
+                indexes[i] = getDeviceIndex(availableDevices.get(i));
+            }
+            modulesAvailableDevices.put(module.getName(), availableDevices);
+            modulesAvailableDeviceIndexes.put(module.getName(), indexes);
+        }
         initialDevice = FogDeviceUtils.getInitialFogDevice(fogDevices, application, locator);
-        setPheromoneMatrix(createPheromoneMatrix());
+        resetPheromoneMatrix();
+    }
+
+    private void createDeviceIndex() {
+        List<FogDevice> sortedDevices = new ArrayList<>(fogDevices);
+        Collections.sort(sortedDevices, new Comparator<FogDevice>() {
+            @Override
+            public int compare(FogDevice o1, FogDevice o2) {
+                return Integer.compare(o1.getId(), o2.getId());
+            }
+        });
+        devices = sortedDevices.toArray(new FogDevice[0]);
+        deviceIndexes = new int[devices.length == 0 ? 0 : devices[devices.length - 1].getId() + 1];
+        Arrays.fill(deviceIndexes, -1);
+        latitudes = new double[devices.length];
+        longitudes = new double[devices.length];
+        for (int i = 0; i < devices.length; i++) {
+            deviceIndexes[devices[i].getId()] = i;
+            String dataId = locator.instanceToDataId.get(devices[i].getId());
+            Location location = dataId == null ? null : locator.dataObject.resourceLocationData.get(dataId);
+            latitudes[i] = location == null ? Double.NaN : location.latitude;
+            longitudes[i] = location == null ? Double.NaN : location.longitude;
+        }
     }
 
     public Map<String, List<FogDevice>> getModulesAvailableDevices() {
         return modulesAvailableDevices;
     }
 
+    /**
+     * Indexes of the devices that can host a module, in id order.
+     */
+    public int[] getModuleAvailableDeviceIndexes(String moduleName) {
+        return modulesAvailableDeviceIndexes.get(moduleName);
+    }
+
+    /**
+     * The pheromones are kept in the row-major {@link #getPheromones()} array, so the matrix of
+     * the framework is not used.
+     */
     @Override
     protected double[][] createPheromoneMatrix() {
-        if (fogDevices == null) {
-            return null;
+        return null;
+    }
+
+    /**
+     * Starts the pheromone trails from the latency matrix.
+     */
+    public void resetPheromoneMatrix() {
+        if (pheromoneMatrix == null) {
+            pheromoneMatrix = new double[devices.length * devices.length];
         }
-        if (this.getProblemRepresentation() != null) {
-            // Based on observation, maxId is greater than the length of FogDevices.
-            return FogDeviceUtils.copy2DArray(latencyMatrix);
+        for (int i = 0; i < devices.length; i++) {
+            for (int j = 0; j < devices.length; j++) {
+                pheromoneMatrix[i * devices.length + j] = getLatency(devices[i], devices[j]);
+            }
         }
-        return null;
+        choiceInfo = null;
+    }
+
+    @Override
+    public void populatePheromoneMatrix(double pheromoneValue) {
+        Arrays.fill(pheromoneMatrix, pheromoneValue);
+    }
+
+    @Override
+    public void applyFactorToPheromoneMatrix(double factor) {
+        for (int i = 0; i < pheromoneMatrix.length; i++) {
+            pheromoneMatrix[i] *= factor;
+        }
+    }
+
+    /**
+     * Recomputes the choice info from the current pheromone trails. Called once the trails have
+     * been updated for the iteration, before the ants build their solutions.
+     *
+     * @param pheromoneImportance Power the pheromone values are raised to.
+     */
+    public void updateChoiceInfo(double pheromoneImportance) {
+        double[] result = choiceInfo == null ? new double[pheromoneMatrix.length] : choiceInfo;
+        for (int i = 0; i < pheromoneMatrix.length; i++) {
+            result[i] = Math.pow(pheromoneMatrix[i], pheromoneImportance);
+        }
+        choiceInfo = result;
     }
 
     public FogDevice getInitialDevice() {
@@ -92,7 +202,54 @@ public class FinalACOEnvironment extends Environment {
         return locator;
     }
 
-    public double[][] getLatencyMatrix() {
-        return latencyMatrix;
+    public int getNumberOfDevices() {
+        return devices.length;
+    }
+
+    public FogDevice getDevice(int index) {
+        return devices[index];
+    }
+
+    /**
+     * @return the index of the device, or -1 if it is not one of the candidate devices
+     */
+    public int getDeviceIndex(FogDevice fogDevice) {
+        int id = fogDevice.getId();
+        return id < deviceIndexes.length ? deviceIndexes[id] : -1;
+    }
+
+    public double getLatitude(int index) {
+        return latitudes[index];
+    }
+
+    public double getLongitude(int index) {
+        return longitudes[index];
+    }
+
+    public Trajectory getUserTrajectory() {
+        return userTrajectory;
+    }
+
+    public LatencyOracle getLatencyOracle() {
+        return latencyOracle;
+    }
+
+    /**
+     * Gets the value of the latency matrix between two devices, the inverse of their latency. It
+     * is NaN from a device to itself and for mobile devices.
+     */
+    public double getLatency(FogDevice sender, FogDevice receiver) {
+        if (sender == receiver || sender.getName().startsWith("mobile") || receiver.getName().startsWith("mobile")) {
+            return Double.NaN;
+        }
+        return 1 / latencyOracle.getLatency(sender, receiver);
+    }
+
+    public double[] getPheromones() {
+        return pheromoneMatrix;
+    }
+
+    public double[] getChoiceInfo() {
+        return choiceInfo;
     }
 }
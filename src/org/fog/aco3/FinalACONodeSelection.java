@@ -6,10 +6,12 @@ import isula.aco.ConfigurationProvider;
 import isula.aco.exception.ConfigurationException;
 import isula.aco.exception.SolutionConstructionException;
 import org.fog.entities.FogDevice;
+import org.fog.mobilitydata.Location;
 import org.fog.utils.Config;
 import org.fog.utils.FogDeviceUtils;
 
-import java.util.*;
+import java.util.HashMap;
+import java.util.SplittableRandom;
 
 public class FinalACONodeSelection extends AntPolicy<FogDevice, FinalACOEnvironment> {
     public FinalACONodeSelection() {
@@ -22,92 +24,64 @@ public class FinalACONodeSelection extends AntPolicy<FogDevice, FinalACOEnvironm
             getAnt().visitNode(environment.getInitialDevice());
             return true;
         }
-        Random random = new Random();
-        HashMap<FogDevice, Double> componentsWithProbabilities = this
-                .getComponentsWithProbabilities(environment, configurationProvider);
-
-        if (componentsWithProbabilities.isEmpty()) {
-            doIfNoComponentsFound(environment);
-            return false;
-        }
-
-        LinkedHashMap<FogDevice, Double> sortedMap = FogDeviceUtils.sortMapByValueDescending(componentsWithProbabilities);
-        if (random.nextDouble() > Config.EXPLORE_PROMISE_RATIO) {
-            for (Map.Entry<FogDevice, Double> fogDeviceDoubleEntry : sortedMap.entrySet()) {
-                getAnt().visitNode(fogDeviceDoubleEntry.getKey());
-                return true;
-            }
-        } else {
-            FogDevice fogDevice = FogDeviceUtils.getRandomKeyFromMap(componentsWithProbabilities);
-            getAnt().visitNode(fogDevice);
-            return true;
-        }
-
-        return false;
-    }
-
-    public HashMap<FogDevice, Double> getComponentsWithProbabilities(FinalACOEnvironment environment,
-                                                                     ConfigurationProvider configurationProvider) {
-        HashMap<FogDevice, Double> componentsWithProbabilities = new HashMap<>();
-
-        double denominator = Double.MIN_VALUE;
-        List<FogDevice> neighbourhood = getAnt().getNeighbourhood(environment);
+        FinalACOAnt ant = (FinalACOAnt) getAnt();
+        SplittableRandom random = ant.getRandom();
+        int[] neighbourhood = ant.getNeighbourhoodIndexes(environment);
         if (neighbourhood == null) {
             throw new SolutionConstructionException("The ant's neighbourhood is null. There are no candidate " +
                     "components to add.");
         }
-        for (FogDevice possibleMove : getAnt().getNeighbourhood(environment)) {
-            if (!getAnt().isNodeVisited(possibleMove)
-                    && getAnt().isNodeValid(possibleMove)) {
-                // If it is leaf node and not end, then break
-
-                Double heuristicTimesPheromone = getHeuristicTimesPheromone(
-                        environment, configurationProvider, possibleMove);
+        double[] choiceInfo = environment.getChoiceInfo();
+        if (choiceInfo == null) {
+            throw new ConfigurationException("The choice info of the environment has not been computed. " +
+                    "Verify that the pheromone matrix is started by a daemon action.");
+        }
 
-                denominator += heuristicTimesPheromone;
-                componentsWithProbabilities.put(possibleMove, 0.0);
+        // The heuristic of a device is the inverse of its distance to the user, at the same time for all of them
+        Location userLocation = ant.getCurrentUserLocation(environment);
+        double heuristicImportance = configurationProvider.getHeuristicImportance();
+        int row = ant.getPreviousDeviceIndex(ant.getCurrentIndex(), environment) * environment.getNumberOfDevices();
+        double[] weights = ant.getCandidateWeights(neighbourhood.length);
+        int[] validCandidates = ant.getValidCandidates(neighbourhood.length);
+        int numberOfValidCandidates = 0;
+        int bestCandidate = -1;
+        double denominator = Double.MIN_VALUE;
+        for (int index : neighbourhood) {
+            FogDevice possibleMove = environment.getDevice(index);
+            if (!ant.isNodeVisited(possibleMove) && ant.isNodeValid(possibleMove)) {
+                double distance = FogDeviceUtils.calculateDistance(environment.getLatitude(index),
+                        environment.getLongitude(index), userLocation.latitude, userLocation.longitude);
+                double weight = Math.pow(1 / distance, heuristicImportance) * choiceInfo[row + index];
+                if (bestCandidate == -1 || Double.compare(weight, weights[bestCandidate]) > 0) {
+                    bestCandidate = numberOfValidCandidates;
+                }
+                weights[numberOfValidCandidates] = weight;
+                validCandidates[numberOfValidCandidates++] = index;
+                denominator += weight;
             }
         }
-        double totalProbability = 0.0;
-        for (Map.Entry<FogDevice, Double> componentWithProbability : componentsWithProbabilities
-                .entrySet()) {
-            FogDevice component = componentWithProbability.getKey();
-
-            Double numerator = getHeuristicTimesPheromone(environment,
-                    configurationProvider, component);
-            double probability = numerator / denominator;
-            totalProbability += probability;
 
-            componentWithProbability.setValue(probability);
+        if (numberOfValidCandidates == 0) {
+            doIfNoComponentsFound(environment);
+            return false;
         }
-        if (componentsWithProbabilities.isEmpty()) {
-            return doIfNoComponentsFound(environment);
+        double totalProbability = 0.0;
+        for (int i = 0; i < numberOfValidCandidates; i++) {
+            totalProbability += weights[i] / denominator;
         }
         double delta = 0.001;
         if (Math.abs(totalProbability - 1.0) > delta) {
             throw new ConfigurationException("The sum of probabilities for the possible components is " +
                     totalProbability + ". We expect this value to be closer to 1.");
         }
-        return componentsWithProbabilities;
-    }
-
-    private Double getHeuristicTimesPheromone(FinalACOEnvironment environment,
-                                              ConfigurationProvider configurationProvider, FogDevice possibleMove) {
-        Double heuristicValue = getAnt().getHeuristicValue(possibleMove,
-                getAnt().getCurrentIndex(), environment);
-        Double pheromoneTrailValue = getAnt().getPheromoneTrailValue(possibleMove,
-                getAnt().getCurrentIndex(), environment);
 
-        if (heuristicValue == null || pheromoneTrailValue == null) {
-            throw new SolutionConstructionException("The current ant is not producing valid pheromone/heuristic values" +
-                    " for the solution component: " + possibleMove + " .Heuristic value " + heuristicValue +
-                    " Pheromone value: " + pheromoneTrailValue);
+        // Either exploit the most promising device, or explore any of them
+        if (random.nextDouble() > Config.EXPLORE_PROMISE_RATIO) {
+            ant.visitNode(environment.getDevice(validCandidates[bestCandidate]));
+        } else {
+            ant.visitNode(environment.getDevice(validCandidates[random.nextInt(numberOfValidCandidates)]));
         }
-
-        return Math.pow(heuristicValue,
-                configurationProvider.getHeuristicImportance())
-                * Math.pow(pheromoneTrailValue,
-                configurationProvider.getPheromoneImportance());
+        return true;
     }
 
     protected HashMap<FogDevice, Double> doIfNoComponentsFound(FinalACOEnvironment environment) {
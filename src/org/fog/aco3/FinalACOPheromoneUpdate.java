@@ -0,0 +1,45 @@
+package org.fog.aco3;
+
+import isula.aco.Ant;
+import isula.aco.ConfigurationProvider;
+import isula.aco.DaemonAction;
+import isula.aco.DaemonActionType;
+import org.fog.entities.FogDevice;
+
+import java.util.logging.Logger;
+
+/**
+ * Offline pheromone update: once every ant has built its solution, each move of a solution gets
+ * the deposit of its ant. The choice info of the environment is then refreshed for the next
+ * iteration, so this action has to come after the evaporation.
+ */
+public class FinalACOPheromoneUpdate extends DaemonAction<FogDevice, FinalACOEnvironment> {
+    private static Logger logger = Logger
+            .getLogger(FinalACOPheromoneUpdate.class.getName());
+
+    public FinalACOPheromoneUpdate() {
+        super(DaemonActionType.AFTER_ITERATION_CONSTRUCTION);
+    }
+
+    @Override
+    public void applyDaemonAction(ConfigurationProvider configurationProvider) {
+        logger.fine("Performing offline pheromone update");
+        FinalACOEnvironment environment = getEnvironment();
+        double[] pheromoneMatrix = environment.getPheromones();
+        for (Ant<FogDevice, FinalACOEnvironment> ant : getAntColony().getHive()) {
+            FinalACOAnt finalACOAnt = (FinalACOAnt) ant;
+            double deposit = getPheromoneDeposit(finalACOAnt, environment);
+            for (int i = 0; i < ant.getCurrentIndex(); i++) {
+                pheromoneMatrix[finalACOAnt.getTrailIndex(ant.getSolution()[i], i, environment)] += deposit;
+            }
+        }
+        environment.updateChoiceInfo(configurationProvider.getPheromoneImportance());
+    }
+
+    /**
+     * @return the pheromone an ant deposits on each move of its solution
+     */
+    protected double getPheromoneDeposit(FinalACOAnt ant, FinalACOEnvironment environment) {
+        return 1 / ant.getSolutionCost(environment);
+    }
+}
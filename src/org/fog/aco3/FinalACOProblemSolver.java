@@ -5,6 +5,9 @@ import isula.aco.*;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -39,6 +42,12 @@ public class FinalACOProblemSolver<C, E extends Environment> extends AcoProblemS
 
     private List<DaemonAction<C, E>> daemonActions = new ArrayList<DaemonAction<C, E>>();
 
+    // Pool the ants of an iteration build their solutions on, null to build them one after the other
+    private ForkJoinPool pool;
+
+    // Source of the per-ant random generators, null when the solver is not seeded
+    private SplittableRandom random;
+
     /**
      * Prepares the solver for problem resolution.
      *
@@ -63,7 +72,7 @@ public class FinalACOProblemSolver<C, E extends Environment> extends AcoProblemS
      *
      * @param daemonAction Daemon action.
      */
-    private void addDaemonAction(DaemonAction<C, E> daemonAction) {
+    public void addDaemonAction(DaemonAction<C, E> daemonAction) {
 
         daemonAction.setAntColony(antColony);
         daemonAction.setEnvironment(environment);
@@ -97,8 +106,11 @@ public class FinalACOProblemSolver<C, E extends Environment> extends AcoProblemS
         while (iteration < numberOfIterations) {
 
             antColony.clearAntSolutions();
-            antColony.buildSolutions(environment, configurationProvider);
-            applyDaemonActions(DaemonActionType.AFTER_ITERATION_CONSTRUCTION);
+            buildSolutions();
+            // Evaporation and pheromone deposit, once every ant of the iteration is done
+            synchronized (environment) {
+                applyDaemonActions(DaemonActionType.AFTER_ITERATION_CONSTRUCTION);
+            }
 
             evaluateIterationPerformance(iteration, environment);
             iteration++;
@@ -114,6 +126,49 @@ public class FinalACOProblemSolver<C, E extends Environment> extends AcoProblemS
 
     }
 
+    /**
+     * Makes every ant of the colony build a solution, on the fork-join pool when one is set.
+     * When the solver is seeded, every ant gets its own generator split from the solver one, in
+     * hive order, before any ant starts: the solutions do not depend on the thread scheduling.
+     */
+    private void buildSolutions() {
+        List<Ant<C, E>> hive = antColony.getHive();
+        if (random != null) {
+            for (Ant<C, E> ant : hive) {
+                if (ant instanceof FinalACOAnt) {
+                    ((FinalACOAnt) ant).setRandom(random.split());
+                }
+            }
+        }
+
+        if (pool == null) {
+            for (Ant<C, E> ant : hive) {
+                buildSolution(ant);
+            }
+            return;
+        }
+
+        List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>(hive.size());
+        for (final Ant<C, E> ant : hive) {
+            tasks.add(pool.submit(new Runnable() {
+                @Override
+                public void run() {
+                    buildSolution(ant);
+                }
+            }));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+    }
+
+    private void buildSolution(Ant<C, E> ant) {
+        while (!ant.isSolutionReady(environment)) {
+            ant.selectNextNode(environment, configurationProvider);
+        }
+        ant.doAfterSolutionIsReady(environment, configurationProvider);
+    }
+
     /**
      * Updates the information of the best solution produced with the solutions
      * produced by the Colony.
@@ -183,6 +238,30 @@ public class FinalACOProblemSolver<C, E extends Environment> extends AcoProblemS
         this.configurationProvider = configurationProvider;
     }
 
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Sets the pool the ants of an iteration build their solutions on. Each ant must then have
+     * its own policy instances, as a policy keeps the ant it is applied to.
+     *
+     * @param pool Fork-join pool, or null to build the solutions sequentially.
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Seeds the random choices of the ants, so that the solver gives the same solution for the
+     * same seed, whether the solutions are built in parallel or not.
+     *
+     * @param seed Seed.
+     */
+    public void setSeed(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
     public C[] getBestSolution() {
         return bestSolution;
     }
@@ -19,6 +19,7 @@ public class FinalACOStartPheromoneMatrix<C, FinalACOEnvironment extends Environ
     public void applyDaemonAction(ConfigurationProvider configurationProvider) {
         logger.fine("INITIALIZING PHEROMONE MATRIX");
         logger.fine("Initial pheromone matrix: created from environment");
-        getEnvironment().setPheromoneMatrix(getEnvironment().createPheromoneMatrix());
+        getEnvironment().resetPheromoneMatrix();
+        getEnvironment().updateChoiceInfo(configurationProvider.getPheromoneImportance());
     }
 }
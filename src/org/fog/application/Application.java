@@ -6,9 +6,9 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.math3.util.Pair;
-import org.cloudbus.cloudsim.UtilizationModelFull;
 import org.fog.application.selectivity.SelectivityModel;
 import org.fog.entities.Tuple;
+import org.fog.entities.TuplePool;
 import org.fog.scheduler.TupleScheduler;
 import org.fog.utils.FogUtils;
 import org.fog.utils.GeoCoverage;
@@ -45,6 +45,11 @@ public class Application {
 
 	protected DAG dag;
 
+	/**
+	 * The routing table compiled from the modules, edges and tuple mappings, null until needed again
+	 */
+	private ApplicationRoutingTable routingTable;
+
 	/**
 	 * Creates a plain vanilla application with no modules and edges.
 	 * @param appId
@@ -70,7 +75,7 @@ public class Application {
 				mips, ram, bw, size, vmm, new TupleScheduler(mips, 1), new HashMap<Pair<String, String>, SelectivityModel>());
 		
 		getModules().add(module);
-		
+		routingTable = null;
 	}
 
 	/**
@@ -87,6 +92,7 @@ public class Application {
 				mips, ram, bw, size, vmm, new TupleScheduler(mips, 1), new HashMap<Pair<String, String>, SelectivityModel>());
 
 		getModules().add(module);
+		routingTable = null;
 	}
 	
 	/**
@@ -104,6 +110,7 @@ public class Application {
 		AppEdge edge = new AppEdge(source, destination, tupleCpuLength, tupleNwLength, tupleType, direction, edgeType);
 		getEdges().add(edge);
 		getEdgeMap().put(edge.getTupleType(), edge);
+		routingTable = null;
 	}
 	
 	/**
@@ -121,6 +128,7 @@ public class Application {
 		AppEdge edge = new AppEdge(source, destination, periodicity, tupleCpuLength, tupleNwLength, tupleType, direction, edgeType);
 		getEdges().add(edge);
 		getEdgeMap().put(edge.getTupleType(), edge);
+		routingTable = null;
 	}
 	
 	/**
@@ -133,6 +141,7 @@ public class Application {
 	public void addTupleMapping(String moduleName, String inputTupleType, String outputTupleType, SelectivityModel selectivityModel){
 		AppModule module = getModuleByName(moduleName);
 		module.getSelectivityMap().put(new Pair<String, String>(inputTupleType, outputTupleType), selectivityModel);
+		routingTable = null;
 	}
 	
 	/**
@@ -193,68 +202,52 @@ public class Application {
 	 * @return
 	 */
 	public List<Tuple> getResultantTuples(String moduleName, Tuple inputTuple, int sourceDeviceId, int sourceModuleId){
-		List<Tuple> tuples = new ArrayList<Tuple>();
-		AppModule module = getModuleByName(moduleName);
-		for(AppEdge edge : getEdges()){
-			if(edge.getSource().equals(moduleName)){
-				Pair<String, String> pair = new Pair<String, String>(inputTuple.getTupleType(), edge.getTupleType());
-				
-				if(module.getSelectivityMap().get(pair)==null)
-					continue;
-				SelectivityModel selectivityModel = module.getSelectivityMap().get(pair);
-				if(selectivityModel.canSelect()){
-					//TODO check if the edge is ACTUATOR, then create multiple tuples
-					if(edge.getEdgeType() == AppEdge.ACTUATOR){
-						//for(Integer actuatorId : module.getActuatorSubscriptions().get(edge.getTupleType())){
-							Tuple tuple = new Tuple(appId, FogUtils.generateTupleId(), edge.getDirection(),  
-									(long) (edge.getTupleCpuLength()),
-									inputTuple.getNumberOfPes(),
-									(long) (edge.getTupleNwLength()),
-									inputTuple.getCloudletOutputSize(),
-									inputTuple.getUtilizationModelCpu(),
-									inputTuple.getUtilizationModelRam(),
-									inputTuple.getUtilizationModelBw()
-									);
-							tuple.setActualTupleId(inputTuple.getActualTupleId());
-							tuple.setUserId(inputTuple.getUserId());
-							tuple.setAppId(inputTuple.getAppId());
-							tuple.setDestModuleName(edge.getDestination());
-							tuple.setSrcModuleName(edge.getSource());
-							tuple.setDirection(Tuple.ACTUATOR);
-							tuple.setTupleType(edge.getTupleType());
-							tuple.setSourceDeviceId(sourceDeviceId);
-							tuple.setSourceModuleId(sourceModuleId);
-							//tuple.setActuatorId(actuatorId);
-							
-							tuples.add(tuple);
-						//}
-					}else{
-						Tuple tuple = new Tuple(appId, FogUtils.generateTupleId(), edge.getDirection(),  
-								(long) (edge.getTupleCpuLength()),
-								inputTuple.getNumberOfPes(),
-								(long) (edge.getTupleNwLength()),
-								inputTuple.getCloudletOutputSize(),
-								inputTuple.getUtilizationModelCpu(),
-								inputTuple.getUtilizationModelRam(),
-								inputTuple.getUtilizationModelBw()
-								);
-						tuple.setActualTupleId(inputTuple.getActualTupleId());
-						tuple.setUserId(inputTuple.getUserId());
-						tuple.setAppId(inputTuple.getAppId());
-						tuple.setDestModuleName(edge.getDestination());
-						tuple.setSrcModuleName(edge.getSource());
-						tuple.setDirection(edge.getDirection());
-						tuple.setTupleType(edge.getTupleType());
-						tuple.setSourceModuleId(sourceModuleId);
-						tuple.setTraversedMicroservices(inputTuple.getTraversed());
-
-						tuples.add(tuple);
-					}
+		ApplicationRoutingTable.OutputEdge[] outputEdges = getRoutingTable().getOutputEdges(moduleName, inputTuple.getTupleType());
+		List<Tuple> tuples = new ArrayList<Tuple>(outputEdges.length);
+		for(ApplicationRoutingTable.OutputEdge outputEdge : outputEdges){
+			if(outputEdge.getSelectivityModel().canSelect()){
+				AppEdge edge = outputEdge.getEdge();
+				Tuple tuple = TuplePool.newTuple(appId, FogUtils.generateTupleId(), edge.getDirection(),  
+						(long) (edge.getTupleCpuLength()),
+						inputTuple.getNumberOfPes(),
+						(long) (edge.getTupleNwLength()),
+						inputTuple.getCloudletOutputSize(),
+						inputTuple.getUtilizationModelCpu(),
+						inputTuple.getUtilizationModelRam(),
+						inputTuple.getUtilizationModelBw()
+						);
+				tuple.setActualTupleId(inputTuple.getActualTupleId());
+				tuple.setUserId(inputTuple.getUserId());
+				tuple.setAppId(inputTuple.getAppId());
+				tuple.setDestModuleName(edge.getDestination());
+				tuple.setSrcModuleName(edge.getSource());
+				tuple.setTupleType(edge.getTupleType());
+				tuple.setSourceModuleId(sourceModuleId);
+				//TODO check if the edge is ACTUATOR, then create multiple tuples
+				if(edge.getEdgeType() == AppEdge.ACTUATOR){
+					tuple.setDirection(Tuple.ACTUATOR);
+					tuple.setSourceDeviceId(sourceDeviceId);
+				}else{
+					tuple.setDirection(edge.getDirection());
+					tuple.setTraversedMicroservices(inputTuple.getTraversed());
 				}
+				tuples.add(tuple);
 			}
 		}
 		return tuples;
 	}
+
+	/**
+	 * Get the routing table of the application, compiling it if the application has changed since it was last compiled.
+	 * Changes made to the selectivity maps of the modules directly, rather than through {@link #addTupleMapping}, are only
+	 * taken into account once the table is compiled again.
+	 * @return the routing table
+	 */
+	public ApplicationRoutingTable getRoutingTable(){
+		if(routingTable == null)
+			routingTable = new ApplicationRoutingTable(this);
+		return routingTable;
+	}
 	
 	/**
 	 * Create a tuple for a given application edge
@@ -266,14 +259,14 @@ public class Application {
 		AppModule module = getModuleByName(edge.getSource());
 		if(edge.getEdgeType() == AppEdge.ACTUATOR){
 			for(Integer actuatorId : module.getActuatorSubscriptions().get(edge.getTupleType())){
-				Tuple tuple = new Tuple(appId, FogUtils.generateTupleId(), edge.getDirection(),  
+				Tuple tuple = TuplePool.newTuple(appId, FogUtils.generateTupleId(), edge.getDirection(),  
 						(long) (edge.getTupleCpuLength()),
 						1,
 						(long) (edge.getTupleNwLength()),
 						100,
-						new UtilizationModelFull(), 
-						new UtilizationModelFull(), 
-						new UtilizationModelFull()
+						Tuple.FULL_UTILIZATION, 
+						Tuple.FULL_UTILIZATION, 
+						Tuple.FULL_UTILIZATION
 						);
 				tuple.setUserId(getUserId());
 				tuple.setAppId(getAppId());
@@ -288,14 +281,14 @@ public class Application {
 				return tuple;
 			}
 		}else{
-			Tuple tuple = new Tuple(appId, FogUtils.generateTupleId(), edge.getDirection(),  
+			Tuple tuple = TuplePool.newTuple(appId, FogUtils.generateTupleId(), edge.getDirection(),  
 					(long) (edge.getTupleCpuLength()),
 					1,
 					(long) (edge.getTupleNwLength()),
 					100,
-					new UtilizationModelFull(), 
-					new UtilizationModelFull(), 
-					new UtilizationModelFull()
+					Tuple.FULL_UTILIZATION, 
+					Tuple.FULL_UTILIZATION, 
+					Tuple.FULL_UTILIZATION
 					);
 			//tuple.setActualTupleId(inputTuple.getActualTupleId());
 			tuple.setUserId(getUserId());
@@ -322,12 +315,14 @@ public class Application {
 	}
 	public void setModules(List<AppModule> modules) {
 		this.modules = modules;
+		routingTable = null;
 	}
 	public List<AppEdge> getEdges() {
 		return edges;
 	}
 	public void setEdges(List<AppEdge> edges) {
 		this.edges = edges;
+		routingTable = null;
 	}
 	public GeoCoverage getGeoCoverage() {
 		return geoCoverage;
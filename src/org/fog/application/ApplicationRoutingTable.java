@@ -0,0 +1,103 @@
+package org.fog.application;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.math3.util.Pair;
+import org.fog.application.selectivity.SelectivityModel;
+
+/**
+ * The edges of an application resolved for the tuple paths: for each module and type of input
+ * tuple, the edges the module may emit a tuple on, each with its selectivity model, in the order
+ * of the edges of the application; and for each sensor type, the edge the sensor tuples follow.
+ * It is compiled from the application by {@link Application#getRoutingTable()}, and compiled again
+ * once the modules, edges or tuple mappings of the application are changed through the application.
+ */
+public class ApplicationRoutingTable {
+
+	private static final OutputEdge[] NO_EDGES = new OutputEdge[0];
+
+	/**
+	 * An edge a module may emit a tuple on, and the selectivity model deciding whether it does.
+	 */
+	public static final class OutputEdge {
+		private final AppEdge edge;
+		private final SelectivityModel selectivityModel;
+
+		OutputEdge(AppEdge edge, SelectivityModel selectivityModel) {
+			this.edge = edge;
+			this.selectivityModel = selectivityModel;
+		}
+
+		public AppEdge getEdge() {
+			return edge;
+		}
+
+		public SelectivityModel getSelectivityModel() {
+			return selectivityModel;
+		}
+	}
+
+	/**
+	 * Output edges by module name, then by input tuple type
+	 */
+	private final Map<String, Map<String, OutputEdge[]>> outputEdges = new HashMap<String, Map<String, OutputEdge[]>>();
+
+	/**
+	 * Edge of the tuples of each sensor type
+	 */
+	private final Map<String, AppEdge> sensorEdges = new HashMap<String, AppEdge>();
+
+	ApplicationRoutingTable(Application application) {
+		for (AppModule module : application.getModules()) {
+			if (outputEdges.containsKey(module.getName()))
+				continue; // the first module of a name is the one found by name
+			Map<String, List<OutputEdge>> edgesByInput = new HashMap<String, List<OutputEdge>>();
+			for (AppEdge edge : application.getEdges()) {
+				if (!edge.getSource().equals(module.getName()))
+					continue;
+				for (Map.Entry<Pair<String, String>, SelectivityModel> mapping : module.getSelectivityMap().entrySet()) {
+					if (mapping.getKey().getSecond().equals(edge.getTupleType()) && mapping.getValue() != null) {
+						List<OutputEdge> edges = edgesByInput.get(mapping.getKey().getFirst());
+						if (edges == null) {
+							edges = new ArrayList<OutputEdge>();
+							edgesByInput.put(mapping.getKey().getFirst(), edges);
+						}
+						edges.add(new OutputEdge(edge, mapping.getValue()));
+					}
+				}
+			}
+			Map<String, OutputEdge[]> compiled = new HashMap<String, OutputEdge[]>();
+			for (Map.Entry<String, List<OutputEdge>> entry : edgesByInput.entrySet())
+				compiled.put(entry.getKey(), entry.getValue().toArray(NO_EDGES));
+			outputEdges.put(module.getName(), compiled);
+		}
+		for (AppEdge edge : application.getEdges())
+			sensorEdges.put(edge.getSource(), edge); // the last edge of a source is the one sensors follow
+	}
+
+	/**
+	 * Gets the edges a module may emit a tuple on when it has executed a tuple
+	 * @param moduleName name of the module executing the tuple
+	 * @param inputTupleType type of the executed tuple
+	 * @return the output edges, in the order of the edges of the application; empty if there is none
+	 */
+	public OutputEdge[] getOutputEdges(String moduleName, String inputTupleType) {
+		Map<String, OutputEdge[]> edgesByInput = outputEdges.get(moduleName);
+		if (edgesByInput == null)
+			return NO_EDGES;
+		OutputEdge[] edges = edgesByInput.get(inputTupleType);
+		return edges == null ? NO_EDGES : edges;
+	}
+
+	/**
+	 * Gets the edge followed by the tuples of a sensor
+	 * @param sensorTupleType type of the tuples of the sensor
+	 * @return the edge, or null if the application has none from the sensor
+	 */
+	public AppEdge getSensorEdge(String sensorTupleType) {
+		return sensorEdges.get(sensorTupleType);
+	}
+}
@@ -0,0 +1,152 @@
+package org.fog.entities;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.math3.util.Pair;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimEntity;
+import org.cloudbus.cloudsim.core.SimulationContext;
+
+/**
+ * Children of a fog device through which the devices, modules and actuators below it are reached,
+ * so that a tuple sent down only goes to the children leading to the devices that accept it.
+ * <p>
+ * An index is built from the indexes of the children of its device, and stays valid until the
+ * topology of the simulation changes: children added or removed, modules placed, moved or released,
+ * actuators joined. These changes call {@link #topologyChanged()}, and every index is rebuilt the
+ * next time it is used.
+ */
+public class DownRoutingIndex {
+
+	private static class Version {
+		private int value;
+	}
+
+	private final int version;
+	private final Map<Integer, Integer> nextHopByDevice = new HashMap<Integer, Integer>();
+	private final Map<Integer, Integer> nextHopByVm = new HashMap<Integer, Integer>();
+	// children leading to devices hosting each module, keyed by application id and module name
+	private final Map<String, List<Integer>> childrenByModule = new HashMap<String, List<Integer>>();
+	private final Map<String, List<Integer>> childrenByActuatorType = new HashMap<String, List<Integer>>();
+
+	private DownRoutingIndex(int version) {
+		this.version = version;
+	}
+
+	private static Version getVersion() {
+		return SimulationContext.current().getComponent(Version.class, Version::new);
+	}
+
+	/**
+	 * Invalidates the indexes of all the devices of the simulation context of the calling thread
+	 */
+	public static void topologyChanged() {
+		getVersion().value++;
+	}
+
+	/**
+	 * Builds the index of a device from the ones of its children
+	 * @param device the device
+	 * @return the index
+	 */
+	static DownRoutingIndex build(FogDevice device) {
+		DownRoutingIndex index = new DownRoutingIndex(getVersion().value);
+		for (int childId : device.getChildrenIds()) {
+			SimEntity entity = CloudSim.getEntity(childId);
+			if (!(entity instanceof FogDevice))
+				continue;
+			FogDevice child = (FogDevice) entity;
+			DownRoutingIndex childIndex = child.getDownRoutingIndex();
+
+			index.nextHopByDevice.put(childId, childId);
+			for (int deviceId : childIndex.nextHopByDevice.keySet())
+				putIfAbsent(index.nextHopByDevice, deviceId, childId);
+
+			for (Vm vm : child.getHost().getVmList())
+				putIfAbsent(index.nextHopByVm, vm.getId(), childId);
+			for (int vmId : childIndex.nextHopByVm.keySet())
+				putIfAbsent(index.nextHopByVm, vmId, childId);
+
+			for (Map.Entry<String, List<String>> entry : child.appToModulesMap.entrySet()) {
+				for (String moduleName : entry.getValue())
+					addChild(index.childrenByModule, moduleKey(entry.getKey(), moduleName), childId);
+			}
+			for (String key : childIndex.childrenByModule.keySet())
+				addChild(index.childrenByModule, key, childId);
+
+			for (Pair<Integer, Double> actuatorAssociation : child.getAssociatedActuatorIds()) {
+				String actuatorType = ((Actuator) CloudSim.getEntity(actuatorAssociation.getFirst())).getActuatorType();
+				addChild(index.childrenByActuatorType, actuatorType, childId);
+			}
+			for (String actuatorType : childIndex.childrenByActuatorType.keySet())
+				addChild(index.childrenByActuatorType, actuatorType, childId);
+		}
+		return index;
+	}
+
+	/**
+	 * @return whether the topology is unchanged since the index was built
+	 */
+	boolean isCurrent() {
+		return version == getVersion().value;
+	}
+
+	/**
+	 * @param deviceId a device
+	 * @return the child leading to the device, or -1 if the device is not below this one
+	 */
+	public int getNextHop(int deviceId) {
+		Integer childId = nextHopByDevice.get(deviceId);
+		return childId == null ? -1 : childId;
+	}
+
+	/**
+	 * Gets the children to send a tuple to: the ones leading to an actuator of the type of its
+	 * destination for the tuples to actuators, and otherwise the ones leading to the devices hosting
+	 * its destination module, narrowed to the one leading to the copy of the module the tuple is
+	 * bound to, if any. These are the children that would not just drop the tuple, in the order of
+	 * the children of the device.
+	 * @param tuple the tuple
+	 * @return the children, empty if none
+	 */
+	public List<Integer> getChildrenFor(Tuple tuple) {
+		List<Integer> childIds;
+		if (tuple.getDirection() == Tuple.ACTUATOR) {
+			childIds = childrenByActuatorType.get(tuple.getDestModuleName());
+		} else {
+			childIds = childrenByModule.get(moduleKey(tuple.getAppId(), tuple.getDestModuleName()));
+			int moduleCopy = tuple.getModuleCopy(tuple.getDestModuleName());
+			if (childIds != null && childIds.size() > 1 && moduleCopy != -1) {
+				Integer childId = nextHopByVm.get(moduleCopy);
+				if (childId != null && childIds.contains(childId))
+					return Collections.singletonList(childId);
+			}
+		}
+		return childIds == null ? Collections.<Integer>emptyList() : childIds;
+	}
+
+	private static String moduleKey(String appId, String moduleName) {
+		return appId + '/' + moduleName;
+	}
+
+	private static void putIfAbsent(Map<Integer, Integer> map, int key, int childId) {
+		if (!map.containsKey(key))
+			map.put(key, childId);
+	}
+
+	// children are added in order, so a child already added for the key is the last one
+	private static void addChild(Map<String, List<Integer>> map, String key, int childId) {
+		List<Integer> childIds = map.get(key);
+		if (childIds == null) {
+			childIds = new ArrayList<Integer>(2);
+			map.put(key, childIds);
+		}
+		if (childIds.isEmpty() || childIds.get(childIds.size() - 1) != childId)
+			childIds.add(childId);
+	}
+}
@@ -0,0 +1,62 @@
+package org.fog.entities;
+
+import org.fog.scheduler.LinkScheduler;
+
+/**
+ * Link from a fog device to one of its children, with a busy state and a queue of its own so that
+ * the tuples of a child never wait behind the tuples of another one. Used by the devices when
+ * {@link org.fog.utils.Config#PER_CHILD_DOWNLINKS} is set.
+ * <p>
+ * The link is busy until the end of the sending of its last tuple. Its device is only woken at
+ * that time if tuples are waiting for the link; a tuple handed to an idle link is sent at once.
+ */
+public class DownlinkChannel {
+
+	private final int childId;
+	private final LinkScheduler scheduler;
+	private double busyUntil;
+	private boolean updateScheduled;
+
+	DownlinkChannel(int childId, LinkScheduler scheduler) {
+		this.childId = childId;
+		this.scheduler = scheduler;
+	}
+
+	public int getChildId() {
+		return childId;
+	}
+
+	/**
+	 * @return the tuples waiting for the link, in the order they are sent
+	 */
+	public LinkScheduler getScheduler() {
+		return scheduler;
+	}
+
+	/**
+	 * @return the time the link ends sending its last tuple
+	 */
+	public double getBusyUntil() {
+		return busyUntil;
+	}
+
+	void setBusyUntil(double busyUntil) {
+		this.busyUntil = busyUntil;
+	}
+
+	/**
+	 * @param now the current simulation time
+	 * @return whether a tuple handed to the link now is sent at once
+	 */
+	public boolean isIdle(double now) {
+		return busyUntil <= now && scheduler.size() == 0;
+	}
+
+	boolean isUpdateScheduled() {
+		return updateScheduled;
+	}
+
+	void setUpdateScheduled(boolean updateScheduled) {
+		this.updateScheduled = updateScheduled;
+	}
+}
@@ -1,5 +1,6 @@
 package org.fog.entities;
 
+import org.cloudbus.cloudsim.core.CloudSimTags;
 import org.cloudbus.cloudsim.core.SimEvent;
 import org.cloudbus.cloudsim.power.PowerDatacenterBroker;
 
@@ -18,8 +19,9 @@ public class FogBroker extends PowerDatacenterBroker{
 
 	@Override
 	public void processEvent(SimEvent ev) {
-		// TODO Auto-generated method stub
-		
+		// the executed tuples end their path here
+		if (ev.getTag() == CloudSimTags.CLOUDLET_RETURN && ev.getData() instanceof Tuple)
+			TuplePool.release((Tuple) ev.getData());
 	}
 
 	@Override
@@ -16,16 +16,30 @@ import org.fog.application.AppLoop;
 import org.fog.application.AppModule;
 import org.fog.application.Application;
 import org.fog.mobilitydata.Clustering;
+import org.fog.mobilitydata.ClusteringRequest;
 import org.fog.policy.AppModuleAllocationPolicy;
+import org.fog.scheduler.FifoLinkScheduler;
+import org.fog.scheduler.LinkScheduler;
 import org.fog.scheduler.StreamOperatorScheduler;
 import org.fog.utils.*;
+import org.fog.utils.telemetry.DeviceTelemetry;
+import org.fog.utils.telemetry.Telemetry;
 import org.json.simple.JSONObject;
 
 import java.util.*;
+import java.util.function.Supplier;
 
 public class FogDevice extends PowerDatacenter {
     protected Queue<Tuple> northTupleQueue;
     protected Queue<Pair<Tuple, Integer>> southTupleQueue;
+    // Links to each child, in place of the south queue when Config.PER_CHILD_DOWNLINKS is set
+    protected Map<Integer, DownlinkChannel> downlinkChannels = new HashMap<Integer, DownlinkChannel>();
+    protected Supplier<LinkScheduler> downlinkScheduler = FifoLinkScheduler::new;
+    protected DownRoutingIndex downRoutingIndex;
+
+    private static final List<Double> IDLE_MIPS_SHARE = Collections.singletonList(0.0);
+    private List<Double> fullMipsShare;
+    private boolean[] allocatedFullMips = new boolean[0];
 
     protected List<String> activeApplications;
 
@@ -70,6 +84,7 @@ public class FogDevice extends PowerDatacenter {
     protected List<Pair<Integer, Double>> associatedActuatorIds;
 
     protected double energyConsumption;
+    protected EnergyLedger energyLedger;
     protected double lastUtilizationUpdateTime;
     protected double lastUtilization;
     private int level;
@@ -89,6 +104,9 @@ public class FogDevice extends PowerDatacenter {
     protected boolean isClusterLinkBusy; //Flag denoting whether the link connecting to cluster from this FogDevice is busy
     protected double clusterLinkBandwidth;
 
+    // Counters of the device for the telemetry, null if the telemetry was not open when the device was created
+    protected final DeviceTelemetry telemetry = Config.TELEMETRY_COMPILED ? Telemetry.register(this) : null;
+
 
     public FogDevice(
             String name,
@@ -138,6 +156,7 @@ public class FogDevice extends PowerDatacenter {
 
         this.energyConsumption = 0;
         this.lastUtilization = 0;
+        this.energyLedger = new EnergyLedger(getHost().getPowerModel(), getHost().getTotalMips());
         setTotalCost(0);
         setModuleInstanceCount(new HashMap<String, Map<String, Integer>>());
         setChildToLatencyMap(new HashMap<Integer, Double>());
@@ -226,6 +245,7 @@ public class FogDevice extends PowerDatacenter {
 
         this.energyConsumption = 0;
         this.lastUtilization = 0;
+        this.energyLedger = new EnergyLedger(getHost().getPowerModel(), getHost().getTotalMips());
         setTotalCost(0);
         setChildToLatencyMap(new HashMap<Integer, Double>());
         setModuleInstanceCount(new HashMap<String, Map<String, Integer>>());
@@ -249,6 +269,8 @@ public class FogDevice extends PowerDatacenter {
     protected void processOtherEvent(SimEvent ev) {
         switch (ev.getTag()) {
             case FogEvents.TUPLE_ARRIVAL:
+                if (Config.TELEMETRY_COMPILED && telemetry != null)
+                    telemetry.tupleReceived();
                 processTupleArrival(ev);
                 break;
             case FogEvents.LAUNCH_MODULE:
@@ -272,6 +294,9 @@ public class FogDevice extends PowerDatacenter {
             case FogEvents.UPDATE_SOUTH_TUPLE_QUEUE:
                 updateSouthTupleQueue();
                 break;
+            case FogEvents.UPDATE_DOWNLINK_CHANNEL:
+                updateDownlinkChannel((DownlinkChannel) ev.getData());
+                break;
             case FogEvents.ACTIVE_APP_UPDATE:
                 updateActiveApplications(ev);
                 break;
@@ -339,7 +364,9 @@ public class FogDevice extends PowerDatacenter {
      */
     protected void manageResources(SimEvent ev) {
         updateEnergyConsumption();
-        send(getId(), Config.RESOURCE_MGMT_INTERVAL, FogEvents.RESOURCE_MGMT);
+        // the energy ledger is updated at each change of the allocations, with nothing left to do periodically
+        if (!Config.EVENT_DRIVEN_ENERGY)
+            send(getId(), Config.RESOURCE_MGMT_INTERVAL, FogEvents.RESOURCE_MGMT);
     }
 
     /**
@@ -397,6 +424,7 @@ public class FogDevice extends PowerDatacenter {
         int actuatorId = ev.getSource();
         double delay = (double) ev.getData();
         getAssociatedActuatorIds().add(new Pair<Integer, Double>(actuatorId, delay));
+        DownRoutingIndex.topologyChanged();
     }
 
 
@@ -433,14 +461,16 @@ public class FogDevice extends PowerDatacenter {
                 minTime = time;
             }
 
-            Log.formatLine(
-                    "%.2f: [Host #%d] utilization is %.2f%%",
-                    currentTime,
-                    host.getId(),
-                    host.getUtilizationOfCpu() * 100);
+            if (!Log.isDisabled())
+                Log.formatLine(
+                        "%.2f: [Host #%d] utilization is %.2f%%",
+                        currentTime,
+                        host.getId(),
+                        host.getUtilizationOfCpu() * 100);
         }
 
-        if (timeDiff > 0) {
+        // the energy ledger already has the energy of the hosts
+        if (timeDiff > 0 && !Config.EVENT_DRIVEN_ENERGY) {
             Log.formatLine(
                     "\nEnergy consumption for the last time frame from %.2f to %.2f:",
                     getLastProcessTime(),
@@ -512,11 +542,13 @@ public class FogDevice extends PowerDatacenter {
                         cloudletCompleted = true;
                         Tuple tuple = (Tuple) cl;
                         TimeKeeper.getInstance().tupleEndedExecution(tuple);
+                        if (Config.TELEMETRY_COMPILED && telemetry != null)
+                            telemetry.tupleExecuted(((AppModule) vm).getName(), cl.getActualCPUTime());
                         Application application = getApplicationMap().get(tuple.getAppId());
                         Logger.debug(getName(), "Completed execution of tuple " + tuple.getCloudletId() + "on " + tuple.getDestModuleName());
                         List<Tuple> resultantTuples = application.getResultantTuples(tuple.getDestModuleName(), tuple, getId(), vm.getId());
                         for (Tuple resTuple : resultantTuples) {
-                            resTuple.setModuleCopyMap(new HashMap<String, Integer>(tuple.getModuleCopyMap()));
+                            resTuple.getModuleCopyMap().putAll(tuple.getModuleCopyMap());
                             resTuple.getModuleCopyMap().put(((AppModule) vm).getName(), vm.getId());
                             updateTimingsOnSending(resTuple);
                             sendToSelf(resTuple);
@@ -537,12 +569,7 @@ public class FogDevice extends PowerDatacenter {
         String destModule = resTuple.getDestModuleName();
         for (AppLoop loop : getApplicationMap().get(resTuple.getAppId()).getLoops()) {
             if (loop.hasEdge(srcModule, destModule) && loop.isStartModule(srcModule)) {
-                int tupleId = TimeKeeper.getInstance().getUniqueId();
-                resTuple.setActualTupleId(tupleId);
-                if (!TimeKeeper.getInstance().getLoopIdToTupleIds().containsKey(loop.getLoopId()))
-                    TimeKeeper.getInstance().getLoopIdToTupleIds().put(loop.getLoopId(), new ArrayList<Integer>());
-                TimeKeeper.getInstance().getLoopIdToTupleIds().get(loop.getLoopId()).add(tupleId);
-                TimeKeeper.getInstance().getEmitTimes().put(tupleId, CloudSim.clock());
+                resTuple.setActualTupleId(TimeKeeper.getInstance().loopStarted(loop.getLoopId()));
 
                 //Logger.debug(getName(), "\tSENDING\t"+tuple.getActualTupleId()+"\tSrc:"+srcModule+"\tDest:"+destModule);
 
@@ -551,13 +578,21 @@ public class FogDevice extends PowerDatacenter {
     }
 
     protected int getChildIdWithRouteTo(int targetDeviceId) {
-        for (Integer childId : getChildrenIds()) {
-            if (targetDeviceId == childId)
-                return childId;
-            if (((FogDevice) CloudSim.getEntity(childId)).getChildIdWithRouteTo(targetDeviceId) != -1)
-                return childId;
-        }
-        return -1;
+        return getDownRoutingIndex().getNextHop(targetDeviceId);
+    }
+
+    /**
+     * Gets the index of the children leading to the devices, modules and actuators below this
+     * device, rebuilt if the topology changed since it was last used. Changes to the children
+     * lists made directly rather than through {@link #addChild}, {@link #removeChild} or
+     * {@link #setChildrenIds} must be followed by {@link DownRoutingIndex#topologyChanged()}.
+     *
+     * @return the index
+     */
+    public DownRoutingIndex getDownRoutingIndex() {
+        if (downRoutingIndex == null || !downRoutingIndex.isCurrent())
+            downRoutingIndex = DownRoutingIndex.build(this);
+        return downRoutingIndex;
     }
 
     protected int getChildIdForTuple(Tuple tuple) {
@@ -569,31 +604,49 @@ public class FogDevice extends PowerDatacenter {
     }
 
     protected void updateAllocatedMips(String incomingOperator) {
-        getHost().getVmScheduler().deallocatePesForAllVms();
-        for (final Vm vm : getHost().getVmList()) {
-            if (vm.getCloudletScheduler().runningCloudlets() > 0 || ((AppModule) vm).getName().equals(incomingOperator)) {
-                getHost().getVmScheduler().allocatePesForVm(vm, new ArrayList<Double>() {
-                    protected static final long serialVersionUID = 1L;
-
-                    {
-                        add((double) getHost().getTotalMips());
-                    }
-                });
-            } else {
-                getHost().getVmScheduler().allocatePesForVm(vm, new ArrayList<Double>() {
-                    protected static final long serialVersionUID = 1L;
-
-                    {
-                        add(0.0);
-                    }
-                });
-            }
+        List<Vm> vms = getHost().getVmList();
+        if (allocatedFullMips.length < vms.size())
+            allocatedFullMips = new boolean[vms.size()];
+        for (int i = 0; i < vms.size(); i++) {
+            Vm vm = vms.get(i);
+            allocatedFullMips[i] = vm.getCloudletScheduler().runningCloudlets() > 0 || ((AppModule) vm).getName().equals(incomingOperator);
+        }
+        VmScheduler vmScheduler = getHost().getVmScheduler();
+        if (!(vmScheduler instanceof StreamOperatorScheduler)
+                || !((StreamOperatorScheduler) vmScheduler).allocateFullOrNoMips(vms, allocatedFullMips, getHost().getTotalMips())) {
+            vmScheduler.deallocatePesForAllVms();
+            for (int i = 0; i < vms.size(); i++)
+                vmScheduler.allocatePesForVm(vms.get(i), allocatedFullMips[i] ? getFullMipsShare() : IDLE_MIPS_SHARE);
         }
 
         updateEnergyConsumption();
 
     }
 
+    /**
+     * Gives a VM all the MIPS of the host, the other VMs keeping what they ask for
+     * @param vm the VM
+     */
+    protected void allocateFullMips(Vm vm) {
+        VmScheduler vmScheduler = getHost().getVmScheduler();
+        if (!(vmScheduler instanceof StreamOperatorScheduler)
+                || !((StreamOperatorScheduler) vmScheduler).allocateFullMips(vm, getHost().getTotalMips())) {
+            vmScheduler.deallocatePesForVm(vm);
+            vmScheduler.allocatePesForVm(vm, getFullMipsShare());
+        }
+        recordUtilization();
+    }
+
+    /**
+     * @return the MIPS share asking for all the MIPS of the host, shared by all the allocations
+     */
+    private List<Double> getFullMipsShare() {
+        double totalMips = getHost().getTotalMips();
+        if (fullMipsShare == null || fullMipsShare.get(0) != totalMips)
+            fullMipsShare = Collections.singletonList(totalMips);
+        return fullMipsShare;
+    }
+
     private void updateEnergyConsumption() {
         double totalMipsAllocated = 0;
         for (final Vm vm : getHost().getVmList()) {
@@ -603,6 +656,11 @@ public class FogDevice extends PowerDatacenter {
             totalMipsAllocated += getHost().getTotalAllocatedMipsForVm(vm);
         }
 
+        if (Config.EVENT_DRIVEN_ENERGY) {
+            energyLedger.record(CloudSim.clock(), Math.min(1, totalMipsAllocated / getHost().getTotalMips()), getRatePerMips());
+            return;
+        }
+
         double timeNow = CloudSim.clock();
         double currentEnergyConsumption = getEnergyConsumption();
         double newEnergyConsumption = currentEnergyConsumption + (timeNow - lastUtilizationUpdateTime) * getHost().getPowerModel().getPower(lastUtilization);
@@ -623,6 +681,19 @@ public class FogDevice extends PowerDatacenter {
         lastUtilizationUpdateTime = timeNow;
     }
 
+    /**
+     * Records the utilisation of the host in the energy ledger after a change of the allocations
+     * outside {@link #updateAllocatedMips(String)}, when {@link Config#EVENT_DRIVEN_ENERGY} is set
+     */
+    protected void recordUtilization() {
+        if (!Config.EVENT_DRIVEN_ENERGY)
+            return;
+        double totalMipsAllocated = 0;
+        for (final Vm vm : getHost().getVmList())
+            totalMipsAllocated += getHost().getTotalAllocatedMipsForVm(vm);
+        energyLedger.record(CloudSim.clock(), Math.min(1, totalMipsAllocated / getHost().getTotalMips()), getRatePerMips());
+    }
+
     protected void processAppSubmit(SimEvent ev) {
         Application app = (Application) ev.getData();
         applicationMap.put(app.getAppId(), app);
@@ -635,6 +706,7 @@ public class FogDevice extends PowerDatacenter {
             getChildrenIds().add(childId);
         if (!getChildToOperatorsMap().containsKey(childId))
             getChildToOperatorsMap().put(childId, new ArrayList<String>());
+        DownRoutingIndex.topologyChanged();
     }
 
 
@@ -666,9 +738,7 @@ public class FogDevice extends PowerDatacenter {
                 return;
             }
         }
-        for (int childId : getChildrenIds()) {
-            sendDown(tuple, childId);
-        }
+        sendDownToChildren(tuple);
     }
 
     int numClients = 0;
@@ -690,9 +760,9 @@ public class FogDevice extends PowerDatacenter {
 			System.out.println(CloudSim.clock()+" "+getName()+" Received tuple "+tuple.getCloudletId()+" with tupleType = "+tuple.getTupleType()+"\t| Source : "+
 		CloudSim.getEntityName(ev.getSource())+"|Dest : "+CloudSim.getEntityName(ev.getDestination()));*/
 
-        send(ev.getSource(), CloudSim.getMinTimeBetweenEvents(), FogEvents.TUPLE_ACK);
+        acknowledgeTuple(ev.getSource());
 
-        if (FogUtils.appIdToGeoCoverageMap.containsKey(tuple.getAppId())) {
+        if (FogUtils.getAppIdToGeoCoverageMap().containsKey(tuple.getAppId())) {
         }
 
         if (tuple.getDirection() == Tuple.ACTUATOR) {
@@ -703,14 +773,7 @@ public class FogDevice extends PowerDatacenter {
         if (getHost().getVmList().size() > 0) {
             final AppModule operator = (AppModule) getHost().getVmList().get(0);
             if (CloudSim.clock() > 0) {
-                getHost().getVmScheduler().deallocatePesForVm(operator);
-                getHost().getVmScheduler().allocatePesForVm(operator, new ArrayList<Double>() {
-                    protected static final long serialVersionUID = 1L;
-
-                    {
-                        add((double) getHost().getTotalMips());
-                    }
-                });
+                allocateFullMips(operator);
             }
         }
 
@@ -726,9 +789,8 @@ public class FogDevice extends PowerDatacenter {
                     if (((AppModule) vm).getName().equals(tuple.getDestModuleName()))
                         vmId = vm.getId();
                 }
-                if (vmId < 0
-                        || (tuple.getModuleCopyMap().containsKey(tuple.getDestModuleName()) &&
-                        tuple.getModuleCopyMap().get(tuple.getDestModuleName()) != vmId)) {
+                int moduleCopy = tuple.getModuleCopy(tuple.getDestModuleName());
+                if (vmId < 0 || (moduleCopy != -1 && moduleCopy != vmId)) {
                     return;
                 }
                 tuple.setVmId(vmId);
@@ -741,8 +803,7 @@ public class FogDevice extends PowerDatacenter {
                 if (tuple.getDirection() == Tuple.UP)
                     sendUp(tuple);
                 else if (tuple.getDirection() == Tuple.DOWN) {
-                    for (int childId : getChildrenIds())
-                        sendDown(tuple, childId);
+                    sendDownToChildren(tuple);
                 }
             } else {
                 sendUp(tuple);
@@ -751,8 +812,7 @@ public class FogDevice extends PowerDatacenter {
             if (tuple.getDirection() == Tuple.UP)
                 sendUp(tuple);
             else if (tuple.getDirection() == Tuple.DOWN) {
-                for (int childId : getChildrenIds())
-                    sendDown(tuple, childId);
+                sendDownToChildren(tuple);
             }
         }
     }
@@ -764,27 +824,28 @@ public class FogDevice extends PowerDatacenter {
         List<AppLoop> loops = app.getLoops();
         for (AppLoop loop : loops) {
             if (loop.hasEdge(srcModule, destModule) && loop.isEndModule(destModule)) {
-                Double startTime = TimeKeeper.getInstance().getEmitTimes().get(tuple.getActualTupleId());
-                if (startTime == null)
-                    break;
-                if (!TimeKeeper.getInstance().getLoopIdToCurrentAverage().containsKey(loop.getLoopId())) {
-                    TimeKeeper.getInstance().getLoopIdToCurrentAverage().put(loop.getLoopId(), 0.0);
-                    TimeKeeper.getInstance().getLoopIdToCurrentNum().put(loop.getLoopId(), 0);
-                }
-                double currentAverage = TimeKeeper.getInstance().getLoopIdToCurrentAverage().get(loop.getLoopId());
-                int currentCount = TimeKeeper.getInstance().getLoopIdToCurrentNum().get(loop.getLoopId());
-                double delay = CloudSim.clock() - TimeKeeper.getInstance().getEmitTimes().get(tuple.getActualTupleId());
-                TimeKeeper.getInstance().getEmitTimes().remove(tuple.getActualTupleId());
-                double newAverage = (currentAverage * currentCount + delay) / (currentCount + 1);
-                TimeKeeper.getInstance().getLoopIdToCurrentAverage().put(loop.getLoopId(), newAverage);
-                TimeKeeper.getInstance().getLoopIdToCurrentNum().put(loop.getLoopId(), currentCount + 1);
+                TimeKeeper.getInstance().loopEnded(loop.getLoopId(), tuple.getActualTupleId());
                 break;
             }
         }
     }
 
     protected void processSensorJoining(SimEvent ev) {
-        send(ev.getSource(), CloudSim.getMinTimeBetweenEvents(), FogEvents.TUPLE_ACK);
+        acknowledgeTuple(ev.getSource());
+    }
+
+    /**
+     * Acknowledges a tuple to its sender, if the sender asked for it, coalesced with the other
+     * tuples from the sender in the window
+     *
+     * @param senderId the sender
+     */
+    protected void acknowledgeTuple(int senderId) {
+        if (!Config.TUPLE_ACKS)
+            return;
+        TupleAck ack = TupleAcknowledgements.acknowledge(getId(), senderId);
+        if (ack != null)
+            send(senderId, ack.getDeliveryTime() - CloudSim.clock(), FogEvents.TUPLE_ACK, ack);
     }
 
     protected void executeTuple(SimEvent ev, String moduleName) {
@@ -824,6 +885,8 @@ public class FogDevice extends PowerDatacenter {
         }
         appToModulesMap.get(appId).add(module.getName());
         processVmCreate(ev, false);
+        DownRoutingIndex.topologyChanged();
+        recordUtilization();
         if (module.isBeingInstantiated()) {
             module.setBeingInstantiated(false);
         }
@@ -837,6 +900,8 @@ public class FogDevice extends PowerDatacenter {
 
     protected void processModuleTermination(SimEvent ev) {
         processVmDestroy(ev, false);
+        DownRoutingIndex.topologyChanged();
+        recordUtilization();
     }
 
     protected void initializePeriodicTuples(AppModule module) {
@@ -850,6 +915,8 @@ public class FogDevice extends PowerDatacenter {
 
     protected void processOperatorRelease(SimEvent ev) {
         this.processVmMigrate(ev, false);
+        DownRoutingIndex.topologyChanged();
+        recordUtilization();
     }
 
 
@@ -868,6 +935,8 @@ public class FogDevice extends PowerDatacenter {
         send(getId(), networkDelay, FogEvents.UPDATE_NORTH_TUPLE_QUEUE);
         send(parentId, networkDelay + getUplinkLatency(), FogEvents.TUPLE_ARRIVAL, tuple);
         NetworkUsageMonitor.sendingTuple(getUplinkLatency(), tuple.getCloudletFileSize());
+        if (Config.TELEMETRY_COMPILED && telemetry != null)
+            telemetry.tupleSent(DeviceTelemetry.NORTH, tuple.getCloudletFileSize(), networkDelay);
     }
 
     protected void sendUp(Tuple tuple) {
@@ -877,6 +946,8 @@ public class FogDevice extends PowerDatacenter {
             } else {
                 northTupleQueue.add(tuple);
             }
+            if (Config.TELEMETRY_COMPILED && telemetry != null)
+                telemetry.tupleForwarded(DeviceTelemetry.NORTH, northTupleQueue.size());
         }
     }
 
@@ -895,22 +966,101 @@ public class FogDevice extends PowerDatacenter {
         //Logger.debug(getName(), "Sending tuple with tupleType = "+tuple.getTupleType()+" DOWN");
         setSouthLinkBusy(true);
         //System.out.println(getName()+" Sending tuple with tupleType = "+tuple.getTupleType()+" to "+childId);
-        double latency = getChildToLatencyMap().get(childId);
         send(getId(), networkDelay, FogEvents.UPDATE_SOUTH_TUPLE_QUEUE);
+        transmitDown(tuple, childId, networkDelay);
+    }
+
+    /**
+     * Sends a tuple to a child once the link to it is free
+     *
+     * @param tuple        the tuple
+     * @param childId      the child
+     * @param networkDelay time the link is busy sending the tuple
+     */
+    protected void transmitDown(Tuple tuple, int childId, double networkDelay) {
+        double latency = getChildToLatencyMap().get(childId);
         send(childId, networkDelay + latency, FogEvents.TUPLE_ARRIVAL, tuple);
         NetworkUsageMonitor.sendingTuple(latency, tuple.getCloudletFileSize());
+        if (Config.TELEMETRY_COMPILED && telemetry != null)
+            telemetry.tupleSent(DeviceTelemetry.SOUTH, tuple.getCloudletFileSize(), networkDelay);
     }
 
     protected void sendDown(Tuple tuple, int childId) {
         if (getChildrenIds().contains(childId)) {
+            if (Config.PER_CHILD_DOWNLINKS) {
+                sendDownChannel(tuple, getDownlinkChannel(childId));
+                return;
+            }
             if (!isSouthLinkBusy()) {
                 sendDownFreeLink(tuple, childId);
             } else {
                 southTupleQueue.add(new Pair<Tuple, Integer>(tuple, childId));
             }
+            if (Config.TELEMETRY_COMPILED && telemetry != null)
+                telemetry.tupleForwarded(DeviceTelemetry.SOUTH, southTupleQueue.size());
         }
     }
 
+    public DownlinkChannel getDownlinkChannel(int childId) {
+        DownlinkChannel channel = downlinkChannels.get(childId);
+        if (channel == null) {
+            channel = new DownlinkChannel(childId, downlinkScheduler.get());
+            downlinkChannels.put(childId, channel);
+        }
+        return channel;
+    }
+
+    protected void sendDownChannel(Tuple tuple, DownlinkChannel channel) {
+        if (channel.isIdle(CloudSim.clock())) {
+            sendOnChannel(tuple, channel);
+        } else {
+            channel.getScheduler().enqueue(tuple);
+            // one update at the end of the current sending serves all the tuples queued behind it
+            if (!channel.isUpdateScheduled()) {
+                send(getId(), channel.getBusyUntil() - CloudSim.clock(), FogEvents.UPDATE_DOWNLINK_CHANNEL, channel);
+                channel.setUpdateScheduled(true);
+            }
+        }
+        if (Config.TELEMETRY_COMPILED && telemetry != null)
+            telemetry.tupleForwarded(DeviceTelemetry.SOUTH, channel.getScheduler().size());
+    }
+
+    protected void updateDownlinkChannel(DownlinkChannel channel) {
+        channel.setUpdateScheduled(false);
+        Tuple tuple = channel.getScheduler().next();
+        if (tuple == null)
+            return;
+        sendOnChannel(tuple, channel);
+        if (channel.getScheduler().size() > 0) {
+            send(getId(), channel.getBusyUntil() - CloudSim.clock(), FogEvents.UPDATE_DOWNLINK_CHANNEL, channel);
+            channel.setUpdateScheduled(true);
+        }
+    }
+
+    private void sendOnChannel(Tuple tuple, DownlinkChannel channel) {
+        double networkDelay = tuple.getCloudletFileSize() / getDownlinkBandwidth();
+        channel.setBusyUntil(CloudSim.clock() + networkDelay);
+        transmitDown(tuple, channel.getChildId(), networkDelay);
+    }
+
+    /**
+     * Sets the scheduler of the tuples waiting for the link to each child, for the links created
+     * from now on. Only used when {@link Config#PER_CHILD_DOWNLINKS} is set.
+     *
+     * @param downlinkScheduler creates a scheduler for each link
+     */
+    public void setDownlinkScheduler(Supplier<LinkScheduler> downlinkScheduler) {
+        this.downlinkScheduler = downlinkScheduler;
+    }
+
+
+    protected void sendDownToChildren(Tuple tuple) {
+        List<Integer> childIds = Config.ROUTED_DOWN_DELIVERY ? getDownRoutingIndex().getChildrenFor(tuple) : getChildrenIds();
+        if (childIds.size() > 1)
+            tuple.markShared();
+        for (int childId : childIds)
+            sendDown(tuple, childId);
+    }
 
     protected void sendToSelf(Tuple tuple) {
         send(getId(), CloudSim.getMinTimeBetweenEvents(), FogEvents.TUPLE_ARRIVAL, tuple);
@@ -934,6 +1084,7 @@ public class FogDevice extends PowerDatacenter {
 
     public void setChildrenIds(List<Integer> childrenIds) {
         this.childrenIds = childrenIds;
+        DownRoutingIndex.topologyChanged();
     }
 
     public double getUplinkBandwidth() {
@@ -1033,6 +1184,8 @@ public class FogDevice extends PowerDatacenter {
     }
 
     public double getEnergyConsumption() {
+        if (Config.EVENT_DRIVEN_ENERGY)
+            return energyLedger.getEnergy(CloudSim.clock());
         return energyConsumption;
     }
 
@@ -1065,9 +1218,18 @@ public class FogDevice extends PowerDatacenter {
     }
 
     public double getTotalCost() {
+        if (Config.EVENT_DRIVEN_ENERGY)
+            return energyLedger.getCost(CloudSim.clock());
         return totalCost;
     }
 
+    /**
+     * @return the energy and cost of the device over time, kept when {@link Config#EVENT_DRIVEN_ENERGY} is set
+     */
+    public EnergyLedger getEnergyLedger() {
+        return energyLedger;
+    }
+
     public void setTotalCost(double totalCost) {
         this.totalCost = totalCost;
     }
@@ -1095,6 +1257,7 @@ public class FogDevice extends PowerDatacenter {
             List<String> operatorName = getChildToOperatorsMap().get(childId);
             getChildToOperatorsMap().remove(childId, operatorName);
         }
+        DownRoutingIndex.topologyChanged();
     }
 
     public void setClusterMembers(List clusterList) {
@@ -1134,6 +1297,11 @@ public class FogDevice extends PowerDatacenter {
     }
 
     protected void processClustering(int parentId, int nodeId, SimEvent ev) {
+        if (ev.getData() instanceof ClusteringRequest) {
+            // request for a whole level, clustered at once by the first request
+            ((ClusteringRequest) ev.getData()).process(this);
+            return;
+        }
         JSONObject objectLocator = (JSONObject) ev.getData();
         Clustering cms = new Clustering();
         cms.createClusterMembers(this.getParentId(), this.getId(), objectLocator);
@@ -1154,6 +1322,8 @@ public class FogDevice extends PowerDatacenter {
             } else {
                 clusterTupleQueue.add(new Pair<Tuple, Integer>(tuple, clusterNodeID));
             }
+            if (Config.TELEMETRY_COMPILED && telemetry != null)
+                telemetry.tupleForwarded(DeviceTelemetry.CLUSTER, clusterTupleQueue.size());
         }
     }
 
@@ -1173,6 +1343,8 @@ public class FogDevice extends PowerDatacenter {
         send(getId(), networkDelay, FogEvents.UPDATE_CLUSTER_TUPLE_QUEUE);
         send(clusterNodeID, networkDelay + latency, FogEvents.TUPLE_ARRIVAL, tuple);
         NetworkUsageMonitor.sendingTuple(latency, tuple.getCloudletFileSize());
+        if (Config.TELEMETRY_COMPILED && telemetry != null)
+            telemetry.tupleSent(DeviceTelemetry.CLUSTER, tuple.getCloudletFileSize(), networkDelay);
     }
 
     protected void setClusterLinkBusy(boolean busy) {
@@ -1,7 +1,6 @@
 package org.fog.entities;
 
 import org.apache.commons.math3.util.Pair;
-import org.cloudbus.cloudsim.UtilizationModelFull;
 import org.fog.application.Application;
 import org.fog.utils.ModuleLaunchConfig;
 
@@ -32,12 +31,12 @@ public class ManagementTuple extends Tuple {
 
     //todo cloudlet data hard coded
     public ManagementTuple(String appId, int cloudletId, int direction, int tupleType) {
-        super(appId, cloudletId, direction, 5, 1, 50, 50, new UtilizationModelFull(), new UtilizationModelFull(), new UtilizationModelFull());
+        super(appId, cloudletId, direction, 5, 1, 50, 50, FULL_UTILIZATION, FULL_UTILIZATION, FULL_UTILIZATION);
         managementTupleType = tupleType;
     }
 
     public ManagementTuple(int cloudletId, int direction, int tupleType) {
-        super("Management Tuple", cloudletId, direction, 5, 1, 50, 50, new UtilizationModelFull(), new UtilizationModelFull(), new UtilizationModelFull());
+        super("Management Tuple", cloudletId, direction, 5, 1, 50, 50, FULL_UTILIZATION, FULL_UTILIZATION, FULL_UTILIZATION);
         managementTupleType = tupleType;
     }
 
@@ -12,6 +12,7 @@ import org.fog.application.Application;
 import org.fog.placement.MicroservicePlacementLogic;
 import org.fog.placement.PlacementLogicOutput;
 import org.fog.utils.*;
+import org.fog.utils.telemetry.DeviceTelemetry;
 import org.json.simple.JSONObject;
 
 import java.util.*;
@@ -120,6 +121,8 @@ public class MicroserviceFogDevice extends FogDevice {
         setClusterLinkBusy(true);
         double latency = (getClusterMembersToLatencyMap()).get(clusterNodeID);
         send(getId(), networkDelay, FogEvents.UPDATE_CLUSTER_TUPLE_QUEUE);
+        if (Config.TELEMETRY_COMPILED && telemetry != null)
+            telemetry.tupleSent(DeviceTelemetry.CLUSTER, tuple.getCloudletFileSize(), networkDelay);
 
         if (tuple instanceof ManagementTuple) {
             send(clusterNodeID, networkDelay + latency + ((ManagementTuple) tuple).processingDelay, FogEvents.MANAGEMENT_TUPLE_ARRIVAL, tuple);
@@ -163,9 +166,9 @@ public class MicroserviceFogDevice extends FogDevice {
             updateCloudTraffic();
         }
 
-        send(ev.getSource(), CloudSim.getMinTimeBetweenEvents(), FogEvents.TUPLE_ACK);
+        acknowledgeTuple(ev.getSource());
 
-        if (FogUtils.appIdToGeoCoverageMap.containsKey(tuple.getAppId())) {
+        if (FogUtils.getAppIdToGeoCoverageMap().containsKey(tuple.getAppId())) {
         }
 
         if (tuple.getDirection() == Tuple.ACTUATOR) {
@@ -176,14 +179,7 @@ public class MicroserviceFogDevice extends FogDevice {
         if (getHost().getVmList().size() > 0) {
             final AppModule operator = (AppModule) getHost().getVmList().get(0);
             if (CloudSim.clock() > 0) {
-                getHost().getVmScheduler().deallocatePesForVm(operator);
-                getHost().getVmScheduler().allocatePesForVm(operator, new ArrayList<Double>() {
-                    protected static final long serialVersionUID = 1L;
-
-                    {
-                        add((double) getHost().getTotalMips());
-                    }
-                });
+                allocateFullMips(operator);
             }
         }
 
@@ -215,9 +211,8 @@ public class MicroserviceFogDevice extends FogDevice {
                 if (((AppModule) vm).getName().equals(tuple.getDestModuleName()))
                     vmId = vm.getId();
             }
-            if (vmId < 0
-                    || (tuple.getModuleCopyMap().containsKey(tuple.getDestModuleName()) &&
-                    tuple.getModuleCopyMap().get(tuple.getDestModuleName()) != vmId)) {
+            int moduleCopy = tuple.getModuleCopy(tuple.getDestModuleName());
+            if (vmId < 0 || (moduleCopy != -1 && moduleCopy != vmId)) {
                 return;
             }
             tuple.setVmId(vmId);
@@ -248,9 +243,8 @@ public class MicroserviceFogDevice extends FogDevice {
                                 if (((AppModule) vm).getName().equals(tuple.getDestModuleName()))
                                     vmId = vm.getId();
                             }
-                            if (vmId < 0
-                                    || (tuple.getModuleCopyMap().containsKey(tuple.getDestModuleName()) &&
-                                    tuple.getModuleCopyMap().get(tuple.getDestModuleName()) != vmId)) {
+                            int moduleCopy = tuple.getModuleCopy(tuple.getDestModuleName());
+                            if (vmId < 0 || (moduleCopy != -1 && moduleCopy != vmId)) {
                                 return;
                             }
                             tuple.setVmId(vmId);
@@ -265,8 +259,7 @@ public class MicroserviceFogDevice extends FogDevice {
                     }
 
 
-                    for (int childId : getChildrenIds())
-                        sendDown(tuple, childId);
+                    sendDownToChildren(tuple);
 
                 } else {
                     Logger.error("Routing error", "Destination id -1 for UP tuple");
@@ -442,6 +435,7 @@ public class MicroserviceFogDevice extends FogDevice {
         if (!appToModulesMap.get(appId).contains(module.getName())) {
             appToModulesMap.get(appId).add(module.getName());
             processVmCreate(ev, false);
+            DownRoutingIndex.topologyChanged();
             boolean result = getVmAllocationPolicy().allocateHostForVm(module);
             if (result) {
                 getVmList().add(module);
@@ -495,6 +489,7 @@ public class MicroserviceFogDevice extends FogDevice {
             else {
                 moduleInstanceCount.get(appModule.getAppId()).remove(appModule.getName());
                 appToModulesMap.get(appModule.getAppId()).remove(appModule.getName());
+                DownRoutingIndex.topologyChanged();
                 sendNow(getId(), FogEvents.RELEASE_MODULE, appModule);
             }
         }
@@ -627,18 +622,17 @@ public class MicroserviceFogDevice extends FogDevice {
         }
     }
 
-    protected void sendDownFreeLink(Tuple tuple, int childId) {
+    protected void transmitDown(Tuple tuple, int childId, double networkDelay) {
         if (tuple instanceof ManagementTuple) {
-            double networkDelay = tuple.getCloudletFileSize() / getDownlinkBandwidth();
-            setSouthLinkBusy(true);
             double latency = getChildToLatencyMap().get(childId);
-            send(getId(), networkDelay, FogEvents.UPDATE_SOUTH_TUPLE_QUEUE);
             send(childId, networkDelay + latency + ((ManagementTuple) tuple).processingDelay, FogEvents.MANAGEMENT_TUPLE_ARRIVAL, tuple);
+            if (Config.TELEMETRY_COMPILED && telemetry != null)
+                telemetry.tupleSent(DeviceTelemetry.SOUTH, tuple.getCloudletFileSize(), networkDelay);
             //todo
 //            if (Config.ENABLE_NETWORK_USAGE_AT_PLACEMENT)
 //                NetworkUsageMonitor.sendingManagementTuple(latency, tuple.getCloudletFileSize());
         } else
-            super.sendDownFreeLink(tuple, childId);
+            super.transmitDown(tuple, childId, networkDelay);
     }
 
     protected void sendUpFreeLink(Tuple tuple) {
@@ -647,6 +641,8 @@ public class MicroserviceFogDevice extends FogDevice {
             setNorthLinkBusy(true);
             send(getId(), networkDelay, FogEvents.UPDATE_NORTH_TUPLE_QUEUE);
             send(parentId, networkDelay + getUplinkLatency() + ((ManagementTuple) tuple).processingDelay, FogEvents.MANAGEMENT_TUPLE_ARRIVAL, tuple);
+            if (Config.TELEMETRY_COMPILED && telemetry != null)
+                telemetry.tupleSent(DeviceTelemetry.NORTH, tuple.getCloudletFileSize(), networkDelay);
             //todo
 //            if (Config.ENABLE_NETWORK_USAGE_AT_PLACEMENT)
 //                NetworkUsageMonitor.sendingManagementTuple(getUplinkLatency(), tuple.getCloudletFileSize());
@@ -1,8 +1,5 @@
 package org.fog.entities;
 
-import java.util.ArrayList;
-
-import org.cloudbus.cloudsim.UtilizationModelFull;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.SimEntity;
 import org.cloudbus.cloudsim.core.SimEvent;
@@ -77,16 +74,12 @@ public class Sensor extends SimEntity{
 	}
 	
 	public void transmit(){
-		AppEdge _edge = null;
-		for(AppEdge edge : getApp().getEdges()){
-			if(edge.getSource().equals(getTupleType()))
-				_edge = edge;
-		}
+		AppEdge _edge = getApp().getRoutingTable().getSensorEdge(getTupleType());
 		long cpuLength = (long) _edge.getTupleCpuLength();
 		long nwLength = (long) _edge.getTupleNwLength();
 		
-		Tuple tuple = new Tuple(getAppId(), FogUtils.generateTupleId(), Tuple.UP, cpuLength, 1, nwLength, outputSize, 
-				new UtilizationModelFull(), new UtilizationModelFull(), new UtilizationModelFull());
+		Tuple tuple = TuplePool.newTuple(getAppId(), FogUtils.generateTupleId(), Tuple.UP, cpuLength, 1, nwLength, outputSize, 
+				Tuple.FULL_UTILIZATION, Tuple.FULL_UTILIZATION, Tuple.FULL_UTILIZATION);
 		tuple.setUserId(getUserId());
 		tuple.setTupleType(getTupleType());
 		
@@ -107,12 +100,7 @@ public class Sensor extends SimEntity{
 		for(AppLoop loop : application.getLoops()){
 			if(loop.hasEdge(src, dest)){
 				
-				int tupleId = TimeKeeper.getInstance().getUniqueId();
-				if(!TimeKeeper.getInstance().getLoopIdToTupleIds().containsKey(loop.getLoopId()))
-					TimeKeeper.getInstance().getLoopIdToTupleIds().put(loop.getLoopId(), new ArrayList<Integer>());
-				TimeKeeper.getInstance().getLoopIdToTupleIds().get(loop.getLoopId()).add(tupleId);
-				TimeKeeper.getInstance().getEmitTimes().put(tupleId, CloudSim.clock());
-				return tupleId;
+				return TimeKeeper.getInstance().loopStarted(loop.getLoopId());
 			}
 		}
 		return -1;
@@ -1,16 +1,23 @@
 package org.fog.entities;
 
-import java.util.HashMap;
 import java.util.Map;
 
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.UtilizationModel;
+import org.cloudbus.cloudsim.UtilizationModelFull;
+import org.fog.utils.ModuleIdMap;
 
 public class Tuple extends Cloudlet{
 
 	public static final int UP = 1;
 	public static final int DOWN = 2;
 	public static final int ACTUATOR = 3;
+
+	/**
+	 * Utilization model of the tuples using all the resources given to them. It has no state, so
+	 * all the tuples share it.
+	 */
+	public static final UtilizationModel FULL_UTILIZATION = new UtilizationModelFull();
 	
 	private String appId;
 	
@@ -34,8 +41,18 @@ public class Tuple extends Cloudlet{
 	 */
 	protected int destinationDeviceId;
 	/* keep track of traversed microservices by tuples of type UP in microservices architecture UP -> tuple travelling towards service
-	 DOWN -> tuple travelling from service to client microservice.*/
-	protected Map<String, Integer> traversedMicroservices = new HashMap<>();
+	 DOWN -> tuple travelling from service to client microservice. Created when first used.*/
+	protected Map<String, Integer> traversedMicroservices;
+
+	/**
+	 * Whether the tuple was sent to more than one entity, so that it is never returned to the {@link TuplePool}
+	 */
+	private boolean shared;
+
+	/**
+	 * Whether the tuple is in the {@link TuplePool}
+	 */
+	private boolean pooled;
 	
 	public Tuple(String appId, int cloudletId, int direction, long cloudletLength, int pesNumber,
 			long cloudletFileSize, long cloudletOutputSize,
@@ -48,10 +65,37 @@ public class Tuple extends Cloudlet{
 		setAppId(appId);
 		setDirection(direction);
 		setSourceDeviceId(-1);
-		setModuleCopyMap(new HashMap<String, Integer>());
+		setModuleCopyMap(new ModuleIdMap());
 		setDestinationDeviceId(-1);
 	}
 
+	/**
+	 * Reinitializes a tuple taken from the {@link TuplePool} as if it had just been created
+	 */
+	void reuse(String appId, int cloudletId, int direction, long cloudletLength, int pesNumber,
+			long cloudletFileSize, long cloudletOutputSize,
+			UtilizationModel utilizationModelCpu,
+			UtilizationModel utilizationModelRam,
+			UtilizationModel utilizationModelBw) {
+		reinitialize(cloudletId, cloudletLength, pesNumber, cloudletFileSize, cloudletOutputSize,
+				utilizationModelCpu, utilizationModelRam, utilizationModelBw);
+		setAppId(appId);
+		setDirection(direction);
+		tupleType = null;
+		destModuleName = null;
+		srcModuleName = null;
+		actualTupleId = 0;
+		actuatorId = 0;
+		sourceModuleId = 0;
+		setSourceDeviceId(-1);
+		moduleCopyMap.clear();
+		setDestinationDeviceId(-1);
+		// the map may be shared with the tuples resulting from this one
+		traversedMicroservices = null;
+		shared = false;
+		pooled = false;
+	}
+
 	public int getActualTupleId() {
 		return actualTupleId;
 	}
@@ -124,6 +168,18 @@ public class Tuple extends Cloudlet{
 		this.moduleCopyMap = moduleCopyMap;
 	}
 
+	/**
+	 * Gets the instance of a module the tuple has traversed
+	 * @param moduleName name of the module
+	 * @return the vm id of the module instance, or -1 if the tuple has traversed none
+	 */
+	public int getModuleCopy(String moduleName) {
+		if (moduleCopyMap instanceof ModuleIdMap)
+			return ((ModuleIdMap) moduleCopyMap).getId(moduleName, -1);
+		Integer vmId = moduleCopyMap.get(moduleName);
+		return vmId == null ? -1 : vmId;
+	}
+
 	public int getSourceModuleId() {
 		return sourceModuleId;
 	}
@@ -141,11 +197,11 @@ public class Tuple extends Cloudlet{
 	}
 
 	public void addToTraversedMicroservices(Integer deviceID, String microserviceName) {
-		traversedMicroservices.put(microserviceName, deviceID);
+		getTraversed().put(microserviceName, deviceID);
 	}
 
 	public int getDeviceForMicroservice(String microserviceName) {
-		if (!traversedMicroservices.containsKey(microserviceName))
+		if (traversedMicroservices == null || !traversedMicroservices.containsKey(microserviceName))
 			return -1;
 		else {
 			return traversedMicroservices.get(microserviceName);
@@ -153,6 +209,8 @@ public class Tuple extends Cloudlet{
 	}
 
 	public Map<String, Integer> getTraversed() {
+		if (traversedMicroservices == null)
+			traversedMicroservices = new ModuleIdMap();
 		return traversedMicroservices;
 	}
 
@@ -160,4 +218,23 @@ public class Tuple extends Cloudlet{
 		traversedMicroservices = traversed;
 	}
 
+	public boolean isShared() {
+		return shared;
+	}
+
+	/**
+	 * Records that the tuple is sent to more than one entity, which then all hold it
+	 */
+	public void markShared() {
+		shared = true;
+	}
+
+	boolean isPooled() {
+		return pooled;
+	}
+
+	void setPooled(boolean pooled) {
+		this.pooled = pooled;
+	}
+
 }
@@ -0,0 +1,80 @@
+package org.fog.entities;
+
+import java.util.ArrayDeque;
+
+import org.cloudbus.cloudsim.UtilizationModel;
+import org.cloudbus.cloudsim.core.SimulationContext;
+import org.fog.utils.Config;
+
+/**
+ * Creates the tuples of the applications and, when {@link Config#TUPLE_POOLING} is set, reuses the
+ * tuples of the simulation that have reached the end of their path instead of allocating new ones.
+ * A tuple ends its path once its execution is returned to its broker, or once it reaches its
+ * actuator. Tuples sent to more than one entity, and the tuples of subclasses, are never reused.
+ */
+public class TuplePool {
+
+	/**
+	 * Most tuples kept for reuse; the others are left to the garbage collector
+	 */
+	public static final int MAX_POOLED_TUPLES = 4096;
+
+	// Pool of the simulation context of the calling thread
+	private final ArrayDeque<Tuple> tuples = new ArrayDeque<Tuple>();
+	private long createdTuples;
+	private long reusedTuples;
+
+	private static TuplePool getInstance(){
+		return SimulationContext.current().getComponent(TuplePool.class, TuplePool::new);
+	}
+
+	/**
+	 * Gets a tuple with the parameters of {@link Tuple#Tuple}, reused from the pool if it has one
+	 */
+	public static Tuple newTuple(String appId, int cloudletId, int direction, long cloudletLength, int pesNumber,
+			long cloudletFileSize, long cloudletOutputSize,
+			UtilizationModel utilizationModelCpu,
+			UtilizationModel utilizationModelRam,
+			UtilizationModel utilizationModelBw) {
+		TuplePool pool = getInstance();
+		if (Config.TUPLE_POOLING) {
+			Tuple tuple = pool.tuples.poll();
+			if (tuple != null) {
+				tuple.reuse(appId, cloudletId, direction, cloudletLength, pesNumber, cloudletFileSize, cloudletOutputSize,
+						utilizationModelCpu, utilizationModelRam, utilizationModelBw);
+				pool.reusedTuples++;
+				return tuple;
+			}
+		}
+		pool.createdTuples++;
+		return new Tuple(appId, cloudletId, direction, cloudletLength, pesNumber, cloudletFileSize, cloudletOutputSize,
+				utilizationModelCpu, utilizationModelRam, utilizationModelBw);
+	}
+
+	/**
+	 * Returns a tuple at the end of its path to the pool. Nothing may use the tuple afterwards.
+	 */
+	public static void release(Tuple tuple) {
+		if (!Config.TUPLE_POOLING || tuple.getClass() != Tuple.class || tuple.isShared() || tuple.isPooled())
+			return;
+		TuplePool pool = getInstance();
+		if (pool.tuples.size() < MAX_POOLED_TUPLES) {
+			tuple.setPooled(true);
+			pool.tuples.push(tuple);
+		}
+	}
+
+	/**
+	 * @return number of tuples allocated in the simulation
+	 */
+	public static long getCreatedTuples(){
+		return getInstance().createdTuples;
+	}
+
+	/**
+	 * @return number of tuples reused from the pool in the simulation
+	 */
+	public static long getReusedTuples(){
+		return getInstance().reusedTuples;
+	}
+}
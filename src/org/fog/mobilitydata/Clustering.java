@@ -7,15 +7,59 @@ import org.fog.utils.Config;
 import org.json.simple.JSONObject;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 
 /**
+ * A node is clustered with the siblings within {@link Config#Node_Communication_RANGE} of it.
+ * {@link #createClusterMembers(List, LocationHandler)} clusters a whole level at once: the children
+ * of each parent are bucketed in a uniform grid over their unit sphere coordinates, with cells as
+ * large as the communication range, so that only the siblings of the neighbouring cells are
+ * checked. The grids are kept, and {@link #updateClusterMembers(FogDevice)} re-clusters only the
+ * nodes affected by a move.
+ *
  * @author Mohammad Goudarzi
  */
 public class Clustering {
+    private static final double EARTH_RADIUS = 6371; // In terms of kilometer
+    private static final long CELL_MASK = (1L << 21) - 1;
+
+    // latency of the links between the members of a cluster
+    private final double latency;
+    private LocationHandler locator;
+    private double range;
+    private double cellSize;
+    // Indexed siblings by id, and the grid of the children of each parent
+    private final Map<Integer, Sibling> siblings = new HashMap<>();
+    private final Map<Integer, Map<Long, List<Sibling>>> grids = new HashMap<>();
+    // Parents whose children are indexed, and the nodes being clustered, in clustering order
+    private final Set<Integer> indexedParents = new HashSet<>();
+    private final Set<Integer> clusterNodes = new LinkedHashSet<>();
+    // Order of the siblings, following the order of the children of their parent
+    private long nextOrder = 0;
+    // Level clustered at once by the first request of its nodes, and the members found for them
+    private List<FogDevice> pendingLevel;
+    private final Map<Integer, List<Integer>> pendingMembers = new HashMap<>();
+
+    public Clustering() {
+        this(Config.clusteringLatency);
+    }
+
+    /**
+     * @param latency latency of the links between the members of a cluster
+     */
+    public Clustering(double latency) {
+        this.latency = latency;
+    }
+
     public void createClusterMembers(int parentId, int nodeId, JSONObject locatorObject) {
         List<Integer> SiblingListIDs = new ArrayList<>();
         List<FogDevice> SiblingsList = new ArrayList<FogDevice>();
@@ -77,7 +121,7 @@ public class Clustering {
             ((FogDevice) CloudSim.getEntity(fogId)).setClusterMembers(clusterMemberList);
             Map<Integer, Double> latencyMapL2 = new HashMap<>();
             for (int id : clusterMemberList) {
-                latencyMapL2.put(id, Config.clusteringLatency);
+                latencyMapL2.put(id, latency);
             }
             ((FogDevice) CloudSim.getEntity(fogId)).setClusterMembersToLatencyMap(latencyMapL2);
 
@@ -109,4 +153,271 @@ public class Clustering {
         }
 
     }
+
+    /**
+     * Clusters every node of the list with its siblings in range, as
+     * {@link #createClusterMembers(int, int, JSONObject)} does for each of them.
+     *
+     * @param fogDevices nodes to cluster, usually the fog devices of a level
+     * @param locator    locations of the nodes
+     */
+    public void createClusterMembers(List<FogDevice> fogDevices, LocationHandler locator) {
+        findClusterMembers(fogDevices, locator);
+        for (FogDevice fogDevice : fogDevices) {
+            List<Integer> clusterMembers = pendingMembers.remove(fogDevice.getId());
+            if (clusterMembers != null) {
+                setClusterMembers(siblings.get(fogDevice.getId()), clusterMembers);
+            }
+        }
+        pendingLevel = null;
+    }
+
+    /**
+     * Clusters a node of a level when it gets its clustering request, as
+     * {@link #createClusterMembers(int, int, JSONObject)} does. The members of all the nodes of the
+     * level are found at once by the first request, and each node gets its own at its request.
+     *
+     * @param fogDevice node to cluster
+     * @param fogDevices nodes of the level, the same list for all the requests of the level
+     * @param locator    locations of the nodes
+     */
+    public void createClusterMembers(FogDevice fogDevice, List<FogDevice> fogDevices, LocationHandler locator) {
+        if (pendingLevel != fogDevices) {
+            findClusterMembers(fogDevices, locator);
+            pendingLevel = fogDevices;
+        }
+        List<Integer> clusterMembers = pendingMembers.get(fogDevice.getId());
+        if (clusterMembers != null) {
+            setClusterMembers(siblings.get(fogDevice.getId()), clusterMembers);
+        }
+    }
+
+    // Indexes the siblings of the nodes and finds the members of each node, without setting them yet
+    private void findClusterMembers(List<FogDevice> fogDevices, LocationHandler locator) {
+        this.locator = locator;
+        range = Config.Node_Communication_RANGE;
+        // Straight line distance on the unit sphere of two nodes at the communication range, with
+        // some slack for rounding
+        double angle = Math.min(range / 1000 / EARTH_RADIUS, Math.PI);
+        cellSize = Math.max(2 * Math.sin(angle / 2) * (1 + 1e-9), 1e-12);
+        siblings.clear();
+        grids.clear();
+        indexedParents.clear();
+        clusterNodes.clear();
+        pendingMembers.clear();
+        nextOrder = 0;
+
+        List<Sibling> nodes = new ArrayList<>();
+        for (FogDevice fogDevice : fogDevices) {
+            if (!indexChildren(fogDevice.getParentId())) {
+                System.out.println("ERROR in clustering --> Pranet Node does not habe any children");
+                continue;
+            }
+            Sibling node = siblings.get(fogDevice.getId());
+            if (node != null && clusterNodes.add(fogDevice.getId())) {
+                nodes.add(node);
+            }
+        }
+
+        List<List<Integer>> clusterMembers = nodes.parallelStream()
+                .map(this::findClusterMembers)
+                .collect(Collectors.toList());
+        for (int i = 0; i < nodes.size(); i++) {
+            pendingMembers.put(nodes.get(i).id, clusterMembers.get(i));
+        }
+    }
+
+    /**
+     * Re-clusters the nodes affected by a node that got a new parent or location: the node itself
+     * when it is clustered, and the clustered siblings it leaves and joins. The children lists of
+     * the old and new parents should already be updated.
+     *
+     * @param fogDevice node that moved
+     */
+    public void updateClusterMembers(FogDevice fogDevice) {
+        if (locator == null) {
+            return;
+        }
+        Set<Integer> affected = new LinkedHashSet<>();
+        Sibling previous = siblings.remove(fogDevice.getId());
+        if (previous != null) {
+            grids.get(previous.parentId).get(previous.cell).remove(previous);
+            affected.addAll(findClusterNodesInRange(previous));
+        }
+        if (clusterNodes.contains(fogDevice.getId()) && !indexChildren(fogDevice.getParentId())) {
+            System.out.println("ERROR in clustering --> Pranet Node does not habe any children");
+        }
+        if (indexedParents.contains(fogDevice.getParentId()) && !siblings.containsKey(fogDevice.getId())) {
+            // A node keeps its order among its siblings unless it changed parent
+            long order = previous != null && previous.parentId == fogDevice.getParentId() ? previous.order : nextOrder++;
+            addSibling(fogDevice.getId(), fogDevice.getParentId(), order);
+        }
+        Sibling node = siblings.get(fogDevice.getId());
+        if (node != null) {
+            affected.addAll(findClusterNodesInRange(node));
+            if (clusterNodes.contains(fogDevice.getId())) {
+                affected.add(fogDevice.getId());
+            }
+        }
+        for (int id : affected) {
+            Sibling affectedNode = siblings.get(id);
+            if (affectedNode != null) {
+                setClusterMembers(affectedNode, findClusterMembers(affectedNode));
+            }
+        }
+    }
+
+    /**
+     * Indexes the children of a parent, in their order, if not done yet.
+     *
+     * @return false if the parent cannot be found or does not have any children
+     */
+    private boolean indexChildren(int parentId) {
+        if (indexedParents.contains(parentId)) {
+            return true;
+        }
+        if (parentId < 0) {
+            return false;
+        }
+        FogDevice parentDevice = (FogDevice) CloudSim.getEntity(parentId);
+        if (parentDevice.getChildrenIds().isEmpty()) {
+            return false;
+        }
+        indexedParents.add(parentId);
+        for (int childId : parentDevice.getChildrenIds()) {
+            addSibling(childId, parentId, nextOrder++);
+        }
+        return true;
+    }
+
+    private void addSibling(int id, int parentId, long order) {
+        String dataId = locator.instanceToDataId.get(id);
+        Location location = dataId == null ? null : locator.dataObject.resourceLocationData.get(dataId);
+        if (location == null) {
+            return;
+        }
+        Sibling sibling = new Sibling(id, parentId, order, location);
+        siblings.put(id, sibling);
+        Map<Long, List<Sibling>> grid = grids.get(parentId);
+        if (grid == null) {
+            grid = new HashMap<>();
+            grids.put(parentId, grid);
+        }
+        List<Sibling> cell = grid.get(sibling.cell);
+        if (cell == null) {
+            cell = new ArrayList<>();
+            grid.put(sibling.cell, cell);
+        }
+        cell.add(sibling);
+    }
+
+    /**
+     * @return the siblings of the node in range, in the order of the children of their parent
+     */
+    private List<Integer> findClusterMembers(Sibling node) {
+        List<Sibling> members = new ArrayList<>();
+        for (Sibling sibling : findSiblingsInRange(node)) {
+            if (calculateInRange(node.location, sibling.location, range)) {
+                members.add(sibling);
+            }
+        }
+        Collections.sort(members, new Comparator<Sibling>() {
+            @Override
+            public int compare(Sibling o1, Sibling o2) {
+                return Long.compare(o1.order, o2.order);
+            }
+        });
+        List<Integer> clusterMemberList = new ArrayList<>();
+        for (Sibling member : members) {
+            clusterMemberList.add(member.id);
+        }
+        return clusterMemberList;
+    }
+
+    private List<Integer> findClusterNodesInRange(Sibling sibling) {
+        List<Integer> nodes = new ArrayList<>();
+        for (Sibling node : findSiblingsInRange(sibling)) {
+            if (clusterNodes.contains(node.id)) {
+                nodes.add(node.id);
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * @return the other siblings of the node in its cell and the neighbouring cells
+     */
+    private List<Sibling> findSiblingsInRange(Sibling node) {
+        List<Sibling> candidates = new ArrayList<>();
+        Map<Long, List<Sibling>> grid = grids.get(node.parentId);
+        for (long dx = -1; dx <= 1; dx++) {
+            for (long dy = -1; dy <= 1; dy++) {
+                for (long dz = -1; dz <= 1; dz++) {
+                    List<Sibling> cell = grid.get(cellKey(node.cellX + dx, node.cellY + dy, node.cellZ + dz));
+                    if (cell == null) {
+                        continue;
+                    }
+                    for (Sibling sibling : cell) {
+                        if (sibling.id != node.id && Math.abs(sibling.cellX - node.cellX) <= 1 && Math.abs(sibling.cellY - node.cellY) <= 1
+                                && Math.abs(sibling.cellZ - node.cellZ) <= 1) {
+                            candidates.add(sibling);
+                        }
+                    }
+                }
+            }
+        }
+        return candidates;
+    }
+
+    private void setClusterMembers(Sibling node, List<Integer> clusterMemberList) {
+        FogDevice fogDevice = (FogDevice) CloudSim.getEntity(node.id);
+        if (clusterMemberList.isEmpty()) {
+            fogDevice.setSelfCluster(true);
+            fogDevice.setIsInCluster(true);
+            if (fogDevice.getClusterMembers() != null && !fogDevice.getClusterMembers().isEmpty()) {
+                fogDevice.setClusterMembers(new ArrayList<Integer>());
+                fogDevice.setClusterMembersToLatencyMap(new HashMap<Integer, Double>());
+            }
+        } else {
+            fogDevice.setIsInCluster(true);
+            fogDevice.setSelfCluster(false);
+            fogDevice.setClusterMembers(clusterMemberList);
+            Map<Integer, Double> latencyMapL2 = new HashMap<>();
+            for (int id : clusterMemberList) {
+                latencyMapL2.put(id, latency);
+            }
+            fogDevice.setClusterMembersToLatencyMap(latencyMapL2);
+        }
+        System.out.println("The Fog Device: " + locator.instanceToDataId.get(node.id) + " with id: " + node.id + " and parent id: " + node.parentId +
+                " has these cluster members: " + fogDevice.getClusterMembers());
+    }
+
+    // Cells wrap around past 2^21 per axis, which only adds candidates
+    private static long cellKey(long cellX, long cellY, long cellZ) {
+        return ((cellX & CELL_MASK) << 42) | ((cellY & CELL_MASK) << 21) | (cellZ & CELL_MASK);
+    }
+
+    private class Sibling {
+        private final int id;
+        private final int parentId;
+        private final long order;
+        private final Location location;
+        private final long cellX;
+        private final long cellY;
+        private final long cellZ;
+        private final long cell;
+
+        Sibling(int id, int parentId, long order, Location location) {
+            this.id = id;
+            this.parentId = parentId;
+            this.order = order;
+            this.location = location;
+            double latitude = Math.toRadians(location.latitude);
+            double longitude = Math.toRadians(location.longitude);
+            cellX = (long) Math.floor(Math.cos(latitude) * Math.cos(longitude) / cellSize);
+            cellY = (long) Math.floor(Math.cos(latitude) * Math.sin(longitude) / cellSize);
+            cellZ = (long) Math.floor(Math.sin(latitude) / cellSize);
+            cell = cellKey(cellX, cellY, cellZ);
+        }
+    }
 }
@@ -0,0 +1,37 @@
+package org.fog.mobilitydata;
+
+import org.fog.entities.FogDevice;
+import org.fog.placement.LocationHandler;
+
+import java.util.List;
+
+/**
+ * Request of a controller to a fog node to join the clusters of its level. The nodes of the
+ * levels being clustered are clustered by the first request of them that is processed, and each
+ * node takes its members when it gets its own request.
+ */
+public class ClusteringRequest {
+    private final Clustering clustering;
+    private final List<FogDevice> clusterNodes;
+    private final LocationHandler locator;
+
+    /**
+     * @param clustering   clustering of the controller, shared by the requests of the levels
+     * @param clusterNodes nodes of the levels being clustered, the same list for all of them
+     * @param locator      locations of the nodes
+     */
+    public ClusteringRequest(Clustering clustering, List<FogDevice> clusterNodes, LocationHandler locator) {
+        this.clustering = clustering;
+        this.clusterNodes = clusterNodes;
+        this.locator = locator;
+    }
+
+    /**
+     * Clusters a node of the levels
+     *
+     * @param fogDevice the node that got the request
+     */
+    public void process(FogDevice fogDevice) {
+        clustering.createClusterMembers(fogDevice, clusterNodes, locator);
+    }
+}
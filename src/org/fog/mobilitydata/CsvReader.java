@@ -0,0 +1,277 @@
+package org.fog.mobilitydata;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a comma separated file row by row through a memory mapping of the file. The fields of the
+ * current row are only delimited, not copied: they are converted on demand, without allocation
+ * for integers and for decimal numbers of up to 15 significant digits. As with
+ * <code>String.split(",")</code>, fields are not quoted, and surrounding spaces are ignored by the
+ * numeric conversions.
+ * <p>
+ * Files larger than 2 GB are not supported.
+ */
+public class CsvReader implements Closeable {
+    // Powers of ten exactly representable as doubles
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int limit;
+    // Start of the next row
+    private int position;
+    // Bounds of the fields of the current row, end exclusive
+    private int[] starts = new int[8];
+    private int[] ends = new int[8];
+    private int fieldCount;
+    // Reused for the numbers converted by Double.parseDouble
+    private char[] chars = new char[32];
+
+    public CsvReader(File file) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(file + " is too large to be mapped");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            limit = (int) size;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Moves to the next row that is not empty
+     *
+     * @return false if there is no row left
+     */
+    public boolean nextRow() {
+        while (position < limit) {
+            int start = position;
+            int end = start;
+            while (end < limit && buffer.get(end) != '\n') {
+                end++;
+            }
+            position = end + 1;
+            if (end > start && buffer.get(end - 1) == '\r') {
+                end--;
+            }
+            if (end > start) {
+                split(start, end);
+                return true;
+            }
+        }
+        fieldCount = 0;
+        return false;
+    }
+
+    private void split(int start, int end) {
+        fieldCount = 0;
+        int fieldStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || buffer.get(i) == ',') {
+                if (fieldCount == starts.length) {
+                    int[] grownStarts = new int[fieldCount * 2];
+                    int[] grownEnds = new int[fieldCount * 2];
+                    System.arraycopy(starts, 0, grownStarts, 0, fieldCount);
+                    System.arraycopy(ends, 0, grownEnds, 0, fieldCount);
+                    starts = grownStarts;
+                    ends = grownEnds;
+                }
+                starts[fieldCount] = fieldStart;
+                ends[fieldCount] = i;
+                fieldCount++;
+                fieldStart = i + 1;
+            }
+        }
+    }
+
+    /**
+     * @return the number of fields of the current row
+     */
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * @return the field of the current row, as is
+     */
+    public String getString(int field) {
+        checkField(field);
+        char[] value = toChars(starts[field], ends[field]);
+        return new String(value, 0, ends[field] - starts[field]);
+    }
+
+    /**
+     * @return whether the field of the current row is the given text
+     */
+    public boolean fieldEquals(int field, String text) {
+        checkField(field);
+        int start = starts[field];
+        if (ends[field] - start != text.length()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if ((char) (buffer.get(start + i) & 0xff) != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the field of the current row as an integer
+     * @throws NumberFormatException if the field is not an integer
+     */
+    public int getInt(int field) {
+        checkField(field);
+        int start = skipSpaces(starts[field], ends[field]);
+        int end = trimSpaces(start, ends[field]);
+        boolean negative = false;
+        if (start < end && (buffer.get(start) == '-' || buffer.get(start) == '+')) {
+            negative = buffer.get(start) == '-';
+            start++;
+        }
+        if (start == end) {
+            throw numberFormatException(field);
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw numberFormatException(field);
+            }
+            value = value * 10 + digit;
+            if (value > Integer.MAX_VALUE + 1L) {
+                throw numberFormatException(field);
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw numberFormatException(field);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Converts a field of the current row to a double, with the same result as
+     * <code>Double.parseDouble</code>
+     *
+     * @return the field of the current row as a double
+     * @throws NumberFormatException if the field is not a number
+     */
+    public double getDouble(int field) {
+        checkField(field);
+        int start = skipSpaces(starts[field], ends[field]);
+        int end = trimSpaces(start, ends[field]);
+        int i = start;
+        boolean negative = false;
+        if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int significantDigits = 0;
+        int exponent = 0;
+        boolean point = false;
+        for (; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b >= '0' && b <= '9') {
+                digits++;
+                if (mantissa != 0 || b != '0') {
+                    significantDigits++;
+                }
+                if (significantDigits <= 18) {
+                    mantissa = mantissa * 10 + (b - '0');
+                    if (point) {
+                        exponent--;
+                    }
+                } else if (!point) {
+                    exponent++;
+                }
+            } else if (b == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+        if (i < end && (buffer.get(i) == 'e' || buffer.get(i) == 'E') && digits > 0) {
+            int j = i + 1;
+            boolean negativeExponent = false;
+            if (j < end && (buffer.get(j) == '-' || buffer.get(j) == '+')) {
+                negativeExponent = buffer.get(j) == '-';
+                j++;
+            }
+            int value = 0;
+            int exponentDigits = 0;
+            for (; j < end && buffer.get(j) >= '0' && buffer.get(j) <= '9'; j++) {
+                value = Math.min(value * 10 + (buffer.get(j) - '0'), 100000);
+                exponentDigits++;
+            }
+            if (exponentDigits > 0) {
+                exponent += negativeExponent ? -value : value;
+                i = j;
+            }
+        }
+        if (i == end && digits > 0 && significantDigits <= 15 && Math.abs(exponent) < POWERS_OF_TEN.length) {
+            // Both the mantissa and the power of ten are exact, so is the correctly rounded operation
+            double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(new String(toChars(starts[field], ends[field]), 0, ends[field] - starts[field]));
+    }
+
+    private int skipSpaces(int start, int end) {
+        while (start < end && buffer.get(start) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private int trimSpaces(int start, int end) {
+        while (end > start && buffer.get(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    private char[] toChars(int start, int end) {
+        if (end - start > chars.length) {
+            chars = new char[Math.max(end - start, chars.length * 2)];
+        }
+        for (int i = start; i < end; i++) {
+            chars[i - start] = (char) (buffer.get(i) & 0xff);
+        }
+        return chars;
+    }
+
+    private void checkField(int field) {
+        if (field < 0 || field >= fieldCount) {
+            throw new IndexOutOfBoundsException("Field " + field + " of a row of " + fieldCount + " fields");
+        }
+    }
+
+    private NumberFormatException numberFormatException(int field) {
+        return new NumberFormatException("For input string: \"" + getString(field) + "\"");
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
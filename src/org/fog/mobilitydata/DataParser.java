@@ -1,6 +1,5 @@
 package org.fog.mobilitydata;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
@@ -11,13 +10,16 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Random;
 
+import org.cloudbus.cloudsim.core.SimulationContext;
+import org.fog.utils.Config;
+
 
 public class DataParser {
     public Map<String, Location> resourceLocationData = new HashMap<String, Location>();
     public Map<String, Integer> levelID = new HashMap<String, Integer>();
     public Map<Integer, ArrayList<String>> levelwiseResources = new HashMap<Integer, ArrayList<String>>();
     public Map<String, Integer> resourceAndUserToLevel = new HashMap<String, Integer>();
-    public Map<String, Map<Double, Location>> usersLocation = new HashMap<String, Map<Double, Location>>();
+    public Map<String, Trajectory> usersLocation = new HashMap<String, Trajectory>();
 
 
     public DataParser() {
@@ -41,7 +43,7 @@ public class DataParser {
 
     private double nextMobilisationEvent(double eventTime, int mobilityPattern) {
         // TODO Auto-generated method stub
-        Random ran = new Random();
+        Random ran = SimulationContext.current().getRandom();
         int seed;
         double newEventTime = -1;
         switch (mobilityPattern) {
@@ -59,41 +61,43 @@ public class DataParser {
     }
 
     public void parseUserData(Map<Integer, Integer> userMobilityPattern, String datasetReference) throws IOException {
-        // TODO Auto-generated method stub
-
         for (int userID : userMobilityPattern.keySet()) {
-
-            Map<Double, Location> tempUserLocationInfo = new HashMap<Double, Location>();
-            BufferedReader csvReader = new BufferedReader(new FileReader(datasetReference + userID + ".csv"));
+            File datasetFile = new File(datasetReference + userID + ".csv");
             System.out.println("The Mobility dataset used in this simulation for user: " + userID + " is: " + datasetReference + userID + ".csv");
-            String row;
+            UserTrace trace = UserTrace.load(datasetFile, Config.DATASET_SNAPSHOTS);
+
+            // The first position is at the initial time, each of the others at the next mobilisation event
+            double[] times = new double[trace.size()];
+            double[] latitudes = new double[trace.size()];
+            double[] longitudes = new double[trace.size()];
             double eventTime = References.INIT_TIME;
-            while ((row = csvReader.readLine()) != null) {
-                String[] data = row.split(",");
-                try {
-                    Location rl = new Location(Double.parseDouble(data[0]), Double.parseDouble(data[1]), References.NOT_SET);
-                    if (!tempUserLocationInfo.containsKey(eventTime))
-                        tempUserLocationInfo.put(eventTime, rl);
-                    else {
-                        eventTime = nextMobilisationEvent(eventTime, userMobilityPattern.get(userID));
-                        tempUserLocationInfo.put(eventTime, rl);
-                    }
-
-                } catch (NumberFormatException ex) {
-                    //System.out.println("Given String is not parsable to double");
-                }
+            for (int i = 0; i < trace.size(); i++) {
+                if (i > 0)
+                    eventTime = nextMobilisationEvent(eventTime, userMobilityPattern.get(userID));
+                times[i] = eventTime;
+                latitudes[i] = trace.getLatitude(i);
+                longitudes[i] = trace.getLongitude(i);
             }
 
-            csvReader.close();
-            usersLocation.put("usr_" + userID, tempUserLocationInfo);
+            usersLocation.put("usr_" + userID, new Trajectory(times, latitudes, longitudes, trace.size()));
             resourceAndUserToLevel.put("usr_" + userID, levelID.get("User"));
 
         }
 
     }
 
-    @SuppressWarnings("unchecked")
     public void parseResourceData() throws NumberFormatException, IOException {
+        parseResourceData(References.resource_dataset, References.resource_state);
+    }
+
+    /**
+     * Parses the edge resources of a dataset file
+     *
+     * @param datasetFile path of the resource dataset file
+     * @param state       state of the resources to keep
+     */
+    @SuppressWarnings("unchecked")
+    public void parseResourceData(String datasetFile, String state) throws NumberFormatException, IOException {
 
 
         int numOfLevels = levelID.get("LevelsNum");
@@ -102,23 +106,18 @@ public class DataParser {
             resouresOnLevels[i] = new ArrayList<String>();
 
 
-        BufferedReader csvReader = new BufferedReader(new FileReader("./dataset/edgeResources-melbCBD.csv"));
-        String row;
-        while ((row = csvReader.readLine()) != null) {
-            String[] data = row.split(",");
-            //System.out.println(row);
-            if (data[6].equals("VIC")) {
-                //System.out.println(row);
-                Location rl = new Location(Double.parseDouble(data[1]), Double.parseDouble(data[2]), Integer.parseInt(data[3]));
-                resouresOnLevels[Integer.parseInt(data[4])].add("res_" + data[0]);
-                resourceAndUserToLevel.put("res_" + data[0], Integer.parseInt(data[4]));
-                resourceLocationData.put("res_" + data[0], rl);
+        ResourceTable resources = ResourceTable.load(new File(datasetFile), Config.DATASET_SNAPSHOTS);
+        for (int i = 0; i < resources.size(); i++) {
+            if (resources.getState(i).equals(state)) {
+                Location rl = new Location(resources.getLatitude(i), resources.getLongitude(i), resources.getBlock(i));
+                resouresOnLevels[resources.getLevel(i)].add("res_" + resources.getId(i));
+                resourceAndUserToLevel.put("res_" + resources.getId(i), resources.getLevel(i));
+                resourceLocationData.put("res_" + resources.getId(i), rl);
             }
         }
 
         for (int i = 0; i < numOfLevels; i++) {
             levelwiseResources.put(i, resouresOnLevels[i]);
         }
-        csvReader.close();
     }
 }
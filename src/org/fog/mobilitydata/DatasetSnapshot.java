@@ -0,0 +1,160 @@
+package org.fog.mobilitydata;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary snapshot of the columns parsed from a dataset file, stored next to it so that later runs
+ * can reload the columns without parsing the file again. A snapshot records the size and last
+ * modification time of the file it was made from, and is ignored once the file has changed.
+ * <p>
+ * The snapshot starts with a header (magic number, format version, kind of dataset, size and
+ * modification time of the file, number of rows), followed by the columns, each one stored as a
+ * whole in big endian order.
+ */
+public class DatasetSnapshot {
+    public static final int USER_TRACE = 1;
+    public static final int RESOURCES = 2;
+
+    private static final int MAGIC = 0x69464453; // "iFDS"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 4 + 4 + 8 + 8 + 4;
+
+    private DatasetSnapshot() {
+    }
+
+    /**
+     * @return the file holding the snapshot of a dataset file
+     */
+    public static File getSnapshotFile(File dataset) {
+        return new File(dataset.getPath() + ".snapshot");
+    }
+
+    /**
+     * Opens the snapshot of a dataset file
+     *
+     * @param dataset dataset file
+     * @param kind    kind of dataset the snapshot must hold
+     * @return the content of the snapshot, positioned on its first column, or null if there is no
+     * snapshot of the current version of the file
+     */
+    public static ByteBuffer open(File dataset, int kind) throws IOException {
+        File snapshot = getSnapshotFile(dataset);
+        if (!snapshot.isFile()) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(snapshot.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                return null;
+            }
+            ByteBuffer content = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (content.getInt() != MAGIC || content.getInt() != VERSION || content.getInt() != kind
+                    || content.getLong() != dataset.length() || content.getLong() != dataset.lastModified()) {
+                return null;
+            }
+            return content;
+        }
+    }
+
+    /**
+     * Gets the number of rows of an opened snapshot, to be read before the columns
+     */
+    public static int getRowCount(ByteBuffer content) {
+        return content.getInt();
+    }
+
+    /**
+     * Creates the buffer a snapshot is written to, with its header
+     *
+     * @param dataset  dataset file
+     * @param kind     kind of dataset
+     * @param rowCount number of rows
+     * @param size     size of the columns in bytes
+     * @return the buffer, positioned on the first column
+     */
+    public static ByteBuffer create(File dataset, int kind, int rowCount, int size) {
+        ByteBuffer content = ByteBuffer.allocate(HEADER_SIZE + size);
+        content.putInt(MAGIC).putInt(VERSION).putInt(kind)
+                .putLong(dataset.length()).putLong(dataset.lastModified()).putInt(rowCount);
+        return content;
+    }
+
+    /**
+     * Writes a snapshot created by {@link #create(File, int, int, int)}. The snapshot is written to
+     * a temporary file first, so that runs reading the dataset at the same time never see a
+     * partial snapshot.
+     */
+    public static void write(File dataset, ByteBuffer content) throws IOException {
+        File snapshot = getSnapshotFile(dataset);
+        File temporary = File.createTempFile(snapshot.getName(), ".tmp", snapshot.getAbsoluteFile().getParentFile());
+        try {
+            try (FileChannel channel = FileChannel.open(temporary.toPath(), StandardOpenOption.WRITE)) {
+                content.flip();
+                while (content.hasRemaining()) {
+                    channel.write(content);
+                }
+            }
+            Files.move(temporary.toPath(), snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary.toPath());
+        }
+    }
+
+    public static void putDoubles(ByteBuffer content, double[] values, int count) {
+        content.asDoubleBuffer().put(values, 0, count);
+        content.position(content.position() + 8 * count);
+    }
+
+    public static double[] getDoubles(ByteBuffer content, int count) {
+        double[] values = new double[count];
+        content.asDoubleBuffer().get(values);
+        content.position(content.position() + 8 * count);
+        return values;
+    }
+
+    public static void putInts(ByteBuffer content, int[] values, int count) {
+        content.asIntBuffer().put(values, 0, count);
+        content.position(content.position() + 4 * count);
+    }
+
+    public static int[] getInts(ByteBuffer content, int count) {
+        int[] values = new int[count];
+        content.asIntBuffer().get(values);
+        content.position(content.position() + 4 * count);
+        return values;
+    }
+
+    /**
+     * @return the size of the column of strings in bytes
+     */
+    public static int sizeOfStrings(String[] values, int count) {
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            size += 4 + values[i].getBytes(StandardCharsets.UTF_8).length;
+        }
+        return size;
+    }
+
+    public static void putStrings(ByteBuffer content, String[] values, int count) {
+        for (int i = 0; i < count; i++) {
+            byte[] bytes = values[i].getBytes(StandardCharsets.UTF_8);
+            content.putInt(bytes.length).put(bytes);
+        }
+    }
+
+    public static String[] getStrings(ByteBuffer content, int count) {
+        String[] values = new String[count];
+        for (int i = 0; i < count; i++) {
+            byte[] bytes = new byte[content.getInt()];
+            content.get(bytes);
+            values[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,171 @@
+package org.fog.mobilitydata;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Spatial index over the locations of a list of resources, answering nearest resource queries in
+ * O(log n) on average.
+ * <p>
+ * Locations are indexed as points on the unit sphere in a k-d tree: the straight line distance
+ * between two such points grows with their great circle distance, so the nearest point is also
+ * the nearest resource on the earth surface. Among equally near resources, the one that comes
+ * first in the list is returned.
+ */
+public class LocationIndex {
+    private final String[] dataIds;
+    private final Location[] locations;
+    // Unit sphere coordinates of the resources, by position in the list
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] zs;
+    // The k-d tree: the node of a range is its middle, splitting on x, y and z in turn with depth
+    private final int[] tree;
+    // Last resource of the list in each block
+    private final Map<Integer, String> blockResources = new HashMap<>();
+
+    public LocationIndex(List<String> dataIds, Map<String, Location> resourceLocations) {
+        int size = dataIds.size();
+        this.dataIds = dataIds.toArray(new String[0]);
+        locations = new Location[size];
+        xs = new double[size];
+        ys = new double[size];
+        zs = new double[size];
+        tree = new int[size];
+        for (int i = 0; i < size; i++) {
+            Location location = resourceLocations.get(this.dataIds[i]);
+            locations[i] = location;
+            double latitude = Math.toRadians(location.latitude);
+            double longitude = Math.toRadians(location.longitude);
+            xs[i] = Math.cos(latitude) * Math.cos(longitude);
+            ys[i] = Math.cos(latitude) * Math.sin(longitude);
+            zs[i] = Math.sin(latitude);
+            tree[i] = i;
+            blockResources.put(location.block, this.dataIds[i]);
+        }
+        build(0, size, 0);
+    }
+
+    public int size() {
+        return dataIds.length;
+    }
+
+    private double coordinate(int resource, int axis) {
+        return axis == 0 ? xs[resource] : axis == 1 ? ys[resource] : zs[resource];
+    }
+
+    private void build(int from, int to, int axis) {
+        if (to - from <= 1) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        select(from, to - 1, middle, axis);
+        build(from, middle, (axis + 1) % 3);
+        build(middle + 1, to, (axis + 1) % 3);
+    }
+
+    // Quickselect: puts in tree[k] the resource that would be there if tree[left..right] was sorted on the axis
+    private void select(int left, int right, int k, int axis) {
+        while (right > left) {
+            double pivot = coordinate(tree[(left + right) >>> 1], axis);
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (coordinate(tree[i], axis) < pivot) {
+                    i++;
+                }
+                while (coordinate(tree[j], axis) > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int swap = tree[i];
+                    tree[i] = tree[j];
+                    tree[j] = swap;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Gets the resource nearest to a location
+     *
+     * @param location location
+     * @return the data id of the nearest resource, or null if there is no resource
+     */
+    public String getNearest(Location location) {
+        int nearest = getNearestPosition(location);
+        return nearest == -1 ? null : dataIds[nearest];
+    }
+
+    /**
+     * @return the location of the resource nearest to a location, or null if there is no resource
+     */
+    public Location getNearestLocation(Location location) {
+        int nearest = getNearestPosition(location);
+        return nearest == -1 ? null : locations[nearest];
+    }
+
+    /**
+     * @return the data id of the last resource of the list in the block, or null if there is none
+     */
+    public String getLastInBlock(int block) {
+        return blockResources.get(block);
+    }
+
+    private int getNearestPosition(Location location) {
+        if (dataIds.length == 0) {
+            return -1;
+        }
+        double latitude = Math.toRadians(location.latitude);
+        double longitude = Math.toRadians(location.longitude);
+        double[] point = {Math.cos(latitude) * Math.cos(longitude), Math.cos(latitude) * Math.sin(longitude), Math.sin(latitude)};
+        Nearest nearest = new Nearest();
+        search(point, 0, dataIds.length, 0, nearest);
+        return nearest.resource;
+    }
+
+    private void search(double[] point, int from, int to, int axis, Nearest nearest) {
+        if (from >= to) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        int resource = tree[middle];
+        double dx = xs[resource] - point[0];
+        double dy = ys[resource] - point[1];
+        double dz = zs[resource] - point[2];
+        double distance = dx * dx + dy * dy + dz * dz;
+        if (distance < nearest.distance || (distance == nearest.distance && resource < nearest.resource)) {
+            nearest.distance = distance;
+            nearest.resource = resource;
+        }
+
+        double difference = point[axis] - coordinate(resource, axis);
+        int nextAxis = (axis + 1) % 3;
+        if (difference < 0) {
+            search(point, from, middle, nextAxis, nearest);
+            if (difference * difference <= nearest.distance) {
+                search(point, middle + 1, to, nextAxis, nearest);
+            }
+        } else {
+            search(point, middle + 1, to, nextAxis, nearest);
+            if (difference * difference <= nearest.distance) {
+                search(point, from, middle, nextAxis, nearest);
+            }
+        }
+    }
+
+    private static class Nearest {
+        private double distance = Double.POSITIVE_INFINITY;
+        private int resource = -1;
+    }
+}
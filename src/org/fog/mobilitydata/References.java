@@ -19,6 +19,9 @@ public class References {
 	public static final String dataset_reference = "./dataset/usersLocation-melbCBD_";
 	public static final String dataset_reference_dub = "./dataset/usersLocation-dubCBD_";
 	public static final String dataset_random = "./dataset/random_usersLocation-melbCBD_";
+	// Reference dataset of the edge resources, of which the ones in resource_state are used
+	public static final String resource_dataset = "./dataset/edgeResources-melbCBD.csv";
+	public static final String resource_state = "VIC";
 	public static final int random_walk_mobility_model = 1;
 	public static final int random_waypoint_mobility_model = 2;
 	public static double MinMobilitySpeed = 1; //
@@ -0,0 +1,159 @@
+package org.fog.mobilitydata;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Edge resources as read from a resource dataset file, in file order, held in columns. The file
+ * has one resource per row: id, latitude, longitude, block, level, parent and state, followed by
+ * any other field. Rows with fewer fields or whose numbers do not parse, such as the header, are
+ * skipped.
+ */
+public class ResourceTable {
+    private final String[] ids;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final int[] blocks;
+    private final int[] levels;
+    private final String[] states;
+    private final int size;
+
+    private ResourceTable(String[] ids, double[] latitudes, double[] longitudes, int[] blocks, int[] levels, String[] states, int size) {
+        this.ids = ids;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.blocks = blocks;
+        this.levels = levels;
+        this.states = states;
+        this.size = size;
+    }
+
+    /**
+     * Loads the resources of a dataset file, from its snapshot if it has an up to date one
+     *
+     * @param file      dataset file
+     * @param snapshots whether to reload the resources from a snapshot, and write one after parsing
+     *                  the file
+     * @return the resources
+     */
+    public static ResourceTable load(File file, boolean snapshots) throws IOException {
+        if (snapshots) {
+            ByteBuffer content = DatasetSnapshot.open(file, DatasetSnapshot.RESOURCES);
+            if (content != null) {
+                int size = DatasetSnapshot.getRowCount(content);
+                return new ResourceTable(DatasetSnapshot.getStrings(content, size),
+                        DatasetSnapshot.getDoubles(content, size), DatasetSnapshot.getDoubles(content, size),
+                        DatasetSnapshot.getInts(content, size), DatasetSnapshot.getInts(content, size),
+                        intern(DatasetSnapshot.getStrings(content, size), size), size);
+            }
+        }
+        ResourceTable table = parse(file);
+        if (snapshots) {
+            int size = table.size;
+            int columnsSize = DatasetSnapshot.sizeOfStrings(table.ids, size) + 24 * size
+                    + DatasetSnapshot.sizeOfStrings(table.states, size);
+            ByteBuffer content = DatasetSnapshot.create(file, DatasetSnapshot.RESOURCES, size, columnsSize);
+            DatasetSnapshot.putStrings(content, table.ids, size);
+            DatasetSnapshot.putDoubles(content, table.latitudes, size);
+            DatasetSnapshot.putDoubles(content, table.longitudes, size);
+            DatasetSnapshot.putInts(content, table.blocks, size);
+            DatasetSnapshot.putInts(content, table.levels, size);
+            DatasetSnapshot.putStrings(content, table.states, size);
+            DatasetSnapshot.write(file, content);
+        }
+        return table;
+    }
+
+    private static ResourceTable parse(File file) throws IOException {
+        int capacity = 64;
+        String[] ids = new String[capacity];
+        double[] latitudes = new double[capacity];
+        double[] longitudes = new double[capacity];
+        int[] blocks = new int[capacity];
+        int[] levels = new int[capacity];
+        String[] states = new String[capacity];
+        int size = 0;
+        try (CsvReader reader = new CsvReader(file)) {
+            while (reader.nextRow()) {
+                if (reader.getFieldCount() < 7) {
+                    continue;
+                }
+                double latitude;
+                double longitude;
+                int block;
+                int level;
+                try {
+                    latitude = reader.getDouble(1);
+                    longitude = reader.getDouble(2);
+                    block = reader.getInt(3);
+                    level = reader.getInt(4);
+                } catch (NumberFormatException ex) {
+                    continue;
+                }
+                if (size == capacity) {
+                    capacity *= 2;
+                    ids = Arrays.copyOf(ids, capacity);
+                    latitudes = Arrays.copyOf(latitudes, capacity);
+                    longitudes = Arrays.copyOf(longitudes, capacity);
+                    blocks = Arrays.copyOf(blocks, capacity);
+                    levels = Arrays.copyOf(levels, capacity);
+                    states = Arrays.copyOf(states, capacity);
+                }
+                ids[size] = reader.getString(0);
+                latitudes[size] = latitude;
+                longitudes[size] = longitude;
+                blocks[size] = block;
+                levels[size] = level;
+                states[size] = reader.getString(6);
+                size++;
+            }
+        }
+        return new ResourceTable(ids, latitudes, longitudes, blocks, levels, intern(states, size), size);
+    }
+
+    // Shares the instances of equal strings, the column having few distinct values
+    private static String[] intern(String[] values, int count) {
+        Map<String, String> distinct = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            String value = distinct.get(values[i]);
+            if (value == null) {
+                distinct.put(values[i], values[i]);
+            } else {
+                values[i] = value;
+            }
+        }
+        return values;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String getId(int index) {
+        return ids[index];
+    }
+
+    public double getLatitude(int index) {
+        return latitudes[index];
+    }
+
+    public double getLongitude(int index) {
+        return longitudes[index];
+    }
+
+    public int getBlock(int index) {
+        return blocks[index];
+    }
+
+    public int getLevel(int index) {
+        return levels[index];
+    }
+
+    public String getState(int index) {
+        return states[index];
+    }
+}
@@ -0,0 +1,210 @@
+package org.fog.mobilitydata;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Locations of a user by time, kept sorted by time in primitive arrays so that the location at any
+ * time is found by binary search. As a map, it is read-only and iterates in time order.
+ */
+public class Trajectory extends AbstractMap<Double, Location> {
+    private final double[] times;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final Location[] locations;
+
+    public Trajectory(Map<Double, Location> userLocations) {
+        int size = userLocations.size();
+        times = new double[size];
+        int i = 0;
+        for (double time : userLocations.keySet()) {
+            times[i++] = time;
+        }
+        Arrays.sort(times);
+        latitudes = new double[size];
+        longitudes = new double[size];
+        locations = new Location[size];
+        for (i = 0; i < size; i++) {
+            locations[i] = userLocations.get(times[i]);
+            latitudes[i] = locations[i].latitude;
+            longitudes[i] = locations[i].longitude;
+        }
+    }
+
+    /**
+     * Creates the trajectory of points given in any order. Of the points at the same time, the
+     * last one is kept, as when they are put in a map in turn.
+     *
+     * @param pointTimes      times of the points
+     * @param pointLatitudes  latitudes of the points
+     * @param pointLongitudes longitudes of the points
+     * @param count           number of points
+     */
+    public Trajectory(double[] pointTimes, double[] pointLatitudes, double[] pointLongitudes, int count) {
+        double[] sorted = Arrays.copyOf(pointTimes, count);
+        Arrays.sort(sorted);
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            if (size == 0 || Double.compare(sorted[i], sorted[size - 1]) != 0) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        times = Arrays.copyOf(sorted, size);
+        latitudes = new double[size];
+        longitudes = new double[size];
+        locations = new Location[size];
+        for (int i = 0; i < count; i++) {
+            int index = Arrays.binarySearch(times, pointTimes[i]);
+            latitudes[index] = pointLatitudes[i];
+            longitudes[index] = pointLongitudes[i];
+        }
+        for (int i = 0; i < size; i++) {
+            locations[i] = new Location(latitudes[i], longitudes[i], References.NOT_SET);
+        }
+    }
+
+    @Override
+    public int size() {
+        return times.length;
+    }
+
+    public double getTime(int index) {
+        return times[index];
+    }
+
+    /**
+     * @return the times of the trajectory, in order
+     */
+    public List<Double> getTimes() {
+        return new AbstractList<Double>() {
+            @Override
+            public Double get(int index) {
+                return times[index];
+            }
+
+            @Override
+            public int size() {
+                return times.length;
+            }
+        };
+    }
+
+    @Override
+    public Location get(Object key) {
+        if (!(key instanceof Double)) {
+            return null;
+        }
+        int index = Arrays.binarySearch(times, (Double) key);
+        return index >= 0 ? locations[index] : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Gets the time of the trajectory closest to a time, the earlier one if two are as close
+     *
+     * @param time time
+     * @return the closest time, or NaN if the trajectory is empty
+     */
+    public double getClosestTime(double time) {
+        int index = getClosestIndex(time);
+        return index == -1 ? Double.NaN : times[index];
+    }
+
+    /**
+     * @return the location at the time of the trajectory closest to a time, or null if the
+     * trajectory is empty
+     */
+    public Location getClosestLocation(double time) {
+        int index = getClosestIndex(time);
+        return index == -1 ? null : locations[index];
+    }
+
+    /**
+     * Gets the location of the user at a time. Without interpolation, the user stays at a location
+     * until the next time of the trajectory; with interpolation, the user moves in a straight line
+     * to the next location. Before the first time and after the last, the user is at the first and
+     * last location.
+     *
+     * @param time        time
+     * @param interpolate whether to interpolate between the locations of the trajectory
+     * @return the location, or null if the trajectory is empty
+     */
+    public Location getLocation(double time, boolean interpolate) {
+        if (times.length == 0) {
+            return null;
+        }
+        int index = getFloorIndex(time);
+        if (index == -1) {
+            return locations[0];
+        }
+        if (!interpolate || index == times.length - 1 || times[index] == time) {
+            return locations[index];
+        }
+        double ratio = (time - times[index]) / (times[index + 1] - times[index]);
+        return new Location(latitudes[index] + ratio * (latitudes[index + 1] - latitudes[index]),
+                longitudes[index] + ratio * (longitudes[index + 1] - longitudes[index]), References.NOT_SET);
+    }
+
+    // Index of the last time at or before the time, -1 if there is none
+    private int getFloorIndex(double time) {
+        int index = Arrays.binarySearch(times, time);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    private int getClosestIndex(double time) {
+        if (times.length == 0) {
+            return -1;
+        }
+        int floor = getFloorIndex(time);
+        if (floor == -1) {
+            return 0;
+        }
+        if (floor == times.length - 1 || time - times[floor] <= times[floor + 1] - time) {
+            return floor;
+        }
+        return floor + 1;
+    }
+
+    @Override
+    public Set<Entry<Double, Location>> entrySet() {
+        return new AbstractSet<Entry<Double, Location>>() {
+            @Override
+            public Iterator<Entry<Double, Location>> iterator() {
+                return new Iterator<Entry<Double, Location>>() {
+                    private int index = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < times.length;
+                    }
+
+                    @Override
+                    public Entry<Double, Location> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        Entry<Double, Location> entry = new SimpleImmutableEntry<>(times[index], locations[index]);
+                        index++;
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return times.length;
+            }
+        };
+    }
+}
@@ -0,0 +1,90 @@
+package org.fog.mobilitydata;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Positions of a user as read from a mobility dataset file, in file order, held in columns. Each
+ * row of the file is a latitude and a longitude; rows that are not numbers, such as the header,
+ * are skipped.
+ */
+public class UserTrace {
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final int size;
+
+    private UserTrace(double[] latitudes, double[] longitudes, int size) {
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.size = size;
+    }
+
+    /**
+     * Loads the trace of a dataset file, from its snapshot if it has an up to date one
+     *
+     * @param file      dataset file
+     * @param snapshots whether to reload the trace from a snapshot, and write one after parsing the
+     *                  file
+     * @return the trace
+     */
+    public static UserTrace load(File file, boolean snapshots) throws IOException {
+        if (snapshots) {
+            ByteBuffer content = DatasetSnapshot.open(file, DatasetSnapshot.USER_TRACE);
+            if (content != null) {
+                int size = DatasetSnapshot.getRowCount(content);
+                return new UserTrace(DatasetSnapshot.getDoubles(content, size), DatasetSnapshot.getDoubles(content, size), size);
+            }
+        }
+        UserTrace trace = parse(file);
+        if (snapshots) {
+            ByteBuffer content = DatasetSnapshot.create(file, DatasetSnapshot.USER_TRACE, trace.size, 16 * trace.size);
+            DatasetSnapshot.putDoubles(content, trace.latitudes, trace.size);
+            DatasetSnapshot.putDoubles(content, trace.longitudes, trace.size);
+            DatasetSnapshot.write(file, content);
+        }
+        return trace;
+    }
+
+    private static UserTrace parse(File file) throws IOException {
+        double[] latitudes = new double[64];
+        double[] longitudes = new double[64];
+        int size = 0;
+        try (CsvReader reader = new CsvReader(file)) {
+            while (reader.nextRow()) {
+                if (reader.getFieldCount() < 2) {
+                    continue;
+                }
+                double latitude;
+                double longitude;
+                try {
+                    latitude = reader.getDouble(0);
+                    longitude = reader.getDouble(1);
+                } catch (NumberFormatException ex) {
+                    continue;
+                }
+                if (size == latitudes.length) {
+                    latitudes = Arrays.copyOf(latitudes, size * 2);
+                    longitudes = Arrays.copyOf(longitudes, size * 2);
+                }
+                latitudes[size] = latitude;
+                longitudes[size] = longitude;
+                size++;
+            }
+        }
+        return new UserTrace(latitudes, longitudes, size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double getLatitude(int index) {
+        return latitudes[index];
+    }
+
+    public double getLongitude(int index) {
+        return longitudes[index];
+    }
+}
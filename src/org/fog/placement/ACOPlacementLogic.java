@@ -1,16 +1,17 @@
 package org.fog.placement;
 
 import isula.aco.*;
-import isula.aco.algorithms.antsystem.OfflinePheromoneUpdate;
 import isula.aco.algorithms.antsystem.PerformEvaporation;
 import isula.aco.algorithms.antsystem.StartPheromoneMatrix;
 import isula.aco.exception.InvalidInputException;
+import org.cloudbus.cloudsim.core.SimulationContext;
 import org.fog.aco3.*;
 import org.fog.application.AppModule;
 import org.fog.application.Application;
 import org.fog.entities.Actuator;
 import org.fog.entities.FogDevice;
 import org.fog.entities.Sensor;
+import org.fog.utils.Config;
 import org.fog.utils.FogDeviceUtils;
 
 import javax.naming.ConfigurationException;
@@ -18,6 +19,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -61,13 +63,7 @@ public class ACOPlacementLogic extends ModulePlacement {
                 actuators,
                 getApplication(),
                 locator);
-        FinalACOProblemConfiguration configuration = new FinalACOProblemConfiguration(environment);
-        AntColony<FogDevice, FinalACOEnvironment> colony = getAntColony(configuration);
-        FinalACOProblemSolver<FogDevice, FinalACOEnvironment> solver = new FinalACOProblemSolver<>();
-        solver.initialize(environment, colony, configuration);
-        solver.addDaemonActions(new FinalACOStartPheromoneMatrix<>(), new PerformEvaporation<>());
-        solver.addDaemonActions(getPheromoneUpdatePolicy());
-        solver.getAntColony().addAntPolicies(new FinalACONodeSelection());
+        FinalACOProblemSolver<FogDevice, FinalACOEnvironment> solver = createSolver(environment);
         long startTime = System.currentTimeMillis();
         solver.solveProblem();
         long endTime = System.currentTimeMillis();
@@ -111,24 +107,42 @@ public class ACOPlacementLogic extends ModulePlacement {
         return moduleToDeviceMap;
     }
 
-    private AntColony<FogDevice, FinalACOEnvironment> getAntColony(ConfigurationProvider configurationProvider) {
-        return new AntColony<FogDevice, FinalACOEnvironment>(configurationProvider.getNumberOfAnts()) {
-            @Override
-            protected Ant<FogDevice, FinalACOEnvironment> createAnt(FinalACOEnvironment environment) {
-                return new FinalACOAnt(environment.getFogDevices().size() - 1, getApplication().getModuleNames());
-            }
-        };
+    /**
+     * Creates the solver used for the placement, ready to solve the problem of the given environment.
+     *
+     * @param environment the environment built from the candidate devices and the application
+     * @return the configured solver
+     * @throws ConfigurationException if the colony cannot be set up
+     */
+    public static FinalACOProblemSolver<FogDevice, FinalACOEnvironment> createSolver(FinalACOEnvironment environment) throws ConfigurationException {
+        FinalACOProblemConfiguration configuration = new FinalACOProblemConfiguration(environment);
+        AntColony<FogDevice, FinalACOEnvironment> colony = getAntColony(configuration, environment.getApplication());
+        FinalACOProblemSolver<FogDevice, FinalACOEnvironment> solver = new FinalACOProblemSolver<>();
+        solver.initialize(environment, colony, configuration);
+        // the solver applies its own daemon actions, not the ones registered with addDaemonActions
+        solver.addDaemonAction(new FinalACOStartPheromoneMatrix<>());
+        solver.addDaemonAction(new PerformEvaporation<>());
+        solver.addDaemonAction(new FinalACOPheromoneUpdate());
+        if (Config.ACO_PARALLEL_ANTS) {
+            solver.setPool(ForkJoinPool.commonPool());
+        }
+        if (Config.ACO_SEED >= 0) {
+            solver.setSeed(Config.ACO_SEED);
+        } else if (SimulationContext.current().isSeeded()) {
+            solver.setSeed(SimulationContext.current().getRandom().nextLong());
+        }
+        return solver;
     }
 
-    private DaemonAction<FogDevice, FinalACOEnvironment> getPheromoneUpdatePolicy() {
-        return new OfflinePheromoneUpdate<FogDevice, FinalACOEnvironment>() {
+    private static AntColony<FogDevice, FinalACOEnvironment> getAntColony(ConfigurationProvider configurationProvider,
+                                                                          final Application application) {
+        return new AntColony<FogDevice, FinalACOEnvironment>(configurationProvider.getNumberOfAnts()) {
             @Override
-            protected double getPheromoneDeposit(Ant<FogDevice, FinalACOEnvironment> ant,
-                                                 Integer positionInSolution,
-                                                 FogDevice solutionComponent,
-                                                 FinalACOEnvironment environment,
-                                                 ConfigurationProvider configurationProvider) {
-                return 1 / ant.getSolutionCost(environment);
+            protected Ant<FogDevice, FinalACOEnvironment> createAnt(FinalACOEnvironment environment) {
+                FinalACOAnt ant = new FinalACOAnt(environment.getFogDevices().size() - 1, application.getModuleNames());
+                // a policy per ant, so that the ants can build their solutions concurrently
+                ant.addPolicy(new FinalACONodeSelection());
+                return ant;
             }
         };
     }
@@ -9,6 +9,8 @@ import org.fog.application.Application;
 import org.fog.entities.Actuator;
 import org.fog.entities.FogDevice;
 import org.fog.entities.Sensor;
+import org.fog.mobilitydata.Clustering;
+import org.fog.mobilitydata.ClusteringRequest;
 import org.fog.mobilitydata.References;
 import org.fog.utils.*;
 import org.json.simple.JSONObject;
@@ -25,6 +27,8 @@ public class ClusteringController extends SimEntity {
     private List<Sensor> sensors;
     private List<Actuator> actuators;
     private LocationHandler locator;
+    private MobilityEventSource mobilityEvents;
+    private Clustering clustering = new Clustering();
     private Map<Integer, Integer> parentReference;
 
 
@@ -87,16 +91,15 @@ public class ClusteringController extends SimEntity {
     private void connectWithLatencies() {
 
         for (String dataId : locator.getDataIdsLevelReferences().keySet()) {
-            for (int instenceId : locator.getInstenceDataIdReferences().keySet()) {
-                if (locator.getInstenceDataIdReferences().get(instenceId).equals(dataId)) {
-                    FogDevice fogDevice = getFogDeviceById(instenceId);
-                    if (locator.getDataIdsLevelReferences().get(dataId) == locator.getLevelID("User") && fogDevice.getParentId() == References.NOT_SET) {
-                        int parentID = locator.determineParent(fogDevice.getId(), References.INIT_TIME);
-                        parentReference.put(fogDevice.getId(), parentID);
-                        fogDevice.setParentId(parentID);
-                    } else
-                        parentReference.put(fogDevice.getId(), fogDevice.getParentId());
-                }
+            int instenceId = locator.getInstanceIdByDataId(dataId);
+            if (instenceId != References.NOT_SET) {
+                FogDevice fogDevice = getFogDeviceById(instenceId);
+                if (locator.getDataIdsLevelReferences().get(dataId) == locator.getLevelID("User") && fogDevice.getParentId() == References.NOT_SET) {
+                    int parentID = locator.determineParent(fogDevice.getId(), References.INIT_TIME);
+                    parentReference.put(fogDevice.getId(), parentID);
+                    fogDevice.setParentId(parentID);
+                } else
+                    parentReference.put(fogDevice.getId(), fogDevice.getParentId());
             }
         }
 
@@ -149,6 +152,7 @@ public class ClusteringController extends SimEntity {
                 processMobilityData();
                 break;
             case FogEvents.MOBILITY_MANAGEMENT:
+                mobilityEvents.scheduleNext((FogDevice) ev.getData());
                 processMobility(ev);
                 break;
             case FogEvents.TUPLE_FINISHED:
@@ -164,7 +168,7 @@ public class ClusteringController extends SimEntity {
                 printCostDetails();
                 printNetworkUsageDetails();
                 printMigrationDelayDetails();
-                System.exit(0);
+                FogUtils.exitSimulation();
                 break;
 
         }
@@ -172,17 +176,20 @@ public class ClusteringController extends SimEntity {
 
     public void clusteringSubmit(List Levels) {
         System.out.println(CloudSim.clock() + " Start sending Clustering Request to Fog Devices in level: " + Levels);
+        List<FogDevice> clusterNodes = new ArrayList<>();
         for (int i = 0; i < Levels.size(); i++) {
             int clusterLevel = (int) Levels.get(i);
             for (FogDevice fogDevice : fogDevices) {
                 System.out.println(CloudSim.clock() + " fog Device: " + fogDevice.getName() + " with id: " + fogDevice.getId() + " is at level: " + fogDevice.getLevel());
-                if ((int) fogDevice.getLevel() == clusterLevel) {
-                    JSONObject jsonMessage = new JSONObject();
-                    jsonMessage.put("locationsInfo", getLocator());
-                    sendNow(fogDevice.getId(), FogEvents.START_DYNAMIC_CLUSTERING, jsonMessage);
-                }
+                if ((int) fogDevice.getLevel() == clusterLevel)
+                    clusterNodes.add(fogDevice);
             }
         }
+        // each device is clustered when it gets its request, the whole level being clustered at once by the first request
+        ClusteringRequest request = new ClusteringRequest(clustering, clusterNodes, getLocator());
+        for (FogDevice fogDevice : clusterNodes) {
+            sendNow(fogDevice.getId(), FogEvents.START_DYNAMIC_CLUSTERING, request);
+        }
 
     }
 
@@ -224,6 +231,8 @@ public class ClusteringController extends SimEntity {
             newParent.getChildToLatencyMap().put(fogDevice.getId(), fogDevice.getUplinkLatency());
             newParent.addChild(fogDevice.getId());
             prevParent.removeChild(fogDevice.getId());
+            if (Config.ENABLE_DYNAMIC_CLUSTERING)
+                clustering.updateClusterMembers(fogDevice);
             for (String applicationName : fogDevice.getActiveApplications()) {
                 migratingModules = getAppModulePlacementPolicy().get(applicationName).getModulesOnPath().get(fogDevice.getId()).get(prevParent.getId());
                 getAppModulePlacementPolicy().get(applicationName).getModulesOnPath().get(fogDevice.getId()).remove(prevParent.getId());
@@ -305,15 +314,8 @@ public class ClusteringController extends SimEntity {
     }
 
     private void processMobilityData() {
-        // TODO Auto-generated method stub
-        List<Double> timeSheet = new ArrayList<Double>();
-        for (FogDevice fogDevice : getFogDevices()) {
-            if (locator.isAMobileDevice(fogDevice.getId())) {
-                timeSheet = locator.getTimeSheet(fogDevice.getId());
-                for (double timeEntry : timeSheet)
-                    send(getId(), timeEntry, FogEvents.MOBILITY_MANAGEMENT, fogDevice);
-            }
-        }
+        mobilityEvents = new MobilityEventSource(getId(), locator);
+        mobilityEvents.start(getFogDevices());
     }
 
     private void printNetworkUsageDetails() {
@@ -393,7 +395,7 @@ public class ClusteringController extends SimEntity {
     }
 
     public void submitApplication(Application application, int delay, ModulePlacement modulePlacement) {
-        FogUtils.appIdToGeoCoverageMap.put(application.getAppId(), application.getGeoCoverage());
+        FogUtils.getAppIdToGeoCoverageMap().put(application.getAppId(), application.getGeoCoverage());
         getApplications().put(application.getAppId(), application);
         getAppLaunchDelays().put(application.getAppId(), delay);
         getAppModulePlacementPolicy().put(application.getAppId(), modulePlacement);
@@ -428,7 +430,7 @@ public class ClusteringController extends SimEntity {
 
     private void processAppSubmit(Application application) {
         System.out.println(CloudSim.clock() + " Submitted application " + application.getAppId());
-        FogUtils.appIdToGeoCoverageMap.put(application.getAppId(), application.getGeoCoverage());
+        FogUtils.getAppIdToGeoCoverageMap().put(application.getAppId(), application.getGeoCoverage());
         getApplications().put(application.getAppId(), application);
 
         ModulePlacement modulePlacement = getAppModulePlacementPolicy().get(application.getAppId());
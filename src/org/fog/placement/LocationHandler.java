@@ -6,14 +6,18 @@ import java.util.List;
 import java.util.Map;
 
 import org.fog.mobilitydata.Location;
+import org.fog.mobilitydata.LocationIndex;
 import org.fog.mobilitydata.DataParser;
 import org.fog.mobilitydata.References;
+import org.fog.mobilitydata.Trajectory;
 import org.fog.utils.Config;
 
 public class LocationHandler {
 	
 	public DataParser dataObject;
 	public Map<Integer, String> instanceToDataId;
+	private Map<String, Integer> dataIdToInstanceId = new HashMap<String, Integer>();
+	private Map<Integer, LocationIndex> levelIndexes = new HashMap<Integer, LocationIndex>();
 	
 
 	public LocationHandler(DataParser dataObject) {
@@ -62,54 +66,66 @@ public class LocationHandler {
 		else
 			resourceLoc = getUserLocationInfo(dataId,time);
 		
-		int parentInstanceId = References.NOT_SET;	
-		String parentDataId = "";
-				
-	
+		LocationIndex parentLevelIndex = getLevelIndex(parentLevel);
+		String parentDataId;
 		if(time<References.INIT_TIME){
-			for(int i=0; i<getLevelWiseResources(parentLevel).size();i++){
-				Location potentialParentLoc = getResourceLocationInfo(getLevelWiseResources(parentLevel).get(i));
-				if(potentialParentLoc.block==resourceLoc.block) {
-					parentDataId = getLevelWiseResources(parentLevel).get(i);
-					for(int parentIdIterator: instanceToDataId.keySet())
-					{
-						if(instanceToDataId.get(parentIdIterator).equals(parentDataId))
-						{
-							parentInstanceId = parentIdIterator;
-						}
-					}
-				}	
-			}
+			parentDataId = parentLevelIndex.getLastInBlock(resourceLoc.block);
 		}
 		else
 		{
-			double minmumDistance = Config.MAX_VALUE;
-			for(int i=0; i<getLevelWiseResources(parentLevel).size();i++){
-				Location potentialParentLoc = getResourceLocationInfo(getLevelWiseResources(parentLevel).get(i));
-				
-				double distance = calculateDistance(resourceLoc, potentialParentLoc);
-					if(distance<minmumDistance){
-						parentDataId = getLevelWiseResources(parentLevel).get(i);
-						minmumDistance = distance;
-					}
-			}
-			
-			for(int parentIdIterator: instanceToDataId.keySet())
-			{
-				if(instanceToDataId.get(parentIdIterator).equals(parentDataId))
-				{
-					parentInstanceId = parentIdIterator;
-				}
-			}
-			
+			parentDataId = parentLevelIndex.getNearest(resourceLoc);
+			if(parentDataId!=null && calculateDistance(resourceLoc, getResourceLocationInfo(parentDataId))>=Config.MAX_VALUE)
+				parentDataId = null;
 		}
 		
-		return parentInstanceId;	
-	}	
+		return getInstanceIdByDataId(parentDataId);
+	}
+
+	/**
+	 * Spatial index over the resources of a level, built on first use.
+	 */
+	public LocationIndex getLevelIndex(int levelNo) {
+		List<String> resources = getLevelWiseResources(levelNo);
+		if (resources == null)
+			resources = new ArrayList<String>();
+		LocationIndex index = levelIndexes.get(levelNo);
+		if (index == null || index.size() != resources.size()) {
+			index = new LocationIndex(resources, getDataObject().resourceLocationData);
+			levelIndexes.put(levelNo, index);
+		}
+		return index;
+	}
+
+	/**
+	 * Gets the instance linked with a data id
+	 *
+	 * @param dataId data id
+	 * @return the instance id, or References.NOT_SET if no instance is linked with it
+	 */
+	public int getInstanceIdByDataId(String dataId) {
+		if (dataId == null)
+			return References.NOT_SET;
+		Integer instanceId = dataIdToInstanceId.get(dataId);
+		if (instanceId == null || !dataId.equals(instanceToDataId.get(instanceId))) {
+			// instanceToDataId is public and may have been changed directly
+			dataIdToInstanceId.clear();
+			for (Map.Entry<Integer, String> entry : instanceToDataId.entrySet())
+				dataIdToInstanceId.put(entry.getValue(), entry.getKey());
+			instanceId = dataIdToInstanceId.get(dataId);
+		}
+		return instanceId == null ? References.NOT_SET : instanceId;
+	}
 
 	private Location getUserLocationInfo(String dataId, double time) {
 		// TODO Auto-generated method stub
-		return getDataObject().usersLocation.get(dataId).get(time);
+		return getTrajectory(dataId).get(time);
+	}
+
+	/**
+	 * @return the trajectory of a user, or null if there is no user with this data id
+	 */
+	public Trajectory getTrajectory(String dataId) {
+		return getDataObject().usersLocation.get(dataId);
 	}
 
 	private Location getResourceLocationInfo(String dataId) {
@@ -121,13 +137,14 @@ public class LocationHandler {
 	public List<Double> getTimeSheet(int instanceId) {
 		
 		String dataId = getDataIdByInstanceID(instanceId);
-		List<Double>timeSheet = new ArrayList<Double>(getDataObject().usersLocation.get(dataId).keySet());
+		List<Double>timeSheet = new ArrayList<Double>(getTrajectory(dataId).getTimes());
 		return timeSheet;
 	}
 
 	public void linkDataWithInstance(int instanceId, String dataID) {
 		// TODO Auto-generated method stub
 		instanceToDataId.put(instanceId, dataID);
+		dataIdToInstanceId.put(dataID, instanceId);
 	}
 
 	public int getLevelID(String resourceType) {
@@ -150,6 +167,10 @@ public class LocationHandler {
 		getDataObject().parseResourceData();
 	}
 
+	public void parseResourceInfo(String datasetFile, String state) throws NumberFormatException, IOException {
+		getDataObject().parseResourceData(datasetFile, state);
+	}
+
 	public List<String> getMobileUserDataId() {
 		// TODO Auto-generated method stub
 		List<String> userDataIds = new ArrayList<>(getDataObject().usersLocation.keySet());
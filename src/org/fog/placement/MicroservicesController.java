@@ -25,6 +25,13 @@ public class MicroservicesController extends SimEntity {
     protected int placementLogic;
 
     protected List<Integer> clustering_levels;
+    // latency of the links between the members of a cluster
+    protected Double clusterLatency;
+    // whether the nodes of the clustering levels are clustered by location when the simulation starts
+    protected boolean dynamicClustering = Config.ENABLE_DYNAMIC_CLUSTERING;
+
+    // Shortest path routes of the devices, kept up to date on mobility
+    protected ShortestPathRoutingGenerator routingGenerator;
 
     /**
      * @param name
@@ -37,6 +44,7 @@ public class MicroservicesController extends SimEntity {
         this.fogDevices = fogDevices;
         this.sensors = sensors;
         this.clustering_levels = clusterLevels;
+        this.clusterLatency = clusterLatency;
         this.placementLogic = placementLogic;
         for (Application app : applications) {
             this.applications.put(app.getAppId(), app);
@@ -51,6 +59,7 @@ public class MicroservicesController extends SimEntity {
         this.fogDevices = fogDevices;
         this.sensors = sensors;
         this.clustering_levels = clusterLevels;
+        this.clusterLatency = clusterLatency;
         this.placementLogic = placementLogic;
         for (Application app : applications) {
             this.applications.put(app.getAppId(), app);
@@ -63,7 +72,7 @@ public class MicroservicesController extends SimEntity {
 
         if (Config.ENABLE_STATIC_CLUSTERING) {
             for (Integer id : clustering_levels)
-                createClusterConnections(id, fogDevices, Config.clusteringLatency);
+                createClusterConnections(id, fogDevices, clusterLatency);
         }
         printClusterConnections();
 
@@ -76,7 +85,7 @@ public class MicroservicesController extends SimEntity {
 
         if (!Config.ENABLE_STATIC_CLUSTERING) {
             for (Integer id : clustering_levels)
-                createClusterConnections(id, fogDevices, Config.clusteringLatency);
+                createClusterConnections(id, fogDevices, clusterLatency);
         }
         printClusterConnections();
 
@@ -84,6 +93,15 @@ public class MicroservicesController extends SimEntity {
         generateRoutingTable();
     }
 
+    /**
+     * Sets whether the fog nodes of the clustering levels are clustered by location when the
+     * simulation starts, and kept clustered as devices move, instead of
+     * {@link Config#ENABLE_DYNAMIC_CLUSTERING}. Only the mobility controllers cluster dynamically.
+     */
+    public void setDynamicClustering(boolean dynamicClustering) {
+        this.dynamicClustering = dynamicClustering;
+    }
+
     protected void initializeControllers(int placementLogic) {
         for (FogDevice device : fogDevices) {
             LoadBalancer loadBalancer = new RRLoadBalancer();
@@ -125,10 +143,10 @@ public class MicroservicesController extends SimEntity {
     }
 
     protected void generateRoutingTable() {
-        Map<Integer, Map<Integer, Integer>> routing = ShortestPathRoutingGenerator.generateRoutingTable(fogDevices);
+        routingGenerator = new ShortestPathRoutingGenerator(fogDevices);
 
         for (FogDevice f : fogDevices) {
-            ((MicroserviceFogDevice) f).addRoutingTable(routing.get(f.getId()));
+            ((MicroserviceFogDevice) f).addRoutingTable(routingGenerator.getRoutingTable(f.getId()));
         }
 
     }
@@ -219,7 +237,7 @@ public class MicroservicesController extends SimEntity {
                 printCostDetails();
                 printNetworkUsageDetails();
                 printQoSDetails();
-                System.exit(0);
+                FogUtils.exitSimulation();
                 break;
         }
 
@@ -298,7 +316,7 @@ public class MicroservicesController extends SimEntity {
         System.out.println("=========================================");
         System.out.println("APPLICATION LOOP DELAYS");
         System.out.println("=========================================");
-        for (Integer loopId : TimeKeeper.getInstance().getLoopIdToTupleIds().keySet()) {
+        for (Integer loopId : TimeKeeper.getInstance().getLoopIds()) {
 			/*double average = 0, count = 0;
 			for(int tupleId : TimeKeeper.getInstance().getLoopIdToTupleIds().get(loopId)){
 				Double startTime = 	TimeKeeper.getInstance().getEmitTimes().get(tupleId);
@@ -11,9 +11,11 @@ import org.fog.entities.Sensor;
 import org.fog.entities.Tuple;
 import org.fog.entities.MicroserviceFogDevice;
 import org.fog.entities.PlacementRequest;
+import org.fog.mobilitydata.Clustering;
+import org.fog.mobilitydata.ClusteringRequest;
 import org.fog.mobilitydata.References;
-import org.fog.utils.Config;
 import org.fog.utils.FogEvents;
+import org.fog.utils.FogUtils;
 import org.fog.utils.MigrationDelayMonitor;
 import org.json.simple.JSONObject;
 
@@ -29,6 +31,8 @@ import java.util.stream.Collectors;
 public class MicroservicesMobilityClusteringController extends MicroservicesController {
 
     private LocationHandler locator;
+    private MobilityEventSource mobilityEvents;
+    private Clustering clustering = new Clustering(clusterLatency);
     private Map<Integer, Integer> parentReference;
 
 
@@ -77,7 +81,7 @@ public class MicroservicesMobilityClusteringController extends MicroservicesCont
 
     @Override
     public void startEntity() {
-        if (Config.ENABLE_DYNAMIC_CLUSTERING)
+        if (dynamicClustering)
             clusteringSubmit(clustering_levels);
 
         super.startEntity();
@@ -92,6 +96,7 @@ public class MicroservicesMobilityClusteringController extends MicroservicesCont
                 processMobilityData();
                 break;
             case FogEvents.MOBILITY_MANAGEMENT:
+                mobilityEvents.scheduleNext((FogDevice) ev.getData());
                 processMobility(ev);
                 break;
             case FogEvents.STOP_SIMULATION:
@@ -101,7 +106,7 @@ public class MicroservicesMobilityClusteringController extends MicroservicesCont
                 printCostDetails();
                 printNetworkUsageDetails();
                 printMigrationDelayDetails();
-                System.exit(0);
+                FogUtils.exitSimulation();
                 break;
             default:
                 super.processEvent(ev);
@@ -134,16 +139,15 @@ public class MicroservicesMobilityClusteringController extends MicroservicesCont
     @Override
     protected void connectWithLatencies() {
         for (String dataId : locator.getDataIdsLevelReferences().keySet()) {
-            for (int instenceId : locator.getInstenceDataIdReferences().keySet()) {
-                if (locator.getInstenceDataIdReferences().get(instenceId).equals(dataId)) {
-                    FogDevice fogDevice = getFogDeviceById(instenceId);
-                    if (locator.getDataIdsLevelReferences().get(dataId) == locator.getLevelID("User") && fogDevice.getParentId() == References.NOT_SET) {
-                        int parentID = locator.determineParent(fogDevice.getId(), References.INIT_TIME);
-                        parentReference.put(fogDevice.getId(), parentID);
-                        fogDevice.setParentId(parentID);
-                    } else
-                        parentReference.put(fogDevice.getId(), fogDevice.getParentId());
-                }
+            int instenceId = locator.getInstanceIdByDataId(dataId);
+            if (instenceId != References.NOT_SET) {
+                FogDevice fogDevice = getFogDeviceById(instenceId);
+                if (locator.getDataIdsLevelReferences().get(dataId) == locator.getLevelID("User") && fogDevice.getParentId() == References.NOT_SET) {
+                    int parentID = locator.determineParent(fogDevice.getId(), References.INIT_TIME);
+                    parentReference.put(fogDevice.getId(), parentID);
+                    fogDevice.setParentId(parentID);
+                } else
+                    parentReference.put(fogDevice.getId(), fogDevice.getParentId());
             }
         }
 
@@ -188,6 +192,8 @@ public class MicroservicesMobilityClusteringController extends MicroservicesCont
             newParent.getChildToLatencyMap().put(fogDevice.getId(), fogDevice.getUplinkLatency());
             newParent.addChild(fogDevice.getId());
             prevParent.removeChild(fogDevice.getId());
+            if (dynamicClustering)
+                clustering.updateClusterMembers(fogDevice);
 
             for (String applicationName : fogDevice.getActiveApplications()) {
 
@@ -253,20 +259,8 @@ public class MicroservicesMobilityClusteringController extends MicroservicesCont
     }
 
     private void updateRoutingTable(FogDevice fogDevice) {
-
-        for (FogDevice f : fogDevices) {
-            if (f.getId() != fogDevice.getId()) {
-                // for mobile device update all to parent
-                ((MicroserviceFogDevice) fogDevice).updateRoutingTable(f.getId(), fogDevice.getParentId());
-
-                ////for other update route to mobile based on route to parent
-                int nextId = ((MicroserviceFogDevice) f).getRoutingTable().get(fogDevice.getParentId());
-                if (f.getId() != nextId)
-                    ((MicroserviceFogDevice) f).updateRoutingTable(fogDevice.getId(), nextId);
-                else
-                    ((MicroserviceFogDevice) f).updateRoutingTable(fogDevice.getId(), fogDevice.getId());
-            }
-        }
+        // the mobile device routes everything through its new parent, the others reach it through that parent
+        routingGenerator.updateParent(fogDevice);
     }
 
     private void serviceDiscoveryUpdate(FogDevice fogDevice, Map<String, Integer> migratingModules, String applicationName, int newParent, HashMap<String, Double> upDelays, HashMap<String, Double> downDelays) {
@@ -403,31 +397,27 @@ public class MicroservicesMobilityClusteringController extends MicroservicesCont
     }
 
     private void processMobilityData() {
-        // TODO Auto-generated method stub
-        List<Double> timeSheet = new ArrayList<Double>();
-        for (FogDevice fogDevice : fogDevices) {
-            if (locator.isAMobileDevice(fogDevice.getId())) {
-                timeSheet = locator.getTimeSheet(fogDevice.getId());
-                for (double timeEntry : timeSheet)
-                    send(getId(), timeEntry, FogEvents.MOBILITY_MANAGEMENT, fogDevice);
-            }
-        }
+        mobilityEvents = new MobilityEventSource(getId(), locator);
+        mobilityEvents.start(fogDevices);
     }
 
 
     public void clusteringSubmit(List Levels) {
         System.out.println(CloudSim.clock() + " Start sending Clustering Request to Fog Devices in level: " + Levels);
+        List<FogDevice> clusterNodes = new ArrayList<>();
         for (int i = 0; i < Levels.size(); i++) {
             int clusterLevel = (int) Levels.get(i);
             for (FogDevice fogDevice : fogDevices) {
                 System.out.println(CloudSim.clock() + " fog Device: " + fogDevice.getName() + " with id: " + fogDevice.getId() + " is at level: " + fogDevice.getLevel());
-                if ((int) fogDevice.getLevel() == clusterLevel) {
-                    JSONObject jsonMessage = new JSONObject();
-                    jsonMessage.put("locationsInfo", getLocator());
-                    sendNow(fogDevice.getId(), FogEvents.START_DYNAMIC_CLUSTERING, jsonMessage);
-                }
+                if ((int) fogDevice.getLevel() == clusterLevel)
+                    clusterNodes.add(fogDevice);
             }
         }
+        // each device is clustered when it gets its request, the whole level being clustered at once by the first request
+        ClusteringRequest request = new ClusteringRequest(clustering, clusterNodes, getLocator());
+        for (FogDevice fogDevice : clusterNodes) {
+            sendNow(fogDevice.getId(), FogEvents.START_DYNAMIC_CLUSTERING, request);
+        }
     }
 
     public LocationHandler getLocator() {
@@ -31,6 +31,7 @@ public class MobilityController extends SimEntity {
     private List<Sensor> sensors;
     private List<Actuator> actuators;
     private LocationHandler locator;
+    private MobilityEventSource mobilityEvents;
     private Map<Integer, Integer> parentReference;
 
 
@@ -73,16 +74,15 @@ public class MobilityController extends SimEntity {
     private void connectWithLatencies() {
 
         for (String dataId : locator.getDataIdsLevelReferences().keySet()) {
-            for (int instenceId : locator.getInstenceDataIdReferences().keySet()) {
-                if (locator.getInstenceDataIdReferences().get(instenceId).equals(dataId)) {
-                    FogDevice fogDevice = getFogDeviceById(instenceId);
-                    if (locator.getDataIdsLevelReferences().get(dataId) == locator.getLevelID("User") && fogDevice.getParentId() == References.NOT_SET) {
-                        int parentID = locator.determineParent(fogDevice.getId(), References.INIT_TIME);
-                        parentReference.put(fogDevice.getId(), parentID);
-                        fogDevice.setParentId(parentID);
-                    } else
-                        parentReference.put(fogDevice.getId(), fogDevice.getParentId());
-                }
+            int instenceId = locator.getInstanceIdByDataId(dataId);
+            if (instenceId != References.NOT_SET) {
+                FogDevice fogDevice = getFogDeviceById(instenceId);
+                if (locator.getDataIdsLevelReferences().get(dataId) == locator.getLevelID("User") && fogDevice.getParentId() == References.NOT_SET) {
+                    int parentID = locator.determineParent(fogDevice.getId(), References.INIT_TIME);
+                    parentReference.put(fogDevice.getId(), parentID);
+                    fogDevice.setParentId(parentID);
+                } else
+                    parentReference.put(fogDevice.getId(), fogDevice.getParentId());
             }
         }
 
@@ -131,6 +131,7 @@ public class MobilityController extends SimEntity {
                 processMobilityData();
                 break;
             case FogEvents.MOBILITY_MANAGEMENT:
+                mobilityEvents.scheduleNext((FogDevice) ev.getData());
 //			processMobility(ev);
                 break;
             case FogEvents.TUPLE_FINISHED:
@@ -146,7 +147,7 @@ public class MobilityController extends SimEntity {
                 printCostDetails();
                 printNetworkUsageDetails();
                 printMigrationDelayDetails();
-                System.exit(0);
+                FogUtils.exitSimulation();
                 break;
 
         }
@@ -257,15 +258,8 @@ public class MobilityController extends SimEntity {
     }
 
     private void processMobilityData() {
-        // TODO Auto-generated method stub
-        List<Double> timeSheet = new ArrayList<Double>();
-        for (FogDevice fogDevice : getFogDevices()) {
-            if (locator.isAMobileDevice(fogDevice.getId())) {
-                timeSheet = locator.getTimeSheet(fogDevice.getId());
-                for (double timeEntry : timeSheet)
-                    send(getId(), timeEntry, FogEvents.MOBILITY_MANAGEMENT, fogDevice);
-            }
-        }
+        mobilityEvents = new MobilityEventSource(getId(), locator);
+        mobilityEvents.start(getFogDevices());
     }
 
     private void printNetworkUsageDetails() {
@@ -348,7 +342,7 @@ public class MobilityController extends SimEntity {
     }
 
     public void submitApplication(Application application, int delay, ModulePlacement modulePlacement) {
-        FogUtils.appIdToGeoCoverageMap.put(application.getAppId(), application.getGeoCoverage());
+        FogUtils.getAppIdToGeoCoverageMap().put(application.getAppId(), application.getGeoCoverage());
         getApplications().put(application.getAppId(), application);
         getAppLaunchDelays().put(application.getAppId(), delay);
         getAppModulePlacementPolicy().put(application.getAppId(), modulePlacement);
@@ -383,7 +377,7 @@ public class MobilityController extends SimEntity {
 
     private void processAppSubmit(Application application) {
         System.out.println(CloudSim.clock() + " Submitted application " + application.getAppId());
-        FogUtils.appIdToGeoCoverageMap.put(application.getAppId(), application.getGeoCoverage());
+        FogUtils.getAppIdToGeoCoverageMap().put(application.getAppId(), application.getGeoCoverage());
         getApplications().put(application.getAppId(), application);
 
         ModulePlacement modulePlacement = getAppModulePlacementPolicy().get(application.getAppId());
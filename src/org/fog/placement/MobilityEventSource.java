@@ -0,0 +1,83 @@
+package org.fog.placement;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.fog.entities.FogDevice;
+import org.fog.mobilitydata.Trajectory;
+import org.fog.utils.FogEvents;
+
+/**
+ * Schedules the {@link FogEvents#MOBILITY_MANAGEMENT} events of the mobile devices one at a time:
+ * only the next movement of each device is in the future event queue, and the following one is
+ * scheduled when it fires. The queue thus holds one mobility event per device instead of one per
+ * point of every trajectory.
+ * <p>
+ * The times of a trajectory are relative to the start of the source, so the events fire at the
+ * same times as if they had all been sent when the source was started.
+ */
+public class MobilityEventSource {
+    private final int controllerId;
+    private final LocationHandler locator;
+    // Simulation time the times of the trajectories are relative to
+    private double origin;
+    // Trajectory and index of the next point of each mobile device, by device id
+    private final Map<Integer, Trajectory> trajectories = new HashMap<>();
+    private final Map<Integer, Integer> cursors = new HashMap<>();
+
+    /**
+     * @param controllerId id of the controller the mobility events are sent to
+     * @param locator      locator holding the trajectories of the mobile devices
+     */
+    public MobilityEventSource(int controllerId, LocationHandler locator) {
+        this.controllerId = controllerId;
+        this.locator = locator;
+    }
+
+    /**
+     * Schedules the first movement of each mobile device, the current simulation time being the
+     * start of their trajectories.
+     *
+     * @param fogDevices devices, of which the mobile ones are scheduled
+     */
+    public void start(List<FogDevice> fogDevices) {
+        origin = CloudSim.clock();
+        for (FogDevice fogDevice : fogDevices) {
+            if (locator.isAMobileDevice(fogDevice.getId())) {
+                Trajectory trajectory = locator.getTrajectory(locator.getDataIdByInstanceID(fogDevice.getId()));
+                trajectories.put(fogDevice.getId(), trajectory);
+                cursors.put(fogDevice.getId(), 0);
+                scheduleNext(fogDevice);
+            }
+        }
+    }
+
+    /**
+     * Schedules the next movement of a device, to be called when its current movement fires.
+     *
+     * @param fogDevice mobile device
+     * @return false if the device has no movement left
+     */
+    public boolean scheduleNext(FogDevice fogDevice) {
+        Integer cursor = cursors.get(fogDevice.getId());
+        Trajectory trajectory = trajectories.get(fogDevice.getId());
+        if (cursor == null || trajectory == null || cursor >= trajectory.size()) {
+            cursors.remove(fogDevice.getId());
+            trajectories.remove(fogDevice.getId());
+            return false;
+        }
+        double delay = origin + trajectory.getTime(cursor) - CloudSim.clock();
+        CloudSim.send(controllerId, controllerId, Math.max(0, delay), FogEvents.MOBILITY_MANAGEMENT, fogDevice);
+        cursors.put(fogDevice.getId(), cursor + 1);
+        return true;
+    }
+
+    /**
+     * @return the number of devices with a movement left
+     */
+    public int getPendingCount() {
+        return cursors.size();
+    }
+}
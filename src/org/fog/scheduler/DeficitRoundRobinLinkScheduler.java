@@ -0,0 +1,86 @@
+package org.fog.scheduler;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.fog.entities.Tuple;
+
+/**
+ * Shares the link between the tuple types by deficit round robin: the types with waiting tuples
+ * take turns, and in its turn a type sends its tuples in order for as long as their sizes fit in
+ * its deficit, which grows by a quantum every turn. A type sending large tuples therefore gets no
+ * more of the link than a type sending small ones, and cannot hold the small ones behind it.
+ */
+public class DeficitRoundRobinLinkScheduler implements LinkScheduler {
+
+	private static class Flow {
+		private final Deque<Tuple> queue = new ArrayDeque<Tuple>();
+		private double deficit;
+		// whether the quantum of the current turn was added to the deficit
+		private boolean inTurn;
+	}
+
+	private final double quantum;
+	private final Map<String, Flow> flows = new HashMap<String, Flow>();
+	// flows with waiting tuples, the one in turn first
+	private final Deque<Flow> activeFlows = new ArrayDeque<Flow>();
+	private int size;
+
+	/**
+	 * @param quantum size added to the deficit of a tuple type every turn, in the unit of the
+	 * network lengths of the tuples
+	 */
+	public DeficitRoundRobinLinkScheduler(double quantum) {
+		if (!(quantum > 0))
+			throw new IllegalArgumentException("Quantum must be positive: " + quantum);
+		this.quantum = quantum;
+	}
+
+	@Override
+	public void enqueue(Tuple tuple) {
+		Flow flow = flows.get(tuple.getTupleType());
+		if (flow == null) {
+			flow = new Flow();
+			flows.put(tuple.getTupleType(), flow);
+		}
+		if (flow.queue.isEmpty())
+			activeFlows.addLast(flow);
+		flow.queue.addLast(tuple);
+		size++;
+	}
+
+	@Override
+	public Tuple next() {
+		if (size == 0)
+			return null;
+		while (true) {
+			Flow flow = activeFlows.peekFirst();
+			if (!flow.inTurn) {
+				flow.deficit += quantum;
+				flow.inTurn = true;
+			}
+			Tuple tuple = flow.queue.peekFirst();
+			if (tuple.getCloudletFileSize() <= flow.deficit) {
+				flow.queue.pollFirst();
+				flow.deficit -= tuple.getCloudletFileSize();
+				size--;
+				if (flow.queue.isEmpty()) {
+					// an idle flow keeps no deficit for later
+					flow.deficit = 0;
+					flow.inTurn = false;
+					activeFlows.pollFirst();
+				}
+				return tuple;
+			}
+			flow.inTurn = false;
+			activeFlows.addLast(activeFlows.pollFirst());
+		}
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+}
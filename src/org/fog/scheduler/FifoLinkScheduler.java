@@ -0,0 +1,29 @@
+package org.fog.scheduler;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.fog.entities.Tuple;
+
+/**
+ * Sends the tuples in the order they were handed to the link.
+ */
+public class FifoLinkScheduler implements LinkScheduler {
+
+	private final Deque<Tuple> queue = new ArrayDeque<Tuple>();
+
+	@Override
+	public void enqueue(Tuple tuple) {
+		queue.addLast(tuple);
+	}
+
+	@Override
+	public Tuple next() {
+		return queue.pollFirst();
+	}
+
+	@Override
+	public int size() {
+		return queue.size();
+	}
+}
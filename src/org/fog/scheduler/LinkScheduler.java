@@ -0,0 +1,26 @@
+package org.fog.scheduler;
+
+import org.fog.entities.Tuple;
+
+/**
+ * Order in which the tuples waiting for a link are sent on it.
+ */
+public interface LinkScheduler {
+
+	/**
+	 * Adds a tuple waiting for the link
+	 * @param tuple the tuple
+	 */
+	void enqueue(Tuple tuple);
+
+	/**
+	 * Removes the tuple to send next on the link
+	 * @return the tuple, null if no tuple is waiting
+	 */
+	Tuple next();
+
+	/**
+	 * @return the number of tuples waiting for the link
+	 */
+	int size();
+}
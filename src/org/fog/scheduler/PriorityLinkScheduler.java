@@ -0,0 +1,63 @@
+package org.fog.scheduler;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.fog.entities.Tuple;
+
+/**
+ * Sends the waiting tuples of highest priority first, and tuples of equal priority in the order
+ * they were handed to the link. The priority of a tuple is the one of its tuple type, 0 for the
+ * types given none.
+ */
+public class PriorityLinkScheduler implements LinkScheduler {
+
+	private final Map<String, Integer> tupleTypeToPriority;
+	// waiting tuples by priority, highest first
+	private final TreeMap<Integer, Deque<Tuple>> queues = new TreeMap<Integer, Deque<Tuple>>(Collections.reverseOrder());
+	private int size;
+
+	/**
+	 * @param tupleTypeToPriority priority of each tuple type, the higher the sooner sent
+	 */
+	public PriorityLinkScheduler(Map<String, Integer> tupleTypeToPriority) {
+		this.tupleTypeToPriority = new HashMap<String, Integer>(tupleTypeToPriority);
+	}
+
+	@Override
+	public void enqueue(Tuple tuple) {
+		Integer priority = tupleTypeToPriority.get(tuple.getTupleType());
+		if (priority == null)
+			priority = 0;
+		Deque<Tuple> queue = queues.get(priority);
+		if (queue == null) {
+			queue = new ArrayDeque<Tuple>();
+			queues.put(priority, queue);
+		}
+		queue.addLast(tuple);
+		size++;
+	}
+
+	@Override
+	public Tuple next() {
+		Iterator<Deque<Tuple>> iterator = queues.values().iterator();
+		while (iterator.hasNext()) {
+			Deque<Tuple> queue = iterator.next();
+			if (!queue.isEmpty()) {
+				size--;
+				return queue.pollFirst();
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+}
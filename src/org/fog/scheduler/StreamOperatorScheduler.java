@@ -1,16 +1,223 @@
 package org.fog.scheduler;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 
 import org.cloudbus.cloudsim.Pe;
-import org.cloudbus.cloudsim.VmSchedulerTimeShared;
-import org.cloudbus.cloudsim.VmSchedulerTimeSharedOverSubscription;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.lists.PeList;
 import org.cloudbus.cloudsim.sdn.overbooking.VmSchedulerTimeSharedOverbookingEnergy;
 
+/**
+ * VM scheduler of the fog devices. Besides the allocations of its superclass, it allocates to each
+ * VM of the host either all the MIPS it asks for or none, keeping the state of each VM in arrays so
+ * that a new allocation only updates the VMs whose share changes.
+ * <p>
+ * The shares are the ones deallocating all the VMs and allocating them again would give: the
+ * capped request of each VM wanting MIPS if they all fit in the host, and otherwise the same
+ * requests scaled down to the MIPS of the host. The share lists are immutable and shared between
+ * the VMs getting the same share.
+ */
 public class StreamOperatorScheduler extends VmSchedulerTimeSharedOverbookingEnergy{
 
+	private static final List<Double> NO_MIPS = Collections.singletonList(0.0);
+
+	// VMs as last allocated, in order, and the slot of each one, a VM listed twice sharing its slot
+	private Vm[] vms = new Vm[0];
+	private int[] slots = new int[0];
+	private boolean[] fullMips = new boolean[0];
+	// per slot: its VM, the MIPS it asks for, whether it asks for them and the share it has
+	private Vm[] slotVms = new Vm[0];
+	private double[] requests = new double[0];
+	private boolean[] slotFullMips = new boolean[0];
+	private double[] shares = new double[0];
+	private double[] newShares = new double[0];
+	private List<Double> fullMipsRequest;
+	private List<Double> fullShare;
+	private List<Double> scaledShare;
+	// whether the allocations of the superclass changed the shares since they were last set here
+	private boolean modified = true;
+
 	public StreamOperatorScheduler(List<? extends Pe> pelist) {
 		super(pelist);
 	}
+
+	@Override
+	public boolean allocatePesForVm(Vm vm, List<Double> mipsShareRequested) {
+		modified = true;
+		return super.allocatePesForVm(vm, mipsShareRequested);
+	}
+
+	@Override
+	public void deallocatePesForVm(Vm vm) {
+		modified = true;
+		super.deallocatePesForVm(vm);
+	}
+
+	@Override
+	public void deallocatePesForAllVms() {
+		modified = true;
+		super.deallocatePesForAllVms();
+	}
+
+	/**
+	 * Allocates the MIPS of the host to its VMs, each one asking for either the given MIPS or none.
+	 * Nothing is allocated if a VM migrates, as migrations change the shares.
+	 * @param vmList the VMs of the host, in the order they are allocated
+	 * @param fullMips whether each VM asks for MIPS, with at least as many entries as VMs
+	 * @param requestedMips the MIPS asked for by each VM asking for MIPS
+	 * @return whether the MIPS were allocated
+	 */
+	public boolean allocateFullOrNoMips(List<? extends Vm> vmList, boolean[] fullMips, double requestedMips) {
+		if (isMigrating(vmList))
+			return false;
+		boolean rebuild = modified || !isAllocated(vmList) || fullMipsRequest == null
+				|| fullMipsRequest.get(0) != requestedMips;
+		if (rebuild) {
+			setVms(vmList);
+			fullMipsRequest = Collections.singletonList(requestedMips);
+		}
+		System.arraycopy(fullMips, 0, this.fullMips, 0, vms.length);
+		allocate(rebuild, false);
+		return true;
+	}
+
+	/**
+	 * Makes a VM ask for all the MIPS it asked for when the MIPS were last allocated by
+	 * {@link #allocateFullOrNoMips(List, boolean[], double)}, the other VMs keeping their requests.
+	 * Same as deallocating the VM and allocating it again with these MIPS.
+	 * @param vm the VM
+	 * @param requestedMips the MIPS asked for
+	 * @return whether the MIPS were allocated, false if they were changed by another allocation
+	 * since, or if a VM migrates
+	 */
+	public boolean allocateFullMips(Vm vm, double requestedMips) {
+		if (modified || fullMipsRequest == null || fullMipsRequest.get(0) != requestedMips)
+			return false;
+		int slot = -1;
+		for (int s = 0; s < slotVms.length; s++) {
+			if (slotVms[s] == vm)
+				slot = s;
+		}
+		// the VMs of the host are the ones last allocated, as creating or destroying a VM deallocates it
+		if (slot == -1 || isMigrating(Arrays.asList(slotVms)))
+			return false;
+		slotFullMips[slot] = true;
+		allocate(false, true);
+		return true;
+	}
+
+	private boolean isMigrating(List<? extends Vm> vmList) {
+		if (!getVmsMigratingIn().isEmpty() || !getVmsMigratingOut().isEmpty())
+			return true;
+		for (Vm vm : vmList) {
+			if (vm.isInMigration())
+				return true;
+		}
+		return false;
+	}
+
+	private boolean isAllocated(List<? extends Vm> vmList) {
+		if (vmList.size() != vms.length)
+			return false;
+		for (int i = 0; i < vms.length; i++) {
+			if (vmList.get(i) != vms[i])
+				return false;
+		}
+		return true;
+	}
+
+	private void setVms(List<? extends Vm> vmList) {
+		vms = vmList.toArray(new Vm[vmList.size()]);
+		slots = new int[vms.length];
+		fullMips = new boolean[vms.length];
+		int slotCount = 0;
+		Vm[] uniqueVms = new Vm[vms.length];
+		for (int i = 0; i < vms.length; i++) {
+			int slot = 0;
+			while (slot < slotCount && !uniqueVms[slot].getUid().equals(vms[i].getUid()))
+				slot++;
+			if (slot == slotCount)
+				uniqueVms[slotCount++] = vms[i];
+			slots[i] = slot;
+		}
+		slotVms = Arrays.copyOf(uniqueVms, slotCount);
+		requests = new double[slotCount];
+		slotFullMips = new boolean[slotCount];
+		shares = new double[slotCount];
+		newShares = new double[slotCount];
+	}
+
+	/**
+	 * Sets the shares the allocations of the superclass would give, replaying them on the arrays:
+	 * each VM in order, or each slot once when a single VM changed, as after a deallocation of the
+	 * VM. Only the entries of the maps of the superclass that change are updated.
+	 */
+	private void allocate(boolean rebuild, boolean bySlot) {
+		double peMips = getPeCapacity();
+		double requested = fullMipsRequest.get(0) > peMips ? peMips : fullMipsRequest.get(0);
+		double totalMips = PeList.getTotalMips(getPeList());
+		double availableMips = totalMips;
+		int steps = bySlot ? slotVms.length : vms.length;
+		int slotsAllocated = 0;
+		for (int step = 0; step < steps; step++) {
+			int slot = bySlot ? step : slots[step];
+			if (!bySlot)
+				slotFullMips[slot] = fullMips[step];
+			double mips = slotFullMips[slot] ? requested : 0.0;
+			requests[slot] = mips;
+			if (slot == slotsAllocated)
+				slotsAllocated++;
+			if (availableMips >= mips) {
+				newShares[slot] = mips;
+				availableMips -= mips;
+			} else {
+				// oversubscribed: the requests so far are scaled down to the MIPS of the host
+				double requiredMips = 0;
+				for (int s = 0; s < slotsAllocated; s++)
+					requiredMips += requests[s];
+				double scalingFactor = totalMips / requiredMips;
+				for (int s = 0; s < slotsAllocated; s++)
+					newShares[s] = Math.floor(requests[s] * scalingFactor);
+				availableMips = 0;
+			}
+		}
+
+		if (rebuild) {
+			getMipsMap().clear();
+			getMipsMapRequested().clear();
+		}
+		boolean changed = rebuild;
+		for (int s = 0; s < slotVms.length; s++) {
+			String vmUid = slotVms[s].getUid();
+			List<Double> request = slotFullMips[s] ? fullMipsRequest : NO_MIPS;
+			if (rebuild || getMipsMapRequested().get(vmUid) != request)
+				getMipsMapRequested().put(vmUid, request);
+			if (rebuild || newShares[s] != shares[s]) {
+				getMipsMap().put(vmUid, getShare(newShares[s], requested));
+				shares[s] = newShares[s];
+				changed = true;
+			}
+		}
+		setPesInUse(steps);
+		if (changed)
+			updatePeProvisioning();
+		if (rebuild || availableMips != getAvailableMips())
+			setAvailableMips(availableMips);
+		modified = false;
+	}
+
+	private List<Double> getShare(double mips, double requested) {
+		if (mips == 0.0)
+			return NO_MIPS;
+		if (mips == requested) {
+			if (fullShare == null || fullShare.get(0) != mips)
+				fullShare = Collections.singletonList(mips);
+			return fullShare;
+		}
+		if (scaledShare == null || scaledShare.get(0) != mips)
+			scaledShare = Collections.singletonList(mips);
+		return scaledShare;
+	}
 }
@@ -72,6 +72,11 @@ public class ACO_RandomMobility_Clustering3 {
     static boolean renewDataset = false; // To overwrite existing random datasets
     static List<Integer> clusteringLevels = new ArrayList<Integer>(); // The selected fog layers for clustering
 
+    // if restore topology is True, the fog devices and the ACO route are restored from the topology file saved by an earlier run
+    static boolean restoreTopology = false;
+    static String topologyFile = "fogDevices.topology";
+    static final String ACO_ROUTE = "aco"; // application of the ACO route in the topology file
+
     //application
     static List<Application> applications = new ArrayList<>();
     static List<Pair<Double, Double>> qosValues = new ArrayList<>();
@@ -113,7 +118,12 @@ public class ACO_RandomMobility_Clustering3 {
              * 03. Identify devices monitored by each FON
              */
             createMobileUser(broker.getId(), applications.get(0).getAppId(), datasetReference);
-            createFogDevices(broker.getId(), applications.get(0).getAppId());
+            TopologySnapshot topology = restoreTopology ? loadTopologyFromFile(topologyFile) : null;
+            if (topology != null)
+                restoreFogDevices(topology);
+            else
+                createFogDevices(broker.getId(), applications.get(0).getAppId());
+            List<FogDevice> fogTier = new ArrayList<>(fogDevices.subList(numberOfMobileUser, fogDevices.size()));
 
             /**
              * Central controller for performing preprocessing functions
@@ -131,9 +141,6 @@ public class ACO_RandomMobility_Clustering3 {
             MicroservicesMobilityClusteringController2 microservicesController = new MicroservicesMobilityClusteringController2(
                     "controller", fogDevices, sensors, appList, clusterLevelIdentifier, 2.0, placementAlgo, locator);
 
-            SerializableFogDevices serializableFogDevices = new SerializableFogDevices(fogDevices);
-            saveFogDevicesToFile(serializableFogDevices, "fogDevices.save");
-
             // generate placement requests
             List<PlacementRequest> placementRequests = new ArrayList<>();
             for (Sensor s : sensors) {
@@ -155,7 +162,20 @@ public class ACO_RandomMobility_Clustering3 {
             int startNodeInstanceId = FogDeviceUtils.getInstanceIdByDataId(startNode.getKey(), locator);
             int endNodeInstanceId = FogDeviceUtils.getInstanceIdByDataId(endNode.getKey(), locator);
 
-            startACO(startNodeInstanceId, endNodeInstanceId, 5);
+            Map<String, Map<String, Integer>> savedPlacement = topology == null ? null : topology.getPlacement(fogTier);
+            if (savedPlacement != null && savedPlacement.containsKey(ACO_ROUTE)) {
+                List<FogDevice> route = new ArrayList<>();
+                for (int deviceId : savedPlacement.get(ACO_ROUTE).values())
+                    route.add(fogTier.get(FogDeviceUtils.getIndexOfFogDeviceById(fogTier, deviceId)));
+                System.out.println("Restored ACO route of " + route.size() + " nodes");
+            } else {
+                List<FogDevice> route = startACO(startNodeInstanceId, endNodeInstanceId, 5);
+                // the links, clusters and routing tables set up by the controller are saved with the devices
+                topology = TopologySnapshot.capture(fogTier, locator);
+                for (int i = 0; i < route.size(); i++)
+                    topology.addPlacement(ACO_ROUTE, "node_" + i, fogTier.indexOf(route.get(i)));
+                saveTopologyToFile(topology, topologyFile);
+            }
 
             TimeKeeper.getInstance().setSimulationStartTime(Calendar.getInstance().getTimeInMillis());
 
@@ -220,6 +240,17 @@ public class ACO_RandomMobility_Clustering3 {
         }
     }
 
+    /**
+     * Restores the fog devices of the physical topology saved by an earlier run. The controller
+     * connects them and sets up their clusters and routing tables as for new devices.
+     *
+     * @param topology topology of the fog devices, without the mobile users
+     */
+    private static void restoreFogDevices(TopologySnapshot topology) throws Exception {
+        locator.parseResourceInfo();
+        fogDevices.addAll(topology.createFogDevices(locator));
+    }
+
     private static void createMobileUser(int userId, String appId, String datasetReference) throws IOException {
 
         for (int id = 1; id <= numberOfMobileUser; id++)
@@ -375,7 +406,7 @@ public class ACO_RandomMobility_Clustering3 {
         return application;
     }
 
-    private static void startACO(int idOfStartNode, int idOfEndNode, int numOfServices) throws InvalidInputException, ConfigurationException {
+    private static List<FogDevice> startACO(int idOfStartNode, int idOfEndNode, int numOfServices) throws InvalidInputException, ConfigurationException {
         double[][] symbolicProblemRepresentation = new double[1][1];
         List<FogDevice> devices = fogDevices;
         devices.remove(0);
@@ -405,6 +436,7 @@ public class ACO_RandomMobility_Clustering3 {
         System.out.println("Best Solution count: " + list.size());
         System.out.println("First solution: " + list.get(0).getId() + ", First node: " + idOfStartNode);
         System.out.println("Last solution: " + list.get(list.size() - 1).getId() + ", Last node: " + idOfEndNode);
+        return list;
     }
 
     public static AntColony<FogDevice, ACOEnvironment> getAntColony(final ConfigurationProvider configurationProvider) {
@@ -452,24 +484,21 @@ public class ACO_RandomMobility_Clustering3 {
         }
     }
 
-    private static void saveFogDevicesToFile(SerializableFogDevices fogDevices, String fileName) {
-        try (FileOutputStream fileOut = new FileOutputStream(fileName);
-             ObjectOutputStream objectOut = new ObjectOutputStream(fileOut)) {
-            objectOut.writeObject(fogDevices);
-            System.out.println("Controller instance has been saved to " + fileName);
+    private static void saveTopologyToFile(TopologySnapshot topology, String fileName) {
+        try {
+            topology.save(new File(fileName));
+            System.out.println("Topology has been saved to " + fileName);
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
-    private static SerializableFogDevices loadFogDevicesFromFile(String fileName) {
-        try (FileInputStream fileIn = new FileInputStream(fileName);
-             ObjectInputStream objectIn = new ObjectInputStream(fileIn)) {
-
-            SerializableFogDevices fogDevices = (SerializableFogDevices) objectIn.readObject();
-            System.out.println("Controller instance has been loaded from " + fileName);
-            return fogDevices;
-        } catch (IOException | ClassNotFoundException e) {
+    private static TopologySnapshot loadTopologyFromFile(String fileName) {
+        try {
+            TopologySnapshot topology = TopologySnapshot.load(new File(fileName));
+            System.out.println("Topology has been loaded from " + fileName);
+            return topology;
+        } catch (IOException e) {
             e.printStackTrace();
             return null;
         }
@@ -24,11 +24,14 @@ import org.fog.placement.MicroservicesMobilityClusteringController;
 import org.fog.placement.PlacementLogicFactory;
 import org.fog.policy.AppModuleAllocationPolicy;
 import org.fog.scheduler.StreamOperatorScheduler;
+import org.fog.utils.Config;
 import org.fog.utils.FogDeviceUtils;
 import org.fog.utils.FogLinearPowerModel;
 import org.fog.utils.FogUtils;
 import org.fog.utils.TimeKeeper;
 import org.fog.utils.distribution.DeterministicDistribution;
+import org.fog.utils.sweep.RunParameters;
+import org.fog.utils.sweep.SweepScenario;
 import org.json.simple.parser.ParseException;
 
 import java.io.IOException;
@@ -49,25 +52,25 @@ import java.util.*;
  * PR_PROCESSING_MODE -> PERIODIC
  * ENABLE_RESOURCE_DATA_SHARING -> false (not needed as FONs placed at the highest level.
  */
-public class ACO_RandomMobility_Clustering4 {
-    static List<FogDevice> fogDevices = new ArrayList<FogDevice>();
-    static List<Sensor> sensors = new ArrayList<Sensor>();
-    static List<Actuator> actuators = new ArrayList<Actuator>();
+public class ACO_RandomMobility_Clustering4 implements SweepScenario {
+    List<FogDevice> fogDevices = new ArrayList<FogDevice>();
+    List<Sensor> sensors = new ArrayList<Sensor>();
+    List<Actuator> actuators = new ArrayList<Actuator>();
 
-    static Map<Integer, Integer> userMobilityPattern = new HashMap<Integer, Integer>();
-    static LocationHandler locator;
+    Map<Integer, Integer> userMobilityPattern = new HashMap<Integer, Integer>();
+    LocationHandler locator;
 
-    static double SENSOR_TRANSMISSION_TIME = 10;
-    static int numberOfMobileUser = 1;
+    double SENSOR_TRANSMISSION_TIME = 10;
+    int numberOfMobileUser = 1;
 
     // if random mobility generator for users is True, new random dataset will be created for each user
-    static boolean randomMobility_generator = false; // To use random datasets
-    static boolean renewDataset = false; // To overwrite existing random datasets
-    static List<Integer> clusteringLevels = new ArrayList<Integer>(); // The selected fog layers for clustering
+    boolean randomMobility_generator = false; // To use random datasets
+    boolean renewDataset = false; // To overwrite existing random datasets
+    List<Integer> clusteringLevels = new ArrayList<Integer>(); // The selected fog layers for clustering
 
     //application
-    static List<Application> applications = new ArrayList<>();
-    static List<Pair<Double, Double>> qosValues = new ArrayList<>();
+    List<Application> applications = new ArrayList<>();
+    List<Pair<Double, Double>> qosValues = new ArrayList<>();
 
     public static void main(String[] args) {
 
@@ -79,80 +82,100 @@ public class ACO_RandomMobility_Clustering4 {
 
             CloudSim.init(num_user, calendar, trace_flag);
 
-            FogBroker broker = new FogBroker("broker");
+            new ACO_RandomMobility_Clustering4().createSimulation(new RunParameters());
 
-            /**
-             * Microservices-based application creation - a single application is selected for this
-             */
-            Application microservicesApplication = createApplication("example", broker.getId());
+            TimeKeeper.getInstance().setSimulationStartTime(Calendar.getInstance().getTimeInMillis());
 
-            applications.add(microservicesApplication);
+            CloudSim.startSimulation();
 
-            //
-            DataParser dataObject = new DataParser();
-            locator = new LocationHandler(dataObject);
+            CloudSim.stopSimulation();
 
-            String datasetReference = References.dataset_reference;
+            Log.printLine("VRGame finished!");
+        } catch (Exception e) {
+            e.printStackTrace();
+            Log.printLine("Unwanted errors happen");
+        }
+    }
 
-            if (randomMobility_generator) {
-                datasetReference = References.dataset_random;
-                createRandomMobilityDatasets(References.random_walk_mobility_model, datasetReference, renewDataset);
-            }
 
-            /**
-             * Clustered Fog node creation.
-             * 01. Create devices (Client,FON,FCN,Cloud)
-             * 02. Generate cluster connection.
-             * 03. Identify devices monitored by each FON
-             */
-            createMobileUser(broker.getId(), applications.get(0).getAppId(), datasetReference);
-            createFogDevices(broker.getId(), applications.get(0).getAppId());
+    /**
+     * Sets up the application for <tt>users</tt> mobile users whose sensors emit every
+     * <tt>sensorPeriod</tt>, placing the microservices with the <tt>placement</tt> logic of
+     * {@link PlacementLogicFactory}. With <tt>clustering</tt> true, or by default with
+     * {@link Config#ENABLE_DYNAMIC_CLUSTERING} set, the fog nodes of the <tt>clusteringLevels</tt>
+     * are clustered, their cluster links having a latency of <tt>clusteringLatency</tt>. CloudSim
+     * must have been initialised.
+     */
+    @Override
+    public List<FogDevice> createSimulation(RunParameters parameters) throws Exception {
+        numberOfMobileUser = parameters.getInt("users", numberOfMobileUser);
+        SENSOR_TRANSMISSION_TIME = parameters.getDouble("sensorPeriod", SENSOR_TRANSMISSION_TIME);
 
-            /**
-             * Central controller for performing preprocessing functions
-             */
-            List<Application> appList = new ArrayList<>();
-            for (Application application : applications)
-                appList.add(application);
+        FogBroker broker = new FogBroker("broker");
 
+        /**
+         * Microservices-based application creation - a single application is selected for this
+         */
+        Application microservicesApplication = createApplication("example", broker.getId());
 
-            List<Integer> clusterLevelIdentifier = new ArrayList<>();
-            clusterLevelIdentifier.add(2);
+        applications.add(microservicesApplication);
 
-            int placementAlgo = PlacementLogicFactory.CLUSTERED_MICROSERVICES_PLACEMENT;
-            MicroservicesMobilityClusteringController microservicesController = new MicroservicesMobilityClusteringController("controller", fogDevices, sensors, appList, clusterLevelIdentifier, 2.0, placementAlgo, locator);
+        //
+        DataParser dataObject = new DataParser();
+        locator = new LocationHandler(dataObject);
 
-//            double[][] latencyMatrix = FogDeviceUtils.createLatencyMatrixOfAllDevices(fogDevices);
+        String datasetReference = References.dataset_reference;
+
+        if (randomMobility_generator) {
+            datasetReference = References.dataset_random;
+            createRandomMobilityDatasets(References.random_walk_mobility_model, datasetReference, renewDataset);
+        }
 
+        /**
+         * Clustered Fog node creation.
+         * 01. Create devices (Client,FON,FCN,Cloud)
+         * 02. Generate cluster connection.
+         * 03. Identify devices monitored by each FON
+         */
+        createMobileUser(broker.getId(), applications.get(0).getAppId(), datasetReference);
+        createFogDevices(broker.getId(), applications.get(0).getAppId());
 
+        /**
+         * Central controller for performing preprocessing functions
+         */
+        List<Application> appList = new ArrayList<>();
+        for (Application application : applications)
+            appList.add(application);
 
-            // generate placement requests
-            List<PlacementRequest> placementRequests = new ArrayList<>();
-            for (Sensor s : sensors) {
-                Map<String, Integer> placedMicroservicesMap = new HashMap<>();
-                placedMicroservicesMap.put("clientModule", s.getGatewayDeviceId());
-                PlacementRequest p = new PlacementRequest(s.getAppId(), s.getId(), s.getGatewayDeviceId(), placedMicroservicesMap);
-                placementRequests.add(p);
-            }
 
-            microservicesController.submitPlacementRequests(placementRequests, 0);
+        List<Integer> clusterLevelIdentifier = new ArrayList<>();
+        clusterLevelIdentifier.add(2);
+        clusterLevelIdentifier = parameters.getIntList("clusteringLevels", clusterLevelIdentifier);
 
+        double clusterLatency = parameters.getDouble("clusteringLatency", 2.0);
+        int placementAlgo = parameters.getInt("placement", PlacementLogicFactory.CLUSTERED_MICROSERVICES_PLACEMENT);
+        MicroservicesMobilityClusteringController microservicesController = new MicroservicesMobilityClusteringController("controller", fogDevices, sensors, appList, clusterLevelIdentifier, clusterLatency, placementAlgo, locator);
+        microservicesController.setDynamicClustering(parameters.getBoolean("clustering", Config.ENABLE_DYNAMIC_CLUSTERING));
 
-            TimeKeeper.getInstance().setSimulationStartTime(Calendar.getInstance().getTimeInMillis());
+//            double[][] latencyMatrix = FogDeviceUtils.createLatencyMatrixOfAllDevices(fogDevices);
 
-            CloudSim.startSimulation();
 
-            CloudSim.stopSimulation();
 
-            Log.printLine("VRGame finished!");
-        } catch (Exception e) {
-            e.printStackTrace();
-            Log.printLine("Unwanted errors happen");
+        // generate placement requests
+        List<PlacementRequest> placementRequests = new ArrayList<>();
+        for (Sensor s : sensors) {
+            Map<String, Integer> placedMicroservicesMap = new HashMap<>();
+            placedMicroservicesMap.put("clientModule", s.getGatewayDeviceId());
+            PlacementRequest p = new PlacementRequest(s.getAppId(), s.getId(), s.getGatewayDeviceId(), placedMicroservicesMap);
+            placementRequests.add(p);
         }
-    }
 
+        microservicesController.submitPlacementRequests(placementRequests, 0);
+
+        return fogDevices;
+    }
 
-    private static void createRandomMobilityDatasets(int mobilityModel, String datasetReference, boolean renewDataset) throws IOException, ParseException {
+    private void createRandomMobilityDatasets(int mobilityModel, String datasetReference, boolean renewDataset) throws IOException, ParseException {
         RandomMobilityGenerator randMobilityGenerator = new RandomMobilityGenerator();
         for (int i = 0; i < numberOfMobileUser; i++) {
 
@@ -165,7 +188,7 @@ public class ACO_RandomMobility_Clustering4 {
      *
      * @param userId
      */
-    private static void createFogDevices(int userId, String appId) throws NumberFormatException, IOException {
+    private void createFogDevices(int userId, String appId) throws NumberFormatException, IOException {
         locator.parseResourceInfo();
 
 
@@ -201,7 +224,7 @@ public class ACO_RandomMobility_Clustering4 {
         }
     }
 
-    private static void createMobileUser(int userId, String appId, String datasetReference) throws IOException {
+    private void createMobileUser(int userId, String appId, String datasetReference) throws IOException {
 
         for (int id = 1; id <= numberOfMobileUser; id++)
             userMobilityPattern.put(id, References.DIRECTIONAL_MOBILITY);
@@ -234,8 +257,8 @@ public class ACO_RandomMobility_Clustering4 {
      * @param idlePower
      * @return
      */
-    private static MicroserviceFogDevice createFogDevice(String nodeName, long mips,
-                                                         int ram, long upBw, long downBw, double ratePerMips, double busyPower, double idlePower, String deviceType) {
+    private MicroserviceFogDevice createFogDevice(String nodeName, long mips,
+                                                  int ram, long upBw, long downBw, double ratePerMips, double busyPower, double idlePower, String deviceType) {
 
         List<Pe> peList = new ArrayList<Pe>();
 
@@ -286,7 +309,7 @@ public class ACO_RandomMobility_Clustering4 {
         return fogdevice;
     }
 
-    private static FogDevice addMobile(String name, int userId, String appId, int parentId) {
+    private FogDevice addMobile(String name, int userId, String appId, int parentId) {
         FogDevice mobile = createFogDevice(name, 500, 20, 1000, 270, 0, 87.53, 82.44, MicroserviceFogDevice.CLIENT);
         mobile.setParentId(parentId);
         //locator.setInitialLocation(name,drone.getId());
@@ -306,7 +329,7 @@ public class ACO_RandomMobility_Clustering4 {
         return mobile;
     }
 
-    private static Application createApplication(String appId, int userId) {
+    private Application createApplication(String appId, int userId) {
         Application application = Application.createApplication(appId, userId); // creates an empty application model (empty directed graph)
 
         /*
@@ -0,0 +1,134 @@
+package org.fog.test.perfeval;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.EventQueueFactory;
+import org.cloudbus.cloudsim.core.SimEntity;
+import org.cloudbus.cloudsim.core.SimEvent;
+import org.fog.utils.FogEvents;
+
+/**
+ * Microbenchmark of the simulation kernel event dispatch on a VRGameFog shaped topology: a cloud,
+ * a proxy server, <tt>numOfDepts</tt> gateways and <tt>numOfMobilesPerDept</tt> mobiles per
+ * gateway, each mobile having one EEG sensor. Sensors emit every EEG_TRANSMISSION_TIME and every
+ * tuple travels up to the cloud, each hop acknowledging the previous one, so the event mix is the
+ * one of VRGameFog without the application processing.
+ *
+ * Usage: EventDispatchBenchmark [numOfDepts] [numOfMobilesPerDept] [simulationTime] [tree|heap|calendar]
+ */
+public class EventDispatchBenchmark {
+	static int numOfDepts = 100;
+	static int numOfMobilesPerDept = 500;
+	static double EEG_TRANSMISSION_TIME = 5;
+	static double SIMULATION_TIME = 200;
+
+	static long eventsProcessed = 0;
+
+	public static void main(String[] args) {
+		if (args.length > 0)
+			numOfDepts = Integer.parseInt(args[0]);
+		if (args.length > 1)
+			numOfMobilesPerDept = Integer.parseInt(args[1]);
+		if (args.length > 2)
+			SIMULATION_TIME = Double.parseDouble(args[2]);
+		EventQueueFactory queueFactory = EventQueueFactory.TREE_SET;
+		if (args.length > 3) {
+			if (args[3].equals("heap"))
+				queueFactory = EventQueueFactory.HEAP;
+			else if (args[3].equals("calendar"))
+				queueFactory = EventQueueFactory.CALENDAR;
+		}
+
+		Log.disable();
+		CloudSim.init(1, Calendar.getInstance(), false, queueFactory);
+
+		Relay cloud = new Relay("cloud", -1, 0);
+		Relay proxy = new Relay("proxy-server", cloud.getId(), 100);
+		List<Sensor> sensors = new ArrayList<Sensor>();
+		for (int i = 0; i < numOfDepts; i++) {
+			Relay dept = new Relay("d-" + i, proxy.getId(), 4);
+			for (int j = 0; j < numOfMobilesPerDept; j++) {
+				Relay mobile = new Relay("m-" + i + "-" + j, dept.getId(), 2);
+				sensors.add(new Sensor("s-" + i + "-" + j, mobile.getId(), 6));
+			}
+		}
+		CloudSim.terminateSimulation(SIMULATION_TIME);
+
+		long start = System.currentTimeMillis();
+		CloudSim.startSimulation();
+		long elapsed = System.currentTimeMillis() - start;
+
+		System.out.println("Sensors : " + sensors.size());
+		System.out.println("Events processed : " + eventsProcessed);
+		System.out.println("EXECUTION TIME : " + elapsed);
+		System.out.println("Events per second : " + (long) (eventsProcessed * 1000.0 / Math.max(elapsed, 1)));
+	}
+
+	/**
+	 * Emits a tuple towards its gateway every EEG_TRANSMISSION_TIME.
+	 */
+	static class Sensor extends SimEntity {
+		private final int gatewayDeviceId;
+		private final double latency;
+
+		Sensor(String name, int gatewayDeviceId, double latency) {
+			super(name);
+			this.gatewayDeviceId = gatewayDeviceId;
+			this.latency = latency;
+		}
+
+		@Override
+		public void startEntity() {
+			send(getId(), EEG_TRANSMISSION_TIME, FogEvents.EMIT_TUPLE);
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+			eventsProcessed++;
+			if (ev.getTag() == FogEvents.EMIT_TUPLE) {
+				send(gatewayDeviceId, latency, FogEvents.TUPLE_ARRIVAL);
+				send(getId(), EEG_TRANSMISSION_TIME, FogEvents.EMIT_TUPLE);
+			}
+		}
+
+		@Override
+		public void shutdownEntity() {
+		}
+	}
+
+	/**
+	 * Acknowledges every tuple and forwards it to its parent.
+	 */
+	static class Relay extends SimEntity {
+		private final int parentId;
+		private final double uplinkLatency;
+
+		Relay(String name, int parentId, double uplinkLatency) {
+			super(name);
+			this.parentId = parentId;
+			this.uplinkLatency = uplinkLatency;
+		}
+
+		@Override
+		public void startEntity() {
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+			eventsProcessed++;
+			if (ev.getTag() == FogEvents.TUPLE_ARRIVAL) {
+				send(ev.getSource(), CloudSim.getMinTimeBetweenEvents(), FogEvents.TUPLE_ACK);
+				if (parentId >= 0)
+					send(parentId, uplinkLatency, FogEvents.TUPLE_ARRIVAL);
+			}
+		}
+
+		@Override
+		public void shutdownEntity() {
+		}
+	}
+}
@@ -1,31 +1,41 @@
 package org.fog.test.perfeval;
 
+import org.cloudbus.cloudsim.core.CloudSim;
 import org.fog.entities.FogDevice;
-import org.fog.utils.SerializableFogDevices;
+import org.fog.utils.FogEntityFactory;
+import org.fog.utils.TopologySnapshot;
 
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.ObjectOutputStream;
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Calendar;
 import java.util.List;
 
 public class Test {
-    public static void main(String[] args) throws IOException {
-        List<FogDevice> fogDevices = new ArrayList<>();
-        SerializableFogDevices obj = new SerializableFogDevices(fogDevices);
-        // Create a FileOutputStream to write to a file (you can replace "data.ser" with your desired file name)
-        FileOutputStream fileOut = new FileOutputStream("data.ser");
-        // Create an ObjectOutputStream to serialize the object
-        ObjectOutputStream out = new ObjectOutputStream(fileOut);
-
-        // Write the object to the output stream
-        out.writeObject(obj);
+    public static void main(String[] args) throws Exception {
+        CloudSim.init(1, Calendar.getInstance(), false);
 
-        // Close the streams
-        out.close();
-        fileOut.close();
+        // A cloud and a gateway connected to it
+        List<FogDevice> fogDevices = new ArrayList<>();
+        FogDevice cloud = FogEntityFactory.createFogDevice("cloud", 44800, 40000, 100, 10000, 0, 0, 0.01, 16 * 103, 16 * 83.25, null);
+        FogDevice gateway = FogEntityFactory.createFogDevice("gateway", 2800, 4000, 10000, 10000, 0, 4, 0.0, 107.339, 83.4333, null);
+        cloud.setLevel(0);
+        gateway.setLevel(1);
+        gateway.setParentId(cloud.getId());
+        cloud.getChildrenIds().add(gateway.getId());
+        cloud.getChildToLatencyMap().put(gateway.getId(), gateway.getUplinkLatency());
+        fogDevices.add(cloud);
+        fogDevices.add(gateway);
 
-        System.out.println("Object serialized successfully.");
+        // Save the topology, and restore it without a controller to connect the devices
+        File file = new File("data.topology");
+        TopologySnapshot.capture(fogDevices, null).save(file);
+        TopologySnapshot topology = TopologySnapshot.load(file);
+        List<FogDevice> restored = topology.createFogDevices(null);
+        topology.restoreLinks(restored);
 
+        System.out.println("Topology of " + topology.size() + " devices saved and restored successfully.");
+        for (FogDevice device : restored) {
+            System.out.println(device.getName() + ": parent " + device.getParentId() + ", children " + device.getChildrenIds());
+        }
     }
 }
@@ -34,22 +34,24 @@ import org.fog.utils.FogLinearPowerModel;
 import org.fog.utils.FogUtils;
 import org.fog.utils.TimeKeeper;
 import org.fog.utils.distribution.DeterministicDistribution;
+import org.fog.utils.sweep.RunParameters;
+import org.fog.utils.sweep.SweepScenario;
 
 /**
  * Simulation setup for case study 1 - EEG Beam Tractor Game
  * @author Harshit Gupta
  *
  */
-public class VRGameFog {
-	static List<FogDevice> fogDevices = new ArrayList<FogDevice>();
-	static List<Sensor> sensors = new ArrayList<Sensor>();
-	static List<Actuator> actuators = new ArrayList<Actuator>();
+public class VRGameFog implements SweepScenario {
+	List<FogDevice> fogDevices = new ArrayList<FogDevice>();
+	List<Sensor> sensors = new ArrayList<Sensor>();
+	List<Actuator> actuators = new ArrayList<Actuator>();
 	
-	static boolean CLOUD = false;
+	boolean CLOUD = false;
 	
-	static int numOfDepts = 2;
-	static int numOfMobilesPerDept = 5;
-	static double EEG_TRANSMISSION_TIME = 5;
+	int numOfDepts = 2;
+	int numOfMobilesPerDept = 5;
+	double EEG_TRANSMISSION_TIME = 5;
 	
 	public static void main(String[] args) {
 
@@ -63,43 +65,7 @@ public class VRGameFog {
 
 			CloudSim.init(num_user, calendar, trace_flag);
 
-			String appId = "vr_game"; // identifier of the application
-			
-			FogBroker broker = new FogBroker("broker");
-			
-			Application application = createApplication(appId, broker.getId());
-			application.setUserId(broker.getId());
-			
-			createFogDevices(broker.getId(), appId);
-			
-			ModuleMapping moduleMapping = ModuleMapping.createModuleMapping(); // initializing a module mapping
-			
-			if(CLOUD){
-				// if the mode of deployment is cloud-based
-				/*moduleMapping.addModuleToDevice("connector", "cloud", numOfDepts*numOfMobilesPerDept); // fixing all instances of the Connector module to the Cloud
-				moduleMapping.addModuleToDevice("concentration_calculator", "cloud", numOfDepts*numOfMobilesPerDept); // fixing all instances of the Concentration Calculator module to the Cloud
-*/				moduleMapping.addModuleToDevice("connector", "cloud"); // fixing all instances of the Connector module to the Cloud
-				moduleMapping.addModuleToDevice("concentration_calculator", "cloud"); // fixing all instances of the Concentration Calculator module to the Cloud
-				for(FogDevice device : fogDevices){
-					if(device.getName().startsWith("m")){
-						//moduleMapping.addModuleToDevice("client", device.getName(), 1);  // fixing all instances of the Client module to the Smartphones
-						moduleMapping.addModuleToDevice("client", device.getName());  // fixing all instances of the Client module to the Smartphones
-					}
-				}
-			}else{
-				// if the mode of deployment is cloud-based
-				//moduleMapping.addModuleToDevice("connector", "cloud", numOfDepts*numOfMobilesPerDept); // fixing all instances of the Connector module to the Cloud
-				moduleMapping.addModuleToDevice("connector", "cloud"); // fixing all instances of the Connector module to the Cloud
-				// rest of the modules will be placed by the Edge-ward placement policy
-			}
-			
-			
-			Controller controller = new Controller("master-controller", fogDevices, sensors, 
-					actuators);
-			
-			controller.submitApplication(application, 0, 
-					(CLOUD)?(new ModulePlacementMapping(fogDevices, application, moduleMapping))
-							:(new ModulePlacementEdgewards(fogDevices, sensors, actuators, application, moduleMapping)));
+			new VRGameFog().createSimulation(new RunParameters());
 
 			TimeKeeper.getInstance().setSimulationStartTime(Calendar.getInstance().getTimeInMillis());
 
@@ -114,12 +80,65 @@ public class VRGameFog {
 		}
 	}
 
+	/**
+	 * Sets up the game with <tt>depts</tt> gateways of <tt>mobilesPerDept</tt> mobiles each, EEG
+	 * sensors emitting every <tt>sensorPeriod</tt> and, if <tt>cloud</tt>, the modules placed in
+	 * the cloud. CloudSim must have been initialised.
+	 */
+	@Override
+	public List<FogDevice> createSimulation(RunParameters parameters) throws Exception {
+		CLOUD = parameters.getBoolean("cloud", CLOUD);
+		numOfDepts = parameters.getInt("depts", numOfDepts);
+		numOfMobilesPerDept = parameters.getInt("mobilesPerDept", numOfMobilesPerDept);
+		EEG_TRANSMISSION_TIME = parameters.getDouble("sensorPeriod", EEG_TRANSMISSION_TIME);
+
+		String appId = "vr_game"; // identifier of the application
+		
+		FogBroker broker = new FogBroker("broker");
+		
+		Application application = createApplication(appId, broker.getId());
+		application.setUserId(broker.getId());
+		
+		createFogDevices(broker.getId(), appId);
+		
+		ModuleMapping moduleMapping = ModuleMapping.createModuleMapping(); // initializing a module mapping
+		
+		if(CLOUD){
+			// if the mode of deployment is cloud-based
+			/*moduleMapping.addModuleToDevice("connector", "cloud", numOfDepts*numOfMobilesPerDept); // fixing all instances of the Connector module to the Cloud
+			moduleMapping.addModuleToDevice("concentration_calculator", "cloud", numOfDepts*numOfMobilesPerDept); // fixing all instances of the Concentration Calculator module to the Cloud
+*/			moduleMapping.addModuleToDevice("connector", "cloud"); // fixing all instances of the Connector module to the Cloud
+			moduleMapping.addModuleToDevice("concentration_calculator", "cloud"); // fixing all instances of the Concentration Calculator module to the Cloud
+			for(FogDevice device : fogDevices){
+				if(device.getName().startsWith("m")){
+					//moduleMapping.addModuleToDevice("client", device.getName(), 1);  // fixing all instances of the Client module to the Smartphones
+					moduleMapping.addModuleToDevice("client", device.getName());  // fixing all instances of the Client module to the Smartphones
+				}
+			}
+		}else{
+			// if the mode of deployment is cloud-based
+			//moduleMapping.addModuleToDevice("connector", "cloud", numOfDepts*numOfMobilesPerDept); // fixing all instances of the Connector module to the Cloud
+			moduleMapping.addModuleToDevice("connector", "cloud"); // fixing all instances of the Connector module to the Cloud
+			// rest of the modules will be placed by the Edge-ward placement policy
+		}
+		
+		
+		Controller controller = new Controller("master-controller", fogDevices, sensors, 
+				actuators);
+		
+		controller.submitApplication(application, 0, 
+				(CLOUD)?(new ModulePlacementMapping(fogDevices, application, moduleMapping))
+						:(new ModulePlacementEdgewards(fogDevices, sensors, actuators, application, moduleMapping)));
+
+		return fogDevices;
+	}
+
 	/**
 	 * Creates the fog devices in the physical topology of the simulation.
 	 * @param userId
 	 * @param appId
 	 */
-	private static void createFogDevices(int userId, String appId) {
+	private void createFogDevices(int userId, String appId) {
 		FogDevice cloud = createFogDevice("cloud", 44800, 40000, 100, 10000, 0, 0.01, 16*103, 16*83.25); // creates the fog device Cloud at the apex of the hierarchy with level=0
 		cloud.setParentId(-1);
 		FogDevice proxy = createFogDevice("proxy-server", 2800, 4000, 10000, 10000, 1, 0.0, 107.339, 83.4333); // creates the fog device Proxy Server (level=1)
@@ -135,7 +154,7 @@ public class VRGameFog {
 		
 	}
 
-	private static FogDevice addGw(String id, int userId, String appId, int parentId){
+	private FogDevice addGw(String id, int userId, String appId, int parentId){
 		FogDevice dept = createFogDevice("d-"+id, 2800, 4000, 10000, 10000, 1, 0.0, 107.339, 83.4333);
 		fogDevices.add(dept);
 		dept.setParentId(parentId);
@@ -149,7 +168,7 @@ public class VRGameFog {
 		return dept;
 	}
 	
-	private static FogDevice addMobile(String id, int userId, String appId, int parentId){
+	private FogDevice addMobile(String id, int userId, String appId, int parentId){
 		FogDevice mobile = createFogDevice("m-"+id, 1000, 1000, 10000, 270, 3, 0, 87.53, 82.44);
 		mobile.setParentId(parentId);
 		Sensor eegSensor = new Sensor("s-"+id, "EEG", userId, appId, new DeterministicDistribution(EEG_TRANSMISSION_TIME)); // inter-transmission time of EEG sensor follows a deterministic distribution
@@ -176,7 +195,7 @@ public class VRGameFog {
 	 * @param idlePower
 	 * @return
 	 */
-	private static FogDevice createFogDevice(String nodeName, long mips,
+	private FogDevice createFogDevice(String nodeName, long mips,
 			int ram, long upBw, long downBw, int level, double ratePerMips, double busyPower, double idlePower) {
 		
 		List<Pe> peList = new ArrayList<Pe>();
@@ -236,7 +255,7 @@ public class VRGameFog {
 	 * @return
 	 */
 	@SuppressWarnings({"serial" })
-	private static Application createApplication(String appId, int userId){
+	private Application createApplication(String appId, int userId){
 		
 		Application application = Application.createApplication(appId, userId); // creates an empty application model (empty directed graph)
 		
@@ -28,4 +28,35 @@ public class Config {
 	public static final double EXPLORE_PROMISE_RATIO = 0.8;
 
 	public static final String USER_NAME = "usr_1";
+
+	// ACO placement: build the solutions of the ants of an iteration concurrently on the common fork-join pool
+	public static boolean ACO_PARALLEL_ANTS = false;
+	// Seed of the random choices of the ACO placement, for reproducible placements. Negative for an unseeded placement
+	public static long ACO_SEED = -1;
+
+	// Keep a binary snapshot next to each dataset file parsed, and reload the dataset from it in the next runs
+	public static boolean DATASET_SNAPSHOTS = false;
+
+	// Reuse the tuples that have ended their path, once executed or delivered to their actuator, for the next tuples created
+	public static boolean TUPLE_POOLING = false;
+
+	// Give each fog device a link of its own to each of its children, with its own busy state and queue, instead of one link shared by all its children
+	public static boolean PER_CHILD_DOWNLINKS = false;
+
+	// Send the tuples going down only to the children leading to the devices that accept them, instead of to all the children
+	public static boolean ROUTED_DOWN_DELIVERY = false;
+
+	// Acknowledge the tuples received to the senders registered with TupleAcknowledgements, one TUPLE_ACK per window of TUPLE_ACK_WINDOW
+	public static boolean TUPLE_ACKS = false;
+	public static double TUPLE_ACK_WINDOW = 1.0;
+
+	// Integrate the energy and cost of each fog device in an EnergyLedger at the changes of its utilisation, instead of on a periodic RESOURCE_MGMT event per device
+	public static boolean EVENT_DRIVEN_ENERGY = false;
+
+	// Per-device telemetry; false compiles the counting out of the devices
+	public static final boolean TELEMETRY_COMPILED = true;
+	// File the telemetry of a run is written to, JSON lines if it ends with .json and CSV otherwise. Null for no telemetry
+	public static String TELEMETRY_OUTPUT = null;
+	// Simulation time covered by each telemetry snapshot
+	public static double TELEMETRY_INTERVAL = 100;
 }
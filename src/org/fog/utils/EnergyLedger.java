@@ -0,0 +1,133 @@
+package org.fog.utils;
+
+import java.util.Arrays;
+
+import org.cloudbus.cloudsim.power.models.PowerModel;
+
+/**
+ * Energy and cost of a fog device, integrated only at the times its utilisation changes, when
+ * {@link Config#EVENT_DRIVEN_ENERGY} is set. Between two changes the power and the cost rate are
+ * constant, so the energy and cost of a segment are its power and rate times its length, and the
+ * energy, cost and utilisation can be read at any simulation time from the change points.
+ * <p>
+ * The ledger starts idle at time 0, as the devices do.
+ */
+public class EnergyLedger {
+
+	private final PowerModel powerModel;
+	private final double totalMips;
+
+	// change points: the time each segment starts, its utilisation, power and cost rate, and the energy and cost before it
+	private int size;
+	private double[] times = new double[8];
+	private double[] utilizations = new double[8];
+	private double[] powers = new double[8];
+	private double[] costRates = new double[8];
+	private double[] energies = new double[8];
+	private double[] costs = new double[8];
+
+	/**
+	 * @param powerModel the power model of the host of the device
+	 * @param totalMips the MIPS of the host
+	 */
+	public EnergyLedger(PowerModel powerModel, double totalMips){
+		this.powerModel = powerModel;
+		this.totalMips = totalMips;
+		append(0, 0, powerModel.getPower(0), 0, 0, 0);
+	}
+
+	/**
+	 * Records the utilisation of the device from now on. Nothing is recorded if neither it nor
+	 * the cost rate changed.
+	 * @param time the current simulation time, not before the last change recorded
+	 * @param utilization the utilisation of the CPU of the host, between 0 and 1
+	 * @param ratePerMips the cost of a MIPS of the device per unit of time
+	 */
+	public void record(double time, double utilization, double ratePerMips){
+		int last = size - 1;
+		double costRate = ratePerMips * utilization * totalMips;
+		if(utilization == utilizations[last] && costRate == costRates[last])
+			return;
+		if(time < times[last])
+			throw new IllegalArgumentException("Utilisation recorded at " + time + " before the last change at " + times[last]);
+		double power = powerModel.getPower(utilization);
+		if(time == times[last]){
+			// the last segment is empty, and only its utilisation changes
+			utilizations[last] = utilization;
+			powers[last] = power;
+			costRates[last] = costRate;
+			return;
+		}
+		append(time, utilization, power, costRate, getEnergy(time), getCost(time));
+	}
+
+	/**
+	 * @param time a simulation time
+	 * @return the energy consumed from time 0 to the time, in joules
+	 */
+	public double getEnergy(double time){
+		int point = getPoint(time);
+		return energies[point] + (time - times[point]) * powers[point];
+	}
+
+	/**
+	 * @param time a simulation time
+	 * @return the cost of the device from time 0 to the time
+	 */
+	public double getCost(double time){
+		int point = getPoint(time);
+		return costs[point] + (time - times[point]) * costRates[point];
+	}
+
+	/**
+	 * @param time a simulation time
+	 * @return the utilisation of the CPU of the host at the time
+	 */
+	public double getUtilization(double time){
+		return utilizations[getPoint(time)];
+	}
+
+	/**
+	 * @return the number of change points, the first one being the start at time 0
+	 */
+	public int size(){
+		return size;
+	}
+
+	/**
+	 * @param index a change point
+	 * @return the time the utilisation changed
+	 */
+	public double getChangeTime(int index){
+		if(index >= size)
+			throw new IndexOutOfBoundsException("Change point " + index + " of " + size);
+		return times[index];
+	}
+
+	// last change point at or before the time
+	private int getPoint(double time){
+		int point = Arrays.binarySearch(times, 0, size, time);
+		if(point < 0)
+			point = Math.max(0, -point - 2);
+		return point;
+	}
+
+	private void append(double time, double utilization, double power, double costRate, double energy, double cost){
+		if(size == times.length){
+			int capacity = size * 2;
+			times = Arrays.copyOf(times, capacity);
+			utilizations = Arrays.copyOf(utilizations, capacity);
+			powers = Arrays.copyOf(powers, capacity);
+			costRates = Arrays.copyOf(costRates, capacity);
+			energies = Arrays.copyOf(energies, capacity);
+			costs = Arrays.copyOf(costs, capacity);
+		}
+		times[size] = time;
+		utilizations[size] = utilization;
+		powers[size] = power;
+		costRates[size] = costRate;
+		energies[size] = energy;
+		costs[size] = cost;
+		size++;
+	}
+}
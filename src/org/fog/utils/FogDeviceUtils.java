@@ -1,6 +1,7 @@
 package org.fog.utils;
 
 import org.apache.commons.math3.util.Pair;
+import org.cloudbus.cloudsim.core.SimulationContext;
 import org.fog.application.AppEdge;
 import org.fog.application.AppModule;
 import org.fog.application.Application;
@@ -22,6 +23,10 @@ import java.util.*;
 public class FogDeviceUtils {
     /**
      * Get all nodes which locate near the user's route (including repetition)
+     * <p>
+     * When several nodes are near a location of the route, the last one of
+     * <code>resourceLocationData</code> is kept. The nodes are sorted by latitude once, so that only
+     * the nodes in the latitude range of a location are checked.
      *
      * @param dataObject dataObject
      * @param locator    LocationHandler
@@ -29,6 +34,17 @@ public class FogDeviceUtils {
      */
     public static Map<Double, Map<String, Location>> getNodesNearRoute(DataParser dataObject, LocationHandler locator) {
         Map<Double, Map<String, Location>> res = new HashMap<>();
+        List<Map.Entry<String, Location>> resources = new ArrayList<>(locator.dataObject.resourceLocationData.entrySet());
+        Integer[] byLatitude = new Integer[resources.size()];
+        for (int i = 0; i < byLatitude.length; i++) {
+            byLatitude[i] = i;
+        }
+        Arrays.sort(byLatitude, (i, j) -> Double.compare(resources.get(i).getValue().latitude, resources.get(j).getValue().latitude));
+        double[] latitudes = new double[byLatitude.length];
+        for (int i = 0; i < byLatitude.length; i++) {
+            latitudes[i] = resources.get(byLatitude[i]).getValue().latitude;
+        }
+
         // Only one user here (From userMobilityPattern)
         String userId = "usr_1";
         for (Map.Entry<Double, Location> doubleLocationEntry : dataObject.usersLocation.get(userId).entrySet()) {
@@ -41,20 +57,37 @@ public class FogDeviceUtils {
             double longitudeMin = location.longitude - 0.0005705; // 50m
             double longitudeMax = location.longitude + 0.0005705;
 
-            for (Map.Entry<String, Location> each : locator.dataObject.resourceLocationData.entrySet()) {
-                if (each.getValue().longitude > longitudeMin &&
-                        each.getValue().longitude < longitudeMax &&
-                        each.getValue().latitude > latitudeMin &&
-                        each.getValue().latitude < latitudeMax) {
-                    Map<String, Location> tempResLocationInfo = new HashMap<>();
-                    tempResLocationInfo.put(each.getKey(), each.getValue());
-                    res.put(doubleLocationEntry.getKey(), tempResLocationInfo);
+            int last = -1;
+            for (int k = firstAbove(latitudes, latitudeMin); k < latitudes.length && latitudes[k] < latitudeMax; k++) {
+                Location each = resources.get(byLatitude[k]).getValue();
+                if (each.longitude > longitudeMin && each.longitude < longitudeMax) {
+                    last = Math.max(last, byLatitude[k]);
                 }
             }
+            if (last != -1) {
+                Map<String, Location> tempResLocationInfo = new HashMap<>();
+                tempResLocationInfo.put(resources.get(last).getKey(), resources.get(last).getValue());
+                res.put(doubleLocationEntry.getKey(), tempResLocationInfo);
+            }
         }
         return res;
     }
 
+    // Index of the first value strictly greater than the bound in sorted values
+    private static int firstAbove(double[] values, double bound) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle] > bound) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
     /**
      * Get the start node near the user's route (Time is 0.0)
      *
@@ -214,8 +247,19 @@ public class FogDeviceUtils {
         }
 
         // Generate a random index within the range of the map size
-        int randomIndex = new Random().nextInt(map.size());
+        return getKeyAt(map, SimulationContext.current().getRandom().nextInt(map.size()));
+    }
+
+    public static <K, V> K getRandomKeyFromMap(Map<K, V> map, SplittableRandom random) {
+        if (map.isEmpty()) {
+            throw new IllegalArgumentException("Map is empty. Cannot choose a random key.");
+        }
+
+        // Generate a random index within the range of the map size
+        return getKeyAt(map, random.nextInt(map.size()));
+    }
 
+    private static <K, V> K getKeyAt(Map<K, V> map, int randomIndex) {
         // Access the key at the randomly generated index
         Iterator<K> iterator = map.keySet().iterator();
         K randomKey = null;
@@ -333,6 +377,7 @@ public class FogDeviceUtils {
     public static double[][] createLatencyMatrixOfAllDevices(List<FogDevice> fogDevices, Map<String, List<FogDevice>> modulesAvailableDevices, List<AppModule> modules) {
         int maxFogDeviceID = getMaxFogDeviceID(fogDevices);
         Map<Integer, FogDevice> fogDeviceMap = fogDeviceListToMap(fogDevices);
+        LatencyOracle latencyOracle = new LatencyOracle(fogDevices);
         double[][] result = new double[maxFogDeviceID + 1][maxFogDeviceID + 1];
 
         for (AppModule appModule : modules) {
@@ -366,7 +411,7 @@ public class FogDeviceUtils {
                     result[i][j] = Double.NaN;
                     continue;
                 }
-                result[i][j] = 1 / getIndirectLatency(fogDeviceI, fogDeviceJ, fogDeviceMap);
+                result[i][j] = 1 / latencyOracle.getLatency(i, j);
             }
         }
 
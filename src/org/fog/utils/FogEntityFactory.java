@@ -14,6 +14,7 @@ import org.cloudbus.cloudsim.sdn.overbooking.BwProvisionerOverbooking;
 import org.cloudbus.cloudsim.sdn.overbooking.PeProvisionerOverbooking;
 import org.fog.entities.FogDevice;
 import org.fog.entities.FogDeviceCharacteristics;
+import org.fog.entities.MicroserviceFogDevice;
 import org.fog.policy.AppModuleAllocationPolicy;
 import org.fog.scheduler.StreamOperatorScheduler;
 
@@ -69,5 +70,46 @@ public class FogEntityFactory {
 		return fogdevice;
 	}
 
-	
+
+	/**
+	 * Creates a fog device with one processing element and a linear power model, as the
+	 * simulation setups do. The characteristics of the device are the default ones of {@link Config}.
+	 *
+	 * @param deviceType the type of microservice fog device, or null for a plain fog device
+	 */
+	public static FogDevice createFogDevice(String name, long mips, int ram, double uplinkBandwidth, double downlinkBandwidth,
+			double clusterLinkBandwidth, double uplinkLatency, double ratePerMips, double busyPower, double idlePower, String deviceType) throws Exception {
+
+		List<Pe> peList = new ArrayList<Pe>();
+		peList.add(new Pe(0, new PeProvisionerOverbooking(mips)));
+
+		int hostId = FogUtils.generateEntityId();
+		long storage = 1000000; // host storage
+		int bw = 10000;
+
+		PowerHost host = new PowerHost(
+				hostId,
+				new RamProvisionerSimple(ram),
+				new BwProvisionerOverbooking(bw),
+				storage,
+				peList,
+				new StreamOperatorScheduler(peList),
+				new FogLinearPowerModel(busyPower, idlePower)
+			);
+
+		List<Host> hostList = new ArrayList<Host>();
+		hostList.add(host);
+
+		FogDeviceCharacteristics characteristics = new FogDeviceCharacteristics(
+				Config.FOG_DEVICE_ARCH, Config.FOG_DEVICE_OS, Config.FOG_DEVICE_VMM, host, Config.FOG_DEVICE_TIMEZONE,
+				Config.FOG_DEVICE_COST, Config.FOG_DEVICE_COST_PER_MEMORY, Config.FOG_DEVICE_COST_PER_STORAGE, Config.FOG_DEVICE_COST_PER_BW);
+
+		if (deviceType == null) {
+			return new FogDevice(name, characteristics, new AppModuleAllocationPolicy(hostList), new LinkedList<Storage>(), 10,
+					uplinkBandwidth, downlinkBandwidth, uplinkLatency, ratePerMips);
+		}
+		return new MicroserviceFogDevice(name, characteristics, new AppModuleAllocationPolicy(hostList), new LinkedList<Storage>(), 10,
+				uplinkBandwidth, downlinkBandwidth, clusterLinkBandwidth, uplinkLatency, ratePerMips, deviceType);
+	}
+
 }
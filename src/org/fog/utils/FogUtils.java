@@ -3,13 +3,23 @@ package org.fog.utils;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
+import org.fog.utils.telemetry.Telemetry;
+
 public class FogUtils {
-	private static int TUPLE_ID = 1;
-	private static int ENTITY_ID = 1;
-	private static int ACTUAL_TUPLE_ID = 1;
+	// Ids and geo coverages of the simulation context of the calling thread
+	private int TUPLE_ID = 1;
+	private int ENTITY_ID = 1;
+	private int ACTUAL_TUPLE_ID = 1;
+	private final Map<String, GeoCoverage> appIdToGeoCoverageMap = new HashMap<String, GeoCoverage>();
+	
+	private static FogUtils getInstance(){
+		return SimulationContext.current().getComponent(FogUtils.class, FogUtils::new);
+	}
 	
 	public static int generateTupleId(){
-		return TUPLE_ID++;
+		return getInstance().TUPLE_ID++;
 	}
 	
 	public static String getSensorTypeFromSensorName(String sensorName){
@@ -17,11 +27,11 @@ public class FogUtils {
 	}
 	
 	public static int generateEntityId(){
-		return ENTITY_ID++;
+		return getInstance().ENTITY_ID++;
 	}
 	
 	public static int generateActualTupleId(){
-		return ACTUAL_TUPLE_ID++;
+		return getInstance().ACTUAL_TUPLE_ID++;
 	}
 	
 	public static int USER_ID = 1;
@@ -29,5 +39,19 @@ public class FogUtils {
 	//public static int MAX = 10000000;
 	public static int MAX = 10000000;
 	
-	public static Map<String, GeoCoverage> appIdToGeoCoverageMap = new HashMap<String, GeoCoverage>();
+	public static Map<String, GeoCoverage> getAppIdToGeoCoverageMap(){
+		return getInstance().appIdToGeoCoverageMap;
+	}
+	
+	/**
+	 * Ends the simulation once the controller has printed its results. The JVM exits, unless the
+	 * simulation runs in a context of its own (e.g. as one run of a parameter sweep), in which
+	 * case only that simulation is terminated.
+	 */
+	public static void exitSimulation(){
+		Telemetry.close();
+		if(SimulationContext.current() == SimulationContext.getDefault())
+			System.exit(0);
+		CloudSim.abruptallyTerminate();
+	}
 }
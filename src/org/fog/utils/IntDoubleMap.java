@@ -0,0 +1,133 @@
+package org.fog.utils;
+
+import java.util.Arrays;
+
+/**
+ * Map from int keys to double values, held in two primitive arrays with open addressing and linear
+ * probing, so that no key or value is boxed. The arrays grow with the number of entries and are
+ * kept when entries are removed, so a map whose entries come and go stays at its peak size.
+ * {@link Integer#MIN_VALUE} is not a valid key.
+ */
+public class IntDoubleMap {
+
+	private static final int FREE = Integer.MIN_VALUE;
+
+	private int[] keys;
+	private double[] values;
+	private int size;
+
+	public IntDoubleMap() {
+		this(16);
+	}
+
+	/**
+	 * @param expectedSize number of entries the map holds without growing
+	 */
+	public IntDoubleMap(int expectedSize) {
+		int capacity = 2;
+		while (capacity < 2 * expectedSize)
+			capacity <<= 1;
+		keys = new int[capacity];
+		Arrays.fill(keys, FREE);
+		values = new double[capacity];
+	}
+
+	private static int hash(int key) {
+		int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	// Slot of the key, or of the free slot ending its probe sequence
+	private int slotOf(int key) {
+		int mask = keys.length - 1;
+		int slot = hash(key) & mask;
+		while (keys[slot] != FREE && keys[slot] != key)
+			slot = (slot + 1) & mask;
+		return slot;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public boolean containsKey(int key) {
+		return key != FREE && keys[slotOf(key)] == key;
+	}
+
+	/**
+	 * @return the value of the key, or NaN if the map has none
+	 */
+	public double get(int key) {
+		if (key == FREE)
+			return Double.NaN;
+		int slot = slotOf(key);
+		return keys[slot] == key ? values[slot] : Double.NaN;
+	}
+
+	public void put(int key, double value) {
+		if (key == FREE)
+			throw new IllegalArgumentException("Invalid key " + key);
+		int slot = slotOf(key);
+		if (keys[slot] != key) {
+			if (2 * (size + 1) > keys.length) {
+				grow();
+				slot = slotOf(key);
+			}
+			keys[slot] = key;
+			size++;
+		}
+		values[slot] = value;
+	}
+
+	/**
+	 * @return the value the key had, or NaN if the map had none
+	 */
+	public double remove(int key) {
+		if (key == FREE)
+			return Double.NaN;
+		int slot = slotOf(key);
+		if (keys[slot] != key)
+			return Double.NaN;
+		double value = values[slot];
+		// shift back the entries of the probe sequence that follows, so that it has no hole
+		int mask = keys.length - 1;
+		int hole = slot;
+		int next = (hole + 1) & mask;
+		while (keys[next] != FREE) {
+			int home = hash(keys[next]) & mask;
+			if (((next - home) & mask) >= ((next - hole) & mask)) {
+				keys[hole] = keys[next];
+				values[hole] = values[next];
+				hole = next;
+			}
+			next = (next + 1) & mask;
+		}
+		keys[hole] = FREE;
+		size--;
+		return value;
+	}
+
+	public void clear() {
+		Arrays.fill(keys, FREE);
+		size = 0;
+	}
+
+	private void grow() {
+		int[] oldKeys = keys;
+		double[] oldValues = values;
+		keys = new int[oldKeys.length * 2];
+		Arrays.fill(keys, FREE);
+		values = new double[oldKeys.length * 2];
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != FREE) {
+				int slot = slotOf(oldKeys[i]);
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+			}
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package org.fog.utils;
+
+/**
+ * Counts of latencies in buckets of logarithmically growing width, in the manner of an HDR
+ * histogram: each power of two is split into {@value #SUB_BUCKETS} buckets of equal width, so that
+ * any recorded value is known within 1/{@value #SUB_BUCKETS} of itself whatever its magnitude.
+ * Values from 2^{@value #MIN_EXPONENT} to 2^({@value #MAX_EXPONENT} + 1) are bucketed that way;
+ * smaller values, including zero, share the first bucket and larger ones the last.
+ */
+public class LatencyHistogram {
+
+	static final int SUB_BUCKET_BITS = 7;
+	static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	static final int MIN_EXPONENT = -10;
+	static final int MAX_EXPONENT = 40;
+
+	private static final double MIN_VALUE = Math.scalb(1.0, MIN_EXPONENT);
+	private static final int BUCKETS = (MAX_EXPONENT - MIN_EXPONENT + 1) * SUB_BUCKETS + 2;
+
+	private final long[] counts = new long[BUCKETS];
+	private long totalCount;
+
+	/**
+	 * Records a latency
+	 * @param value the latency
+	 */
+	public void record(double value) {
+		counts[indexOf(value)]++;
+		totalCount++;
+	}
+
+	/**
+	 * Adds the counts of another histogram to this one
+	 * @param other the other histogram
+	 */
+	public void add(LatencyHistogram other) {
+		for (int i = 0; i < BUCKETS; i++)
+			counts[i] += other.counts[i];
+		totalCount += other.totalCount;
+	}
+
+	public long getTotalCount() {
+		return totalCount;
+	}
+
+	/**
+	 * Gets the latency below which a percentage of the recorded latencies are
+	 * @param percentile the percentage, from 0 to 100
+	 * @return the middle of the bucket holding the latency, or NaN if no latency was recorded
+	 */
+	public double getValueAtPercentile(double percentile) {
+		if (totalCount == 0)
+			return Double.NaN;
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= rank)
+				return (lowerBound(i) + upperBound(i)) / 2;
+		}
+		return upperBound(BUCKETS - 1);
+	}
+
+	static int indexOf(double value) {
+		if (!(value >= MIN_VALUE))
+			return 0;
+		int exponent = Math.getExponent(value);
+		if (exponent > MAX_EXPONENT)
+			return BUCKETS - 1;
+		int subBucket = (int) ((Double.doubleToRawLongBits(value) & 0x000FFFFFFFFFFFFFL) >>> (52 - SUB_BUCKET_BITS));
+		return 1 + (exponent - MIN_EXPONENT) * SUB_BUCKETS + subBucket;
+	}
+
+	static double lowerBound(int index) {
+		if (index == 0)
+			return 0;
+		int exponent = MIN_EXPONENT + (index - 1) / SUB_BUCKETS;
+		int subBucket = (index - 1) % SUB_BUCKETS;
+		return Math.scalb(1.0 + (double) subBucket / SUB_BUCKETS, exponent);
+	}
+
+	static double upperBound(int index) {
+		// the last bucket is open: its middle is taken at twice its lower bound
+		return index == BUCKETS - 1 ? 2 * lowerBound(index) : lowerBound(index + 1);
+	}
+}
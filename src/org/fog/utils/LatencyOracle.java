@@ -0,0 +1,198 @@
+package org.fog.utils;
+
+import org.fog.entities.FogDevice;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Latency between any two fog devices along the device tree, computed on demand.
+ * <p>
+ * The latency from a sender to a receiver is the sum of the uplink latencies from the sender up
+ * to their lowest common ancestor, plus the latencies of the parents to their children
+ * (<code>getChildToLatencyMap()</code>) from that ancestor down to the receiver. Both are kept as
+ * prefix sums from the root, and the lowest common ancestor is found with a sparse table over an
+ * Euler tour of the tree: O(N log N) preprocessing, then O(1) per query, at any depth.
+ * <p>
+ * The oracle is a snapshot of the topology: create a new one after devices are re-parented.
+ * <p>
+ * Only the ACO placement asks for latencies between devices along the tree. Clustering joins
+ * devices by their geographic distance and links them at {@link Config#clusteringLatency}, and
+ * the microservice placement logics choose devices by their resources, so neither uses the oracle.
+ */
+public class LatencyOracle {
+    private final FogDevice[] devices;
+    // Index of the devices by id, -1 for any other entity
+    private final int[] deviceIndexes;
+    // Index of the root of the tree of each device, and its depth in that tree
+    private final int[] roots;
+    private final int[] depths;
+    // Latency from each device up to its root, and from its root down to the device
+    private final double[] upLatencies;
+    private final double[] downLatencies;
+
+    // Euler tour of the trees, the first position of each device in it, and the sparse table of
+    // the shallowest device of every tour interval of length 2^k
+    private final int[] tour;
+    private final int[] firstPositions;
+    private final int[][] sparseTable;
+
+    public LatencyOracle(List<FogDevice> fogDevices) {
+        int numberOfDevices = fogDevices.size();
+        devices = fogDevices.toArray(new FogDevice[0]);
+        deviceIndexes = new int[FogDeviceUtils.getMaxFogDeviceID(fogDevices) + 1];
+        Arrays.fill(deviceIndexes, -1);
+        for (int i = 0; i < numberOfDevices; i++) {
+            deviceIndexes[devices[i].getId()] = i;
+        }
+
+        // Children of each device, as linked lists in device order
+        int[] parents = new int[numberOfDevices];
+        int[] firstChildren = new int[numberOfDevices];
+        int[] nextSiblings = new int[numberOfDevices];
+        Arrays.fill(firstChildren, -1);
+        for (int i = numberOfDevices - 1; i >= 0; i--) {
+            parents[i] = getIndex(devices[i].getParentId());
+            if (parents[i] == i) {
+                parents[i] = -1;
+            }
+            if (parents[i] != -1) {
+                nextSiblings[i] = firstChildren[parents[i]];
+                firstChildren[parents[i]] = i;
+            }
+        }
+
+        roots = new int[numberOfDevices];
+        depths = new int[numberOfDevices];
+        upLatencies = new double[numberOfDevices];
+        downLatencies = new double[numberOfDevices];
+        tour = new int[Math.max(2 * numberOfDevices - 1, 1)];
+        firstPositions = new int[numberOfDevices];
+        Arrays.fill(firstPositions, -1);
+
+        int tourLength = 0;
+        int[] stack = new int[numberOfDevices];
+        int[] nextChildren = new int[numberOfDevices];
+        for (int root = 0; root < numberOfDevices; root++) {
+            if (parents[root] != -1) {
+                continue;
+            }
+            int top = 0;
+            stack[0] = root;
+            nextChildren[root] = firstChildren[root];
+            roots[root] = root;
+            firstPositions[root] = tourLength;
+            tour[tourLength++] = root;
+            while (top >= 0) {
+                int device = stack[top];
+                int child = nextChildren[device];
+                if (child == -1) {
+                    top--;
+                    if (top >= 0) {
+                        tour[tourLength++] = stack[top];
+                    }
+                    continue;
+                }
+                nextChildren[device] = nextSiblings[child];
+                nextChildren[child] = firstChildren[child];
+                roots[child] = root;
+                depths[child] = depths[device] + 1;
+                upLatencies[child] = upLatencies[device] + devices[child].getUplinkLatency();
+                Double downLatency = devices[device].getChildToLatencyMap().get(devices[child].getId());
+                downLatencies[child] = downLatencies[device]
+                        + (downLatency != null ? downLatency : devices[child].getUplinkLatency());
+                firstPositions[child] = tourLength;
+                tour[tourLength++] = child;
+                stack[++top] = child;
+            }
+        }
+
+        // Devices on a parent cycle are not reachable from any root
+        for (int i = 0; i < numberOfDevices; i++) {
+            if (firstPositions[i] == -1) {
+                roots[i] = -1;
+            }
+        }
+
+        int levels = 1;
+        while ((1 << levels) <= tourLength) {
+            levels++;
+        }
+        sparseTable = new int[levels][];
+        sparseTable[0] = Arrays.copyOf(tour, tourLength);
+        for (int k = 1; k < levels; k++) {
+            int half = 1 << (k - 1);
+            int[] previous = sparseTable[k - 1];
+            int[] current = new int[tourLength - (1 << k) + 1];
+            for (int i = 0; i < current.length; i++) {
+                current[i] = shallowest(previous[i], previous[i + half]);
+            }
+            sparseTable[k] = current;
+        }
+    }
+
+    private int getIndex(int id) {
+        return id >= 0 && id < deviceIndexes.length ? deviceIndexes[id] : -1;
+    }
+
+    private int shallowest(int device1, int device2) {
+        return depths[device1] <= depths[device2] ? device1 : device2;
+    }
+
+    private int getLowestCommonAncestorIndex(int index1, int index2) {
+        int from = Math.min(firstPositions[index1], firstPositions[index2]);
+        int to = Math.max(firstPositions[index1], firstPositions[index2]);
+        int k = 31 - Integer.numberOfLeadingZeros(to - from + 1);
+        return shallowest(sparseTable[k][from], sparseTable[k][to - (1 << k) + 1]);
+    }
+
+    /**
+     * @return whether the device is one of the devices of the oracle
+     */
+    public boolean contains(int deviceId) {
+        return getIndex(deviceId) != -1;
+    }
+
+    /**
+     * Gets the lowest common ancestor of two devices
+     *
+     * @return the id of the ancestor, or -1 if the devices are not in the same tree
+     */
+    public int getLowestCommonAncestor(int deviceId1, int deviceId2) {
+        int index1 = getIndex(deviceId1);
+        int index2 = getIndex(deviceId2);
+        if (index1 == -1 || index2 == -1 || roots[index1] == -1 || roots[index1] != roots[index2]) {
+            return -1;
+        }
+        return devices[getLowestCommonAncestorIndex(index1, index2)].getId();
+    }
+
+    /**
+     * Gets the latency from one fog device to another
+     *
+     * @param senderId   id of the sender
+     * @param receiverId id of the receiver
+     * @return the latency, or NaN if the devices are not in the same tree
+     */
+    public double getLatency(int senderId, int receiverId) {
+        int sender = getIndex(senderId);
+        int receiver = getIndex(receiverId);
+        if (sender == -1 || receiver == -1 || roots[sender] == -1 || roots[sender] != roots[receiver]) {
+            return Double.NaN;
+        }
+        int ancestor = getLowestCommonAncestorIndex(sender, receiver);
+        return (upLatencies[sender] - upLatencies[ancestor]) + (downLatencies[receiver] - downLatencies[ancestor]);
+    }
+
+    public double getLatency(FogDevice sender, FogDevice receiver) {
+        return getLatency(sender.getId(), receiver.getId());
+    }
+
+    /**
+     * @return the number of links between the device and the root of its tree
+     */
+    public int getDepth(int deviceId) {
+        int index = getIndex(deviceId);
+        return index == -1 ? -1 : depths[index];
+    }
+}
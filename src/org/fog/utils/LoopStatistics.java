@@ -0,0 +1,85 @@
+package org.fog.utils;
+
+/**
+ * Statistics of the delays of an application loop, updated as each loop completes without keeping
+ * the delays: count, mean, variance, extremes and a {@link LatencyHistogram} for the percentiles.
+ */
+public class LoopStatistics {
+
+	private long count;
+	private double mean;
+	// running mean and sum of squared deviations of Welford's algorithm, for the variance
+	private double welfordMean;
+	private double squaredDeviations;
+	private double min = Double.POSITIVE_INFINITY;
+	private double max = Double.NEGATIVE_INFINITY;
+	private final LatencyHistogram histogram = new LatencyHistogram();
+
+	/**
+	 * Records the delay of a completed loop
+	 * @param delay the delay
+	 */
+	public void record(double delay) {
+		// the mean is updated as the loop averages have always been, for the same results
+		mean = (mean * count + delay) / (count + 1);
+		count++;
+		double deviation = delay - welfordMean;
+		welfordMean += deviation / count;
+		squaredDeviations += deviation * (delay - welfordMean);
+		min = Math.min(min, delay);
+		max = Math.max(max, delay);
+		histogram.record(delay);
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * @return the average delay, 0 if no loop completed
+	 */
+	public double getMean() {
+		return mean;
+	}
+
+	/**
+	 * @return the sample variance of the delays, NaN if fewer than two loops completed
+	 */
+	public double getVariance() {
+		return count < 2 ? Double.NaN : squaredDeviations / (count - 1);
+	}
+
+	public double getStandardDeviation() {
+		return Math.sqrt(getVariance());
+	}
+
+	/**
+	 * @return the smallest delay, NaN if no loop completed
+	 */
+	public double getMin() {
+		return count == 0 ? Double.NaN : min;
+	}
+
+	/**
+	 * @return the largest delay, NaN if no loop completed
+	 */
+	public double getMax() {
+		return count == 0 ? Double.NaN : max;
+	}
+
+	/**
+	 * Gets the delay below which a percentage of the delays are, within the precision of the
+	 * histogram
+	 * @param percentile the percentage, from 0 to 100
+	 * @return the delay, NaN if no loop completed
+	 */
+	public double getPercentile(double percentile) {
+		if (count == 0)
+			return Double.NaN;
+		return Math.max(min, Math.min(max, histogram.getValueAtPercentile(percentile)));
+	}
+
+	public LatencyHistogram getHistogram() {
+		return histogram;
+	}
+}
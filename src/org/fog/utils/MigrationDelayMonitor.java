@@ -1,14 +1,21 @@
 package org.fog.utils;
 
+import org.cloudbus.cloudsim.core.SimulationContext;
+
 public class MigrationDelayMonitor {
 	
-	private static double migrationDelay = 0.0;
+	// Delay of the simulation context of the calling thread
+	private double migrationDelay = 0.0;
+	
+	private static MigrationDelayMonitor getInstance() {
+		return SimulationContext.current().getComponent(MigrationDelayMonitor.class, MigrationDelayMonitor::new);
+	}
 	
 	public static double getMigrationDelay() {
-		return migrationDelay;
+		return getInstance().migrationDelay;
 	}
 
 	public static void setMigrationDelay(double migrationDelayReceived) {
-		migrationDelay += migrationDelayReceived;
+		getInstance().migrationDelay += migrationDelayReceived;
 	}
 }
@@ -0,0 +1,169 @@
+package org.fog.utils;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Ids by module name, for the few modules recorded on a tuple, such as the module instances or the
+ * devices it went through. The names and ids are held in two arrays searched in order, which for a
+ * handful of entries is smaller and faster than a hash map and boxes no id.
+ */
+public class ModuleIdMap extends AbstractMap<String, Integer> {
+
+	private static final String[] NO_NAMES = new String[0];
+	private static final int[] NO_IDS = new int[0];
+
+	private String[] names = NO_NAMES;
+	private int[] ids = NO_IDS;
+	private int size;
+
+	public ModuleIdMap() {
+	}
+
+	public ModuleIdMap(Map<String, Integer> map) {
+		putAll(map);
+	}
+
+	/**
+	 * Gets the id of a module
+	 * @param moduleName name of the module
+	 * @param absent value returned when there is no id for the module
+	 * @return the id, or absent
+	 */
+	public int getId(String moduleName, int absent) {
+		int index = indexOf(moduleName);
+		return index == -1 ? absent : ids[index];
+	}
+
+	/**
+	 * Sets the id of a module
+	 * @param moduleName name of the module
+	 * @param id id of the module
+	 */
+	public void putId(String moduleName, int id) {
+		int index = indexOf(moduleName);
+		if (index != -1) {
+			ids[index] = id;
+			return;
+		}
+		if (size == names.length) {
+			int capacity = Math.max(2, size * 2);
+			names = Arrays.copyOf(names, capacity);
+			ids = Arrays.copyOf(ids, capacity);
+		}
+		names[size] = moduleName;
+		ids[size] = id;
+		size++;
+	}
+
+	private int indexOf(Object moduleName) {
+		for (int i = 0; i < size; i++) {
+			if (names[i] == null ? moduleName == null : names[i].equals(moduleName))
+				return i;
+		}
+		return -1;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return indexOf(key) != -1;
+	}
+
+	@Override
+	public Integer get(Object key) {
+		int index = indexOf(key);
+		return index == -1 ? null : ids[index];
+	}
+
+	@Override
+	public Integer put(String key, Integer value) {
+		Integer previous = get(key);
+		putId(key, value);
+		return previous;
+	}
+
+	@Override
+	public void putAll(Map<? extends String, ? extends Integer> map) {
+		if (map instanceof ModuleIdMap) {
+			ModuleIdMap other = (ModuleIdMap) map;
+			for (int i = 0; i < other.size; i++)
+				putId(other.names[i], other.ids[i]);
+		} else {
+			super.putAll(map);
+		}
+	}
+
+	@Override
+	public Integer remove(Object key) {
+		int index = indexOf(key);
+		if (index == -1)
+			return null;
+		int id = ids[index];
+		removeAt(index);
+		return id;
+	}
+
+	private void removeAt(int index) {
+		size--;
+		System.arraycopy(names, index + 1, names, index, size - index);
+		System.arraycopy(ids, index + 1, ids, index, size - index);
+		names[size] = null;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(names, 0, size, null);
+		size = 0;
+	}
+
+	@Override
+	public Set<Entry<String, Integer>> entrySet() {
+		return new AbstractSet<Entry<String, Integer>>() {
+			@Override
+			public Iterator<Entry<String, Integer>> iterator() {
+				return new Iterator<Entry<String, Integer>>() {
+					private int index = 0;
+					private boolean removable = false;
+
+					@Override
+					public boolean hasNext() {
+						return index < size;
+					}
+
+					@Override
+					public Entry<String, Integer> next() {
+						if (!hasNext())
+							throw new NoSuchElementException();
+						removable = true;
+						Entry<String, Integer> entry = new SimpleImmutableEntry<String, Integer>(names[index], ids[index]);
+						index++;
+						return entry;
+					}
+
+					@Override
+					public void remove() {
+						if (!removable)
+							throw new IllegalStateException();
+						removable = false;
+						removeAt(--index);
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+}
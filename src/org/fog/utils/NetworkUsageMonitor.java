@@ -1,18 +1,25 @@
 package org.fog.utils;
 
+import org.cloudbus.cloudsim.core.SimulationContext;
+
 public class NetworkUsageMonitor {
 
-	private static double networkUsage = 0.0;
+	// Usage of the simulation context of the calling thread
+	private double networkUsage = 0.0;
+	
+	private static NetworkUsageMonitor getInstance(){
+		return SimulationContext.current().getComponent(NetworkUsageMonitor.class, NetworkUsageMonitor::new);
+	}
 	
 	public static void sendingTuple(double latency, double tupleNwSize){
-		networkUsage += latency*tupleNwSize;
+		getInstance().networkUsage += latency*tupleNwSize;
 	}
 	
 	public static void sendingModule(double latency, long moduleSize){
-		networkUsage += latency*moduleSize;
+		getInstance().networkUsage += latency*moduleSize;
 	}
 	
 	public static double getNetworkUsage(){
-		return networkUsage;
+		return getInstance().networkUsage;
 	}
 }
@@ -5,6 +5,10 @@ import org.fog.entities.FogDevice;
 import java.io.Serializable;
 import java.util.List;
 
+/**
+ * @deprecated fog devices are not serializable; use {@link TopologySnapshot} to save a topology
+ */
+@Deprecated
 public class SerializableFogDevices implements Serializable {
     public SerializableFogDevices(List<FogDevice> fogDevices) {
         this.fogDevices = fogDevices;
@@ -1,129 +1,260 @@
 package org.fog.utils;
 
-import org.apache.commons.math3.util.Pair;
 import org.fog.entities.FogDevice;
 import org.fog.entities.MicroserviceFogDevice;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.stream.IntStream;
 
 /**
  * Created by Samodha Pallewatta on 6/18/2021.
  * Creates a routing table considering shortest path between devices.
+ * <p>
+ * The devices are linked to their parent, children and cluster members, and the next hops of each
+ * source device are found with a Dijkstra search over those links, the sources being processed in
+ * parallel. Next hops are kept as one <code>int[]</code> row per source, of which
+ * {@link #getRoutingTable(int)} gives a map view. When a device is re-parented,
+ * {@link #updateParent(FogDevice)} recomputes only the routes that changed.
  */
 public class ShortestPathRoutingGenerator {
 
+    private final FogDevice[] devices;
+    // Index of the devices by id, -1 for any other entity
+    private final int[] deviceIndexes;
+
+    // Links of each device: linkTargets[linkOffsets[i]] to linkTargets[linkOffsets[i + 1] - 1]
+    private int[] linkOffsets;
+    private int[] linkTargets;
+    private double[] linkLatencies;
+
+    // Index of the next device from a source (row) to a destination (column), -1 if unreachable
+    private final int[][] nextHops;
+
+    public ShortestPathRoutingGenerator(List<FogDevice> fogDevices) {
+        devices = fogDevices.toArray(new FogDevice[0]);
+        deviceIndexes = new int[FogDeviceUtils.getMaxFogDeviceID(fogDevices) + 1];
+        Arrays.fill(deviceIndexes, -1);
+        for (int i = 0; i < devices.length; i++) {
+            deviceIndexes[devices[i].getId()] = i;
+        }
+        nextHops = new int[devices.length][];
+        createLinks();
+        IntStream.range(0, devices.length).parallel().forEach(this::computeNextHops);
+    }
+
     public static Map<Integer, Map<Integer, Integer>> generateRoutingTable(List<FogDevice> fogDevices) {
         // <source device id>  ->  <dest device id,next device to route to>
+        return new ShortestPathRoutingGenerator(fogDevices).getRoutingTables();
+    }
+
+    /**
+     * @return the routing table of every device, by device id
+     */
+    public Map<Integer, Map<Integer, Integer>> getRoutingTables() {
         Map<Integer, Map<Integer, Integer>> routing = new HashMap<>();
-        Map<String, Map<String, String>> routingString = new HashMap<>();
-        int size = fogDevices.size();
-
-        int[][] routingMatrix = new int[size][size];
-        double[][] distanceMatrix = new double[size][size];
-        for (int row = 0; row < size; row++) {
-            for (int column = 0; column < size; column++) {
-                routingMatrix[row][column] = -1;
-                distanceMatrix[row][column] = -1;
+        for (FogDevice device : devices) {
+            routing.put(device.getId(), getRoutingTable(device.getId()));
+        }
+        return routing;
+    }
+
+    /**
+     * Gets the routing table of a device, backed by the next hops of this generator: it reflects
+     * the later updates, and routes put in it are used by the generator.
+     *
+     * @param sourceId id of the device
+     * @return map of destination device id to the id of the next device to route to
+     */
+    public Map<Integer, Integer> getRoutingTable(int sourceId) {
+        return new RoutingTable(getIndex(sourceId));
+    }
+
+    /**
+     * @return the id of the next device from the source to the destination, or -1 if there is no route
+     */
+    public int getNextHop(int sourceId, int destinationId) {
+        int source = getIndex(sourceId);
+        int destination = getIndex(destinationId);
+        if (source == -1 || destination == -1 || nextHops[source][destination] == -1) {
+            return -1;
+        }
+        return devices[nextHops[source][destination]].getId();
+    }
+
+    /**
+     * Updates the routes after a device got a new parent. When the device is only linked to its
+     * parent, only its own routes and the routes of the other devices to it are recomputed;
+     * otherwise all the routes are.
+     *
+     * @param fogDevice device, already linked to its new parent
+     */
+    public void updateParent(FogDevice fogDevice) {
+        createLinks();
+        int device = getIndex(fogDevice.getId());
+        int parent = getIndex(fogDevice.getParentId());
+        if (device == -1 || parent == -1 || linkOffsets[device + 1] - linkOffsets[device] != 1
+                || linkTargets[linkOffsets[device]] != parent) {
+            IntStream.range(0, devices.length).parallel().forEach(this::computeNextHops);
+            return;
+        }
+        computeNextHops(device);
+        for (int source = 0; source < devices.length; source++) {
+            if (source == device) {
+                continue;
             }
+            nextHops[source][device] = source == parent ? device : nextHops[source][parent];
         }
+    }
 
-        boolean change = true;
-        boolean firstIteration = true;
-        while (change || firstIteration) {
-            change = false;
-            for (int row = 0; row < size; row++) {
-                for (int column = 0; column < size; column++) {
-                    double dist = distanceMatrix[row][column];
-                    FogDevice rFog = fogDevices.get(row);
-                    FogDevice cFog = fogDevices.get(column);
-                    if (firstIteration && dist < 0) {
-                        if (row == column) {
-                            dist = 0;
-                        } else {
-                            dist = directlyConnectedDist(rFog, cFog);
-                        }
-                        if (dist >= 0) {
-                            change = true;
-                            distanceMatrix[row][column] = dist;
-                            distanceMatrix[column][row] = dist;
-
-                            // directly connected
-                            routingMatrix[row][column] = cFog.getId();
-                            routingMatrix[column][row] = rFog.getId();
-                        }
-                    }
-                    if (dist < 0) {
-                        Pair<Double, Integer> result = indirectDist(row, column, size, distanceMatrix);
-                        dist = result.getFirst();
-                        int mid = result.getSecond();
-                        if (dist >= 0) {
-                            change = true;
-                            distanceMatrix[row][column] = dist;
-                            routingMatrix[row][column] = routingMatrix[row][mid];
-                        }
-                    }
-                    if (dist > 0) {
-                        Pair<Double, Integer> result = indirectDist(row, column, size, distanceMatrix);
-                        double distNew = result.getFirst();
-                        int mid = result.getSecond();
-                        if (distNew < dist) {
-                            change = true;
-                            distanceMatrix[row][column] = distNew;
-                            routingMatrix[row][column] = routingMatrix[row][mid];
-                        }
-                    }
+    private int getIndex(int id) {
+        return id >= 0 && id < deviceIndexes.length ? deviceIndexes[id] : -1;
+    }
+
+    /**
+     * Links are symmetric: the latency of a link is the one seen from the device that comes first
+     * in the list of devices, if that device sees the link.
+     */
+    private void createLinks() {
+        List<List<Integer>> targets = new ArrayList<>(devices.length);
+        List<List<Double>> latencies = new ArrayList<>(devices.length);
+        for (int i = 0; i < devices.length; i++) {
+            targets.add(new ArrayList<Integer>());
+            latencies.add(new ArrayList<Double>());
+        }
+        Set<Long> linked = new HashSet<>();
+        int numberOfLinks = 0;
+        for (int i = 0; i < devices.length; i++) {
+            for (int neighbourId : getNeighbourIds(devices[i])) {
+                int j = getIndex(neighbourId);
+                if (j == -1 || j == i || !linked.add((long) Math.min(i, j) * devices.length + Math.max(i, j))) {
+                    continue;
                 }
-            }
-            firstIteration = false;
-        }
-
-        for (int row = 0; row < size; row++) {
-            for (int column = 0; column < size; column++) {
-                int sourceId = fogDevices.get(row).getId();
-                int destId = fogDevices.get(column).getId();
-                if (routing.containsKey(sourceId)) {
-                    routing.get(sourceId).put(destId, routingMatrix[row][column]);
-                    routingString.get(fogDevices.get(row).getName()).put(fogDevices.get(column).getName(), getFogDeviceById(routingMatrix[row][column], fogDevices).getName());
-                } else {
-                    Map<Integer, Integer> route = new HashMap<>();
-                    route.put(destId, routingMatrix[row][column]);
-                    routing.put(sourceId, route);
-
-                    Map<String, String> routeS = new HashMap<>();
-                    routeS.put(fogDevices.get(column).getName(), getFogDeviceById(routingMatrix[row][column], fogDevices).getName());
-                    routingString.put(fogDevices.get(row).getName(), routeS);
+                FogDevice first = devices[Math.min(i, j)];
+                FogDevice second = devices[Math.max(i, j)];
+                double latency = directlyConnectedDist(first, second);
+                if (latency < 0) {
+                    latency = directlyConnectedDist(second, first);
                 }
+                if (latency < 0) {
+                    continue;
+                }
+                targets.get(i).add(j);
+                latencies.get(i).add(latency);
+                targets.get(j).add(i);
+                latencies.get(j).add(latency);
+                numberOfLinks += 2;
             }
         }
 
-        System.out.println("Routing Table : ");
-        for (String deviceName : routingString.keySet()) {
-            System.out.println(deviceName + " : " + routingString.get(deviceName).toString());
+        linkOffsets = new int[devices.length + 1];
+        linkTargets = new int[numberOfLinks];
+        linkLatencies = new double[numberOfLinks];
+        for (int i = 0; i < devices.length; i++) {
+            linkOffsets[i + 1] = linkOffsets[i] + targets.get(i).size();
+            for (int k = 0; k < targets.get(i).size(); k++) {
+                linkTargets[linkOffsets[i] + k] = targets.get(i).get(k);
+                linkLatencies[linkOffsets[i] + k] = latencies.get(i).get(k);
+            }
         }
-        System.out.println("\n");
+    }
 
-        return routing;
+    private static List<Integer> getNeighbourIds(FogDevice fogDevice) {
+        List<Integer> neighbourIds = new ArrayList<>();
+        neighbourIds.add(fogDevice.getParentId());
+        if (fogDevice.getChildrenIds() != null) {
+            neighbourIds.addAll(fogDevice.getChildrenIds());
+        }
+        if (fogDevice.getClusterMembers() != null) {
+            neighbourIds.addAll(fogDevice.getClusterMembers());
+        }
+        return neighbourIds;
     }
 
+    /**
+     * Dijkstra search from a source device, keeping the first hop of the path to each device.
+     */
+    private void computeNextHops(int source) {
+        int size = devices.length;
+        int[] row = new int[size];
+        double[] distances = new double[size];
+        boolean[] settled = new boolean[size];
+        Arrays.fill(row, -1);
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
 
-    private static Pair<Double, Integer> indirectDist(int row, int dest, int size, double[][] distanceMatrix) {
-        double minDistFromDirectConn = distanceMatrix[row][dest];
-        int midPoint = -1;
-        for (int column = 0; column < size; column++) {
-            if (distanceMatrix[row][column] >= 0 && distanceMatrix[column][dest] >= 0) {
-                double totalDist = distanceMatrix[row][column] + distanceMatrix[column][dest];
-                if (minDistFromDirectConn >= 0 && totalDist < minDistFromDirectConn) {
-                    minDistFromDirectConn = totalDist;
-                    midPoint = column;
-                } else if (minDistFromDirectConn < 0) {
-                    minDistFromDirectConn = totalDist;
-                    midPoint = column;
+        // Binary heap of (distance, device), a device being pushed again when its distance decreases
+        double[] heapDistances = new double[linkTargets.length + 1];
+        int[] heapDevices = new int[linkTargets.length + 1];
+        int heapSize = 0;
+
+        distances[source] = 0;
+        row[source] = source;
+        heapDistances[0] = 0;
+        heapDevices[heapSize++] = source;
+        while (heapSize > 0) {
+            int device = heapDevices[0];
+            heapSize--;
+            siftDown(heapDistances, heapDevices, heapSize, heapDistances[heapSize], heapDevices[heapSize]);
+            if (settled[device]) {
+                continue;
+            }
+            settled[device] = true;
+            for (int k = linkOffsets[device]; k < linkOffsets[device + 1]; k++) {
+                int target = linkTargets[k];
+                double distance = distances[device] + linkLatencies[k];
+                if (!settled[target] && distance < distances[target]) {
+                    distances[target] = distance;
+                    row[target] = device == source ? target : row[device];
+                    siftUp(heapDistances, heapDevices, heapSize++, distance, target);
                 }
             }
         }
-        return new Pair<>(minDistFromDirectConn, midPoint);
+        nextHops[source] = row;
+    }
+
+    private static void siftUp(double[] heapDistances, int[] heapDevices, int position, double distance, int device) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (heapDistances[parent] <= distance) {
+                break;
+            }
+            heapDistances[position] = heapDistances[parent];
+            heapDevices[position] = heapDevices[parent];
+            position = parent;
+        }
+        heapDistances[position] = distance;
+        heapDevices[position] = device;
+    }
+
+    private static void siftDown(double[] heapDistances, int[] heapDevices, int size, double distance, int device) {
+        if (size == 0) {
+            return;
+        }
+        int position = 0;
+        int half = size >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            if (child + 1 < size && heapDistances[child + 1] < heapDistances[child]) {
+                child++;
+            }
+            if (distance <= heapDistances[child]) {
+                break;
+            }
+            heapDistances[position] = heapDistances[child];
+            heapDevices[position] = heapDevices[child];
+            position = child;
+        }
+        heapDistances[position] = distance;
+        heapDevices[position] = device;
     }
 
     private static double directlyConnectedDist(FogDevice rFog, FogDevice cFog) {
@@ -140,11 +271,90 @@ public class ShortestPathRoutingGenerator {
         return -1;
     }
 
-    private static FogDevice getFogDeviceById(int id, List<FogDevice> fogDevices) {
-        for (FogDevice f : fogDevices) {
-            if (f.getId() == id)
-                return f;
+    /**
+     * Routing table of one device, as a map view of its next hop row.
+     */
+    private class RoutingTable extends AbstractMap<Integer, Integer> {
+        private final int source;
+
+        RoutingTable(int source) {
+            this.source = source;
+        }
+
+        @Override
+        public Integer get(Object key) {
+            if (!(key instanceof Integer)) {
+                return null;
+            }
+            int destination = getIndex((Integer) key);
+            if (destination == -1 || nextHops[source][destination] == -1) {
+                return null;
+            }
+            return devices[nextHops[source][destination]].getId();
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public Integer put(Integer key, Integer value) {
+            int destination = getIndex(key);
+            int next = getIndex(value);
+            if (destination == -1 || next == -1) {
+                throw new IllegalArgumentException("No route can be set from " + devices[source].getName()
+                        + " to device " + key + " through device " + value);
+            }
+            Integer previous = get(key);
+            nextHops[source][destination] = next;
+            return previous;
+        }
+
+        @Override
+        public Set<Entry<Integer, Integer>> entrySet() {
+            return new AbstractSet<Entry<Integer, Integer>>() {
+                @Override
+                public Iterator<Entry<Integer, Integer>> iterator() {
+                    return new Iterator<Entry<Integer, Integer>>() {
+                        private int destination = advance(0);
+
+                        private int advance(int from) {
+                            while (from < devices.length && nextHops[source][from] == -1) {
+                                from++;
+                            }
+                            return from;
+                        }
+
+                        @Override
+                        public boolean hasNext() {
+                            return destination < devices.length;
+                        }
+
+                        @Override
+                        public Entry<Integer, Integer> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            Entry<Integer, Integer> entry = new SimpleImmutableEntry<>(devices[destination].getId(),
+                                    devices[nextHops[source][destination]].getId());
+                            destination = advance(destination + 1);
+                            return entry;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    int size = 0;
+                    for (int next : nextHops[source]) {
+                        if (next != -1) {
+                            size++;
+                        }
+                    }
+                    return size;
+                }
+            };
         }
-        return null;
     }
 }
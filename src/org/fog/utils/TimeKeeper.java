@@ -1,28 +1,28 @@
 package org.fog.utils;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 import org.apache.commons.math3.util.Pair;
 import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
 import org.fog.entities.Tuple;
 
 public class TimeKeeper {
 
-	private static TimeKeeper instance;
-	
 	private long simulationStartTime;
 	private int count; 
-	private Map<Integer, Double> emitTimes;
-	private Map<Integer, Double> endTimes;
-	private Map<Integer, List<Integer>> loopIdToTupleIds;
-	private Map<Integer, Double> tupleIdToCpuStartTime;
+	// emission time of the loop instances not yet completed, by actual tuple id
+	private IntDoubleMap emitTimes;
+	private Map<Integer, LoopStatistics> loopIdToStatistics;
+	private IntDoubleMap tupleIdToCpuStartTime;
 	private Map<String, Double> tupleTypeToAverageCpuTime;
 	private Map<String, Integer> tupleTypeToExecutedTupleCount;
-	
-	private Map<Integer, Double> loopIdToCurrentAverage;
-	private Map<Integer, Integer> loopIdToCurrentNum;
 
 	private Map<Integer, Integer> loopIdToLatencyQoSSuccessCount = new HashMap<>();
 
@@ -31,10 +31,11 @@ public class TimeKeeper {
 	// last execution time
 	private Map<Integer, Double> tupleIdToExecutionTime = new HashMap<>();
 	
+	/**
+	 * Gets the time keeper of the simulation context of the calling thread.
+	 */
 	public static TimeKeeper getInstance(){
-		if(instance == null)
-			instance = new TimeKeeper();
-		return instance;
+		return SimulationContext.current().getComponent(TimeKeeper.class, TimeKeeper::new);
 	}
 	
 	public int getUniqueId(){
@@ -46,9 +47,10 @@ public class TimeKeeper {
 	}
 	
 	public void tupleEndedExecution(Tuple tuple){
-		if(!tupleIdToCpuStartTime.containsKey(tuple.getCloudletId()))
+		double startTime = tupleIdToCpuStartTime.remove(tuple.getCloudletId());
+		if(Double.isNaN(startTime))
 			return;
-		double executionTime = CloudSim.clock() - tupleIdToCpuStartTime.get(tuple.getCloudletId());
+		double executionTime = CloudSim.clock() - startTime;
 		if(!tupleTypeToAverageCpuTime.containsKey(tuple.getTupleType())){
 			tupleTypeToAverageCpuTime.put(tuple.getTupleType(), executionTime);
 			tupleTypeToExecutedTupleCount.put(tuple.getTupleType(), 1);
@@ -59,20 +61,66 @@ public class TimeKeeper {
 		}
 	}
 	
-	public Map<Integer, List<Integer>> loopIdToTupleIds(){
-		return getInstance().getLoopIdToTupleIds();
+	/**
+	 * Records that an instance of a loop starts now, with the emission of a tuple on its first edge
+	 * @param loopId id of the loop
+	 * @return id of the loop instance, to be set as the actual tuple id of the tuples of the instance
+	 */
+	public int loopStarted(int loopId){
+		int tupleId = getUniqueId();
+		if(!loopIdToStatistics.containsKey(loopId))
+			loopIdToStatistics.put(loopId, new LoopStatistics());
+		emitTimes.put(tupleId, CloudSim.clock());
+		return tupleId;
+	}
+	
+	/**
+	 * Records that an instance of a loop ends now, with the arrival of a tuple at the last module of the loop
+	 * @param loopId id of the loop
+	 * @param actualTupleId id of the loop instance, the actual tuple id of the tuple
+	 * @return whether the instance was started and not yet ended
+	 */
+	public boolean loopEnded(int loopId, int actualTupleId){
+		double emitTime = emitTimes.remove(actualTupleId);
+		if(Double.isNaN(emitTime))
+			return false;
+		LoopStatistics statistics = loopIdToStatistics.get(loopId);
+		if(statistics == null){
+			statistics = new LoopStatistics();
+			loopIdToStatistics.put(loopId, statistics);
+		}
+		statistics.record(CloudSim.clock() - emitTime);
+		return true;
+	}
+	
+	/**
+	 * @return the ids of the loops an instance was started of, in increasing order
+	 */
+	public Set<Integer> getLoopIds(){
+		return Collections.unmodifiableSet(loopIdToStatistics.keySet());
+	}
+	
+	/**
+	 * @return the delay statistics of a loop, or null if no instance of the loop was started
+	 */
+	public LoopStatistics getLoopStatistics(int loopId){
+		return loopIdToStatistics.get(loopId);
+	}
+	
+	/**
+	 * @return the number of loop instances started and not yet ended
+	 */
+	public int getPendingLoopCount(){
+		return emitTimes.size();
 	}
 	
 	private TimeKeeper(){
 		count = 1;
-		setEmitTimes(new HashMap<Integer, Double>());
-		setEndTimes(new HashMap<Integer, Double>());
-		setLoopIdToTupleIds(new HashMap<Integer, List<Integer>>());
+		emitTimes = new IntDoubleMap();
+		loopIdToStatistics = new TreeMap<Integer, LoopStatistics>();
 		setTupleTypeToAverageCpuTime(new HashMap<String, Double>());
 		setTupleTypeToExecutedTupleCount(new HashMap<String, Integer>());
-		setTupleIdToCpuStartTime(new HashMap<Integer, Double>());
-		setLoopIdToCurrentAverage(new HashMap<Integer, Double>());
-		setLoopIdToCurrentNum(new HashMap<Integer, Integer>());
+		tupleIdToCpuStartTime = new IntDoubleMap();
 	}
 	
 	public int getCount() {
@@ -83,30 +131,6 @@ public class TimeKeeper {
 		this.count = count;
 	}
 
-	public Map<Integer, Double> getEmitTimes() {
-		return emitTimes;
-	}
-
-	public void setEmitTimes(Map<Integer, Double> emitTimes) {
-		this.emitTimes = emitTimes;
-	}
-
-	public Map<Integer, Double> getEndTimes() {
-		return endTimes;
-	}
-
-	public void setEndTimes(Map<Integer, Double> endTimes) {
-		this.endTimes = endTimes;
-	}
-
-	public Map<Integer, List<Integer>> getLoopIdToTupleIds() {
-		return loopIdToTupleIds;
-	}
-
-	public void setLoopIdToTupleIds(Map<Integer, List<Integer>> loopIdToTupleIds) {
-		this.loopIdToTupleIds = loopIdToTupleIds;
-	}
-
 	public Map<String, Double> getTupleTypeToAverageCpuTime() {
 		return tupleTypeToAverageCpuTime;
 	}
@@ -125,14 +149,6 @@ public class TimeKeeper {
 		this.tupleTypeToExecutedTupleCount = tupleTypeToExecutedTupleCount;
 	}
 
-	public Map<Integer, Double> getTupleIdToCpuStartTime() {
-		return tupleIdToCpuStartTime;
-	}
-
-	public void setTupleIdToCpuStartTime(Map<Integer, Double> tupleIdToCpuStartTime) {
-		this.tupleIdToCpuStartTime = tupleIdToCpuStartTime;
-	}
-
 	public long getSimulationStartTime() {
 		return simulationStartTime;
 	}
@@ -141,20 +157,30 @@ public class TimeKeeper {
 		this.simulationStartTime = simulationStartTime;
 	}
 
+	/**
+	 * @return the average delay of each loop an instance was completed of, by loop id in increasing order. The map is
+	 * a copy of the current statistics.
+	 */
 	public Map<Integer, Double> getLoopIdToCurrentAverage() {
-		return loopIdToCurrentAverage;
-	}
-
-	public void setLoopIdToCurrentAverage(Map<Integer, Double> loopIdToCurrentAverage) {
-		this.loopIdToCurrentAverage = loopIdToCurrentAverage;
+		Map<Integer, Double> averages = new LinkedHashMap<Integer, Double>();
+		for(Map.Entry<Integer, LoopStatistics> entry : loopIdToStatistics.entrySet()){
+			if(entry.getValue().getCount() > 0)
+				averages.put(entry.getKey(), entry.getValue().getMean());
+		}
+		return averages;
 	}
 
+	/**
+	 * @return the number of completed instances of each loop an instance was completed of, by loop id in increasing
+	 * order. The map is a copy of the current statistics.
+	 */
 	public Map<Integer, Integer> getLoopIdToCurrentNum() {
-		return loopIdToCurrentNum;
-	}
-
-	public void setLoopIdToCurrentNum(Map<Integer, Integer> loopIdToCurrentNum) {
-		this.loopIdToCurrentNum = loopIdToCurrentNum;
+		Map<Integer, Integer> counts = new LinkedHashMap<Integer, Integer>();
+		for(Map.Entry<Integer, LoopStatistics> entry : loopIdToStatistics.entrySet()){
+			if(entry.getValue().getCount() > 0)
+				counts.put(entry.getKey(), (int) entry.getValue().getCount());
+		}
+		return counts;
 	}
 
 	public Map<Integer, Integer> getLoopIdToLatencyQoSSuccessCount() {
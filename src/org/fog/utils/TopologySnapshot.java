@@ -0,0 +1,454 @@
+package org.fog.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cloudbus.cloudsim.power.models.PowerModel;
+import org.fog.entities.FogDevice;
+import org.fog.entities.MicroserviceFogDevice;
+import org.fog.placement.LocationHandler;
+
+/**
+ * Compact binary snapshot of a physical topology, so that a topology built once, and the
+ * placement computed for it, can be restored in later simulations without building them again.
+ * Unlike the Java serialization of the devices, it only holds what defines the topology:
+ * <ul>
+ * <li>the devices: name, type, level, capacity, bandwidths, uplink latency, cost and power,
+ * and the data id of the device in the {@link LocationHandler}</li>
+ * <li>the hierarchy: the parent of each device and the latency to each of its children</li>
+ * <li>the clusters: the cluster members of each device and the latency to each of them</li>
+ * <li>the routing tables of the microservice fog devices</li>
+ * <li>a placement: the device of each module of each application</li>
+ * </ul>
+ * Devices are identified by their position in the list of devices, so that the snapshot does not
+ * depend on the ids the entities get in a simulation. Links to entities that are not part of the
+ * list are not kept. The file starts with a magic number and a format version, and is read
+ * through a memory mapping.
+ */
+public class TopologySnapshot {
+    private static final int MAGIC = 0x69465450; // "iFTP"
+    private static final int VERSION = 1;
+
+    private final int size;
+    // Devices, by position in the list
+    private final String[] names;
+    private final String[] deviceTypes;
+    private final String[] dataIds;
+    private final int[] levels;
+    private final int[] parents;
+    private final long[] mips;
+    private final int[] rams;
+    private final double[] uplinkBandwidths;
+    private final double[] downlinkBandwidths;
+    private final double[] clusterLinkBandwidths;
+    private final double[] uplinkLatencies;
+    private final double[] ratesPerMips;
+    private final double[] busyPowers;
+    private final double[] idlePowers;
+    // Links of each device to other devices, and latency of each link
+    private final int[][] children;
+    private final double[][] childLatencies;
+    private final boolean[] inCluster;
+    private final boolean[] selfCluster;
+    private final int[][] clusterMembers;
+    private final double[][] clusterLatencies;
+    // Routing table of each device, null for the devices without one
+    private final int[][] routeDestinations;
+    private final int[][] routeNextHops;
+    // Device of each module, by application
+    private final Map<String, Map<String, Integer>> placement = new LinkedHashMap<>();
+
+    private TopologySnapshot(int size) {
+        this.size = size;
+        names = new String[size];
+        deviceTypes = new String[size];
+        dataIds = new String[size];
+        levels = new int[size];
+        parents = new int[size];
+        mips = new long[size];
+        rams = new int[size];
+        uplinkBandwidths = new double[size];
+        downlinkBandwidths = new double[size];
+        clusterLinkBandwidths = new double[size];
+        uplinkLatencies = new double[size];
+        ratesPerMips = new double[size];
+        busyPowers = new double[size];
+        idlePowers = new double[size];
+        children = new int[size][];
+        childLatencies = new double[size][];
+        inCluster = new boolean[size];
+        selfCluster = new boolean[size];
+        clusterMembers = new int[size][];
+        clusterLatencies = new double[size][];
+        routeDestinations = new int[size][];
+        routeNextHops = new int[size][];
+    }
+
+    /**
+     * Takes a snapshot of a topology. The power of a device is kept as its idle and busy power, so
+     * a device is restored with a linear power model.
+     *
+     * @param fogDevices devices of the topology
+     * @param locator    locator holding the data ids of the devices, or null
+     * @return the snapshot, with no placement
+     */
+    public static TopologySnapshot capture(List<FogDevice> fogDevices, LocationHandler locator) {
+        TopologySnapshot snapshot = new TopologySnapshot(fogDevices.size());
+        Map<Integer, Integer> positions = new HashMap<>();
+        for (int i = 0; i < fogDevices.size(); i++) {
+            positions.put(fogDevices.get(i).getId(), i);
+        }
+        for (int i = 0; i < fogDevices.size(); i++) {
+            FogDevice device = fogDevices.get(i);
+            snapshot.names[i] = device.getName();
+            if (device instanceof MicroserviceFogDevice) {
+                MicroserviceFogDevice microserviceDevice = (MicroserviceFogDevice) device;
+                snapshot.deviceTypes[i] = microserviceDevice.getDeviceType();
+                if (microserviceDevice.getRoutingTable() != null) {
+                    int[][] routes = toPositions(microserviceDevice.getRoutingTable(), positions);
+                    snapshot.routeDestinations[i] = routes[0];
+                    snapshot.routeNextHops[i] = routes[1];
+                }
+            }
+            snapshot.clusterLinkBandwidths[i] = device.getClusterLinkBandwidth();
+            snapshot.dataIds[i] = locator == null ? null : locator.instanceToDataId.get(device.getId());
+            snapshot.levels[i] = device.getLevel();
+            Integer parent = positions.get(device.getParentId());
+            snapshot.parents[i] = parent == null ? -1 : parent;
+            snapshot.mips[i] = device.getHost().getTotalMips();
+            snapshot.rams[i] = device.getHost().getRam();
+            snapshot.uplinkBandwidths[i] = device.getUplinkBandwidth();
+            snapshot.downlinkBandwidths[i] = device.getDownlinkBandwidth();
+            snapshot.uplinkLatencies[i] = device.getUplinkLatency();
+            snapshot.ratesPerMips[i] = device.getRatePerMips();
+            PowerModel powerModel = device.getHost().getPowerModel();
+            snapshot.idlePowers[i] = powerModel.getPower(0);
+            snapshot.busyPowers[i] = powerModel.getPower(1);
+
+            List<Integer> childIds = new ArrayList<>();
+            for (int childId : device.getChildrenIds()) {
+                if (positions.containsKey(childId)) {
+                    childIds.add(childId);
+                }
+            }
+            snapshot.children[i] = new int[childIds.size()];
+            snapshot.childLatencies[i] = new double[childIds.size()];
+            for (int j = 0; j < childIds.size(); j++) {
+                snapshot.children[i][j] = positions.get(childIds.get(j));
+                Double latency = device.getChildToLatencyMap().get(childIds.get(j));
+                snapshot.childLatencies[i][j] = latency == null ? Double.NaN : latency;
+            }
+
+            snapshot.inCluster[i] = device.getIsInCluster();
+            snapshot.selfCluster[i] = device.getSelfCluster();
+            List<Integer> memberIds = new ArrayList<>();
+            if (device.getClusterMembers() != null) {
+                for (int memberId : device.getClusterMembers()) {
+                    if (positions.containsKey(memberId)) {
+                        memberIds.add(memberId);
+                    }
+                }
+            }
+            Map<Integer, Double> memberLatencies = device.getClusterMembersToLatencyMap();
+            snapshot.clusterMembers[i] = new int[memberIds.size()];
+            snapshot.clusterLatencies[i] = new double[memberIds.size()];
+            for (int j = 0; j < memberIds.size(); j++) {
+                snapshot.clusterMembers[i][j] = positions.get(memberIds.get(j));
+                Double latency = memberLatencies == null ? null : memberLatencies.get(memberIds.get(j));
+                snapshot.clusterLatencies[i][j] = latency == null ? Double.NaN : latency;
+            }
+        }
+        return snapshot;
+    }
+
+    private static int[][] toPositions(Map<Integer, Integer> routingTable, Map<Integer, Integer> positions) {
+        List<int[]> routes = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> route : routingTable.entrySet()) {
+            Integer destination = positions.get(route.getKey());
+            Integer nextHop = positions.get(route.getValue());
+            if (destination != null && nextHop != null) {
+                routes.add(new int[]{destination, nextHop});
+            }
+        }
+        int[][] result = new int[2][routes.size()];
+        for (int j = 0; j < routes.size(); j++) {
+            result[0][j] = routes.get(j)[0];
+            result[1][j] = routes.get(j)[1];
+        }
+        return result;
+    }
+
+    /**
+     * Adds the device of a module to the placement of the snapshot
+     *
+     * @param appId      application of the module
+     * @param moduleName module
+     * @param position   position of the device in the list of devices of the snapshot
+     */
+    public void addPlacement(String appId, String moduleName, int position) {
+        if (position < 0 || position >= size) {
+            throw new IllegalArgumentException("No device at position " + position + " of the topology");
+        }
+        Map<String, Integer> modules = placement.get(appId);
+        if (modules == null) {
+            modules = new LinkedHashMap<>();
+            placement.put(appId, modules);
+        }
+        modules.put(moduleName, position);
+    }
+
+    /**
+     * Gets the placement of the snapshot on the devices of a topology
+     *
+     * @param fogDevices devices restored from the snapshot, in the same order
+     * @return the id of the device of each module, by application
+     */
+    public Map<String, Map<String, Integer>> getPlacement(List<FogDevice> fogDevices) {
+        Map<String, Map<String, Integer>> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, Integer>> application : placement.entrySet()) {
+            Map<String, Integer> modules = new LinkedHashMap<>();
+            for (Map.Entry<String, Integer> module : application.getValue().entrySet()) {
+                modules.put(module.getKey(), fogDevices.get(module.getValue()).getId());
+            }
+            result.put(application.getKey(), modules);
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of devices of the topology
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Creates the devices of the topology, with their parent and level, and links them with their
+     * data ids in a locator. As when the topology was built, the children, cluster members and
+     * routing tables are left to the controller; use {@link #restoreLinks(List)} when there is
+     * none to set them up.
+     *
+     * @param locator locator to link the devices with their data ids, or null
+     * @return the devices, in the order of the snapshot
+     */
+    public List<FogDevice> createFogDevices(LocationHandler locator) throws Exception {
+        List<FogDevice> fogDevices = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            FogDevice device = FogEntityFactory.createFogDevice(names[i], mips[i], rams[i], uplinkBandwidths[i], downlinkBandwidths[i],
+                    clusterLinkBandwidths[i], uplinkLatencies[i], ratesPerMips[i], busyPowers[i], idlePowers[i], deviceTypes[i]);
+            device.setLevel(levels[i]);
+            fogDevices.add(device);
+            if (locator != null && dataIds[i] != null) {
+                locator.linkDataWithInstance(device.getId(), dataIds[i]);
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            fogDevices.get(i).setParentId(parents[i] == -1 ? -1 : fogDevices.get(parents[i]).getId());
+        }
+        return fogDevices;
+    }
+
+    /**
+     * Restores the children, cluster members and routing tables of the devices of the topology
+     *
+     * @param fogDevices devices created by {@link #createFogDevices(LocationHandler)}
+     */
+    public void restoreLinks(List<FogDevice> fogDevices) {
+        for (int i = 0; i < size; i++) {
+            FogDevice device = fogDevices.get(i);
+            for (int j = 0; j < children[i].length; j++) {
+                int childId = fogDevices.get(children[i][j]).getId();
+                if (!device.getChildrenIds().contains(childId)) {
+                    device.getChildrenIds().add(childId);
+                }
+                if (!Double.isNaN(childLatencies[i][j])) {
+                    device.getChildToLatencyMap().put(childId, childLatencies[i][j]);
+                }
+            }
+            device.setIsInCluster(inCluster[i]);
+            device.setSelfCluster(selfCluster[i]);
+            List<Integer> members = new ArrayList<>();
+            Map<Integer, Double> memberLatencies = new HashMap<>();
+            for (int j = 0; j < clusterMembers[i].length; j++) {
+                int memberId = fogDevices.get(clusterMembers[i][j]).getId();
+                members.add(memberId);
+                if (!Double.isNaN(clusterLatencies[i][j])) {
+                    memberLatencies.put(memberId, clusterLatencies[i][j]);
+                }
+            }
+            device.setClusterMembers(members);
+            device.setClusterMembersToLatencyMap(memberLatencies);
+            if (routeDestinations[i] != null && device instanceof MicroserviceFogDevice) {
+                Map<Integer, Integer> routingTable = new HashMap<>();
+                for (int j = 0; j < routeDestinations[i].length; j++) {
+                    routingTable.put(fogDevices.get(routeDestinations[i][j]).getId(), fogDevices.get(routeNextHops[i][j]).getId());
+                }
+                ((MicroserviceFogDevice) device).addRoutingTable(routingTable);
+            }
+        }
+    }
+
+    /**
+     * Saves the snapshot to a file
+     */
+    public void save(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                writeString(out, names[i]);
+                writeString(out, deviceTypes[i]);
+                writeString(out, dataIds[i]);
+                out.writeInt(levels[i]);
+                out.writeInt(parents[i]);
+                out.writeLong(mips[i]);
+                out.writeInt(rams[i]);
+                out.writeDouble(uplinkBandwidths[i]);
+                out.writeDouble(downlinkBandwidths[i]);
+                out.writeDouble(clusterLinkBandwidths[i]);
+                out.writeDouble(uplinkLatencies[i]);
+                out.writeDouble(ratesPerMips[i]);
+                out.writeDouble(busyPowers[i]);
+                out.writeDouble(idlePowers[i]);
+                writeLinks(out, children[i], childLatencies[i]);
+                out.writeBoolean(inCluster[i]);
+                out.writeBoolean(selfCluster[i]);
+                writeLinks(out, clusterMembers[i], clusterLatencies[i]);
+                if (routeDestinations[i] == null) {
+                    out.writeInt(-1);
+                } else {
+                    out.writeInt(routeDestinations[i].length);
+                    for (int j = 0; j < routeDestinations[i].length; j++) {
+                        out.writeInt(routeDestinations[i][j]);
+                        out.writeInt(routeNextHops[i][j]);
+                    }
+                }
+            }
+            out.writeInt(placement.size());
+            for (Map.Entry<String, Map<String, Integer>> application : placement.entrySet()) {
+                writeString(out, application.getKey());
+                out.writeInt(application.getValue().size());
+                for (Map.Entry<String, Integer> module : application.getValue().entrySet()) {
+                    writeString(out, module.getKey());
+                    out.writeInt(module.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Loads a snapshot saved by {@link #save(File)}
+     *
+     * @throws IOException if the file is not a topology snapshot of the current version
+     */
+    public static TopologySnapshot load(File file) throws IOException {
+        ByteBuffer in;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (in.remaining() < 12 || in.getInt() != MAGIC) {
+            throw new IOException(file + " is not a topology snapshot");
+        }
+        int version = in.getInt();
+        if (version != VERSION) {
+            throw new IOException(file + " is a topology snapshot of version " + version + " instead of " + VERSION);
+        }
+        TopologySnapshot snapshot = new TopologySnapshot(in.getInt());
+        for (int i = 0; i < snapshot.size; i++) {
+            snapshot.names[i] = readString(in);
+            // device types are compared by reference with the constants of MicroserviceFogDevice
+            String deviceType = readString(in);
+            snapshot.deviceTypes[i] = deviceType == null ? null : deviceType.intern();
+            snapshot.dataIds[i] = readString(in);
+            snapshot.levels[i] = in.getInt();
+            snapshot.parents[i] = in.getInt();
+            snapshot.mips[i] = in.getLong();
+            snapshot.rams[i] = in.getInt();
+            snapshot.uplinkBandwidths[i] = in.getDouble();
+            snapshot.downlinkBandwidths[i] = in.getDouble();
+            snapshot.clusterLinkBandwidths[i] = in.getDouble();
+            snapshot.uplinkLatencies[i] = in.getDouble();
+            snapshot.ratesPerMips[i] = in.getDouble();
+            snapshot.busyPowers[i] = in.getDouble();
+            snapshot.idlePowers[i] = in.getDouble();
+            int childCount = in.getInt();
+            snapshot.children[i] = new int[childCount];
+            snapshot.childLatencies[i] = new double[childCount];
+            readLinks(in, snapshot.children[i], snapshot.childLatencies[i]);
+            snapshot.inCluster[i] = in.get() != 0;
+            snapshot.selfCluster[i] = in.get() != 0;
+            int memberCount = in.getInt();
+            snapshot.clusterMembers[i] = new int[memberCount];
+            snapshot.clusterLatencies[i] = new double[memberCount];
+            readLinks(in, snapshot.clusterMembers[i], snapshot.clusterLatencies[i]);
+            int routeCount = in.getInt();
+            if (routeCount >= 0) {
+                snapshot.routeDestinations[i] = new int[routeCount];
+                snapshot.routeNextHops[i] = new int[routeCount];
+                for (int j = 0; j < routeCount; j++) {
+                    snapshot.routeDestinations[i][j] = in.getInt();
+                    snapshot.routeNextHops[i][j] = in.getInt();
+                }
+            }
+        }
+        int applicationCount = in.getInt();
+        for (int a = 0; a < applicationCount; a++) {
+            String appId = readString(in);
+            int moduleCount = in.getInt();
+            for (int m = 0; m < moduleCount; m++) {
+                String moduleName = readString(in);
+                snapshot.addPlacement(appId, moduleName, in.getInt());
+            }
+        }
+        return snapshot;
+    }
+
+    private static void writeLinks(DataOutputStream out, int[] devices, double[] latencies) throws IOException {
+        out.writeInt(devices.length);
+        for (int j = 0; j < devices.length; j++) {
+            out.writeInt(devices[j]);
+            out.writeDouble(latencies[j]);
+        }
+    }
+
+    private static void readLinks(ByteBuffer in, int[] devices, double[] latencies) {
+        for (int j = 0; j < devices.length; j++) {
+            devices[j] = in.getInt();
+            latencies[j] = in.getDouble();
+        }
+    }
+
+    // A string is its length in bytes, -1 for null, followed by its UTF-8 bytes
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,42 @@
+package org.fog.utils;
+
+/**
+ * Acknowledgement of the tuples an entity received from another one during a window, carried by a
+ * {@link FogEvents#TUPLE_ACK} event to the sender of the tuples.
+ */
+public class TupleAck {
+
+	private final int receiverId;
+	private final double deliveryTime;
+	private int tupleCount = 1;
+
+	TupleAck(int receiverId, double deliveryTime) {
+		this.receiverId = receiverId;
+		this.deliveryTime = deliveryTime;
+	}
+
+	/**
+	 * @return the entity that received the tuples
+	 */
+	public int getReceiverId() {
+		return receiverId;
+	}
+
+	/**
+	 * @return the time the acknowledgement reaches the sender, which ends its window
+	 */
+	public double getDeliveryTime() {
+		return deliveryTime;
+	}
+
+	/**
+	 * @return the number of tuples acknowledged
+	 */
+	public int getTupleCount() {
+		return tupleCount;
+	}
+
+	void addTuple() {
+		tupleCount++;
+	}
+}
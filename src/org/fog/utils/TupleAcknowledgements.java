@@ -0,0 +1,61 @@
+package org.fog.utils;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
+
+/**
+ * Acknowledgements of the tuples received by the entities of the simulation context of the calling
+ * thread, when {@link Config#TUPLE_ACKS} is set. Only the entities that registered their interest
+ * are sent acknowledgements, and the tuples a sender sends to the same receiver within
+ * {@link Config#TUPLE_ACK_WINDOW} of each other are acknowledged by a single {@link TupleAck}.
+ */
+public class TupleAcknowledgements {
+
+	private final Set<Integer> interestedEntityIds = new HashSet<Integer>();
+	// acknowledgement on its way for each receiver and sender, keyed by both ids
+	private final Map<Long, TupleAck> pendingAcks = new HashMap<Long, TupleAck>();
+
+	private static TupleAcknowledgements getInstance(){
+		return SimulationContext.current().getComponent(TupleAcknowledgements.class, TupleAcknowledgements::new);
+	}
+
+	/**
+	 * Asks for the tuples an entity sends to be acknowledged
+	 * @param entityId the entity
+	 */
+	public static void registerInterest(int entityId){
+		getInstance().interestedEntityIds.add(entityId);
+	}
+
+	public static boolean isInterested(int entityId){
+		return Config.TUPLE_ACKS && getInstance().interestedEntityIds.contains(entityId);
+	}
+
+	/**
+	 * Acknowledges a tuple received now, either in the acknowledgement already on its way from
+	 * the receiver to the sender or in a new one
+	 * @param receiverId the entity receiving the tuple
+	 * @param senderId the entity that sent it
+	 * @return the new acknowledgement to send, or null if the tuple needs none
+	 */
+	public static TupleAck acknowledge(int receiverId, int senderId){
+		if(!isInterested(senderId))
+			return null;
+		TupleAcknowledgements acks = getInstance();
+		long key = ((long) receiverId << 32) | (senderId & 0xFFFFFFFFL);
+		double now = CloudSim.clock();
+		TupleAck ack = acks.pendingAcks.get(key);
+		if(ack != null && ack.getDeliveryTime() > now){
+			ack.addTuple();
+			return null;
+		}
+		ack = new TupleAck(receiverId, now + Math.max(Config.TUPLE_ACK_WINDOW, CloudSim.getMinTimeBetweenEvents()));
+		acks.pendingAcks.put(key, ack);
+		return ack;
+	}
+}
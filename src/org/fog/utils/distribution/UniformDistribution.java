@@ -1,5 +1,7 @@
 package org.fog.utils.distribution;
 
+import org.cloudbus.cloudsim.core.SimulationContext;
+
 public class UniformDistribution extends Distribution{
 
 	private double min;
@@ -7,6 +9,7 @@ public class UniformDistribution extends Distribution{
 	
 	public UniformDistribution(double min, double max){
 		super();
+		setRandom(SimulationContext.current().getRandom());
 		setMin(min);
 		setMax(max);
 	}
@@ -0,0 +1,138 @@
+package org.fog.utils.sweep;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The values of each parameter of a sweep, whose runs are all the combinations of those values.
+ * Runs are numbered in the order the parameters were added, the last parameter varying fastest,
+ * so that a run number always stands for the same parameters.
+ */
+public class ParameterGrid {
+    private final Map<String, List<Object>> values = new LinkedHashMap<>();
+
+    /**
+     * Sets the values a parameter takes in the sweep.
+     *
+     * @param name   name of the parameter
+     * @param values values of the parameter, at least one
+     * @return this grid
+     */
+    public ParameterGrid add(String name, Object... values) {
+        return add(name, Arrays.asList(values));
+    }
+
+    public ParameterGrid add(String name, List<?> values) {
+        if (values.isEmpty()) {
+            throw new IllegalArgumentException("No value for the parameter " + name);
+        }
+        this.values.put(name, new ArrayList<Object>(values));
+        return this;
+    }
+
+    public List<String> getNames() {
+        return new ArrayList<>(values.keySet());
+    }
+
+    /**
+     * @return the number of runs of the sweep
+     */
+    public int size() {
+        long size = 1;
+        for (List<Object> parameterValues : values.values()) {
+            size *= parameterValues.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Too many runs in the sweep");
+            }
+        }
+        return (int) size;
+    }
+
+    /**
+     * Gets the parameters of a run.
+     *
+     * @param run number of the run, from 0 to <code>size() - 1</code>
+     * @return the parameters of the run, in the order of the grid
+     */
+    public RunParameters getRun(int run) {
+        if (run < 0 || run >= size()) {
+            throw new IndexOutOfBoundsException("Run " + run + " of a sweep of " + size());
+        }
+        List<String> names = getNames();
+        Object[] runValues = new Object[names.size()];
+        for (int i = names.size() - 1; i >= 0; i--) {
+            List<Object> parameterValues = values.get(names.get(i));
+            runValues[i] = parameterValues.get(run % parameterValues.size());
+            run /= parameterValues.size();
+        }
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            parameters.put(names.get(i), runValues[i]);
+        }
+        return new RunParameters(parameters);
+    }
+
+    /**
+     * Adds a parameter from its command line form <code>name=value,value,...</code>. Values are
+     * read as integers, numbers or booleans when they can be, and as strings otherwise; a value
+     * made of several elements joined by <code>+</code> is a list, e.g. <code>levels=2,1+2</code>.
+     *
+     * @param argument the parameter and its values
+     * @return this grid
+     */
+    public ParameterGrid parse(String argument) {
+        int equals = argument.indexOf('=');
+        if (equals <= 0) {
+            throw new IllegalArgumentException("Expected name=value,value,... but got " + argument);
+        }
+        List<Object> parameterValues = new ArrayList<>();
+        for (String value : argument.substring(equals + 1).split(",")) {
+            if (value.contains("+")) {
+                List<Object> list = new ArrayList<>();
+                for (String element : value.split("\\+")) {
+                    list.add(parseValue(element));
+                }
+                parameterValues.add(list);
+            } else {
+                parameterValues.add(parseValue(value));
+            }
+        }
+        return add(argument.substring(0, equals), parameterValues);
+    }
+
+    private static Object parseValue(String value) {
+        if (value.equals("true") || value.equals("false")) {
+            return Boolean.valueOf(value);
+        }
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            // not an integer
+        }
+        try {
+            return Double.valueOf(value);
+        } catch (NumberFormatException e) {
+            return value;
+        }
+    }
+
+    /**
+     * Formats a value the way {@link #parse(String)} reads it.
+     */
+    static String format(Object value) {
+        if (value instanceof List) {
+            StringBuilder builder = new StringBuilder();
+            for (Object element : (List<?>) value) {
+                if (builder.length() > 0) {
+                    builder.append('+');
+                }
+                builder.append(element);
+            }
+            return builder.toString();
+        }
+        return String.valueOf(value);
+    }
+}
@@ -0,0 +1,114 @@
+package org.fog.utils.sweep;
+
+import org.fog.entities.FogDevice;
+import org.fog.utils.Config;
+import org.fog.utils.LatencyHistogram;
+import org.fog.utils.LoopStatistics;
+import org.fog.utils.MigrationDelayMonitor;
+import org.fog.utils.NetworkUsageMonitor;
+import org.fog.utils.TimeKeeper;
+
+import java.util.List;
+
+/**
+ * Results of one run of a sweep, as printed by the controllers at the end of a simulation.
+ */
+public class RunMetrics {
+    static final String[] COLUMNS = {"loop_latency", "loop_latency_p50", "loop_latency_p95", "loop_latency_p99",
+            "energy", "network_usage", "migration_delay", "wall_time_ms"};
+
+    private final double loopLatency;
+    private final double[] loopLatencyPercentiles;
+    private final double energy;
+    private final double networkUsage;
+    private final double migrationDelay;
+    private final double wallTime;
+
+    /**
+     * Collects the results of the simulation that just ended in the current simulation context.
+     *
+     * @param fogDevices devices of the simulation
+     * @param wallTime   time the simulation took to run, in milliseconds
+     */
+    public RunMetrics(List<FogDevice> fogDevices, double wallTime) {
+        double latencies = 0;
+        int loops = 0;
+        for (Double average : TimeKeeper.getInstance().getLoopIdToCurrentAverage().values()) {
+            latencies += average;
+            loops++;
+        }
+        loopLatency = loops == 0 ? Double.NaN : latencies / loops;
+        loopLatencyPercentiles = getLoopLatencyPercentiles(50, 95, 99);
+        double totalEnergy = 0;
+        for (FogDevice fogDevice : fogDevices) {
+            totalEnergy += fogDevice.getEnergyConsumption();
+        }
+        energy = totalEnergy;
+        networkUsage = NetworkUsageMonitor.getNetworkUsage() / Config.MAX_SIMULATION_TIME;
+        migrationDelay = MigrationDelayMonitor.getMigrationDelay();
+        this.wallTime = wallTime;
+    }
+
+    /**
+     * @return the average delay of the application loops, NaN if no loop completed
+     */
+    public double getLoopLatency() {
+        return loopLatency;
+    }
+
+    /**
+     * @return the 50th, 95th and 99th percentiles of the delays of all the completed application loops, NaN if no loop
+     * completed
+     */
+    public double[] getLoopLatencyPercentiles() {
+        return loopLatencyPercentiles.clone();
+    }
+
+    private static double[] getLoopLatencyPercentiles(double... percentiles) {
+        LatencyHistogram delays = new LatencyHistogram();
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        TimeKeeper timeKeeper = TimeKeeper.getInstance();
+        for (int loopId : timeKeeper.getLoopIds()) {
+            LoopStatistics statistics = timeKeeper.getLoopStatistics(loopId);
+            if (statistics.getCount() > 0) {
+                delays.add(statistics.getHistogram());
+                min = Math.min(min, statistics.getMin());
+                max = Math.max(max, statistics.getMax());
+            }
+        }
+        double[] values = new double[percentiles.length];
+        for (int i = 0; i < percentiles.length; i++) {
+            double value = delays.getValueAtPercentile(percentiles[i]);
+            values[i] = Double.isNaN(value) ? value : Math.max(min, Math.min(max, value));
+        }
+        return values;
+    }
+
+    /**
+     * @return the energy consumed by all the devices
+     */
+    public double getEnergy() {
+        return energy;
+    }
+
+    /**
+     * @return the network usage per unit of simulation time
+     */
+    public double getNetworkUsage() {
+        return networkUsage;
+    }
+
+    public double getMigrationDelay() {
+        return migrationDelay;
+    }
+
+    public double getWallTime() {
+        return wallTime;
+    }
+
+    double[] getValues() {
+        return new double[]{loopLatency, loopLatencyPercentiles[0], loopLatencyPercentiles[1], loopLatencyPercentiles[2],
+                energy, networkUsage, migrationDelay, wallTime};
+    }
+}
@@ -0,0 +1,82 @@
+package org.fog.utils.sweep;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parameters of one run of a sweep, by name. Values are numbers, booleans, strings or lists of
+ * those; the typed getters fall back to a default value for the parameters that are not set.
+ */
+public class RunParameters {
+    private final Map<String, Object> values;
+
+    /**
+     * Creates empty parameters, for which every scenario uses its defaults.
+     */
+    public RunParameters() {
+        this(new LinkedHashMap<String, Object>());
+    }
+
+    public RunParameters(Map<String, Object> values) {
+        this.values = values;
+    }
+
+    public Map<String, Object> asMap() {
+        return Collections.unmodifiableMap(values);
+    }
+
+    public boolean contains(String name) {
+        return values.containsKey(name);
+    }
+
+    public Object get(String name) {
+        return values.get(name);
+    }
+
+    public int getInt(String name, int defaultValue) {
+        Object value = values.get(name);
+        return value == null ? defaultValue : ((Number) value).intValue();
+    }
+
+    public double getDouble(String name, double defaultValue) {
+        Object value = values.get(name);
+        return value == null ? defaultValue : ((Number) value).doubleValue();
+    }
+
+    public boolean getBoolean(String name, boolean defaultValue) {
+        Object value = values.get(name);
+        return value == null ? defaultValue : (Boolean) value;
+    }
+
+    public String getString(String name, String defaultValue) {
+        Object value = values.get(name);
+        return value == null ? defaultValue : value.toString();
+    }
+
+    /**
+     * Gets a list of integers, a single number being read as a list of one.
+     */
+    public List<Integer> getIntList(String name, List<Integer> defaultValue) {
+        Object value = values.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        List<Integer> list = new ArrayList<>();
+        if (value instanceof List) {
+            for (Object element : (List<?>) value) {
+                list.add(((Number) element).intValue());
+            }
+        } else {
+            list.add(((Number) value).intValue());
+        }
+        return list;
+    }
+
+    @Override
+    public String toString() {
+        return values.toString();
+    }
+}
@@ -0,0 +1,287 @@
+package org.fog.utils.sweep;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
+import org.fog.entities.FogDevice;
+import org.fog.utils.Config;
+import org.fog.utils.TimeKeeper;
+import org.fog.utils.telemetry.Telemetry;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Runs a scenario for every combination of the values of a {@link ParameterGrid}, the runs being
+ * spread over a pool of threads, each in its own {@link SimulationContext}. Each run gets a seed
+ * derived from the seed of the sweep and its run number, so that a sweep, or any one of its runs,
+ * can be reproduced.
+ * <p>
+ * Results are written as CSV, one row per run in run order, each row being written as soon as it
+ * and all the previous ones are done: the run number, its seed, one column per parameter, then the
+ * {@link RunMetrics} and the error that made the run fail, if any. With
+ * {@link Config#TELEMETRY_OUTPUT} set, each run writes its telemetry to its own file, named after
+ * it with the run number added, e.g. <code>telemetry-3.csv</code> for <code>telemetry.csv</code>.
+ * <p>
+ * Usage: SweepRunner [-t threads] [-s seed] [-o results.csv] [-v] scenarioClass name=value,value,... ...
+ * <br>
+ * where the scenario class implements {@link SweepScenario} with a public no-argument constructor,
+ * and <code>-v</code> keeps what the simulations print, which is discarded otherwise.
+ */
+public class SweepRunner {
+    private final Supplier<? extends SweepScenario> scenarios;
+    private final ParameterGrid grid;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private long seed = 0;
+    private boolean quiet = true;
+
+    /**
+     * @param scenarios creates the scenario of each run
+     * @param grid      parameters of the runs
+     */
+    public SweepRunner(Supplier<? extends SweepScenario> scenarios, ParameterGrid grid) {
+        this.scenarios = scenarios;
+        this.grid = grid;
+    }
+
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one thread is needed, but got " + threads);
+        }
+        this.threads = threads;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Sets whether what the simulations print to the standard output is discarded during the
+     * sweep, which it is by default.
+     */
+    public void setQuiet(boolean quiet) {
+        this.quiet = quiet;
+    }
+
+    /**
+     * Gets the seed of a run, mixing the seed of the sweep with the run number so that runs
+     * close in the grid get unrelated random numbers.
+     */
+    public static long getRunSeed(long seed, int run) {
+        long z = seed + (run + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Runs the whole sweep. The log of CloudSim is disabled during the runs and restored after.
+     *
+     * @param out where the results are written, flushed after every row
+     * @throws IOException          if the results can't be written
+     * @throws InterruptedException if interrupted while waiting for the runs
+     */
+    public void run(Writer out) throws IOException, InterruptedException {
+        boolean logDisabled = Log.isDisabled();
+        Log.disable();
+        PrintStream systemOut = System.out;
+        if (quiet) {
+            System.setOut(new PrintStream(new OutputStream() {
+                @Override
+                public void write(int b) {
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                }
+            }));
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            writeRow(out, getHeader());
+            List<Future<List<String>>> rows = new ArrayList<>();
+            for (int run = 0; run < grid.size(); run++) {
+                final int number = run;
+                rows.add(pool.submit(new Callable<List<String>>() {
+                    @Override
+                    public List<String> call() {
+                        return runRow(number);
+                    }
+                }));
+            }
+            for (Future<List<String>> row : rows) {
+                try {
+                    writeRow(out, row.get());
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+            System.setOut(systemOut);
+            Log.setDisabled(logDisabled);
+        }
+    }
+
+    /**
+     * Runs one simulation of the sweep on the calling thread.
+     *
+     * @param parameters parameters of the run
+     * @param runSeed    seed of the random numbers of the run
+     * @return the results of the run
+     * @throws Exception if the scenario can't be set up or fails
+     */
+    public RunMetrics runOnce(RunParameters parameters, long runSeed) throws Exception {
+        return runOnce(parameters, runSeed, null);
+    }
+
+    private RunMetrics runOnce(final RunParameters parameters, long runSeed, final String telemetryOutput) throws Exception {
+        return new SimulationContext(runSeed).call(new Callable<RunMetrics>() {
+            @Override
+            public RunMetrics call() throws Exception {
+                Telemetry.setOutput(telemetryOutput);
+                CloudSim.init(1, Calendar.getInstance(), false);
+                List<FogDevice> fogDevices = scenarios.get().createSimulation(parameters);
+                TimeKeeper.getInstance().setSimulationStartTime(Calendar.getInstance().getTimeInMillis());
+                long start = System.nanoTime();
+                CloudSim.startSimulation();
+                return new RunMetrics(fogDevices, (System.nanoTime() - start) / 1e6);
+            }
+        });
+    }
+
+    private List<String> getHeader() {
+        List<String> header = new ArrayList<>();
+        header.add("run");
+        header.add("seed");
+        header.addAll(grid.getNames());
+        for (String column : RunMetrics.COLUMNS) {
+            header.add(column);
+        }
+        header.add("error");
+        return header;
+    }
+
+    private List<String> runRow(int run) {
+        RunParameters parameters = grid.getRun(run);
+        long runSeed = getRunSeed(seed, run);
+        List<String> row = new ArrayList<>();
+        row.add(String.valueOf(run));
+        row.add(String.valueOf(runSeed));
+        for (String name : grid.getNames()) {
+            row.add(ParameterGrid.format(parameters.get(name)));
+        }
+        RunMetrics metrics = null;
+        String error = "";
+        try {
+            metrics = runOnce(parameters, runSeed, getTelemetryOutput(run));
+        } catch (Exception e) {
+            error = e.toString();
+        }
+        for (int i = 0; i < RunMetrics.COLUMNS.length; i++) {
+            row.add(metrics == null ? "" : String.valueOf(metrics.getValues()[i]));
+        }
+        row.add(error);
+        return row;
+    }
+
+    // File of the telemetry of a run: the run number is added to the name of Config.TELEMETRY_OUTPUT
+    private static String getTelemetryOutput(int run) {
+        String output = Config.TELEMETRY_OUTPUT;
+        if (output == null) {
+            return null;
+        }
+        int extension = output.lastIndexOf('.');
+        if (extension <= Math.max(output.lastIndexOf('/'), output.lastIndexOf(File.separatorChar))) {
+            extension = output.length();
+        }
+        return output.substring(0, extension) + "-" + run + output.substring(extension);
+    }
+
+    private static void writeRow(Writer out, List<String> row) throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (String value : row) {
+            if (line.length() > 0) {
+                line.append(',');
+            }
+            if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+                line.append('"').append(value.replace("\"", "\"\"")).append('"');
+            } else {
+                line.append(value);
+            }
+        }
+        out.write(line.append('\n').toString());
+        out.flush();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = 0;
+        String output = "sweep.csv";
+        boolean quiet = true;
+        String scenarioClass = null;
+        ParameterGrid grid = new ParameterGrid();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-t":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "-s":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "-o":
+                    output = args[++i];
+                    break;
+                case "-v":
+                    quiet = false;
+                    break;
+                default:
+                    if (scenarioClass == null) {
+                        scenarioClass = args[i];
+                    } else {
+                        grid.parse(args[i]);
+                    }
+            }
+        }
+        if (scenarioClass == null) {
+            System.err.println("Usage: SweepRunner [-t threads] [-s seed] [-o results.csv] [-v] scenarioClass name=value,value,... ...");
+            return;
+        }
+
+        final Class<? extends SweepScenario> type = Class.forName(scenarioClass).asSubclass(SweepScenario.class);
+        SweepRunner runner = new SweepRunner(new Supplier<SweepScenario>() {
+            @Override
+            public SweepScenario get() {
+                try {
+                    return type.getDeclaredConstructor().newInstance();
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalArgumentException("Can't create the scenario " + type.getName(), e);
+                }
+            }
+        }, grid);
+        runner.setThreads(threads);
+        runner.setSeed(seed);
+        runner.setQuiet(quiet);
+        long start = System.currentTimeMillis();
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(output), StandardCharsets.UTF_8))) {
+            runner.run(out);
+        }
+        System.err.println(grid.size() + " runs in " + (System.currentTimeMillis() - start) + " ms, results in " + output);
+    }
+}
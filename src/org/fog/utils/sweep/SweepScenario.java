@@ -0,0 +1,23 @@
+package org.fog.utils.sweep;
+
+import org.fog.entities.FogDevice;
+
+import java.util.List;
+
+/**
+ * A simulation scenario run by a {@link SweepRunner}. A new scenario is created for every run, and
+ * set up in the simulation context of the run once CloudSim has been initialised, so it can keep
+ * the entities it creates in its own fields but must not share them through static fields.
+ */
+public interface SweepScenario {
+
+    /**
+     * Creates the entities of the simulation: devices, sensors, actuators, applications and the
+     * controller. The controller must end the simulation with {@link org.fog.utils.FogUtils#exitSimulation()}.
+     *
+     * @param parameters parameters of the run, the scenario using its own defaults for the missing ones
+     * @return the fog devices of the simulation, whose energy consumption is reported
+     * @throws Exception if the simulation can't be set up
+     */
+    List<FogDevice> createSimulation(RunParameters parameters) throws Exception;
+}
@@ -0,0 +1,67 @@
+package org.fog.utils.telemetry;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+/**
+ * Writes the snapshots as CSV rows, after a header row. The CPU time of each module is in the last
+ * column, as name=time pairs separated by semicolons.
+ */
+public class CsvTelemetrySink implements TelemetrySink {
+
+    private final Writer out;
+
+    public CsvTelemetrySink(Writer out) throws IOException {
+        this.out = out;
+        StringBuilder header = new StringBuilder(
+                "time,duration,device_id,device,tuples_received,tuples_executed,tuples_forwarded,cpu_time");
+        for (String link : DeviceTelemetry.LINK_NAMES) {
+            header.append(',').append(link).append("_tuples")
+                    .append(',').append(link).append("_bytes")
+                    .append(',').append(link).append("_busy_time")
+                    .append(',').append(link).append("_queue_max");
+        }
+        out.write(header.append(",module_cpu_time\n").toString());
+    }
+
+    @Override
+    public void write(TelemetrySnapshot snapshot) throws IOException {
+        StringBuilder line = new StringBuilder();
+        line.append(snapshot.getTime())
+                .append(',').append(snapshot.getDuration())
+                .append(',').append(snapshot.getDeviceId())
+                .append(',').append(quote(snapshot.getDeviceName()))
+                .append(',').append(snapshot.getTuplesReceived())
+                .append(',').append(snapshot.getTuplesExecuted())
+                .append(',').append(snapshot.getTuplesForwarded())
+                .append(',').append(snapshot.getCpuTime());
+        for (int link = 0; link < DeviceTelemetry.LINK_NAMES.length; link++) {
+            line.append(',').append(snapshot.getLinkTuples(link))
+                    .append(',').append(snapshot.getLinkBytes(link))
+                    .append(',').append(snapshot.getLinkBusyTime(link))
+                    .append(',').append(snapshot.getLinkQueueMax(link));
+        }
+        StringBuilder modules = new StringBuilder();
+        for (Map.Entry<String, Double> entry : snapshot.getModuleCpuTime().entrySet()) {
+            if (modules.length() > 0) {
+                modules.append(';');
+            }
+            modules.append(entry.getKey()).append('=').append(entry.getValue());
+        }
+        line.append(',').append(quote(modules.toString()));
+        out.write(line.append('\n').toString());
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private static String quote(String value) {
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+}
@@ -0,0 +1,130 @@
+package org.fog.utils.telemetry;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counters of one fog device over the current interval of its {@link Telemetry}: tuples received,
+ * executed and forwarded, CPU time of each module, and for each of the links of the device, tuples
+ * and bytes sent, time the link was busy sending them and largest number of tuples waiting for it.
+ * The device calls it as tuples go through it; every call first closes the interval if it is over.
+ */
+public class DeviceTelemetry {
+    /**
+     * Link of a device to its parent
+     */
+    public static final int NORTH = 0;
+    /**
+     * Link of a device to its children
+     */
+    public static final int SOUTH = 1;
+    /**
+     * Link of a device to the other members of its cluster
+     */
+    public static final int CLUSTER = 2;
+
+    static final String[] LINK_NAMES = {"north", "south", "cluster"};
+
+    private final Telemetry telemetry;
+    private final int deviceId;
+    private final String deviceName;
+
+    private long tuplesReceived;
+    private long tuplesExecuted;
+    private long tuplesForwarded;
+    private final long[] linkTuples = new long[3];
+    private final double[] linkBytes = new double[3];
+    private final double[] linkBusyTime = new double[3];
+    private final int[] linkQueueMax = new int[3];
+    // CPU time by module, in arrays so that adding to it boxes nothing
+    private final Map<String, double[]> moduleCpuTime = new LinkedHashMap<>();
+
+    DeviceTelemetry(Telemetry telemetry, int deviceId, String deviceName) {
+        this.telemetry = telemetry;
+        this.deviceId = deviceId;
+        this.deviceName = deviceName;
+    }
+
+    /**
+     * Counts a tuple arriving at the device
+     */
+    public void tupleReceived() {
+        telemetry.advance();
+        tuplesReceived++;
+    }
+
+    /**
+     * Counts a tuple whose execution by a module of the device completed
+     *
+     * @param moduleName name of the module
+     * @param cpuTime    time from the start to the end of the execution, which tuples executing
+     *                   side by side on the module each count in full
+     */
+    public void tupleExecuted(String moduleName, double cpuTime) {
+        telemetry.advance();
+        tuplesExecuted++;
+        double[] time = moduleCpuTime.get(moduleName);
+        if (time == null) {
+            time = new double[1];
+            moduleCpuTime.put(moduleName, time);
+        }
+        time[0] += cpuTime;
+    }
+
+    /**
+     * Counts a tuple the device forwards on one of its links, either sent now or queued behind
+     * other tuples
+     *
+     * @param link       {@link #NORTH}, {@link #SOUTH} or {@link #CLUSTER}
+     * @param queueDepth number of tuples waiting for the link once the tuple is handed to it
+     */
+    public void tupleForwarded(int link, int queueDepth) {
+        telemetry.advance();
+        tuplesForwarded++;
+        linkQueueMax[link] = Math.max(linkQueueMax[link], queueDepth);
+    }
+
+    /**
+     * Counts a tuple sent on one of the links of the device
+     *
+     * @param link     {@link #NORTH}, {@link #SOUTH} or {@link #CLUSTER}
+     * @param bytes    size of the tuple
+     * @param busyTime time the link is busy sending the tuple
+     */
+    public void tupleSent(int link, double bytes, double busyTime) {
+        telemetry.advance();
+        linkTuples[link]++;
+        linkBytes[link] += bytes;
+        linkBusyTime[link] += busyTime;
+    }
+
+    public int getDeviceId() {
+        return deviceId;
+    }
+
+    public String getDeviceName() {
+        return deviceName;
+    }
+
+    // Takes the counters of the interval ending, and starts the next one from zero
+    TelemetrySnapshot takeSnapshot(double time, double duration) {
+        Map<String, Double> cpuTimes = new LinkedHashMap<>();
+        for (Map.Entry<String, double[]> entry : moduleCpuTime.entrySet()) {
+            cpuTimes.put(entry.getKey(), entry.getValue()[0]);
+            entry.getValue()[0] = 0;
+        }
+        TelemetrySnapshot snapshot = new TelemetrySnapshot(time, duration, deviceId, deviceName, tuplesReceived,
+                tuplesExecuted, tuplesForwarded, linkTuples.clone(), linkBytes.clone(), linkBusyTime.clone(),
+                linkQueueMax.clone(), cpuTimes);
+        tuplesReceived = 0;
+        tuplesExecuted = 0;
+        tuplesForwarded = 0;
+        for (int link = 0; link < 3; link++) {
+            linkTuples[link] = 0;
+            linkBytes[link] = 0;
+            linkBusyTime[link] = 0;
+            linkQueueMax[link] = 0;
+        }
+        return snapshot;
+    }
+}
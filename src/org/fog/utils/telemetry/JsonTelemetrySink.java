@@ -0,0 +1,54 @@
+package org.fog.utils.telemetry;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+import org.json.simple.JSONObject;
+
+/**
+ * Writes the snapshots as JSON lines, one object per snapshot, with an object per link and one of
+ * the CPU time of each module.
+ */
+public class JsonTelemetrySink implements TelemetrySink {
+
+    private final Writer out;
+
+    public JsonTelemetrySink(Writer out) {
+        this.out = out;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void write(TelemetrySnapshot snapshot) throws IOException {
+        JSONObject object = new JSONObject();
+        object.put("time", snapshot.getTime());
+        object.put("duration", snapshot.getDuration());
+        object.put("device_id", snapshot.getDeviceId());
+        object.put("device", snapshot.getDeviceName());
+        object.put("tuples_received", snapshot.getTuplesReceived());
+        object.put("tuples_executed", snapshot.getTuplesExecuted());
+        object.put("tuples_forwarded", snapshot.getTuplesForwarded());
+        object.put("cpu_time", snapshot.getCpuTime());
+        for (int link = 0; link < DeviceTelemetry.LINK_NAMES.length; link++) {
+            JSONObject linkObject = new JSONObject();
+            linkObject.put("tuples", snapshot.getLinkTuples(link));
+            linkObject.put("bytes", snapshot.getLinkBytes(link));
+            linkObject.put("busy_time", snapshot.getLinkBusyTime(link));
+            linkObject.put("queue_max", snapshot.getLinkQueueMax(link));
+            object.put(DeviceTelemetry.LINK_NAMES[link], linkObject);
+        }
+        JSONObject modules = new JSONObject();
+        for (Map.Entry<String, Double> entry : snapshot.getModuleCpuTime().entrySet()) {
+            modules.put(entry.getKey(), entry.getValue());
+        }
+        object.put("module_cpu_time", modules);
+        out.write(object.toJSONString());
+        out.write('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,159 @@
+package org.fog.utils.telemetry;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
+import org.fog.entities.FogDevice;
+import org.fog.utils.Config;
+
+/**
+ * Telemetry of the fog devices of the simulation context of the calling thread: the counters of
+ * each device are written to a {@link TelemetrySink} every interval of simulation time, one
+ * snapshot per device and interval, idle devices and intervals included.
+ * <p>
+ * Nothing is scheduled for it: an interval is written by the first count of a device after its
+ * end, and the last one by {@link #close()}, so that the telemetry leaves the events of the
+ * simulation, and so its results, as they were. Devices only count once the telemetry is open, when
+ * they are created; with an output set, by {@link #setOutput(String)} or else by
+ * {@link Config#TELEMETRY_OUTPUT}, it opens itself for the first device.
+ * With {@link Config#TELEMETRY_COMPILED} false the devices do not count at all.
+ */
+public class Telemetry {
+
+    private TelemetrySink sink;
+    private String output;
+    private double interval;
+    private double intervalStart;
+    private final List<DeviceTelemetry> devices = new ArrayList<>();
+
+    private static Telemetry getInstance() {
+        return SimulationContext.current().getComponent(Telemetry.class, Telemetry::new);
+    }
+
+    /**
+     * Opens the telemetry of the simulation context of the calling thread, for the devices created
+     * from now on
+     *
+     * @param sink     where to write the snapshots
+     * @param interval simulation time covered by each snapshot
+     */
+    public static void open(TelemetrySink sink, double interval) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Telemetry interval must be positive: " + interval);
+        }
+        Telemetry telemetry = getInstance();
+        if (telemetry.sink != null) {
+            throw new IllegalStateException("Telemetry already open");
+        }
+        telemetry.sink = sink;
+        telemetry.interval = interval;
+        telemetry.intervalStart = 0;
+        telemetry.devices.clear();
+    }
+
+    /**
+     * Opens the telemetry on a file: JSON lines if its name ends with .json, CSV otherwise
+     *
+     * @param path     the file
+     * @param interval simulation time covered by each snapshot
+     * @throws IOException if the file cannot be created
+     */
+    public static void open(String path, double interval) throws IOException {
+        Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(path), StandardCharsets.UTF_8));
+        open(path.endsWith(".json") ? new JsonTelemetrySink(out) : new CsvTelemetrySink(out), interval);
+    }
+
+    /**
+     * Sets the file the telemetry of the simulation context of the calling thread opens itself on,
+     * instead of {@link Config#TELEMETRY_OUTPUT}, so that simulations run at the same time write
+     * to different files
+     *
+     * @param path the file, or null for {@link Config#TELEMETRY_OUTPUT}
+     */
+    public static void setOutput(String path) {
+        getInstance().output = path;
+    }
+
+    /**
+     * Registers a device with the telemetry of the simulation context of the calling thread
+     *
+     * @param device the device
+     * @return the counters of the device, or null if the telemetry is not open
+     */
+    public static DeviceTelemetry register(FogDevice device) {
+        Telemetry telemetry = getInstance();
+        String output = telemetry.output != null ? telemetry.output : Config.TELEMETRY_OUTPUT;
+        if (telemetry.sink == null && output != null) {
+            try {
+                open(output, Config.TELEMETRY_INTERVAL);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        if (telemetry.sink == null) {
+            return null;
+        }
+        DeviceTelemetry deviceTelemetry = new DeviceTelemetry(telemetry, device.getId(), device.getName());
+        telemetry.devices.add(deviceTelemetry);
+        return deviceTelemetry;
+    }
+
+    public static boolean isOpen() {
+        return getInstance().sink != null;
+    }
+
+    /**
+     * Writes the interval under way, cut at the current simulation time, and closes the sink.
+     * Does nothing if the telemetry is not open.
+     */
+    public static void close() {
+        Telemetry telemetry = getInstance();
+        if (telemetry.sink == null) {
+            return;
+        }
+        try {
+            double now = CloudSim.clock();
+            telemetry.advance(now);
+            if (now > telemetry.intervalStart) {
+                telemetry.writeInterval(now - telemetry.intervalStart);
+            }
+            telemetry.sink.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            telemetry.sink = null;
+            telemetry.devices.clear();
+        }
+    }
+
+    // Writes the intervals over by the current simulation time
+    void advance() {
+        try {
+            advance(CloudSim.clock());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void advance(double now) throws IOException {
+        while (now >= intervalStart + interval) {
+            writeInterval(interval);
+        }
+    }
+
+    private void writeInterval(double duration) throws IOException {
+        for (DeviceTelemetry device : devices) {
+            sink.write(device.takeSnapshot(intervalStart, duration));
+        }
+        intervalStart += duration;
+    }
+}
@@ -0,0 +1,13 @@
+package org.fog.utils.telemetry;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Destination of the snapshots of a {@link Telemetry}, written interval after interval, device
+ * after device in the order the devices were created.
+ */
+public interface TelemetrySink extends Closeable {
+
+    void write(TelemetrySnapshot snapshot) throws IOException;
+}
@@ -0,0 +1,115 @@
+package org.fog.utils.telemetry;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Counters of one fog device over one interval of a simulation, as written to a
+ * {@link TelemetrySink}. The link values are indexed by {@link DeviceTelemetry#NORTH},
+ * {@link DeviceTelemetry#SOUTH} and {@link DeviceTelemetry#CLUSTER}.
+ */
+public class TelemetrySnapshot {
+    private final double time;
+    private final double duration;
+    private final int deviceId;
+    private final String deviceName;
+    private final long tuplesReceived;
+    private final long tuplesExecuted;
+    private final long tuplesForwarded;
+    private final long[] linkTuples;
+    private final double[] linkBytes;
+    private final double[] linkBusyTime;
+    private final int[] linkQueueMax;
+    private final Map<String, Double> moduleCpuTime;
+
+    TelemetrySnapshot(double time, double duration, int deviceId, String deviceName, long tuplesReceived,
+                      long tuplesExecuted, long tuplesForwarded, long[] linkTuples, double[] linkBytes,
+                      double[] linkBusyTime, int[] linkQueueMax, Map<String, Double> moduleCpuTime) {
+        this.time = time;
+        this.duration = duration;
+        this.deviceId = deviceId;
+        this.deviceName = deviceName;
+        this.tuplesReceived = tuplesReceived;
+        this.tuplesExecuted = tuplesExecuted;
+        this.tuplesForwarded = tuplesForwarded;
+        this.linkTuples = linkTuples;
+        this.linkBytes = linkBytes;
+        this.linkBusyTime = linkBusyTime;
+        this.linkQueueMax = linkQueueMax;
+        this.moduleCpuTime = Collections.unmodifiableMap(moduleCpuTime);
+    }
+
+    /**
+     * @return the simulation time the interval starts at
+     */
+    public double getTime() {
+        return time;
+    }
+
+    /**
+     * @return the length of the interval, shorter than the telemetry interval for the last one
+     */
+    public double getDuration() {
+        return duration;
+    }
+
+    public int getDeviceId() {
+        return deviceId;
+    }
+
+    public String getDeviceName() {
+        return deviceName;
+    }
+
+    public long getTuplesReceived() {
+        return tuplesReceived;
+    }
+
+    public long getTuplesExecuted() {
+        return tuplesExecuted;
+    }
+
+    public long getTuplesForwarded() {
+        return tuplesForwarded;
+    }
+
+    public long getLinkTuples(int link) {
+        return linkTuples[link];
+    }
+
+    public double getLinkBytes(int link) {
+        return linkBytes[link];
+    }
+
+    /**
+     * @return the time the link was busy sending the tuples sent in the interval
+     */
+    public double getLinkBusyTime(int link) {
+        return linkBusyTime[link];
+    }
+
+    /**
+     * @return the largest number of tuples waiting for the link in the interval
+     */
+    public int getLinkQueueMax(int link) {
+        return linkQueueMax[link];
+    }
+
+    /**
+     * @return the CPU time of the executions completed in the interval, by module name
+     */
+    public Map<String, Double> getModuleCpuTime() {
+        return moduleCpuTime;
+    }
+
+    /**
+     * @return the CPU time of the executions completed in the interval by all the modules
+     */
+    public double getCpuTime() {
+        double total = 0;
+        for (double cpuTime : moduleCpuTime.values()) {
+            total += cpuTime;
+        }
+        return total;
+    }
+}